@@ -0,0 +1,151 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class holds the clubbers the benchmarks are run over and the way
+ * they compare two ways of asking a question.
+ * <br> Clubber number i has its own ID, and its own personal number or
+ * student ID if it is a soldier or a student, all of them valid for
+ * {@link ClubberValidator}. The IDs are distinct for up to 100M clubbers and
+ * the personal numbers for up to 27M. The clubbers have a few names, surnames
+ * and country codes and are of every type in turn.
+ * @author Lior Sabri, Ben Biton
+ */
+public class BenchClubbers
+{
+	private static final String[] NAMES = {"Lior", "Ben", "Dana", "Noa", "Itay"};
+	private static final String[] SURNAMES = {"Cohen", "Levi", "Biton", "Sabri", "Mizrahi",
+		"Peretz", "Avraham", "Friedman", "Azulay", "Katz", "Ben-David"};
+	private static final String[] TELS = {"+(972)54-1234567", "+(972)3-1234567",
+		"+(1)212-1234567", "+(44)20-1234567", "+(33)1-1234567"};
+
+	// The letters of the first student IDs, "TAU" as a number in base 26.
+	private static final int FIRST_LETTERS = ('T' - 'A') * 26 * 26 + ('A' - 'A') * 26 + 'U' - 'A';
+
+	/**
+	 * BenchClubbers Constructor - not used, the class only has static methods.
+	 */
+	private BenchClubbers()
+	{
+	}
+
+	/**
+	 * This method makes clubbers.
+	 * @param count holds the number of clubbers.
+	 * @return the records of clubbers 0 to count - 1.
+	 */
+	public static ArrayList<ClubAbstractRecord> records(int count)
+	{
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(count);
+
+		for (int i = 0; i < count; i++)
+		{
+			records.add(record(i));
+		}
+
+		return records;
+	}
+
+	/**
+	 * This method makes a clubber, a person, a soldier or a student in turn.
+	 * @param i holds the number of the clubber.
+	 * @return the record.
+	 */
+	public static ClubAbstractRecord record(int i)
+	{
+		switch (i % 3)
+		{
+			case 0:
+				return person(i);
+			case 1:
+				return soldier(i);
+			default:
+				return student(i);
+		}
+	}
+
+	/**
+	 * This method makes a clubber who is a person.
+	 * @param i holds the number of the clubber.
+	 * @return the record.
+	 */
+	public static PersonRecord person(int i)
+	{
+		return new PersonRecord(id(i), NAMES[i % NAMES.length], SURNAMES[i % SURNAMES.length],
+			TELS[i % TELS.length]);
+	}
+
+	/**
+	 * This method makes a clubber who is a soldier.
+	 * @param i holds the number of the clubber.
+	 * @return the record.
+	 */
+	public static SoldierRecord soldier(int i)
+	{
+		return new SoldierRecord(person(i), "ROC".charAt(i / 9000000 % 3) + "/" +
+			(1000000 + i % 9000000));
+	}
+
+	/**
+	 * This method makes a clubber who is a student.
+	 * @param i holds the number of the clubber.
+	 * @return the record.
+	 */
+	public static StudentRecord student(int i)
+	{
+		int letters = (FIRST_LETTERS + i / 90000) % (26 * 26 * 26);
+		char[] studentID = {(char)('A' + letters / (26 * 26)), (char)('A' + letters / 26 % 26),
+			(char)('A' + letters % 26)};
+
+		return new StudentRecord(person(i), new String(studentID) + (10000 + i % 90000));
+	}
+
+	/**
+	 * This method makes the ID of a clubber.
+	 * @param i holds the number of the clubber.
+	 * @return the ID.
+	 */
+	public static String id(int i)
+	{
+		return String.format("%d-%07d|%d", i / 10000000 % 10, i % 10000000, i % 9 + 1);
+	}
+
+	/**
+	 * This method asks a question two ways and prints the best time of both.
+	 * @param question holds the name of the question.
+	 * @param runs holds the number of times it is asked.
+	 * @param firstName holds the name of the first way.
+	 * @param first asks the question the first way.
+	 * @param secondName holds the name of the second way.
+	 * @param second asks the question the second way.
+	 * @throws IllegalStateException if the answers of both ways aren't the same.
+	 */
+	public static void compare(String question, int runs, String firstName,
+		Supplier<Object> first, String secondName, Supplier<Object> second)
+	{
+		long firstTime = Long.MAX_VALUE;
+		long secondTime = Long.MAX_VALUE;
+		Object firstAnswer = null;
+		Object secondAnswer = null;
+
+		for (int run = 0; run < runs; run++)
+		{
+			long start = System.nanoTime();
+			firstAnswer = first.get();
+			firstTime = Math.min(firstTime, System.nanoTime() - start);
+
+			start = System.nanoTime();
+			secondAnswer = second.get();
+			secondTime = Math.min(secondTime, System.nanoTime() - start);
+		}
+
+		if (!firstAnswer.equals(secondAnswer))
+		{
+			throw new IllegalStateException(question + ": " + firstAnswer + " instead of " +
+				secondAnswer);
+		}
+
+		System.out.printf("%-26s %s %6d ms, %s %6d ms%n", question, firstName,
+			firstTime / 1000000, secondName, secondTime / 1000000);
+	}
+}
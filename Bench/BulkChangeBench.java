@@ -0,0 +1,118 @@
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class compares removing a group of clubbers one at a time, as the
+ * delete dialog does, with removing them in a single pass with
+ * {@link ClubbersRepository#removeIf}, while the changes are written to a
+ * {@link ClubbersJournal}.
+ * <br> Every round fills a new repository, removes every student with both
+ * ways and prints the time and the bytes the journal grew by. The clubbers
+ * left must be the same.
+ * <br> It can be run from the command line:
+ * <br> java BulkChangeBench [clubbers] [runs]
+ * @author Lior Sabri, Ben Biton
+ */
+public class BulkChangeBench
+{
+	/**
+	 * static main method.
+	 * Prints the best time and the journal size of both ways.
+	 * @param args number of clubbers and runs.
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		ArrayList<ClubAbstractRecord> records = BenchClubbers.records(count);
+
+		Predicate<ClubAbstractRecord> students = record -> record instanceof StudentRecord;
+
+		System.out.printf("%d clubbers, removing %d students%n", count,
+			records.stream().filter(students).count());
+
+		String oneByOne = print("remove", records, runs, repository ->
+		{
+			for (ClubAbstractRecord record : repository.getClubbers())
+			{
+				if (students.test(record))
+				{
+					repository.remove(record);
+				}
+			}
+		});
+
+		String bulk = print("removeIf", records, runs,
+			repository -> repository.removeIf(students));
+
+		if (!oneByOne.equals(bulk))
+		{
+			throw new IllegalStateException("Different clubbers were left");
+		}
+	}
+
+	/**
+	 * This method removes the students with one way in a few rounds and
+	 * prints the best time and the size of the journal.
+	 * @param name holds the name of the way.
+	 * @param records holds the clubbers to fill the repository with.
+	 * @param runs holds the number of rounds.
+	 * @param removal holds the way to remove the students.
+	 * @return the sorted IDs of the clubbers left.
+	 */
+	private static String print(String name, List<ClubAbstractRecord> records, int runs,
+		Consumer<ClubbersRepository> removal) throws Exception
+	{
+		long best = Long.MAX_VALUE;
+		long journalSize = 0;
+		StringBuilder left = new StringBuilder();
+
+		for (int run = 0; run < runs; run++)
+		{
+			Path path = Files.createTempFile("BKCustomers", ".log");
+			Files.delete(path);
+
+			ClubbersRepository repository = new ClubbersRepository(records);
+			ClubbersJournal journal = new ClubbersJournal(path);
+
+			try
+			{
+				repository.setListener(journal);
+
+				long start = System.nanoTime();
+				removal.accept(repository);
+				best = Math.min(best, System.nanoTime() - start);
+
+				journal.flush();
+				journalSize = journal.size();
+			}
+			finally
+			{
+				journal.close();
+				Files.delete(path);
+			}
+
+			// Removing one at a time moves the last clubber into the freed
+			// position, so only the IDs left are compared and not their order.
+			ArrayList<String> ids = new ArrayList<>(repository.size());
+
+			for (ClubAbstractRecord record : repository)
+			{
+				ids.add(record.getID());
+			}
+
+			Collections.sort(ids);
+			left.setLength(0);
+
+			for (String id : ids)
+			{
+				left.append(id).append('\n');
+			}
+		}
+
+		System.out.printf("%-8s %8d ms, journal %9d bytes%n", name, best / 1000000, journalSize);
+
+		return left.toString();
+	}
+}
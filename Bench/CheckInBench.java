@@ -0,0 +1,149 @@
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class measures the latency of {@link ClubbersCheckIn#checkIn} when
+ * many doors scan at once.
+ * <br> Every door is a virtual thread which scans random keys, most of them
+ * IDs of clubbers and some unknown, and times every check-in. The latencies
+ * of all the doors are then sorted and their percentiles printed.
+ * <br> A first round only warms up the JIT.
+ * <br> It can be run from the command line:
+ * <br> java CheckInBench [clubbers] [doors] [scans per door]
+ * @author Lior Sabri, Ben Biton
+ */
+public class CheckInBench
+{
+	// One scan in this many is of a key no clubber has.
+	private static final int UNKNOWN_EVERY = 10;
+
+	/**
+	 * static main method.
+	 * Fills a repository and prints the latency percentiles of the check-ins.
+	 * @param args number of clubbers, doors and scans per door.
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int doors = args.length > 1 ? Integer.parseInt(args[1]) : 10000;
+		int scans = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+		ClubbersRepository repository = new ClubbersRepository();
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(count);
+		String[] ids = new String[count];
+
+		for (int i = 0; i < count; i++)
+		{
+			ids[i] = BenchClubbers.id(i);
+			records.add(BenchClubbers.person(i));
+		}
+
+		repository.addAll(records);
+
+		System.out.printf("%d clubbers, %d doors, %d scans per door, %d cores%n",
+			repository.size(), doors, scans, Runtime.getRuntime().availableProcessors());
+
+		run(new ClubbersCheckIn(repository), ids, doors, scans, false);
+		run(new ClubbersCheckIn(repository), ids, doors, scans, true);
+	}
+
+	/**
+	 * This method runs all the doors and prints the latency percentiles.
+	 * @param checkIn holds the check-in of the clubbers.
+	 * @param ids holds the IDs of the clubbers.
+	 * @param doors holds the number of doors.
+	 * @param scans holds the number of scans of every door.
+	 * @param print holds whether to print the results, false to warm up.
+	 */
+	private static void run(ClubbersCheckIn checkIn, String[] ids, int doors, int scans,
+		boolean print) throws Exception
+	{
+		long[][] latencies = new long[doors][];
+		int[] results = new int[ClubbersCheckIn.Result.values().length];
+		ArrayList<Future<int[]>> futures = new ArrayList<>(doors);
+		long start = System.nanoTime();
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			for (int door = 0; door < doors; door++)
+			{
+				int index = door;
+
+				futures.add(executor.submit(() ->
+				{
+					ThreadLocalRandom random = ThreadLocalRandom.current();
+					long[] times = new long[scans];
+					int[] doorResults = new int[results.length];
+
+					for (int i = 0; i < scans; i++)
+					{
+						String key = random.nextInt(UNKNOWN_EVERY) == 0 ?
+							String.format("%09d", random.nextInt(1000000000)) :
+							ids[random.nextInt(ids.length)];
+						long before = System.nanoTime();
+						ClubbersCheckIn.Entry entry = checkIn.checkIn(key);
+
+						times[i] = System.nanoTime() - before;
+						doorResults[entry.getResult().ordinal()]++;
+
+						// Doors scan one guest after another, let the others run.
+						Thread.yield();
+					}
+
+					latencies[index] = times;
+					return doorResults;
+				}));
+			}
+
+			for (Future<int[]> future : futures)
+			{
+				int[] doorResults = future.get();
+
+				for (int i = 0; i < results.length; i++)
+				{
+					results[i] += doorResults[i];
+				}
+			}
+		}
+
+		long elapsed = System.nanoTime() - start;
+
+		if (!print)
+		{
+			return;
+		}
+
+		long[] all = new long[doors * scans];
+
+		for (int door = 0; door < doors; door++)
+		{
+			System.arraycopy(latencies[door], 0, all, door * scans, scans);
+		}
+
+		Arrays.sort(all);
+
+		System.out.printf("%,d check-ins in %d ms, %,d check-ins/s%n", all.length,
+			elapsed / 1000000, all.length * 1000000000L / elapsed);
+
+		for (ClubbersCheckIn.Result result : ClubbersCheckIn.Result.values())
+		{
+			System.out.printf("  %-14s %,d%n", result, results[result.ordinal()]);
+		}
+
+		System.out.printf("p50 %.1f us  p99 %.1f us  p999 %.1f us  max %.1f us%n",
+			percentile(all, 0.5), percentile(all, 0.99), percentile(all, 0.999),
+			all[all.length - 1] / 1000.0);
+	}
+
+	/**
+	 * This method returns a percentile of sorted latencies.
+	 * @param sorted holds the latencies in nanoseconds, sorted.
+	 * @param fraction holds the percentile as a fraction, such as 0.99.
+	 * @return the latency in microseconds.
+	 */
+	private static double percentile(long[] sorted, double fraction)
+	{
+		int index = (int)Math.min(sorted.length - 1, Math.ceil(fraction * sorted.length) - 1);
+
+		return sorted[Math.max(0, index)] / 1000.0;
+	}
+}
@@ -0,0 +1,86 @@
+import java.util.*;
+
+/**
+ * This class compares counting the clubbers in the {@link ClubbersColumns}
+ * with counting them over their records with a {@link ClubbersQuery}, and
+ * measures what keeping the columns up to date adds to a change.
+ * <br> The clubbers are the ones of {@link BenchClubbers} and the questions
+ * are compared as {@link BenchClubbers#compare} does.
+ * <br> It can be run from the command line, 10M clubbers need about 4GB:
+ * <br> java -Xmx4g ColumnsBench [clubbers] [runs]
+ * @author Lior Sabri, Ben Biton
+ */
+public class ColumnsBench
+{
+	/**
+	 * static main method.
+	 * Prints the best time of every question both ways and the time of
+	 * changes with and without the columns.
+	 * @param args number of clubbers and runs.
+	 */
+	public static void main(String[] args)
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		ClubbersRepository repository = new ClubbersRepository(BenchClubbers.records(count));
+
+		long start = System.nanoTime();
+		ClubbersColumns columns = ClubbersColumns.attach(repository);
+
+		System.out.printf("%d clubbers, columns filled in %d ms%n", columns.size(),
+			(System.nanoTime() - start) / 1000000);
+
+		ClubbersQuery query = new ClubbersQuery(repository);
+
+		BenchClubbers.compare("count by type", runs,
+			"records", () -> query.countBy(ClubbersQuery.TYPE),
+			"columns", () -> columns.countBy(ClubbersColumns.TYPE, ClubbersColumns.Filter.ALL));
+		BenchClubbers.compare("count by country code", runs,
+			"records", () -> query.countBy(ClubbersQuery.COUNTRY_CODE),
+			"columns", () -> columns.countBy(ClubbersColumns.COUNTRY_CODE,
+				ClubbersColumns.Filter.ALL));
+		BenchClubbers.compare("count by surname", runs,
+			"records", () -> query.countBy(record -> ((PersonRecord)record).getSurname()),
+			"columns", () -> columns.countBy(ClubbersColumns.SURNAME, ClubbersColumns.Filter.ALL));
+		BenchClubbers.compare("count of Levi soldiers", runs,
+			"records", () -> query.where(record -> record instanceof SoldierRecord)
+				.where(record -> "Levi".equals(((PersonRecord)record).getSurname())).count(),
+			"columns", () -> columns.count(ClubbersColumns.Filter.ALL
+				.type(ClubbersColumns.SOLDIER).equal(ClubbersColumns.SURNAME, "Levi")));
+
+		int changes = Math.min(count, 1000000);
+
+		System.out.printf("%d adds and removes with the columns %d ms", changes,
+			change(repository, count, changes));
+		columns.detach(repository);
+		System.out.printf(", without them %d ms%n", change(repository, count, changes));
+	}
+
+	/**
+	 * This method adds clubbers and removes them again.
+	 * @param repository holds the clubbers.
+	 * @param first holds the number of the first clubber to add.
+	 * @param changes holds the number of clubbers to add.
+	 * @return the time in milliseconds.
+	 */
+	private static long change(ClubbersRepository repository, int first, int changes)
+	{
+		Set<ClubAbstractRecord> added = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		for (int i = 0; i < changes; i++)
+		{
+			added.add(BenchClubbers.record(first + i));
+		}
+
+		long start = System.nanoTime();
+
+		for (ClubAbstractRecord record : added)
+		{
+			repository.add(record);
+		}
+
+		repository.removeIf(added::contains);
+
+		return (System.nanoTime() - start) / 1000000;
+	}
+}
@@ -0,0 +1,131 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * This class measures how the lookups of a {@link ClubbersRepository} scale
+ * with the number of threads reading it, while another thread keeps adding,
+ * editing and removing clubbers as the window or an import would.
+ * <br> Every reader looks up the IDs of clubbers which are never changed, a
+ * lookup which doesn't find its clubber is counted as a miss and must not
+ * happen.
+ * <br> It can be run from the command line:
+ * <br> java ConcurrentReadBench [clubbers] [seconds per round] [most threads]
+ * @author Lior Sabri, Ben Biton
+ */
+public class ConcurrentReadBench
+{
+	/**
+	 * static main method.
+	 * Fills a repository and prints the lookups per second of every number of
+	 * reader threads, with and without a writer.
+	 * @param args number of clubbers, seconds per round and most threads.
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+		int maxThreads = args.length > 2 ? Integer.parseInt(args[2]) :
+			Runtime.getRuntime().availableProcessors();
+		ClubbersRepository repository = new ClubbersRepository();
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(count);
+		String[] ids = new String[count];
+
+		for (int i = 0; i < count; i++)
+		{
+			ids[i] = BenchClubbers.id(i);
+			records.add(BenchClubbers.person(i));
+		}
+
+		repository.addAll(records);
+
+		System.out.printf("%d clubbers, %d cores%n", repository.size(),
+			Runtime.getRuntime().availableProcessors());
+
+		for (boolean writing : new boolean[] {false, true})
+		{
+			for (int threads = 1; threads <= maxThreads; threads *= 2)
+			{
+				run(repository, ids, threads, seconds, writing);
+			}
+		}
+	}
+
+	/**
+	 * This method runs the readers, and the writer if asked, for a number of
+	 * seconds and prints how many lookups were made.
+	 * @param repository holds the clubbers.
+	 * @param ids holds the IDs which the readers look up.
+	 * @param threads holds the number of readers.
+	 * @param seconds holds how long to run.
+	 * @param writing holds whether a writer changes the repository meanwhile.
+	 */
+	private static void run(ClubbersRepository repository, String[] ids, int threads,
+		int seconds, boolean writing) throws Exception
+	{
+		AtomicBoolean running = new AtomicBoolean(true);
+		LongAdder lookups = new LongAdder();
+		LongAdder misses = new LongAdder();
+		LongAdder changes = new LongAdder();
+		ExecutorService executor = Executors.newFixedThreadPool(threads + 1);
+		CountDownLatch started = new CountDownLatch(threads);
+
+		for (int i = 0; i < threads; i++)
+		{
+			int seed = i;
+
+			executor.submit(() ->
+			{
+				ThreadLocalRandom random = ThreadLocalRandom.current();
+				long done = 0;
+
+				started.countDown();
+
+				while (running.get())
+				{
+					if (repository.find(ids[random.nextInt(ids.length)]) == null)
+					{
+						misses.increment();
+					}
+
+					done++;
+				}
+
+				lookups.add(done);
+				return seed;
+			});
+		}
+
+		if (writing)
+		{
+			executor.submit(() ->
+			{
+				long done = 0;
+
+				while (running.get())
+				{
+					PersonRecord record = BenchClubbers.person(ids.length + (int)(done % 1000));
+
+					repository.add(record);
+					repository.replace(record, new PersonRecord(record.getID(), "Other",
+						record.getSurname(), record.getTel()));
+					repository.remove(repository.findByID(record.getID()));
+					done += 3;
+				}
+
+				changes.add(done);
+				return null;
+			});
+		}
+
+		started.await();
+		Thread.sleep(seconds * 1000L);
+		running.set(false);
+		executor.shutdown();
+		executor.awaitTermination(1, TimeUnit.MINUTES);
+
+		System.out.printf("%-14s %2d threads  %,13d lookups/s  %,10d changes/s  %d misses%n",
+			writing ? "with writer" : "readers only", threads,
+			lookups.sum() / seconds, changes.sum() / seconds, misses.sum());
+	}
+}
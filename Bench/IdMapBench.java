@@ -0,0 +1,143 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class compares the memory and lookup time of a {@link ClubberKeyMap}
+ * of IDs with a {@link java.util.HashMap} from the ID strings.
+ * <br> The IDs are made first and kept by both maps as the records would, so
+ * the memory of every map is only what it adds on top of the IDs. The
+ * lookups use copies of the IDs, as typed by the user, so their hash isn't
+ * cached yet.
+ * <br> It can be run from the command line, 10M IDs need about 3GB:
+ * <br> java -Xmx3g IdMapBench [IDs] [lookups]
+ * @author Lior Sabri, Ben Biton
+ */
+public class IdMapBench
+{
+	// Written so the JIT can't drop the lookups.
+	private static int sink;
+
+	/**
+	 * static main method.
+	 * Builds both maps and prints their memory and lookup time.
+	 * @param args number of IDs and number of lookups.
+	 */
+	public static void main(String[] args)
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		Random random = new Random(1);
+		String[] ids = new String[count];
+		String[] keys = new String[lookups];
+		Object value = new Object();
+
+		for (int i = 0; i < count; i++)
+		{
+			ids[i] = String.format("%d-%07d|%d", i % 10, random.nextInt(10000000), i % 9 + 1);
+		}
+
+		for (int i = 0; i < lookups; i++)
+		{
+			keys[i] = new String(ids[random.nextInt(count)].toCharArray());
+		}
+
+		HashMap<String, Object> hashMap = new HashMap<>();
+		long hashMapMemory = fill(ids, id -> hashMap.put(id, value));
+		int hashMapSize = hashMap.size();
+		double hashMapTime = time(keys, key -> hashMap.get(key) != null);
+
+		hashMap.clear();
+
+		ClubberKeyMap<Object> keyMap = new ClubberKeyMap<>(ClubberKeyMap::packID);
+		long keyMapMemory = fill(ids, id -> keyMap.put(id, value));
+		double keyMapTime = time(keys, key -> keyMap.get(key) != null);
+
+		if (keyMap.size() != hashMapSize)
+		{
+			throw new AssertionError("Maps hold different IDs");
+		}
+
+		System.out.printf("%d IDs%n", keyMap.size());
+		System.out.printf("HashMap<String, Object>  %6d MB  %5.1f bytes/ID  %6.1f ns/lookup%n",
+			hashMapMemory >> 20, (double)hashMapMemory / hashMapSize, hashMapTime);
+		System.out.printf("ClubberKeyMap<Object>    %6d MB  %5.1f bytes/ID  %6.1f ns/lookup%n",
+			keyMapMemory >> 20, (double)keyMapMemory / hashMapSize, keyMapTime);
+		System.out.printf("ID strings (kept by the records either way) %d MB%n",
+			(long)count * (24 + 16 + 16) >> 20);
+		System.out.println(sink == 42 ? "" : " ");
+	}
+
+	/**
+	 * This method puts all the IDs in a map.
+	 * @param ids holds the IDs.
+	 * @param put holds the put method of the map.
+	 * @return the memory the map uses after all the IDs were put.
+	 */
+	private static long fill(String[] ids, Consumer<String> put)
+	{
+		long before = usedMemory();
+
+		for (String id : ids)
+		{
+			put.accept(id);
+		}
+
+		return usedMemory() - before;
+	}
+
+	/**
+	 * This method returns the memory used after a garbage collection.
+	 * @return the used memory in bytes.
+	 */
+	private static long usedMemory()
+	{
+		Runtime runtime = Runtime.getRuntime();
+
+		for (int i = 0; i < 3; i++)
+		{
+			System.gc();
+		}
+
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * This method times the lookups after warming them up.
+	 * @param keys holds the keys to look up.
+	 * @param lookup holds the lookup.
+	 * @return the average nanoseconds of a lookup in the fastest round.
+	 */
+	private static double time(String[] keys, Predicate<String> lookup)
+	{
+		long best = Long.MAX_VALUE;
+
+		for (int round = -3; round < 5; round++)
+		{
+			// Fresh copies so the hash of the strings isn't cached.
+			String[] copies = new String[keys.length];
+
+			for (int i = 0; i < keys.length; i++)
+			{
+				copies[i] = new String(keys[i].toCharArray());
+			}
+
+			long start = System.nanoTime();
+
+			for (String key : copies)
+			{
+				if (lookup.test(key))
+				{
+					sink++;
+				}
+			}
+
+			// The first rounds only warm up.
+			if (round >= 0)
+			{
+				best = Math.min(best, System.nanoTime() - start);
+			}
+		}
+
+		return (double)best / keys.length;
+	}
+}
@@ -0,0 +1,128 @@
+import java.nio.file.*;
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class measures how long finding a key takes when a clubber has it and
+ * when no clubber has it, in a {@link ClubbersRepository} and in a
+ * {@link MappedClubbersStore}, and how many keys the
+ * {@link ClubbersBloomFilter} lets through by mistake.
+ * <br> The missing keys look like the existing ones, as the keys scanned at
+ * the doors would, so the filter is what rejects them and not the format.
+ * <br> It can be run from the command line:
+ * <br> java NegativeLookupBench [clubbers] [lookups]
+ * @author Lior Sabri, Ben Biton
+ */
+public class NegativeLookupBench
+{
+	// Written so the JIT can't drop the lookups.
+	private static int sink;
+
+	/**
+	 * static main method.
+	 * Prints the lookup times of both stores and the false positive rate.
+	 * @param args number of clubbers and number of lookups.
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 1000000;
+		Random random = new Random(1);
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(count);
+		String[] hits = new String[lookups];
+		String[] misses = new String[lookups];
+
+		for (int i = 0; i < count; i++)
+		{
+			records.add(BenchClubbers.person(i));
+		}
+
+		for (int i = 0; i < lookups; i++)
+		{
+			hits[i] = BenchClubbers.id(random.nextInt(count));
+			misses[i] = BenchClubbers.id(count + random.nextInt(count));
+		}
+
+		ClubbersBloomFilter filter = new ClubbersBloomFilter(count);
+		int falsePositives = 0;
+
+		for (int i = 0; i < count; i++)
+		{
+			filter.add(ClubbersBloomFilter.hash(0, BenchClubbers.id(i)));
+		}
+
+		for (String key : misses)
+		{
+			if (filter.mightContain(ClubbersBloomFilter.hash(0, key)))
+			{
+				falsePositives++;
+			}
+		}
+
+		System.out.printf("%d clubbers, %.2f%% of the missing keys pass the filter%n", count,
+			100.0 * falsePositives / lookups);
+
+		ClubbersRepository repository = new ClubbersRepository(records);
+		print("ClubbersRepository", hits, misses, repository::find);
+
+		Path path = Files.createTempFile("BKCustomers", ".slots");
+
+		try (MappedClubbersStore store = new MappedClubbersStore(path))
+		{
+			store.addAll(records);
+			print("MappedClubbersStore", hits, misses, store::find);
+		}
+		finally
+		{
+			Files.deleteIfExists(path);
+			Files.deleteIfExists(path.resolveSibling(path.getFileName() + ".idx"));
+		}
+
+		System.out.println(sink == 42 ? "" : " ");
+	}
+
+	/**
+	 * This method prints the best lookup times of the keys which exist and
+	 * of the missing ones.
+	 * @param name holds the name of the store.
+	 * @param hits holds keys which exist.
+	 * @param misses holds keys which don't exist.
+	 * @param find holds the find method of the store.
+	 */
+	private static void print(String name, String[] hits, String[] misses,
+		Function<String, ClubAbstractRecord> find)
+	{
+		double hitTime = Double.MAX_VALUE;
+		double missTime = Double.MAX_VALUE;
+
+		for (int run = 0; run < 5; run++)
+		{
+			hitTime = Math.min(hitTime, time(hits, find));
+			missTime = Math.min(missTime, time(misses, find));
+		}
+
+		System.out.printf("%-20s hit %7.1f ns/lookup  miss %7.1f ns/lookup%n", name, hitTime,
+			missTime);
+	}
+
+	/**
+	 * This method finds all the keys.
+	 * @param keys holds the keys.
+	 * @param find holds the find method of the store.
+	 * @return the average time of a lookup in nanoseconds.
+	 */
+	private static double time(String[] keys, Function<String, ClubAbstractRecord> find)
+	{
+		long start = System.nanoTime();
+
+		for (String key : keys)
+		{
+			if (find.apply(key) != null)
+			{
+				sink++;
+			}
+		}
+
+		return (double)(System.nanoTime() - start) / keys.length;
+	}
+}
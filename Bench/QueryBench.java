@@ -0,0 +1,93 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * This class measures the operators of a {@link ClubbersQuery} over many
+ * clubbers and compares them with going over the clubbers one by one on a
+ * single thread.
+ * <br> The clubbers are the ones of {@link BenchClubbers} and the questions
+ * are compared as {@link BenchClubbers#compare} does.
+ * <br> It can be run from the command line, 10M clubbers need about 3GB:
+ * <br> java -Xmx3g QueryBench [clubbers] [runs]
+ * @author Lior Sabri, Ben Biton
+ */
+public class QueryBench
+{
+	/**
+	 * static main method.
+	 * Prints the best time of every question both ways.
+	 * @param args number of clubbers and runs.
+	 */
+	public static void main(String[] args)
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000000;
+		int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+		ArrayList<ClubAbstractRecord> records = BenchClubbers.records(count);
+		ClubbersQuery query = new ClubbersQuery(records);
+		Comparator<ClubAbstractRecord> byID = Comparator.comparing(ClubAbstractRecord::getID);
+
+		System.out.printf("%d clubbers, %d cores%n", count, ForkJoinPool.getCommonPoolParallelism());
+
+		BenchClubbers.compare("count by type", runs,
+			"query", () -> query.countBy(ClubbersQuery.TYPE),
+			"one by one", () -> countBy(records, ClubbersQuery.TYPE));
+		BenchClubbers.compare("count by country code", runs,
+			"query", () -> query.countBy(ClubbersQuery.COUNTRY_CODE),
+			"one by one", () -> countBy(records, ClubbersQuery.COUNTRY_CODE));
+		BenchClubbers.compare("count by surname initial", runs,
+			"query", () -> query.countBy(ClubbersQuery.SURNAME_INITIAL),
+			"one by one", () -> countBy(records, ClubbersQuery.SURNAME_INITIAL));
+		BenchClubbers.compare("count of soldiers in 972", runs,
+			"query", () -> query.where(record -> record instanceof SoldierRecord)
+				.where(record -> "972".equals(ClubbersQuery.COUNTRY_CODE.apply(record))).count(),
+			"one by one", () ->
+			{
+				long soldiers = 0;
+
+				for (ClubAbstractRecord record : records)
+				{
+					if (record instanceof SoldierRecord &&
+						"972".equals(ClubbersQuery.COUNTRY_CODE.apply(record)))
+					{
+						soldiers++;
+					}
+				}
+
+				return soldiers;
+			});
+		BenchClubbers.compare("first 10 by ID", runs,
+			"query", () -> query.sortBy(byID, 10),
+			"one by one", () ->
+			{
+				ArrayList<ClubAbstractRecord> sorted = new ArrayList<>(records);
+				sorted.sort(byID);
+
+				return new ArrayList<>(sorted.subList(0, Math.min(10, sorted.size())));
+			});
+	}
+
+	/**
+	 * This method counts the clubbers of every key one by one.
+	 * @param records holds the clubbers.
+	 * @param key holds the key of a clubber.
+	 * @return the number of clubbers of every key as {@link ClubbersQuery#countBy}.
+	 */
+	private static Map<String, Long> countBy(List<ClubAbstractRecord> records,
+		Function<ClubAbstractRecord, String> key)
+	{
+		HashMap<String, Long> counts = new HashMap<>();
+
+		for (ClubAbstractRecord record : records)
+		{
+			String group = key.apply(record);
+
+			if (group != null)
+			{
+				counts.merge(group, 1L, Long::sum);
+			}
+		}
+
+		return counts;
+	}
+}
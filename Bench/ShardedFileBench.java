@@ -0,0 +1,92 @@
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This class measures how saving and loading the {@link ClubbersFile} scale
+ * with the number of shards it is split into.
+ * <br> Every round saves the clubbers into a number of shards and loads them
+ * back, the best of a few runs is printed since the first ones also warm up
+ * the JIT. The loaded clubbers must be the saved ones in the same order.
+ * <br> It can be run from the command line:
+ * <br> java ShardedFileBench [clubbers] [most shards] [runs]
+ * @author Lior Sabri, Ben Biton
+ */
+public class ShardedFileBench
+{
+	/**
+	 * static main method.
+	 * Prints the best save and load times of every number of shards.
+	 * @param args number of clubbers, most shards and runs per round.
+	 */
+	public static void main(String[] args) throws Exception
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		int maxShards = args.length > 1 ? Integer.parseInt(args[1]) :
+			ClubbersFile.DEFAULT_SHARD_COUNT;
+		int runs = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+		ArrayList<ClubAbstractRecord> records = BenchClubbers.records(count);
+
+		Path path = Files.createTempFile("BKCustomers", ".dat");
+
+		System.out.printf("%d clubbers, %d cores%n", count,
+			Runtime.getRuntime().availableProcessors());
+
+		try
+		{
+			for (int shards = 1; shards <= maxShards; shards *= 2)
+			{
+				long bestSave = Long.MAX_VALUE;
+				long bestLoad = Long.MAX_VALUE;
+
+				for (int run = 0; run < runs; run++)
+				{
+					long start = System.nanoTime();
+					ClubbersFile.write(path, records, 0, shards);
+					bestSave = Math.min(bestSave, System.nanoTime() - start);
+
+					start = System.nanoTime();
+					ArrayList<ClubAbstractRecord> loaded = ClubbersFile.read(path).getRecords();
+					bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+
+					if (!same(loaded, records))
+					{
+						throw new IllegalStateException("The loaded clubbers differ from the saved ones");
+					}
+				}
+
+				System.out.printf("%3d shards: save %6d ms, load %6d ms%n", shards,
+					bestSave / 1000000, bestLoad / 1000000);
+			}
+		}
+		finally
+		{
+			ClubbersFile.delete(path);
+		}
+	}
+
+	/**
+	 * This method checks whether two lists hold the same clubbers in the same
+	 * order, records are compared by their encoded bytes.
+	 * @param loaded holds the loaded records.
+	 * @param saved holds the saved records.
+	 * @return true or false whether the lists hold the same clubbers.
+	 */
+	private static boolean same(List<ClubAbstractRecord> loaded, List<ClubAbstractRecord> saved)
+	{
+		if (loaded.size() != saved.size())
+		{
+			return false;
+		}
+
+		for (int i = 0; i < loaded.size(); i++)
+		{
+			if (!Arrays.equals(ClubbersFile.encode(loaded.get(i)),
+				ClubbersFile.encode(saved.get(i))))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+}
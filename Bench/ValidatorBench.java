@@ -0,0 +1,143 @@
+import java.util.*;
+import java.util.function.*;
+import java.util.regex.*;
+
+/**
+ * This class compares the {@link ClubberValidator} checks with
+ * {@link java.lang.String#matches} and with the precompiled patterns.
+ * <br> The fields are valid values and values with one changed character, the
+ * three ways are first checked to give the same result on all of them.
+ * <br> It can be run from the command line:
+ * <br> java ValidatorBench [fields] [rounds]
+ * @author Lior Sabri, Ben Biton
+ */
+public class ValidatorBench
+{
+	private static final String[] REGEXES =
+	{
+		"\\d-\\d{7}\\|[1-9]", "[A-Z][a-z]+", "([A-Z][a-z]*['-]?)+",
+		"\\+\\([1-9]\\d{0,2}\\)[1-9]\\d{0,2}-[1-9]\\d{6}", "[ROC]/[1-9]\\d{6}",
+		"[A-Z]{3}[1-9]\\d{4}"
+	};
+
+	private static final Pattern[] PATTERNS =
+	{
+		ClubberValidator.ID_PATTERN, ClubberValidator.NAME_PATTERN,
+		ClubberValidator.SURNAME_PATTERN, ClubberValidator.TEL_PATTERN,
+		ClubberValidator.PERSONAL_NUMBER_PATTERN, ClubberValidator.STUDENT_ID_PATTERN
+	};
+
+	private static final List<Predicate<String>> VALIDATORS = Arrays.asList(
+		ClubberValidator::isValidID, ClubberValidator::isValidName,
+		ClubberValidator::isValidSurname, ClubberValidator::isValidTel,
+		ClubberValidator::isValidPersonalNumber, ClubberValidator::isValidStudentID);
+
+	private static final String[] VALID =
+	{
+		"1-2345678|9", "Lior", "Ben-David", "+(972)3-1234567", "O/1234567", "TAU12345"
+	};
+
+	// Written so the JIT can't drop the checks.
+	private static int sink;
+
+	/**
+	 * static main method.
+	 * Times every field format in the three ways.
+	 * @param args number of fields of every format and number of rounds.
+	 */
+	public static void main(String[] args)
+	{
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+		int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+		Random random = new Random(1);
+
+		for (int format = 0; format < REGEXES.length; format++)
+		{
+			String[] fields = fields(VALID[format], count, random);
+
+			for (String field : fields)
+			{
+				boolean expected = field.matches(REGEXES[format]);
+
+				if (PATTERNS[format].matcher(field).matches() != expected ||
+					VALIDATORS.get(format).test(field) != expected)
+				{
+					throw new AssertionError("Validators disagree on " + field);
+				}
+			}
+
+			String regex = REGEXES[format];
+			Pattern pattern = PATTERNS[format];
+			Predicate<String> validator = VALIDATORS.get(format);
+
+			System.out.printf("%-50s matches %6.1f  pattern %6.1f  validator %6.1f ns%n",
+				regex,
+				time(fields, rounds, field -> field.matches(regex)),
+				time(fields, rounds, field -> pattern.matcher(field).matches()),
+				time(fields, rounds, validator));
+		}
+
+		System.out.println(sink == 42 ? "" : " ");
+	}
+
+	/**
+	 * This method builds the fields to check, half are valid and half have
+	 * a single changed character.
+	 * @param valid holds a valid field.
+	 * @param count holds the number of fields.
+	 * @param random holds the random generator.
+	 * @return the fields.
+	 */
+	private static String[] fields(String valid, int count, Random random)
+	{
+		String letters = "09aZ-|/()+'x ";
+		String[] fields = new String[count];
+
+		for (int i = 0; i < count; i++)
+		{
+			char[] field = valid.toCharArray();
+
+			if (i % 2 == 1)
+			{
+				field[random.nextInt(field.length)] = letters.charAt(random.nextInt(letters.length()));
+			}
+
+			fields[i] = new String(field);
+		}
+
+		return fields;
+	}
+
+	/**
+	 * This method times a check over all the fields after warming it up.
+	 * @param fields holds the fields.
+	 * @param rounds holds the number of timed rounds.
+	 * @param check holds the check.
+	 * @return the average nanoseconds of a check in the fastest round.
+	 */
+	private static double time(String[] fields, int rounds, Predicate<String> check)
+	{
+		long best = Long.MAX_VALUE;
+
+		for (int round = -rounds; round < rounds; round++)
+		{
+			long start = System.nanoTime();
+
+			for (String field : fields)
+			{
+				if (check.test(field))
+				{
+					sink++;
+				}
+			}
+
+			// The first rounds only warm up.
+			if (round >= 0)
+			{
+				best = Math.min(best, System.nanoTime() - start);
+			}
+		}
+
+		return (double)best / fields.length;
+	}
+}
@@ -1,12 +1,12 @@
 import java.awt.*;
 import java.awt.event.*;
 import javax.swing.*;
-import java.io.*;
 
 /**
- * This abstract class extends from {@link javax.swing.JFrame} and implements
- * {@link java.io.Serializable}.
+ * This abstract class extends from {@link javax.swing.JFrame}.
  * <br> This Class builds the basic GUI arragment of each window.
+ * <br> The window is an editor of a {@link ClubAbstractRecord}, it is only built
+ * when a record is created or opened and the record itself holds no GUI elements.
  * <br> Other classes that inherit from this class may add {@link java.awt.Component}s
  * to the centerPanel which is set to {@link java.awt.GridLayout}.
  * <br> This class holds the inner class {@link ButtonsHandler} which listens
@@ -14,7 +14,7 @@ import java.io.*;
  * <br> Currently the class that inherits from this class is: {@link Person}
  * @author Lior Sabri, Ben Biton
  */
-public abstract class ClubAbstractEntity extends JFrame implements Serializable
+public abstract class ClubAbstractEntity extends JFrame
 {
 	private JButton okButton;
 	private JButton cancelButton;
@@ -66,11 +66,13 @@ public abstract class ClubAbstractEntity extends JFrame implements Serializable
 	}
 	
 	/**
-     * Abstract method that implements a copmarison with a given key.
-     * @param key String which will be compared.
-     * @return true or false whether the key has found a match.
-     */
-	public abstract boolean match(String key);
+	 * This method enables the cancelButton, it is used by inherited classes
+	 * when the window is opened with a record that has already been committed.
+	 */
+	protected void enableCancelButton()
+	{
+		cancelButton.setEnabled(true);
+	}
 	
 	/**
      * Abstract method which invokes whenever okay button is pressed and 
@@ -81,7 +83,8 @@ public abstract class ClubAbstractEntity extends JFrame implements Serializable
 	
 	/**
      * Abstract method which invokes whenever okayButton is pressed if 
-     * {@link #validateData} returns true.
+     * {@link #validateData} returns true and replaces the edited record with
+     * a new one built from the window.
      */
 	protected abstract void commit();
 	
@@ -91,26 +94,18 @@ public abstract class ClubAbstractEntity extends JFrame implements Serializable
 	protected abstract void rollBack();
 	
 	/**
-     * Abstract method which helps know if fields of inherited class are initialized.
-     * @return true or false whether the data is empty.
-     */
-	public abstract boolean isEmpty();
-	
-	/**
-	 * Abstract method which returns inherited class ID.
-	 * <br> This method is only needed in {@link Person}, although if it will be 
-	 * placed there then when used in {@link NightClubMgmtApp} {@link ClubAbstractEntity}
-	 * will need casting to {@link Person}.
-	 * @return recieve an ID.
+	 * Abstract method which returns the record edited by the window.
+	 * <br> Until {@link #commit} is invoked this is the record the window was
+	 * opened with.
+	 * @return recieve the current record.
 	 */
-	public abstract String getID();
+	public abstract ClubAbstractRecord getRecord();
 	
 	/**
-    * This Class implemets {@link java.awt.event.ActionListener} and 
-    * {@link java.io.Serializable}.
+    * This Class implemets {@link java.awt.event.ActionListener}.
     * <br> ButtonsHandler handles okButton and cancelButton.
     */
-	private class ButtonsHandler implements ActionListener ,Serializable
+	private class ButtonsHandler implements ActionListener
 	{
 		/**
 		 * This method is invoked when okButton and cancelButton are pressed.
@@ -0,0 +1,38 @@
+import java.io.*;
+
+/**
+ * This abstract class implements {@link java.io.Serializable}.
+ * <br> This Class is the headless counterpart of {@link ClubAbstractEntity},
+ * it only holds the clubbers data without any GUI elements so it is cheap
+ * to keep in memory, search and save to a file.
+ * <br> Records are immutable, when a clubber is edited through a
+ * {@link ClubAbstractEntity} window a new record is created on commit.
+ * <br> Currently the class that inherits from this class is: {@link PersonRecord}
+ * @author Lior Sabri, Ben Biton
+ */
+public abstract class ClubAbstractRecord implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	/**
+     * Abstract method that implements a copmarison with a given key.
+     * @param key String which will be compared.
+     * @return true or false whether the key has found a match.
+     */
+	public abstract boolean match(String key);
+
+	/**
+     * Abstract method which helps know if fields of inherited class are initialized.
+     * @return true or false whether the data is empty.
+     */
+	public abstract boolean isEmpty();
+
+	/**
+	 * Abstract method which returns inherited class ID.
+	 * <br> This method is only needed in {@link PersonRecord}, although if it will be
+	 * placed there then when used in {@link NightClubMgmtApp} {@link ClubAbstractRecord}
+	 * will need casting to {@link PersonRecord}.
+	 * @return recieve an ID.
+	 */
+	public abstract String getID();
+}
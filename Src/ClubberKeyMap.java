@@ -0,0 +1,206 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class is a map from the keys of the clubbers to values, the keys are
+ * packed into a primitive long and kept in a {@link LongHashMap}.
+ * <br> A key is packed by its format: an ID ("d-ddddddd|d") packs into its 9
+ * digits, a personal number ("[ROC]/ddddddd") into its rank and 7 digits and
+ * the numbers of a student ID into their 5 digits. Only keys written exactly
+ * in their format are packed, so two keys pack into the same long only if
+ * they are the same key. A key in another format, which the validateData
+ * methods don't allow but an old clubbers file may hold, is kept in a
+ * {@link java.util.HashMap} instead.
+ * @author Lior Sabri, Ben Biton
+ * @param <V> the type of the values.
+ */
+public class ClubberKeyMap<V>
+{
+	// Returned by the pack methods for a key which isn't in its format.
+	public static final long NOT_PACKED = -1;
+
+	private static final String RANKS = "ROC";
+
+	private final ToLongFunction<String> packer;
+	private final LongHashMap<V> packedKeys;
+	private final HashMap<String, V> otherKeys;
+
+	/**
+	 * ClubberKeyMap Constructor.
+	 * @param packer holds the method which packs a key, {@link #packID},
+	 * {@link #packPersonalNumber} or {@link #packStudentNumbers}.
+	 */
+	public ClubberKeyMap(ToLongFunction<String> packer)
+	{
+		this.packer = packer;
+		packedKeys = new LongHashMap<>();
+		otherKeys = new HashMap<>();
+	}
+
+	/**
+	 * This method returns the value of a key.
+	 * @param key holds the key.
+	 * @return the value or null if the key isn't in the map.
+	 */
+	public V get(String key)
+	{
+		long packed = packer.applyAsLong(key);
+
+		return packed != NOT_PACKED ? packedKeys.get(packed) : otherKeys.get(key);
+	}
+
+	/**
+	 * This method checks whether the key is in the map.
+	 * @param key holds the key.
+	 * @return true or false whether the key is in the map.
+	 */
+	public boolean containsKey(String key)
+	{
+		return get(key) != null;
+	}
+
+	/**
+	 * This method maps a key to a value.
+	 * @param key holds the key.
+	 * @param value holds the value, not null.
+	 * @return the old value of the key or null if it wasn't in the map.
+	 */
+	public V put(String key, V value)
+	{
+		long packed = packer.applyAsLong(key);
+
+		return packed != NOT_PACKED ? packedKeys.put(packed, value) : otherKeys.put(key, value);
+	}
+
+	/**
+	 * This method returns the value of a key, a key which isn't in the map is
+	 * first mapped to the value made by the function.
+	 * @param key holds the key.
+	 * @param function makes the value of a key which isn't in the map.
+	 * @return the value of the key.
+	 */
+	public V computeIfAbsent(String key, Function<String, ? extends V> function)
+	{
+		long packed = packer.applyAsLong(key);
+
+		if (packed != NOT_PACKED)
+		{
+			return packedKeys.computeIfAbsent(packed, unused -> function.apply(key));
+		}
+
+		return otherKeys.computeIfAbsent(key, function);
+	}
+
+	/**
+	 * This method removes a key from the map.
+	 * @param key holds the key.
+	 * @return the value of the key or null if it wasn't in the map.
+	 */
+	public V remove(String key)
+	{
+		long packed = packer.applyAsLong(key);
+
+		return packed != NOT_PACKED ? packedKeys.remove(packed) : otherKeys.remove(key);
+	}
+
+	/**
+	 * This method returns the number of keys in the map.
+	 * @return the size of the map.
+	 */
+	public int size()
+	{
+		return packedKeys.size() + otherKeys.size();
+	}
+
+	/**
+	 * This method packs an ID of the format "d-ddddddd|d" into its 9 digits.
+	 * @param id holds the ID.
+	 * @return the packed ID or {@link #NOT_PACKED} if it isn't in the format.
+	 */
+	public static long packID(String id)
+	{
+		if (id == null || id.length() != 11 || id.charAt(1) != '-' || id.charAt(9) != '|')
+		{
+			return NOT_PACKED;
+		}
+
+		long first = digits(id, 0, 1);
+		long middle = digits(id, 2, 9);
+		long last = digits(id, 10, 11);
+
+		if (first < 0 || middle < 0 || last < 0)
+		{
+			return NOT_PACKED;
+		}
+
+		return (first * 10000000 + middle) * 10 + last;
+	}
+
+	/**
+	 * This method packs a personal number of the format "[ROC]/ddddddd" into
+	 * its rank and 7 digits.
+	 * @param personalNumber holds the personal number.
+	 * @return the packed personal number or {@link #NOT_PACKED} if it isn't in
+	 * the format.
+	 */
+	public static long packPersonalNumber(String personalNumber)
+	{
+		if (personalNumber == null || personalNumber.length() != 9 ||
+			personalNumber.charAt(1) != '/')
+		{
+			return NOT_PACKED;
+		}
+
+		int rank = RANKS.indexOf(personalNumber.charAt(0));
+		long number = digits(personalNumber, 2, 9);
+
+		if (rank < 0 || number < 0)
+		{
+			return NOT_PACKED;
+		}
+
+		return rank * 10000000L + number;
+	}
+
+	/**
+	 * This method packs the 5 numbers of a student ID, as kept by the
+	 * {@link ClubbersRepository}.
+	 * @param studentNumbers holds the numbers of the student ID.
+	 * @return the packed numbers or {@link #NOT_PACKED} if they aren't 5 digits.
+	 */
+	public static long packStudentNumbers(String studentNumbers)
+	{
+		if (studentNumbers == null || studentNumbers.length() != 5)
+		{
+			return NOT_PACKED;
+		}
+
+		return digits(studentNumbers, 0, 5);
+	}
+
+	/**
+	 * This method reads the number written by digits in part of a key.
+	 * @param key holds the key.
+	 * @param start holds the index of the first digit.
+	 * @param end holds the index after the last digit.
+	 * @return the number or -1 if a letter isn't a digit.
+	 */
+	private static long digits(String key, int start, int end)
+	{
+		long number = 0;
+
+		for (int i = start; i < end; i++)
+		{
+			char letter = key.charAt(i);
+
+			if (letter < '0' || letter > '9')
+			{
+				return -1;
+			}
+
+			number = number * 10 + (letter - '0');
+		}
+
+		return number;
+	}
+}
@@ -0,0 +1,289 @@
+import java.util.regex.*;
+
+/**
+ * This class validates the info fields of clubbers.
+ * <br> The formats are kept as precompiled {@link java.util.regex.Pattern}s
+ * for reference, the validation itself is done by checking the characters
+ * one by one, which gives the same result as the patterns without compiling
+ * or allocating anything, so it can run on every click and on every imported
+ * record.
+ * <br> The validators work on plain strings and don't need a window, a null
+ * field is never valid.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubberValidator
+{
+	// The formats of the info fields.
+	public static final Pattern ID_PATTERN = Pattern.compile("\\d-\\d{7}\\|[1-9]");
+	public static final Pattern NAME_PATTERN = Pattern.compile("[A-Z][a-z]+");
+	public static final Pattern SURNAME_PATTERN = Pattern.compile("([A-Z][a-z]*['-]?)+");
+	public static final Pattern TEL_PATTERN = Pattern.compile(
+		"\\+\\([1-9]\\d{0,2}\\)[1-9]\\d{0,2}-[1-9]\\d{6}");
+	public static final Pattern PERSONAL_NUMBER_PATTERN = Pattern.compile("[ROC]/[1-9]\\d{6}");
+	public static final Pattern STUDENT_ID_PATTERN = Pattern.compile("[A-Z]{3}[1-9]\\d{4}");
+
+	/**
+	 * ClubberValidator Constructor - private since the class only has static
+	 * methods.
+	 */
+	private ClubberValidator()
+	{
+	}
+
+	/**
+	 * This method validates an ID, a digit, '-', 7 digits, '|' and a
+	 * check digit which isn't 0.
+	 * @param id holds the ID.
+	 * @return true or false whether the ID matches {@link #ID_PATTERN}.
+	 */
+	public static boolean isValidID(String id)
+	{
+		if (id == null || id.length() != 11 || id.charAt(1) != '-' ||
+			id.charAt(9) != '|' || !isNonZeroDigit(id.charAt(10)))
+		{
+			return false;
+		}
+
+		return isDigit(id.charAt(0)) && areDigits(id, 2, 9);
+	}
+
+	/**
+	 * This method validates a name, a capital letter followed by at least one
+	 * small letter.
+	 * @param name holds the name.
+	 * @return true or false whether the name matches {@link #NAME_PATTERN}.
+	 */
+	public static boolean isValidName(String name)
+	{
+		if (name == null || name.length() < 2 || !isCapital(name.charAt(0)))
+		{
+			return false;
+		}
+
+		for (int i = 1; i < name.length(); i++)
+		{
+			if (!isSmall(name.charAt(i)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method validates a surname, words which start with a capital
+	 * letter followed by small letters, a word may end with ' or -.
+	 * @param surname holds the surname.
+	 * @return true or false whether the surname matches {@link #SURNAME_PATTERN}.
+	 */
+	public static boolean isValidSurname(String surname)
+	{
+		if (surname == null || surname.isEmpty() || !isCapital(surname.charAt(0)))
+		{
+			return false;
+		}
+
+		for (int i = 1; i < surname.length(); i++)
+		{
+			char letter = surname.charAt(i);
+
+			if (isCapital(letter))
+			{
+				continue;
+			}
+
+			// Only a capital letter may follow the end of a word.
+			char previous = surname.charAt(i - 1);
+
+			if (previous == '\'' || previous == '-')
+			{
+				return false;
+			}
+
+			if (!isSmall(letter) && letter != '\'' && letter != '-')
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method validates a telephone number, +(country code)area code-number
+	 * where the codes are up to 3 digits and the number is 7 digits, none of
+	 * them starts with 0.
+	 * @param tel holds the telephone number.
+	 * @return true or false whether the number matches {@link #TEL_PATTERN}.
+	 */
+	public static boolean isValidTel(String tel)
+	{
+		if (tel == null || tel.length() < 13 || tel.charAt(0) != '+' || tel.charAt(1) != '(')
+		{
+			return false;
+		}
+
+		int end = codeEnd(tel, 2);
+
+		if (end < 0 || end >= tel.length() || tel.charAt(end) != ')')
+		{
+			return false;
+		}
+
+		end = codeEnd(tel, end + 1);
+
+		if (end < 0 || tel.length() - end != 8 || tel.charAt(end) != '-')
+		{
+			return false;
+		}
+
+		return isNonZeroDigit(tel.charAt(end + 1)) && areDigits(tel, end + 2, tel.length());
+	}
+
+	/**
+	 * This method validates a personal number, R, O or C followed by '/' and
+	 * 7 digits which don't start with 0.
+	 * @param personalNumber holds the personal number.
+	 * @return true or false whether the personal number matches
+	 * {@link #PERSONAL_NUMBER_PATTERN}.
+	 */
+	public static boolean isValidPersonalNumber(String personalNumber)
+	{
+		if (personalNumber == null || personalNumber.length() != 9 ||
+			personalNumber.charAt(1) != '/' || !isNonZeroDigit(personalNumber.charAt(2)))
+		{
+			return false;
+		}
+
+		char rank = personalNumber.charAt(0);
+
+		return (rank == 'R' || rank == 'O' || rank == 'C') && areDigits(personalNumber, 3, 9);
+	}
+
+	/**
+	 * This method validates a student ID, 3 capital letters followed by 5
+	 * digits which don't start with 0.
+	 * @param studentID holds the student ID.
+	 * @return true or false whether the student ID matches
+	 * {@link #STUDENT_ID_PATTERN}.
+	 */
+	public static boolean isValidStudentID(String studentID)
+	{
+		if (studentID == null || studentID.length() != 8 || !isNonZeroDigit(studentID.charAt(3)))
+		{
+			return false;
+		}
+
+		return isCapital(studentID.charAt(0)) && isCapital(studentID.charAt(1)) &&
+			isCapital(studentID.charAt(2)) && areDigits(studentID, 4, 8);
+	}
+
+	/**
+	 * This method finds the first info field of a record which isn't valid.
+	 * @param record holds the record.
+	 * @return the name of the field or null if all the fields are valid.
+	 */
+	public static String invalidField(ClubAbstractRecord record)
+	{
+		PersonRecord person = (PersonRecord)record;
+
+		if (!isValidID(person.getID()))
+		{
+			return "ID";
+		}
+
+		if (!isValidName(person.getName()))
+		{
+			return "Name";
+		}
+
+		if (!isValidSurname(person.getSurname()))
+		{
+			return "Surname";
+		}
+
+		if (!isValidTel(person.getTel()))
+		{
+			return "Tel";
+		}
+
+		if (record instanceof SoldierRecord &&
+			!isValidPersonalNumber(((SoldierRecord)record).getPersonalNumber()))
+		{
+			return "Personal No.";
+		}
+
+		if (record instanceof StudentRecord &&
+			!isValidStudentID(((StudentRecord)record).getStudentID()))
+		{
+			return "Student ID";
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method finds the end of a code of 1 to 3 digits which doesn't
+	 * start with 0.
+	 * @param field holds the field.
+	 * @param start holds the position of the code.
+	 * @return the position after the code or -1 if there is no code.
+	 */
+	private static int codeEnd(String field, int start)
+	{
+		if (start >= field.length() || !isNonZeroDigit(field.charAt(start)))
+		{
+			return -1;
+		}
+
+		int end = start + 1;
+
+		while (end < field.length() && end < start + 3 && isDigit(field.charAt(end)))
+		{
+			end++;
+		}
+
+		return end;
+	}
+
+	/**
+	 * This method checks that all the characters in a range are digits.
+	 * @param field holds the field.
+	 * @param start holds the first position.
+	 * @param end holds the position after the last.
+	 * @return true or false whether they are all digits.
+	 */
+	private static boolean areDigits(String field, int start, int end)
+	{
+		for (int i = start; i < end; i++)
+		{
+			if (!isDigit(field.charAt(i)))
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static boolean isDigit(char letter)
+	{
+		return letter >= '0' && letter <= '9';
+	}
+
+	private static boolean isNonZeroDigit(char letter)
+	{
+		return letter >= '1' && letter <= '9';
+	}
+
+	private static boolean isCapital(char letter)
+	{
+		return letter >= 'A' && letter <= 'Z';
+	}
+
+	private static boolean isSmall(char letter)
+	{
+		return letter >= 'a' && letter <= 'z';
+	}
+}
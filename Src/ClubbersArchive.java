@@ -0,0 +1,651 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.zip.*;
+
+/**
+ * This class reads and writes archives of the clubbers, compressed files
+ * which are small to keep as backups and to copy between clubs.
+ * <br> The records are sorted by their ID and gathered into blocks of about
+ * {@link #DEFAULT_BLOCK_SIZE} bytes, every block is compressed on its own with
+ * {@link java.util.zip.Deflater}. A block holds its records as written by a
+ * shard of the {@link ClubbersFile}: the position of the record among all
+ * the records, the length of its body and the body, so the records are read
+ * back in the order they were written.
+ * <br> The archive starts with the magic number "BKAR" and the format
+ * version, followed by the blocks. The block index comes after them, for
+ * every block the ID of its first record, its position and compressed
+ * length, its length, the number of its records and a CRC-32 checksum of the
+ * block. The file ends with the position and length of the index, the
+ * number of blocks and of records and the magic number again.
+ * <br> A single clubber is found with {@link #find} by decompressing only
+ * the block its ID falls in, {@link #read} decompresses all the blocks in
+ * parallel. Blocks are compressed in parallel as well, a new archive is first
+ * written next to the old one and then moved over it.
+ * <br> It can be run from the command line:
+ * <br> java ClubbersArchive [archive file] [ID]
+ * <br> It prints the clubber with the ID, or the number of clubbers in the
+ * archive if no ID is given. Archives are written by {@link ClubbersExporter}
+ * into files ending with {@link #SUFFIX}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersArchive
+{
+	// "BKAR" in ASCII.
+	public static final int MAGIC = 0x424B4152;
+	public static final short VERSION = 1;
+
+	public static final String SUFFIX = ".bka";
+
+	// Bytes of records gathered into a block before it is compressed.
+	public static final int DEFAULT_BLOCK_SIZE = 64 * 1024;
+
+	private static final int HEADER_SIZE = 4 + 2;
+	// Position and length of the index, number of blocks, of records and the magic.
+	private static final int TRAILER_SIZE = 8 + 4 + 4 + 4 + 4;
+	private static final int MAX_VARINT_SIZE = 5;
+
+	/**
+	 * ClubbersArchive Constructor - private since the class only has static
+	 * methods.
+	 */
+	private ClubbersArchive()
+	{
+	}
+
+	/**
+	 * This method writes the records into an archive with blocks of
+	 * {@link #DEFAULT_BLOCK_SIZE}, replacing it if it exists.
+	 * @param path holds the archive to write.
+	 * @param records holds the records to write.
+	 * @throws IOException if the archive can't be written.
+	 */
+	public static void write(Path path, Collection<? extends ClubAbstractRecord> records)
+		throws IOException
+	{
+		write(path, records, DEFAULT_BLOCK_SIZE);
+	}
+
+	/**
+	 * This method writes the records into an archive, replacing it if it
+	 * exists.
+	 * @param path holds the archive to write.
+	 * @param records holds the records to write.
+	 * @param blockSize holds the bytes of records gathered into a block, a
+	 * bigger block compresses better but more is decompressed to find a
+	 * clubber.
+	 * @throws IOException if the archive can't be written.
+	 */
+	public static void write(Path path, Collection<? extends ClubAbstractRecord> records,
+		int blockSize) throws IOException
+	{
+		ClubAbstractRecord[] all = records.toArray(new ClubAbstractRecord[0]);
+		Integer[] byID = new Integer[all.length];
+
+		for (int i = 0; i < byID.length; i++)
+		{
+			byID[i] = i;
+		}
+
+		Arrays.parallelSort(byID, Comparator.comparing(position -> all[position].getID()));
+
+		ArrayList<Block> blocks = gather(all, byID, blockSize);
+		ArrayList<Callable<Void>> compressions = new ArrayList<>(blocks.size());
+
+		for (Block block : blocks)
+		{
+			compressions.add(() ->
+			{
+				block.compress();
+				return null;
+			});
+		}
+
+		ClubbersFile.invokeAll(compressions, "compress the blocks");
+
+		Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+			long position = HEADER_SIZE;
+
+			header.putInt(MAGIC);
+			header.putShort(VERSION);
+			write(channel, header.flip());
+
+			for (Block block : blocks)
+			{
+				block.offset = position;
+				position += block.compressedLength;
+				write(channel, ByteBuffer.wrap(block.compressed, 0, block.compressedLength));
+			}
+
+			int indexLength = 0;
+
+			for (Block block : blocks)
+			{
+				indexLength += block.indexSize();
+			}
+
+			ByteBuffer index = ByteBuffer.allocate(indexLength + TRAILER_SIZE);
+
+			for (Block block : blocks)
+			{
+				block.putIndex(index);
+			}
+
+			index.putLong(position);
+			index.putInt(indexLength);
+			index.putInt(blocks.size());
+			index.putInt(all.length);
+			index.putInt(MAGIC);
+
+			write(channel, index.flip());
+			channel.force(true);
+		}
+
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+	}
+
+	/**
+	 * This method reads all the records of an archive, the blocks are
+	 * decompressed in parallel.
+	 * <br> Records with an unknown type are skipped.
+	 * @param path holds the archive to read.
+	 * @return the records in the order they were written.
+	 * @throws IOException if the archive can't be read, isn't an archive or
+	 * a block is damaged.
+	 */
+	public static ArrayList<ClubAbstractRecord> read(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			int[] recordCount = new int[1];
+			ArrayList<Block> blocks = readIndex(path, channel, recordCount);
+			ClubAbstractRecord[] records = new ClubAbstractRecord[recordCount[0]];
+			ArrayList<Callable<Void>> decompressions = new ArrayList<>(blocks.size());
+
+			for (Block block : blocks)
+			{
+				decompressions.add(() ->
+				{
+					ByteBuffer data = block.decompress(path, channel);
+
+					for (int i = 0; i < block.count; i++)
+					{
+						int position = ClubbersFile.getVarint(data);
+
+						if (position >= records.length)
+						{
+							throw new IOException(path + " has a record after the last one");
+						}
+
+						records[position] = getRecord(data);
+					}
+
+					return null;
+				});
+			}
+
+			ClubbersFile.invokeAll(decompressions, "decompress the blocks");
+
+			ArrayList<ClubAbstractRecord> recordList = new ArrayList<>(records.length);
+
+			for (ClubAbstractRecord record : records)
+			{
+				if (record != null)
+				{
+					recordList.add(record);
+				}
+			}
+
+			return recordList;
+		}
+	}
+
+	/**
+	 * This method finds the record with an ID, only the block the ID falls in
+	 * is read and decompressed.
+	 * @param path holds the archive to search.
+	 * @param id holds the ID of the clubber.
+	 * @return the record or null if no clubber in the archive has the ID.
+	 * @throws IOException if the archive can't be read, isn't an archive or
+	 * the block is damaged.
+	 */
+	public static ClubAbstractRecord find(Path path, String id) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ArrayList<Block> blocks = readIndex(path, channel, new int[1]);
+
+			// The last block whose first ID isn't after the ID.
+			int low = 0;
+			int high = blocks.size() - 1;
+
+			while (low <= high)
+			{
+				int middle = (low + high) >>> 1;
+
+				if (blocks.get(middle).firstID.compareTo(id) <= 0)
+				{
+					low = middle + 1;
+				}
+				else
+				{
+					high = middle - 1;
+				}
+			}
+
+			if (high < 0)
+			{
+				return null;
+			}
+
+			Block block = blocks.get(high);
+			ByteBuffer data = block.decompress(path, channel);
+
+			for (int i = 0; i < block.count; i++)
+			{
+				ClubbersFile.getVarint(data);
+
+				ClubAbstractRecord record = getRecord(data);
+
+				if (record != null && record.getID().equals(id))
+				{
+					return record;
+				}
+			}
+
+			return null;
+		}
+	}
+
+	/**
+	 * This method gathers the records into blocks in the order of their IDs.
+	 * @param records holds the records.
+	 * @param byID holds the positions of the records sorted by their ID.
+	 * @param blockSize holds the bytes of records gathered into a block.
+	 * @return the blocks, not compressed yet.
+	 */
+	private static ArrayList<Block> gather(ClubAbstractRecord[] records, Integer[] byID,
+		int blockSize)
+	{
+		ArrayList<Block> blocks = new ArrayList<>();
+		ByteBuffer data = ByteBuffer.allocate(blockSize);
+		Block block = null;
+
+		for (int position : byID)
+		{
+			byte[] body = ClubbersFile.encode(records[position]);
+			int length = MAX_VARINT_SIZE + MAX_VARINT_SIZE + body.length;
+
+			if (block != null && data.remaining() < length)
+			{
+				block.finish(data);
+				block = null;
+			}
+
+			if (block == null)
+			{
+				block = new Block(records[position].getID());
+				blocks.add(block);
+
+				// A record which is bigger than a block gets a block of its own.
+				data = ByteBuffer.allocate(Math.max(blockSize, length));
+			}
+
+			ClubbersFile.putVarint(data, position);
+			ClubbersFile.putVarint(data, body.length);
+			data.put(body);
+			block.count++;
+		}
+
+		if (block != null)
+		{
+			block.finish(data);
+		}
+
+		return blocks;
+	}
+
+	/**
+	 * This method reads and checks the header, the trailer and the block
+	 * index of an archive.
+	 * @param path holds the archive, for the error messages.
+	 * @param channel holds the open archive.
+	 * @param recordCount gets the number of records in the archive.
+	 * @return the blocks in the order of their IDs.
+	 * @throws IOException if the archive can't be read or isn't an archive.
+	 */
+	private static ArrayList<Block> readIndex(Path path, FileChannel channel, int[] recordCount)
+		throws IOException
+	{
+		long size = channel.size();
+
+		if (size < HEADER_SIZE + TRAILER_SIZE)
+		{
+			throw new IOException(path + " is not a clubbers archive");
+		}
+
+		ByteBuffer header = readFully(channel, 0, HEADER_SIZE);
+		ByteBuffer trailer = readFully(channel, size - TRAILER_SIZE, TRAILER_SIZE);
+
+		if (header.getInt() != MAGIC || trailer.getInt(TRAILER_SIZE - 4) != MAGIC)
+		{
+			throw new IOException(path + " is not a clubbers archive");
+		}
+
+		short version = header.getShort();
+
+		if (version > VERSION)
+		{
+			throw new IOException(String.format(
+				"%s was written by a newer version (%d)", path, version));
+		}
+
+		long indexPosition = trailer.getLong();
+		int indexLength = trailer.getInt();
+		int blockCount = trailer.getInt();
+		recordCount[0] = trailer.getInt();
+
+		if (indexPosition < HEADER_SIZE || indexLength < 0 || blockCount < 0 ||
+			recordCount[0] < 0 || indexPosition + indexLength + TRAILER_SIZE != size)
+		{
+			throw new IOException(path + " has a damaged block index");
+		}
+
+		ByteBuffer index = readFully(channel, indexPosition, indexLength);
+		ArrayList<Block> blocks = new ArrayList<>();
+
+		try
+		{
+			for (int i = 0; i < blockCount; i++)
+			{
+				Block block = Block.getIndex(index);
+
+				if (block.offset < HEADER_SIZE || block.compressedLength < 0 ||
+					block.offset + block.compressedLength > indexPosition ||
+					block.length < 0 || block.count < 0)
+				{
+					throw new IOException(path + " has a damaged block index");
+				}
+
+				blocks.add(block);
+			}
+		}
+		catch (BufferUnderflowException | IndexOutOfBoundsException e)
+		{
+			throw new IOException(path + " has a damaged block index", e);
+		}
+
+		return blocks;
+	}
+
+	/**
+	 * This method reads a length-prefixed record.
+	 * @param data holds the record at its position.
+	 * @return the record or null if its type is unknown.
+	 */
+	private static ClubAbstractRecord getRecord(ByteBuffer data)
+	{
+		int length = ClubbersFile.getVarint(data);
+		int end = data.position() + length;
+		ClubAbstractRecord record = ClubbersFile.decode(data);
+		data.position(end);
+
+		return record;
+	}
+
+	/**
+	 * This method reads bytes at a position of a file.
+	 * @param channel holds the open file.
+	 * @param position holds the position in the file.
+	 * @param length holds the number of bytes to read.
+	 * @return the bytes in read mode.
+	 * @throws IOException if the file ends before the bytes are read.
+	 */
+	private static ByteBuffer readFully(FileChannel channel, long position, int length)
+		throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		while (buffer.hasRemaining())
+		{
+			if (channel.read(buffer, position + buffer.position()) == -1)
+			{
+				throw new EOFException("Clubbers archive ends in the middle of a block");
+			}
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * This method writes the whole buffer to the channel.
+	 * @param channel holds the channel to write to.
+	 * @param buffer holds the bytes to write in read mode.
+	 * @throws IOException if the channel can't be written.
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+	}
+
+	/**
+	 * static main method.
+	 * Prints the clubber with the ID given in the second argument from the
+	 * archive given in the first argument, or the number of its clubbers.
+	 * @param args command line arguments
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: java ClubbersArchive [archive file] [ID]");
+			System.exit(1);
+		}
+
+		Path path = Paths.get(args[0]);
+
+		try
+		{
+			long start = System.nanoTime();
+
+			if (args.length > 1)
+			{
+				ClubAbstractRecord record = find(path, args[1]);
+
+				System.out.printf("%s (found in %d us)%n",
+					record == null ? "No clubber has the ID " + args[1] : record,
+					(System.nanoTime() - start) / 1000);
+			}
+			else
+			{
+				int count = read(path).size();
+
+				System.out.printf("%d clubbers in %s, %d bytes (read in %d ms)%n", count,
+					path, Files.size(path), (System.nanoTime() - start) / 1000000);
+			}
+		}
+		catch (IOException e)
+		{
+			System.err.println("Reading the archive failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * This class holds a block of records and its entry in the block index.
+	 */
+	private static class Block
+	{
+		private final String firstID;
+		private int count;
+
+		// The records, set while writing until the block is compressed.
+		private byte[] data;
+		private int length;
+		private int checksum;
+
+		private byte[] compressed;
+		private int compressedLength;
+		private long offset;
+
+		/**
+		 * Block Constructor - starts an empty block.
+		 * @param firstID holds the ID of the first record of the block.
+		 */
+		public Block(String firstID)
+		{
+			this.firstID = firstID;
+		}
+
+		/**
+		 * This method keeps the records gathered into the block.
+		 * @param buffer holds the records in write mode.
+		 */
+		public void finish(ByteBuffer buffer)
+		{
+			data = buffer.array();
+			length = buffer.position();
+
+			CRC32 crc = new CRC32();
+			crc.update(data, 0, length);
+			checksum = (int)crc.getValue();
+		}
+
+		/**
+		 * This method compresses the records of the block.
+		 */
+		public void compress()
+		{
+			Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+
+			try
+			{
+				deflater.setInput(data, 0, length);
+				deflater.finish();
+
+				compressed = new byte[length / 2 + 64];
+
+				while (!deflater.finished())
+				{
+					if (compressedLength == compressed.length)
+					{
+						compressed = Arrays.copyOf(compressed, compressed.length * 2);
+					}
+
+					compressedLength += deflater.deflate(compressed, compressedLength,
+						compressed.length - compressedLength);
+				}
+			}
+			finally
+			{
+				deflater.end();
+			}
+
+			data = null;
+		}
+
+		/**
+		 * This method reads the block and decompresses it.
+		 * @param path holds the archive, for the error messages.
+		 * @param channel holds the open archive, it may be read by several
+		 * threads at once.
+		 * @return the records of the block in read mode.
+		 * @throws IOException if the block can't be read or is damaged.
+		 */
+		public ByteBuffer decompress(Path path, FileChannel channel) throws IOException
+		{
+			ByteBuffer input = readFully(channel, offset, compressedLength);
+			byte[] records = new byte[length];
+			Inflater inflater = new Inflater();
+			int inflated = 0;
+
+			try
+			{
+				inflater.setInput(input.array(), 0, compressedLength);
+
+				while (inflated < length && !inflater.finished() && !inflater.needsInput())
+				{
+					inflated += inflater.inflate(records, inflated, length - inflated);
+				}
+			}
+			catch (DataFormatException e)
+			{
+				throw new IOException(path + " has a damaged block at " + offset, e);
+			}
+			finally
+			{
+				inflater.end();
+			}
+
+			CRC32 crc = new CRC32();
+			crc.update(records, 0, inflated);
+
+			if (inflated != length || (int)crc.getValue() != checksum)
+			{
+				throw new IOException(path + " has a damaged block at " + offset);
+			}
+
+			return ByteBuffer.wrap(records);
+		}
+
+		/**
+		 * This method returns the size of the entry of the block in the index.
+		 * @return the size in bytes.
+		 */
+		public int indexSize()
+		{
+			byte[] id = ClubbersFile.utf8(firstID);
+
+			return ClubbersFile.varintSize(id.length) + id.length + 8 + 4 + 4 + 4 + 4;
+		}
+
+		/**
+		 * This method writes the entry of the block in the index.
+		 * @param index holds the index in write mode.
+		 */
+		public void putIndex(ByteBuffer index)
+		{
+			byte[] id = ClubbersFile.utf8(firstID);
+
+			ClubbersFile.putVarint(index, id.length);
+			index.put(id);
+			index.putLong(offset);
+			index.putInt(compressedLength);
+			index.putInt(length);
+			index.putInt(count);
+			index.putInt(checksum);
+		}
+
+		/**
+		 * This method reads the entry of a block in the index.
+		 * @param index holds the index at the entry.
+		 * @return the block, its records aren't read.
+		 */
+		public static Block getIndex(ByteBuffer index)
+		{
+			Block block = new Block(ClubbersFile.getString(index));
+
+			block.offset = index.getLong();
+			block.compressedLength = index.getInt();
+			block.length = index.getInt();
+			block.count = index.getInt();
+			block.checksum = index.getInt();
+
+			return block;
+		}
+	}
+}
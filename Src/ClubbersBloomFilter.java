@@ -0,0 +1,179 @@
+/**
+ * This class is a Bloom filter of the keys of the clubbers, it tells that a
+ * key is surely not a key of any clubber without looking it up.
+ * <br> Most of the keys scanned at the doors and checked for an existing ID
+ * belong to no clubber, the stores check the filter first and only look such
+ * a key up in their index, or read a slot from the disk, when the filter
+ * might contain it, about 1% of the missing keys.
+ * <br> A key is added by its hash, which is mixed into 7 bits of a single
+ * 512 bits block, so a check reads one cache line. Keys can't be removed, a
+ * store counts the removed keys as still added and builds a new filter from
+ * its keys once {@link #isFull} tells that more keys were added than the
+ * filter holds with that rate.
+ * <br> The filter isn't thread-safe, it is guarded by the lock of its store.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersBloomFilter
+{
+	// Bits the filter has for every key it holds.
+	public static final int BITS_PER_KEY = 10;
+	public static final int HASH_COUNT = 7;
+
+	private static final int MIN_CAPACITY = 1024;
+	private static final int BLOCK_WORDS = 8;
+	private static final int BLOCK_BITS = BLOCK_WORDS * 64;
+
+	private final long[] words;
+	private final int blockMask;
+	private final int capacity;
+	private int keyCount;
+
+	/**
+	 * ClubbersBloomFilter Constructor - starts an empty filter.
+	 * @param capacity holds the number of keys the filter holds before it
+	 * is full, the filter is rounded up to a power of 2 blocks.
+	 */
+	public ClubbersBloomFilter(int capacity)
+	{
+		this.capacity = Math.max(MIN_CAPACITY, capacity);
+
+		long bits = (long)this.capacity * BITS_PER_KEY;
+		int blocks = Integer.highestOneBit((int)Math.min((bits - 1) / BLOCK_BITS,
+			1 << 20)) * 2;
+
+		words = new long[blocks * BLOCK_WORDS];
+		blockMask = blocks - 1;
+	}
+
+	/**
+	 * This method adds a key.
+	 * @param hash holds the hash of the key, see {@link #hash}.
+	 */
+	public void add(int hash)
+	{
+		int block = block(hash);
+		long bits = mix(hash);
+
+		for (int i = 0; i < HASH_COUNT; i++, bits >>>= 9)
+		{
+			int bit = (int)bits & (BLOCK_BITS - 1);
+			words[block + (bit >>> 6)] |= 1L << bit;
+		}
+
+		keyCount++;
+	}
+
+	/**
+	 * This method checks whether a key might have been added.
+	 * @param hash holds the hash of the key, see {@link #hash}.
+	 * @return false if the key was surely not added, true if it might have
+	 * been.
+	 */
+	public boolean mightContain(int hash)
+	{
+		int block = block(hash);
+		long bits = mix(hash);
+
+		for (int i = 0; i < HASH_COUNT; i++, bits >>>= 9)
+		{
+			int bit = (int)bits & (BLOCK_BITS - 1);
+
+			if ((words[block + (bit >>> 6)] & (1L << bit)) == 0)
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method checks whether more keys were added than the filter holds,
+	 * it should then be built again with a bigger capacity.
+	 * @return true or false whether the filter is full.
+	 */
+	public boolean isFull()
+	{
+		return keyCount > capacity;
+	}
+
+	/**
+	 * This method returns the number of keys added, with the ones added more
+	 * than once and the removed ones.
+	 * @return the number of keys.
+	 */
+	public int getKeyCount()
+	{
+		return keyCount;
+	}
+
+	/**
+	 * This method returns the number of keys the filter holds before it is
+	 * full.
+	 * @return the capacity.
+	 */
+	public int getCapacity()
+	{
+		return capacity;
+	}
+
+	/**
+	 * This method returns the hash of a key for stores which don't hash their
+	 * keys already.
+	 * @param kind holds the kind of key, so the same text as an ID and as a
+	 * personal number are different keys.
+	 * @param key holds the key.
+	 * @return the hash.
+	 */
+	public static int hash(int kind, String key)
+	{
+		return key.hashCode() * 31 + kind;
+	}
+
+	/**
+	 * This method returns the hash of the first letters of a key, the same as
+	 * the hash of the substring of those letters.
+	 * @param kind holds the kind of key.
+	 * @param key holds the key.
+	 * @param length holds the number of letters.
+	 * @return the hash.
+	 */
+	public static int hash(int kind, String key, int length)
+	{
+		int hash = 0;
+
+		for (int i = 0; i < length; i++)
+		{
+			hash = hash * 31 + key.charAt(i);
+		}
+
+		return hash * 31 + kind;
+	}
+
+	/**
+	 * This method returns the first word of the block of a key.
+	 * @param hash holds the hash of the key.
+	 * @return the position of the word.
+	 */
+	private int block(int hash)
+	{
+		int mixed = hash * 0x9E3779B9;
+
+		return ((mixed ^ (mixed >>> 16)) & blockMask) * BLOCK_WORDS;
+	}
+
+	/**
+	 * This method mixes a hash into 63 bits which pick the bits of the key in
+	 * its block, 9 bits for each.
+	 * @param hash holds the hash of the key.
+	 * @return the mixed bits.
+	 */
+	private static long mix(int hash)
+	{
+		long mixed = hash * 0xFF51AFD7ED558CCDL;
+		mixed ^= mixed >>> 33;
+		mixed *= 0xC4CEB9FE1A85EC53L;
+
+		return mixed ^ (mixed >>> 33);
+	}
+}
@@ -0,0 +1,200 @@
+import java.util.concurrent.*;
+
+/**
+ * This class checks clubbers in at the doors of the club.
+ * <br> Every scan finds the clubber of the scanned key with
+ * {@link ClubbersStore#find}, which takes no lock of a
+ * {@link ClubbersRepository}, and records the time the clubber entered. A
+ * clubber who entered less than the re-entry delay ago is denied, so the card
+ * of a clubber who is inside can't be passed back to let another guest in.
+ * <br> The entry times are kept in memory by the ID of the clubber and may be
+ * recorded by any number of doors at once.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersCheckIn
+{
+	// Default of how long after entering a clubber can't enter again.
+	public static final long DEFAULT_REENTRY_DELAY = TimeUnit.MINUTES.toMillis(30);
+
+	private final ClubbersStore clubbers;
+	private final long reentryDelay;
+
+	// The time every clubber entered last, by the ID of the clubber.
+	private final ConcurrentHashMap<String, Long> entryTimes;
+
+	/**
+	 * ClubbersCheckIn Constructor - checks in with the default re-entry delay.
+	 * @param clubbers holds the clubbers.
+	 */
+	public ClubbersCheckIn(ClubbersStore clubbers)
+	{
+		this(clubbers, DEFAULT_REENTRY_DELAY);
+	}
+
+	/**
+	 * ClubbersCheckIn Full Constructor - initializes the clubbers and the
+	 * re-entry delay.
+	 * @param clubbers holds the clubbers.
+	 * @param reentryDelay holds the milliseconds after entering in which a
+	 * clubber is denied, 0 to never deny a clubber who entered.
+	 */
+	public ClubbersCheckIn(ClubbersStore clubbers, long reentryDelay)
+	{
+		this.clubbers = clubbers;
+		this.reentryDelay = reentryDelay;
+		entryTimes = new ConcurrentHashMap<>();
+	}
+
+	/**
+	 * This method checks in the clubber of a scanned key at the current time.
+	 * @param key holds the scanned key, as {@link ClubbersStore#find}.
+	 * @return the {@link Entry} which tells whether the clubber is admitted.
+	 */
+	public Entry checkIn(String key)
+	{
+		return checkIn(key, System.currentTimeMillis());
+	}
+
+	/**
+	 * This method checks in the clubber of a scanned key, the entry time is
+	 * only recorded if the clubber is admitted.
+	 * @param key holds the scanned key, as {@link ClubbersStore#find}.
+	 * @param time holds the time of the scan in milliseconds since the epoch.
+	 * @return the {@link Entry} which tells whether the clubber is admitted.
+	 */
+	public Entry checkIn(String key, long time)
+	{
+		ClubAbstractRecord record = clubbers.find(key);
+
+		if (record == null)
+		{
+			return new Entry(Result.UNKNOWN, null, time);
+		}
+
+		boolean[] admitted = {false};
+		long entered = entryTimes.compute(record.getID(), (id, previous) ->
+		{
+			if (previous != null && time - previous < reentryDelay)
+			{
+				return previous;
+			}
+
+			admitted[0] = true;
+			return time;
+		});
+
+		if (!admitted[0])
+		{
+			return new Entry(Result.ALREADY_INSIDE, record, entered);
+		}
+
+		return new Entry(Result.ADMITTED, record, time);
+	}
+
+	/**
+	 * This method returns the time a clubber entered last.
+	 * @param id holds the ID of the clubber.
+	 * @return the time in milliseconds since the epoch or -1 if the clubber
+	 * didn't enter.
+	 */
+	public long getEntryTime(String id)
+	{
+		Long entered = entryTimes.get(id);
+
+		return entered == null ? -1 : entered;
+	}
+
+	/**
+	 * This method returns the number of clubbers who entered.
+	 * @return the number of clubbers with an entry time.
+	 */
+	public int getEntryCount()
+	{
+		return entryTimes.size();
+	}
+
+	/**
+	 * This method forgets all the entry times, such as when the club opens.
+	 */
+	public void clear()
+	{
+		entryTimes.clear();
+	}
+
+	/**
+	 * The results of a check-in.
+	 */
+	public enum Result
+	{
+		// The clubber entered.
+		ADMITTED,
+
+		// No clubber matches the scanned key.
+		UNKNOWN,
+
+		// The clubber entered less than the re-entry delay ago.
+		ALREADY_INSIDE
+	}
+
+	/**
+	 * This class holds the result of a check-in, the clubber of the scanned
+	 * key and the time the clubber entered.
+	 */
+	public static class Entry
+	{
+		private final Result result;
+		private final ClubAbstractRecord record;
+		private final long time;
+
+		/**
+		 * Entry Constructor - initializes the result, clubber and time.
+		 * @param result holds the result of the check-in.
+		 * @param record holds the clubber, null if the key is unknown.
+		 * @param time holds the time the clubber entered, or of the scan if
+		 * the key is unknown.
+		 */
+		public Entry(Result result, ClubAbstractRecord record, long time)
+		{
+			this.result = result;
+			this.record = record;
+			this.time = time;
+		}
+
+		/**
+		 * This method returns the result of the check-in.
+		 * @return the {@link Result}.
+		 */
+		public Result getResult()
+		{
+			return result;
+		}
+
+		/**
+		 * This method returns whether the clubber is admitted.
+		 * @return true or false whether the result is {@link Result#ADMITTED}.
+		 */
+		public boolean isAdmitted()
+		{
+			return result == Result.ADMITTED;
+		}
+
+		/**
+		 * This method returns the clubber of the scanned key.
+		 * @return the record or null if the key is unknown.
+		 */
+		public ClubAbstractRecord getRecord()
+		{
+			return record;
+		}
+
+		/**
+		 * This method returns the time the clubber entered, an admitted
+		 * clubber entered at the scan.
+		 * @return the time in milliseconds since the epoch.
+		 */
+		public long getTime()
+		{
+			return time;
+		}
+	}
+}
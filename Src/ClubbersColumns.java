@@ -0,0 +1,695 @@
+import java.util.*;
+import java.util.concurrent.locks.*;
+
+/**
+ * This class implements {@link ClubbersRepository.Listener}.
+ * <br> This class keeps the fields of the clubbers of a
+ * {@link ClubbersRepository} in columns, an array for every field instead of
+ * an object for every clubber, so counting and filtering millions of
+ * clubbers goes over a few arrays in order instead of following the
+ * references of every record and its strings.
+ * <br> The columns are the type of the clubber and its name, surname and
+ * country code of its telephone. A text field is kept as the code of its
+ * value in a dictionary of the values of the column, so comparing it is
+ * comparing two ints and a column of 10M clubbers with a few hundred
+ * surnames takes 40MB. IDs, telephone numbers, personal numbers and student
+ * IDs are different for almost every clubber and stay in the records.
+ * <br> The columns are filled once by {@link #attach} and kept up to date
+ * with every change after that: an added clubber is appended as a row, an
+ * edited clubber overwrites its row and a removed clubber is marked as
+ * removed in the type column, the rows of the removed clubbers are reused
+ * by compacting the columns once they are more than half of them. The
+ * changes are passed on to the listener the repository had before, such as
+ * the {@link ClubbersCompactor}.
+ * <br> The rows aren't in the order of the repository. A scan takes a read
+ * lock, the changes made meanwhile wait for it.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersColumns implements ClubbersRepository.Listener
+{
+	// The columns.
+	public static final int TYPE = 0;
+	public static final int NAME = 1;
+	public static final int SURNAME = 2;
+	public static final int COUNTRY_CODE = 3;
+
+	// Types of clubbers in the type column.
+	public static final byte PERSON = 0;
+	public static final byte SOLDIER = 1;
+	public static final byte STUDENT = 2;
+	private static final byte REMOVED = 3;
+
+	private static final String[] TYPE_NAMES = {"Person", "Soldier", "Student"};
+	private static final int MIN_ROWS = 1024;
+
+	private final ClubbersRepository.Listener next;
+	private final ReentrantReadWriteLock lock;
+
+	// Every text column and its dictionary, by the number of the column.
+	private final int[][] codes;
+	private final Dictionary[] dictionaries;
+	private byte[] types;
+
+	// The row of every clubber.
+	private final IdentityHashMap<ClubAbstractRecord, Integer> rows;
+	private int rowCount;
+	private int removedCount;
+
+	/**
+	 * ClubbersColumns Constructor - starts empty columns.
+	 * @param next holds the listener the changes are passed on to, may be null.
+	 */
+	private ClubbersColumns(ClubbersRepository.Listener next)
+	{
+		this.next = next;
+		lock = new ReentrantReadWriteLock();
+		codes = new int[COUNTRY_CODE + 1][];
+		dictionaries = new Dictionary[COUNTRY_CODE + 1];
+		types = new byte[MIN_ROWS];
+		rows = new IdentityHashMap<>();
+
+		for (int column = NAME; column <= COUNTRY_CODE; column++)
+		{
+			codes[column] = new int[MIN_ROWS];
+			dictionaries[column] = new Dictionary();
+		}
+	}
+
+	/**
+	 * This method fills columns with the clubbers of a repository and sets
+	 * them as its listener, in front of the listener it had, so they are
+	 * kept up to date.
+	 * <br> The repository can't be changed while the columns are filled.
+	 * @param repository holds the clubbers.
+	 * @return the columns.
+	 */
+	public static ClubbersColumns attach(ClubbersRepository repository)
+	{
+		return repository.runExclusively(() ->
+		{
+			ClubbersColumns columns = new ClubbersColumns(repository.getListener());
+
+			for (ClubAbstractRecord record : repository.getClubbers())
+			{
+				columns.addRow(record);
+			}
+
+			repository.setListener(columns);
+
+			return columns;
+		});
+	}
+
+	/**
+	 * This method stops keeping the columns up to date and sets back the
+	 * listener the repository had before {@link #attach}.
+	 * @param repository holds the clubbers the columns were attached to.
+	 */
+	public void detach(ClubbersRepository repository)
+	{
+		repository.runExclusively(() ->
+		{
+			if (repository.getListener() == this)
+			{
+				repository.setListener(next);
+			}
+
+			return null;
+		});
+	}
+
+	/**
+	 * This method returns the number of clubbers.
+	 * @return the number of rows which weren't removed.
+	 */
+	public int size()
+	{
+		lock.readLock().lock();
+
+		try
+		{
+			return rowCount - removedCount;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method counts the clubbers which pass a filter.
+	 * @param filter holds the filter.
+	 * @return the number of clubbers.
+	 */
+	public long count(Filter filter)
+	{
+		lock.readLock().lock();
+
+		try
+		{
+			int[] values = filter.codes(this);
+
+			if (values == null)
+			{
+				return 0;
+			}
+
+			long count = 0;
+
+			for (int row = 0; row < rowCount; row++)
+			{
+				if (passes(filter, values, row))
+				{
+					count++;
+				}
+			}
+
+			return count;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method groups the clubbers which pass a filter by the value of a
+	 * column and counts every group, the codes of the column are counted in
+	 * an array and turned into their values once at the end.
+	 * @param column holds the column, such as {@link #SURNAME}.
+	 * @param filter holds the filter.
+	 * @return the number of clubbers of every value, from the biggest group
+	 * to the smallest and by the value for groups of the same size, as
+	 * {@link ClubbersQuery#countBy}.
+	 */
+	public LinkedHashMap<String, Long> countBy(int column, Filter filter)
+	{
+		long[] counts;
+		String[] values;
+
+		lock.readLock().lock();
+
+		try
+		{
+			int[] filterValues = filter.codes(this);
+
+			if (filterValues == null)
+			{
+				return new LinkedHashMap<>();
+			}
+
+			if (column == TYPE)
+			{
+				counts = new long[TYPE_NAMES.length];
+				values = TYPE_NAMES;
+
+				for (int row = 0; row < rowCount; row++)
+				{
+					if (passes(filter, filterValues, row))
+					{
+						counts[types[row]]++;
+					}
+				}
+			}
+			else
+			{
+				int[] columnCodes = codes[column];
+				values = dictionaries[column].values();
+
+				// The last count is of the clubbers without a value.
+				counts = new long[values.length + 1];
+
+				for (int row = 0; row < rowCount; row++)
+				{
+					if (passes(filter, filterValues, row))
+					{
+						int code = columnCodes[row];
+						counts[code >= 0 ? code : values.length]++;
+					}
+				}
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		Integer[] order = new Integer[values.length];
+
+		for (int i = 0; i < order.length; i++)
+		{
+			order[i] = i;
+		}
+
+		Arrays.sort(order, (left, right) -> counts[left] != counts[right] ?
+			Long.compare(counts[right], counts[left]) : values[left].compareTo(values[right]));
+
+		LinkedHashMap<String, Long> groups = new LinkedHashMap<>();
+
+		for (int i : order)
+		{
+			if (counts[i] > 0)
+			{
+				groups.put(values[i], counts[i]);
+			}
+		}
+
+		return groups;
+	}
+
+	/**
+	 * This method checks whether a row passes a filter.
+	 * @param filter holds the filter.
+	 * @param values holds the codes of the values of the filter.
+	 * @param row holds the row.
+	 * @return true or false whether the row passes.
+	 */
+	private boolean passes(Filter filter, int[] values, int row)
+	{
+		if ((filter.typeMask & (1 << types[row])) == 0)
+		{
+			return false;
+		}
+
+		for (int i = 0; i < values.length; i++)
+		{
+			if (codes[filter.columns[i]][row] != values[i])
+			{
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * This method appends the columns of the added record and passes the
+	 * change on.
+	 * @param record holds the added record.
+	 */
+	@Override
+	public void clubberAdded(ClubAbstractRecord record)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			addRow(record);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		if (next != null)
+		{
+			next.clubberAdded(record);
+		}
+	}
+
+	/**
+	 * This method overwrites the row of the edited record and passes the
+	 * change on.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 */
+	@Override
+	public void clubberReplaced(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			replaceRow(oldRecord, newRecord);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		if (next != null)
+		{
+			next.clubberReplaced(oldRecord, newRecord);
+		}
+	}
+
+	/**
+	 * This method marks the row of the removed record and passes the change on.
+	 * @param record holds the removed record.
+	 */
+	@Override
+	public void clubberRemoved(ClubAbstractRecord record)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			removeRow(record);
+			compactIfNeeded();
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		if (next != null)
+		{
+			next.clubberRemoved(record);
+		}
+	}
+
+	/**
+	 * This method marks the rows of the removed records and passes the change on.
+	 * @param records holds the removed records.
+	 */
+	@Override
+	public void clubbersRemoved(List<ClubAbstractRecord> records)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			for (ClubAbstractRecord record : records)
+			{
+				removeRow(record);
+			}
+
+			compactIfNeeded();
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		if (next != null)
+		{
+			next.clubbersRemoved(records);
+		}
+	}
+
+	/**
+	 * This method overwrites the rows of the edited records and passes the
+	 * change on.
+	 * @param oldRecords holds the records that were edited.
+	 * @param newRecords holds the edited records in the same order.
+	 */
+	@Override
+	public void clubbersReplaced(List<ClubAbstractRecord> oldRecords,
+		List<ClubAbstractRecord> newRecords)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			for (int i = 0; i < oldRecords.size(); i++)
+			{
+				replaceRow(oldRecords.get(i), newRecords.get(i));
+			}
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+
+		if (next != null)
+		{
+			next.clubbersReplaced(oldRecords, newRecords);
+		}
+	}
+
+	/**
+	 * This method appends a row for a record, the columns double when they
+	 * are full.
+	 * @param record holds the record.
+	 */
+	private void addRow(ClubAbstractRecord record)
+	{
+		if (rowCount == types.length)
+		{
+			types = Arrays.copyOf(types, rowCount * 2);
+
+			for (int column = NAME; column <= COUNTRY_CODE; column++)
+			{
+				codes[column] = Arrays.copyOf(codes[column], rowCount * 2);
+			}
+		}
+
+		rows.put(record, rowCount);
+		setRow(rowCount++, record);
+	}
+
+	/**
+	 * This method writes the columns of a record into its row.
+	 * @param row holds the row.
+	 * @param record holds the record.
+	 */
+	private void setRow(int row, ClubAbstractRecord record)
+	{
+		types[row] = record instanceof SoldierRecord ? SOLDIER :
+			record instanceof StudentRecord ? STUDENT : PERSON;
+
+		PersonRecord person = record instanceof PersonRecord ? (PersonRecord)record : null;
+
+		codes[NAME][row] = dictionaries[NAME].code(person == null ? null : person.getName());
+		codes[SURNAME][row] = dictionaries[SURNAME].code(
+			person == null ? null : person.getSurname());
+		codes[COUNTRY_CODE][row] = dictionaries[COUNTRY_CODE].code(
+			ClubbersQuery.COUNTRY_CODE.apply(record));
+	}
+
+	/**
+	 * This method overwrites the row of an edited record.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 */
+	private void replaceRow(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		Integer row = rows.remove(oldRecord);
+
+		if (row == null)
+		{
+			addRow(newRecord);
+			return;
+		}
+
+		rows.put(newRecord, row);
+		setRow(row, newRecord);
+	}
+
+	/**
+	 * This method marks the row of a removed record as removed.
+	 * @param record holds the record.
+	 */
+	private void removeRow(ClubAbstractRecord record)
+	{
+		Integer row = rows.remove(record);
+
+		if (row != null)
+		{
+			types[row] = REMOVED;
+			removedCount++;
+		}
+	}
+
+	/**
+	 * This method moves the rows which weren't removed to the start of the
+	 * columns once more than half of the rows were removed.
+	 */
+	private void compactIfNeeded()
+	{
+		if (removedCount * 2 <= rowCount || rowCount <= MIN_ROWS)
+		{
+			return;
+		}
+
+		int[] moved = new int[rowCount];
+		int kept = 0;
+
+		for (int row = 0; row < rowCount; row++)
+		{
+			if (types[row] == REMOVED)
+			{
+				continue;
+			}
+
+			moved[row] = kept;
+			types[kept] = types[row];
+
+			for (int column = NAME; column <= COUNTRY_CODE; column++)
+			{
+				codes[column][kept] = codes[column][row];
+			}
+
+			kept++;
+		}
+
+		for (Map.Entry<ClubAbstractRecord, Integer> row : rows.entrySet())
+		{
+			row.setValue(moved[row.getValue()]);
+		}
+
+		rowCount = kept;
+		removedCount = 0;
+	}
+
+	/**
+	 * This class is a filter of the clubbers by their type and by the values
+	 * of their columns, it never changes so one can be kept and narrowed
+	 * further.
+	 */
+	public static class Filter
+	{
+		// Every clubber.
+		public static final Filter ALL = new Filter(
+			(1 << PERSON) | (1 << SOLDIER) | (1 << STUDENT), new int[0], new String[0]);
+
+		private final int typeMask;
+		private final int[] columns;
+		private final String[] values;
+
+		/**
+		 * Filter Constructor - a filter of types and values.
+		 * @param typeMask holds a bit for every type which passes.
+		 * @param columns holds the columns which must have a value.
+		 * @param values holds the value of every column.
+		 */
+		private Filter(int typeMask, int[] columns, String[] values)
+		{
+			this.typeMask = typeMask;
+			this.columns = columns;
+			this.values = values;
+		}
+
+		/**
+		 * This method returns a filter of the clubbers of this filter which
+		 * are of a type.
+		 * @param type holds the type, such as {@link #SOLDIER}.
+		 * @return the new filter.
+		 */
+		public Filter type(byte type)
+		{
+			return new Filter(typeMask & (1 << type), columns, values);
+		}
+
+		/**
+		 * This method returns a filter of the clubbers of this filter which
+		 * have a value in a column.
+		 * @param column holds the column, not {@link #TYPE}.
+		 * @param value holds the value.
+		 * @return the new filter.
+		 * @throws IllegalArgumentException if the column isn't a text column.
+		 */
+		public Filter equal(int column, String value)
+		{
+			if (column < NAME || column > COUNTRY_CODE)
+			{
+				throw new IllegalArgumentException("Not a text column: " + column);
+			}
+
+			int[] newColumns = Arrays.copyOf(columns, columns.length + 1);
+			String[] newValues = Arrays.copyOf(values, values.length + 1);
+			newColumns[columns.length] = column;
+			newValues[values.length] = value;
+
+			return new Filter(typeMask, newColumns, newValues);
+		}
+
+		/**
+		 * This method looks the values of the filter up in the dictionaries
+		 * of the columns.
+		 * @param columns holds the columns.
+		 * @return the code of every value or null if a value is in no row,
+		 * so no clubber passes.
+		 */
+		private int[] codes(ClubbersColumns columns)
+		{
+			int[] codes = new int[values.length];
+
+			for (int i = 0; i < values.length; i++)
+			{
+				codes[i] = columns.dictionaries[this.columns[i]].find(values[i]);
+
+				if (codes[i] == Dictionary.NOT_FOUND)
+				{
+					return null;
+				}
+			}
+
+			return codes;
+		}
+	}
+
+	/**
+	 * This class holds the values of a text column, every value gets the
+	 * next code the first time it is seen and keeps it, a value which is no
+	 * longer in any row keeps its code as well.
+	 */
+	private static class Dictionary
+	{
+		// The code of a missing value and of a value which was never added.
+		private static final int NULL_CODE = -1;
+		private static final int NOT_FOUND = -2;
+
+		private final HashMap<String, Integer> codes;
+		private final ArrayList<String> values;
+
+		/**
+		 * Dictionary Constructor - starts an empty dictionary.
+		 */
+		private Dictionary()
+		{
+			codes = new HashMap<>();
+			values = new ArrayList<>();
+		}
+
+		/**
+		 * This method returns the code of a value, a new value is added.
+		 * @param value holds the value, may be null.
+		 * @return the code.
+		 */
+		private int code(String value)
+		{
+			if (value == null)
+			{
+				return NULL_CODE;
+			}
+
+			Integer code = codes.get(value);
+
+			if (code == null)
+			{
+				code = values.size();
+				codes.put(value, code);
+				values.add(value);
+			}
+
+			return code;
+		}
+
+		/**
+		 * This method returns the code of a value without adding it.
+		 * @param value holds the value, may be null.
+		 * @return the code or {@link #NOT_FOUND} if the value was never added.
+		 */
+		private int find(String value)
+		{
+			if (value == null)
+			{
+				return NULL_CODE;
+			}
+
+			Integer code = codes.get(value);
+
+			return code == null ? NOT_FOUND : code;
+		}
+
+		/**
+		 * This method returns the values by their codes.
+		 * @return an array of the values.
+		 */
+		private String[] values()
+		{
+			return values.toArray(new String[0]);
+		}
+	}
+}
@@ -0,0 +1,339 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * This class implements {@link ClubbersRepository.Listener}.
+ * <br> This class writes every change to the {@link ClubbersJournal} and
+ * compacts the journal once it passes a size or a number of entries: a
+ * background thread seals the journal and copies the records at the same
+ * point, then saves them into the {@link ClubbersFile} and deletes the sealed
+ * segments.
+ * <br> The window that made the change only starts the compaction and never
+ * waits for the disk. Copying only takes the references of the records,
+ * which can't change, so the repository keeps being used while they are saved.
+ * <br> If the program stops or the saving fails the sealed segments are
+ * left and replayed on the next startup, nothing is lost. The failure is
+ * logged and every compaction is recorded in the {@link ClubbersMetrics}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersCompactor implements ClubbersRepository.Listener
+{
+	// Defaults of when the journal is compacted.
+	public static final long DEFAULT_MAX_JOURNAL_SIZE = 4 * 1024 * 1024;
+	public static final int DEFAULT_MAX_JOURNAL_ENTRIES = 10000;
+
+	private static final Logger LOGGER = Logger.getLogger(ClubbersCompactor.class.getName());
+
+	private static final ClubbersMetrics.Operation COMPACT_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.COMPACT);
+
+	private final ClubbersRepository repository;
+	private final ClubbersJournal journal;
+	private final Path path;
+
+	private final long maxJournalSize;
+	private final int maxJournalEntries;
+
+	private final ExecutorService executor;
+
+	// Set while a compaction is running so only one runs at a time.
+	private final AtomicBoolean compacting;
+
+	// The thread which makes a bulk change, its changes aren't journaled,
+	// null if none is made.
+	private volatile Thread bulkChangeThread;
+
+	// Set when saving a bulk change failed, cleared once the clubbers are
+	// saved.
+	private volatile boolean bulkChangeUnsaved;
+
+	/**
+	 * ClubbersCompactor Constructor - compacts with the default thresholds.
+	 * @param repository holds the clubbers.
+	 * @param journal holds the journal of the repository.
+	 * @param path holds the file the clubbers are saved into.
+	 */
+	public ClubbersCompactor(ClubbersRepository repository, ClubbersJournal journal, Path path)
+	{
+		this(repository, journal, path, DEFAULT_MAX_JOURNAL_SIZE, DEFAULT_MAX_JOURNAL_ENTRIES);
+	}
+
+	/**
+	 * ClubbersCompactor Full Constructor - starts the background thread.
+	 * @param repository holds the clubbers.
+	 * @param journal holds the journal of the repository.
+	 * @param path holds the file the clubbers are saved into.
+	 * @param maxJournalSize holds the size in bytes the journal is compacted after.
+	 * @param maxJournalEntries holds the number of entries the journal is
+	 * compacted after.
+	 */
+	public ClubbersCompactor(ClubbersRepository repository, ClubbersJournal journal, Path path,
+		long maxJournalSize, int maxJournalEntries)
+	{
+		this.repository = repository;
+		this.journal = journal;
+		this.path = path;
+		this.maxJournalSize = maxJournalSize;
+		this.maxJournalEntries = maxJournalEntries;
+		compacting = new AtomicBoolean();
+
+		executor = Executors.newSingleThreadExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "Clubbers Compactor");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * This method starts a compaction if the journal passed one of the
+	 * thresholds and no compaction is running.
+	 * @return true or false whether a compaction was started.
+	 */
+	public boolean compactIfNeeded()
+	{
+		if (compacting.get() || journal.getEntryCount() < maxJournalEntries &&
+			journal.size() < maxJournalSize)
+		{
+			return false;
+		}
+
+		return compact() != null;
+	}
+
+	/**
+	 * This method seals the journal, copies the records and saves them on
+	 * the background thread.
+	 * @return the running compaction, which tells whether the records were
+	 * saved, or null if one is already running.
+	 */
+	public Future<Boolean> compact()
+	{
+		if (!compacting.compareAndSet(false, true))
+		{
+			return null;
+		}
+
+		try
+		{
+			return executor.submit(this::runCompaction);
+		}
+		catch (RejectedExecutionException e)
+		{
+			// Shut down, the journal is replayed on the next startup.
+			compacting.set(false);
+			return null;
+		}
+	}
+
+	/**
+	 * This method seals the journal, copies the records and saves them.
+	 * <br> Sealing and copying are run with
+	 * {@link ClubbersRepository#runExclusively}, so no change is made between
+	 * them by any thread.
+	 * @return true or false whether the records were saved.
+	 */
+	private boolean runCompaction()
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			long[] sequence = new long[1];
+			List<ClubAbstractRecord> records = repository.runExclusively(() ->
+			{
+				try
+				{
+					sequence[0] = journal.seal();
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException(e);
+				}
+
+				return repository.getClubbers();
+			});
+
+			ClubbersFile.write(path, records, sequence[0]);
+			journal.deleteSegments(sequence[0]);
+			failed = false;
+			bulkChangeUnsaved = false;
+		}
+		catch (IOException | UncheckedIOException e)
+		{
+			// The segments are kept and saved by the next compaction.
+			LOGGER.log(Level.WARNING, "Can't compact the journal into " + path, e);
+		}
+		finally
+		{
+			COMPACT_OPERATION.record(start, failed);
+			compacting.set(false);
+		}
+
+		return !failed;
+	}
+
+	/**
+	 * This method starts a bulk change, such as an import, whose changes
+	 * aren't written to the journal one by one but saved together by
+	 * {@link #endBulkChange}.
+	 * <br> Only the changes of the calling thread are part of the bulk change,
+	 * changes made meanwhile by other threads are journaled as usual.
+	 */
+	public void beginBulkChange()
+	{
+		bulkChangeThread = Thread.currentThread();
+	}
+
+	/**
+	 * This method ends a bulk change and queues a compaction which saves it.
+	 * <br> The background thread runs one compaction at a time, so a running
+	 * compaction is finished first and the queued one always saves the
+	 * changes.
+	 * <br> If saving fails the clubbers are saved again by {@link #shutdown}.
+	 * @return the queued compaction, which tells whether the bulk change was
+	 * saved, or null if the compactor was shut down.
+	 */
+	public Future<Boolean> endBulkChange()
+	{
+		bulkChangeThread = null;
+
+		try
+		{
+			return executor.submit(() ->
+			{
+				compacting.set(true);
+
+				if (runCompaction())
+				{
+					return true;
+				}
+
+				bulkChangeUnsaved = true;
+				return false;
+			});
+		}
+		catch (RejectedExecutionException e)
+		{
+			return null;
+		}
+	}
+
+	/**
+	 * This method waits for a running compaction and stops the background
+	 * thread.
+	 * <br> A bulk change which failed to be saved is tried once more first,
+	 * since it isn't in the journal.
+	 */
+	public void shutdown()
+	{
+		if (bulkChangeUnsaved)
+		{
+			compact();
+		}
+
+		executor.shutdown();
+
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * This method writes the change to the journal and compacts it if needed,
+	 * changes made by the thread of a bulk change are skipped.
+	 * @param record holds the added record.
+	 */
+	@Override
+	public void clubberAdded(ClubAbstractRecord record)
+	{
+		if (bulkChangeThread == Thread.currentThread())
+		{
+			return;
+		}
+
+		journal.clubberAdded(record);
+		compactIfNeeded();
+	}
+
+	/**
+	 * This method writes the change to the journal and compacts it if needed,
+	 * changes made by the thread of a bulk change are skipped.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 */
+	@Override
+	public void clubberReplaced(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		if (bulkChangeThread == Thread.currentThread())
+		{
+			return;
+		}
+
+		journal.clubberReplaced(oldRecord, newRecord);
+		compactIfNeeded();
+	}
+
+	/**
+	 * This method writes the change to the journal and compacts it if needed,
+	 * changes made by the thread of a bulk change are skipped.
+	 * @param record holds the removed record.
+	 */
+	@Override
+	public void clubberRemoved(ClubAbstractRecord record)
+	{
+		if (bulkChangeThread == Thread.currentThread())
+		{
+			return;
+		}
+
+		journal.clubberRemoved(record);
+		compactIfNeeded();
+	}
+
+	/**
+	 * This method writes the bulk change to the journal and compacts it if
+	 * needed, changes made by the thread of a bulk change are skipped.
+	 * @param records holds the removed records.
+	 */
+	@Override
+	public void clubbersRemoved(List<ClubAbstractRecord> records)
+	{
+		if (bulkChangeThread == Thread.currentThread())
+		{
+			return;
+		}
+
+		journal.clubbersRemoved(records);
+		compactIfNeeded();
+	}
+
+	/**
+	 * This method writes the bulk change to the journal and compacts it if
+	 * needed, changes made by the thread of a bulk change are skipped.
+	 * @param oldRecords holds the records that were edited.
+	 * @param newRecords holds the edited records.
+	 */
+	@Override
+	public void clubbersReplaced(List<ClubAbstractRecord> oldRecords,
+		List<ClubAbstractRecord> newRecords)
+	{
+		if (bulkChangeThread == Thread.currentThread())
+		{
+			return;
+		}
+
+		journal.clubbersReplaced(oldRecords, newRecords);
+		compactIfNeeded();
+	}
+}
@@ -0,0 +1,210 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class converts clubbers from and to lines of comma separated values.
+ * <br> Every line is the type of the clubber (Person, Soldier or Student),
+ * the ID, name, surname and tel, and the personal number of a soldier or the
+ * student ID of a student. A field which holds a comma or a quote is written
+ * between quotes with its quotes doubled.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersCsv
+{
+	public static final String HEADER = "Type,ID,Name,Surname,Tel,Personal No./Student ID";
+
+	// Types of clubbers.
+	public static final String PERSON = "Person";
+	public static final String SOLDIER = "Soldier";
+	public static final String STUDENT = "Student";
+
+	/**
+	 * ClubbersCsv Constructor - private since the class only has static methods.
+	 */
+	private ClubbersCsv()
+	{
+	}
+
+	/**
+	 * This method splits a line into its fields.
+	 * @param line holds the line.
+	 * @return the fields or null if a quoted field isn't closed.
+	 */
+	public static String[] split(String line)
+	{
+		ArrayList<String> fields = new ArrayList<>(6);
+		int start = 0;
+
+		while (true)
+		{
+			if (start < line.length() && line.charAt(start) == '"')
+			{
+				StringBuilder field = new StringBuilder();
+				int i = start + 1;
+
+				while (true)
+				{
+					int quote = line.indexOf('"', i);
+
+					if (quote < 0)
+					{
+						return null;
+					}
+
+					field.append(line, i, quote);
+
+					// A doubled quote stands for a quote in the field.
+					if (quote + 1 < line.length() && line.charAt(quote + 1) == '"')
+					{
+						field.append('"');
+						i = quote + 2;
+						continue;
+					}
+
+					i = quote + 1;
+					break;
+				}
+
+				fields.add(field.toString());
+
+				if (i >= line.length())
+				{
+					break;
+				}
+
+				if (line.charAt(i) != ',')
+				{
+					return null;
+				}
+
+				start = i + 1;
+			}
+			else
+			{
+				int comma = line.indexOf(',', start);
+
+				if (comma < 0)
+				{
+					fields.add(line.substring(start));
+					break;
+				}
+
+				fields.add(line.substring(start, comma));
+				start = comma + 1;
+			}
+		}
+
+		return fields.toArray(new String[0]);
+	}
+
+	/**
+	 * This method writes a record as a line.
+	 * @param writer holds the writer, it should be buffered.
+	 * @param record holds the record.
+	 * @throws IOException if the line can't be written.
+	 */
+	public static void write(Writer writer, ClubAbstractRecord record) throws IOException
+	{
+		PersonRecord person = (PersonRecord)record;
+		String type = PERSON;
+		String extraField = null;
+
+		if (record instanceof SoldierRecord)
+		{
+			type = SOLDIER;
+			extraField = ((SoldierRecord)record).getPersonalNumber();
+		}
+		else if (record instanceof StudentRecord)
+		{
+			type = STUDENT;
+			extraField = ((StudentRecord)record).getStudentID();
+		}
+
+		writer.write(type);
+		writeField(writer, person.getID());
+		writeField(writer, person.getName());
+		writeField(writer, person.getSurname());
+		writeField(writer, person.getTel());
+
+		if (extraField != null)
+		{
+			writeField(writer, extraField);
+		}
+
+		writer.write('\n');
+	}
+
+	/**
+	 * This method quotes a field if it holds a comma, a quote or a line break.
+	 * @param field holds the field.
+	 * @return the field as written in a line.
+	 */
+	public static String quote(String field)
+	{
+		for (int i = 0; i < field.length(); i++)
+		{
+			char letter = field.charAt(i);
+
+			if (letter == ',' || letter == '"' || letter == '\n' || letter == '\r')
+			{
+				return '"' + field.replace("\"", "\"\"") + '"';
+			}
+		}
+
+		return field;
+	}
+
+	/**
+	 * This method writes a comma and a field.
+	 * @param writer holds the writer.
+	 * @param field holds the field.
+	 * @throws IOException if the field can't be written.
+	 */
+	private static void writeField(Writer writer, String field) throws IOException
+	{
+		writer.write(',');
+		writer.write(quote(field));
+	}
+
+	/**
+	 * This method builds the record of a line's fields, the fields aren't
+	 * validated.
+	 * @param fields holds the fields of the line.
+	 * @return a {@link PersonRecord}, {@link SoldierRecord} or {@link StudentRecord}.
+	 * @throws IllegalArgumentException if the type is unknown or the number of
+	 * fields doesn't match it.
+	 */
+	public static ClubAbstractRecord toRecord(String[] fields)
+	{
+		String type = fields[0].trim();
+		int expected = type.equalsIgnoreCase(PERSON) ? 5 : 6;
+
+		if (!type.equalsIgnoreCase(PERSON) && !type.equalsIgnoreCase(SOLDIER) &&
+			!type.equalsIgnoreCase(STUDENT))
+		{
+			throw new IllegalArgumentException("Unknown type " + type);
+		}
+
+		// A person may be written with an empty last field.
+		if (fields.length != expected &&
+			!(expected == 5 && fields.length == 6 && fields[5].isEmpty()))
+		{
+			throw new IllegalArgumentException(String.format(
+				"%d fields instead of %d", fields.length, expected));
+		}
+
+		PersonRecord person = new PersonRecord(fields[1], fields[2], fields[3], fields[4]);
+
+		if (type.equalsIgnoreCase(SOLDIER))
+		{
+			return new SoldierRecord(person, fields[5]);
+		}
+
+		if (type.equalsIgnoreCase(STUDENT))
+		{
+			return new StudentRecord(person, fields[5]);
+		}
+
+		return person;
+	}
+}
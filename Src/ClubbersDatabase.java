@@ -0,0 +1,467 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+/**
+ * This class opens the clubbers and keeps them saved, it is used by the
+ * window of the {@link NightClubMgmtApp} and by the {@link ClubbersServer}.
+ * <br> The clubbers are kept in a {@link MappedClubbersStore} when opened in
+ * the memory-mapped mode or when its file exists, otherwise in a
+ * {@link ClubbersRepository} read from the clubbers file, every change is
+ * then written to the {@link ClubbersJournal} and saved into the clubbers
+ * file in the background by the {@link ClubbersCompactor}.
+ * <br> The clubbers are measured by a {@link MeasuredClubbersStore} and the
+ * {@link ClubbersMetrics} are started when they are opened. Files which can't
+ * be read or written are logged, the clubbers are then kept as the methods
+ * below tell.
+ * <br> Changes are written to the disk in the background shortly after they
+ * are made, {@link #close} must be invoked once no more changes are made to
+ * write what is left.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersDatabase
+{
+	// File which holds the clubbers and the journal of changes made since.
+	public static final String CLUBBERS_FILE_NAME = "BKCustomers.dat";
+	public static final String JOURNAL_FILE_NAME = "BKCustomers.log";
+
+	// File which holds the clubbers in the memory-mapped persistence mode.
+	public static final String STORE_FILE_NAME = "BKCustomers.slots";
+
+	// File which the clubbers are saved into when the clubbers file wasn't
+	// read, so the clubbers file is never replaced by them.
+	public static final String UNSAVED_FILE_NAME = "BKCustomers.unsaved.dat";
+
+	private static final Logger LOGGER = Logger.getLogger(ClubbersDatabase.class.getName());
+
+	// Night-Club Regular Customer Repository.
+	private ClubbersStore clubbers;
+
+	// The clubbers as they are given to the users of the database.
+	private MeasuredClubbersStore measuredClubbers;
+
+	// The clubbers when they are kept in a memory-mapped file, null if they
+	// are kept in memory.
+	private MappedClubbersStore mappedStore;
+
+	// Write-ahead log of the changes to the repository, null if it couldn't
+	// be opened.
+	private ClubbersJournal journal;
+
+	// Saves the clubbers and compacts the journal in the background, null
+	// if the clubbers file couldn't be read.
+	private ClubbersCompactor compactor;
+
+	// The clubbers in columns, null until they are asked for.
+	private ClubbersColumns columns;
+
+	// Told about the progress of reading the clubbers file, may be null.
+	private ClubbersFile.ReadListener readListener;
+
+	// Set when the clubbers file doesn't exist yet.
+	private boolean newClubbersFile;
+
+	// Set when the clubbers file was read or doesn't exist, only then it may
+	// be replaced by the clubbers.
+	private boolean loaded;
+
+	// Why the clubbers file couldn't be read, null if it was read or doesn't
+	// exist.
+	private Exception readError;
+
+	/**
+	 * ClubbersDatabase Constructor - holds no clubbers until {@link #open}.
+	 */
+	public ClubbersDatabase()
+	{
+		clubbers = new ClubbersRepository();
+		measuredClubbers = new MeasuredClubbersStore(clubbers);
+	}
+
+	/**
+	 * This method opens the clubbers, it opens the {@link MappedClubbersStore}
+	 * with the method {@link #openMappedStore} if mapped is true or its file
+	 * exists, otherwise it reads the clubbers file with the method
+	 * {@link #loadClubbersDBFromFile}.
+	 * @param mapped holds whether to keep the clubbers in a memory-mapped file.
+	 * @param readListener is told about the progress of reading the clubbers
+	 * file, may be null.
+	 */
+	public synchronized void open(boolean mapped, ClubbersFile.ReadListener readListener)
+	{
+		this.readListener = readListener;
+
+		// Columns of the clubbers before they were opened are of no use.
+		if (columns != null)
+		{
+			columns.detach((ClubbersRepository)clubbers);
+			columns = null;
+		}
+
+		ClubbersMetrics.getInstance().start(ClubbersMetrics.DEFAULT_LOG_PERIOD);
+
+		if (mapped || Files.exists(Paths.get(STORE_FILE_NAME)))
+		{
+			openMappedStore();
+		}
+		else
+		{
+			loadClubbersDBFromFile();
+		}
+
+		measuredClubbers = new MeasuredClubbersStore(clubbers);
+	}
+
+	/**
+	 * This method returns the clubbers, every operation on them is measured.
+	 * @return the {@link ClubbersStore} which holds the clubbers.
+	 */
+	public ClubbersStore getClubbers()
+	{
+		return measuredClubbers;
+	}
+
+	/**
+	 * This method returns the clubbers in columns for counting them, the
+	 * columns are filled the first time and kept up to date after that, see
+	 * {@link ClubbersColumns#attach}.
+	 * <br> The columns are opt-in, every change pays for keeping them up to
+	 * date once they are asked for, so only callers that count the clubbers
+	 * often should ask, like {@link ClubbersServer} with its -columns option.
+	 * They are detached when the clubbers are opened again.
+	 * @return the columns or null if the clubbers are kept in a memory-mapped
+	 * file.
+	 */
+	public synchronized ClubbersColumns getColumns()
+	{
+		if (columns == null && clubbers instanceof ClubbersRepository)
+		{
+			columns = ClubbersColumns.attach((ClubbersRepository)clubbers);
+		}
+
+		return columns;
+	}
+
+	/**
+	 * This method returns whether the clubbers file didn't exist when the
+	 * clubbers were opened, it will be created for the new clubbers.
+	 * @return true or false whether the clubbers file is new.
+	 */
+	public boolean isNewClubbersFile()
+	{
+		return newClubbersFile;
+	}
+
+	/**
+	 * This method returns why the clubbers file couldn't be read when the
+	 * clubbers were opened, the clubbers then don't hold the clubbers of the
+	 * file and it must not be used until it is fixed.
+	 * @return the error or null if the file was read or doesn't exist.
+	 */
+	public Exception getReadError()
+	{
+		return readError;
+	}
+
+	/**
+	 * This method stops writing the changes of the calling thread to the
+	 * journal until {@link #endBulkChange}, see
+	 * {@link ClubbersCompactor#beginBulkChange}.
+	 */
+	public void beginBulkChange()
+	{
+		if (compactor != null)
+		{
+			compactor.beginBulkChange();
+		}
+	}
+
+	/**
+	 * This method saves the changes made since {@link #beginBulkChange} and
+	 * waits until they are saved, see {@link ClubbersCompactor#endBulkChange}.
+	 * @throws IOException if the changes couldn't be saved, they are then
+	 * saved again on closing.
+	 */
+	public void endBulkChange() throws IOException
+	{
+		Future<Boolean> compaction = compactor != null ? compactor.endBulkChange() : null;
+
+		try
+		{
+			if (compaction != null && !compaction.get())
+			{
+				throw new IOException("Can't save the changes into " + CLUBBERS_FILE_NAME
+					+ ", they are saved again on closing");
+			}
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Can't save the changes into " + CLUBBERS_FILE_NAME,
+				e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Saving the changes was interrupted");
+		}
+	}
+
+	/**
+	 * This method closes the memory-mapped store or the journal, which
+	 * write the changes they didn't write yet in the background.
+	 * <br> Without a journal it invokes the method
+	 * {@link #writeClubbersDBtoFile}, which never replaces a clubbers file
+	 * that wasn't read.
+	 */
+	public synchronized void close()
+	{
+		if (mappedStore != null)
+		{
+			closeMappedStore();
+		}
+		else if (journal != null)
+		{
+			closeJournal();
+		}
+		else
+		{
+			writeClubbersDBtoFile();
+		}
+	}
+
+	/**
+	 * The method loads the clubbers data from a file, if no file is found
+	 * {@link #isNewClubbersFile} returns true. A file which can't be read is
+	 * logged and left as it is, the clubbers start empty and
+	 * {@link #getReadError} returns why.
+	 * <br> The progress of reading the file is told to the readListener.
+	 * <br> Files saved by older versions are converted once into the new
+	 * format with {@link ClubbersFileConverter#convert}.
+	 * <br> The changes in the journal which the file doesn't include are then
+	 * replayed with {@link #openJournal}.
+	 * <br> See read method: {@link ClubbersFile#read}.
+	 */
+	private void loadClubbersDBFromFile()
+	{
+		Path path = Paths.get(CLUBBERS_FILE_NAME);
+		ClubbersRepository repository = new ClubbersRepository();
+		long sequence = 0;
+
+		loaded = false;
+		readError = null;
+
+		try
+		{
+			if (ClubbersFile.isClubbersFile(path))
+			{
+				ClubbersFile.Snapshot snapshot = ClubbersFile.read(path, readListener);
+
+				repository = new ClubbersRepository(snapshot.getRecords());
+				sequence = snapshot.getSequence();
+			}
+			else
+			{
+				repository = new ClubbersRepository(
+					ClubbersFileConverter.convert(path, path));
+			}
+
+			loaded = true;
+		}
+		catch (NoSuchFileException e)
+		{
+			loaded = true;
+			newClubbersFile = true;
+		}
+		catch (IOException | ClassNotFoundException e)
+		{
+			LOGGER.log(Level.SEVERE, "Can't read " + path + ", the changes are kept in "
+				+ JOURNAL_FILE_NAME + " only", e);
+			readError = e;
+		}
+
+		clubbers = repository;
+		openJournal(repository, sequence);
+	}
+
+	/**
+	 * The method opens the journal, replays the changes the clubbers file
+	 * doesn't include and sets a {@link ClubbersCompactor} as the listener of
+	 * the repository.
+	 * <br> Replayed changes are saved into the clubbers file in the
+	 * background, unless the clubbers file couldn't be read in which case
+	 * the journal is the listener and is never compacted.
+	 * @param repository holds the clubbers read from the file.
+	 * @param sequence holds the sequence number of the last journal entry
+	 * the clubbers file includes.
+	 */
+	private void openJournal(ClubbersRepository repository, long sequence)
+	{
+		try
+		{
+			journal = new ClubbersJournal(Paths.get(JOURNAL_FILE_NAME));
+			int replayed = journal.replay(repository, sequence);
+
+			if (!loaded)
+			{
+				repository.setListener(journal);
+				return;
+			}
+
+			compactor = new ClubbersCompactor(repository, journal,
+				Paths.get(CLUBBERS_FILE_NAME));
+
+			if (replayed > 0)
+			{
+				compactor.compact();
+			}
+
+			repository.setListener(compactor);
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.SEVERE, "Can't open " + JOURNAL_FILE_NAME
+				+ ", the changes are saved on closing only", e);
+			closeJournal();
+		}
+	}
+
+	/**
+	 * The method waits for a running compaction, closes the journal and
+	 * stops writing changes to it.
+	 * <br> It is invoked when no more changes are made to the clubbers.
+	 */
+	private void closeJournal()
+	{
+		if (compactor != null)
+		{
+			compactor.shutdown();
+			compactor = null;
+		}
+
+		try
+		{
+			if (journal != null)
+			{
+				journal.close();
+			}
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.WARNING, "Can't close " + JOURNAL_FILE_NAME, e);
+		}
+
+		journal = null;
+	}
+
+	/**
+	 * The method opens the {@link MappedClubbersStore}, a new store is filled
+	 * with the clubbers read by {@link #loadClubbersDBFromFile}, which are left
+	 * as they are.
+	 * <br> If the store can't be opened or filled the clubbers are kept in
+	 * memory, a store is never filled from a clubbers file which couldn't be
+	 * read.
+	 */
+	private void openMappedStore()
+	{
+		Path path = Paths.get(STORE_FILE_NAME);
+		boolean created = !Files.exists(path);
+		MappedClubbersStore store = null;
+
+		try
+		{
+			store = new MappedClubbersStore(path);
+
+			if (created)
+			{
+				loadClubbersDBFromFile();
+
+				if (readError != null)
+				{
+					throw new IOException("Can't fill the store from " + CLUBBERS_FILE_NAME,
+						readError);
+				}
+
+				store.addAll(clubbers.getClubbers());
+				closeJournal();
+			}
+
+			clubbers = store;
+			mappedStore = store;
+		}
+		catch (IOException | RuntimeException e)
+		{
+			LOGGER.log(Level.SEVERE, "Can't open " + path + ", the clubbers are kept in memory", e);
+
+			// A store that couldn't be filled is removed so it isn't used
+			// the next time.
+			try
+			{
+				if (store != null)
+				{
+					store.close();
+				}
+
+				if (created)
+				{
+					Files.deleteIfExists(path);
+					Files.deleteIfExists(Paths.get(STORE_FILE_NAME + ".idx"));
+				}
+			}
+			catch (IOException closeException)
+			{
+				LOGGER.log(Level.WARNING, "Can't remove " + path, closeException);
+			}
+
+			if (!created || journal == null)
+			{
+				loadClubbersDBFromFile();
+			}
+		}
+	}
+
+	/**
+	 * The method closes the {@link MappedClubbersStore}.
+	 */
+	private void closeMappedStore()
+	{
+		try
+		{
+			mappedStore.close();
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.SEVERE, "Can't close " + STORE_FILE_NAME
+				+ ", its index is built again on the next start", e);
+		}
+
+		mappedStore = null;
+	}
+
+	/**
+	 * The method saves the current clubbers into file.
+	 * <br> If the clubbers file wasn't read the clubbers don't hold its
+	 * clubbers, they are then saved into the {@link #UNSAVED_FILE_NAME} file
+	 * and the clubbers file is left as it is.
+	 * <br> See write method: {@link ClubbersFile#write}.
+	 */
+	private void writeClubbersDBtoFile()
+	{
+		String fileName = loaded ? CLUBBERS_FILE_NAME : UNSAVED_FILE_NAME;
+
+		if (!loaded)
+		{
+			LOGGER.warning(CLUBBERS_FILE_NAME + " wasn't read, the clubbers are saved into "
+				+ UNSAVED_FILE_NAME + " instead");
+		}
+
+		try
+		{
+			ClubbersFile.write(Paths.get(fileName), clubbers.getClubbers());
+		}
+		catch (IOException e)
+		{
+			LOGGER.log(Level.SEVERE, "Can't save the clubbers into " + fileName, e);
+		}
+	}
+}
@@ -0,0 +1,158 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This class exports clubbers into a file of comma separated values, as
+ * written by {@link ClubbersCsv}, or of JSON Lines, a JSON object written by
+ * {@link ClubbersJson} for every clubber on its own line.
+ * <br> The clubbers are written one at a time through a buffered writer so
+ * exporting takes the same memory for any number of clubbers, except for an
+ * archive which sorts them first. The file is first written next to the old
+ * one and then moved over it.
+ * <br> It can be run from the command line while the program isn't running:
+ * <br> java ClubbersExporter [file]
+ * <br> The format is chosen by the file suffix, ".jsonl" for JSON Lines,
+ * ".bka" for a compressed {@link ClubbersArchive} and comma separated values
+ * for any other. The clubbers are opened with a {@link ClubbersDatabase}, as
+ * the program does.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersExporter
+{
+	public static final String JSON_LINES_SUFFIX = ".jsonl";
+
+	/**
+	 * ClubbersExporter Constructor - private since the class only has static
+	 * methods.
+	 */
+	private ClubbersExporter()
+	{
+	}
+
+	/**
+	 * This method exports the records into a file, the format is chosen by
+	 * the file suffix.
+	 * @param records holds the records to export.
+	 * @param path holds the file to write.
+	 * @return the number of records written.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static int export(Iterable<? extends ClubAbstractRecord> records, Path path)
+		throws IOException
+	{
+		if (path.getFileName().toString().endsWith(ClubbersArchive.SUFFIX))
+		{
+			ArrayList<ClubAbstractRecord> archived = new ArrayList<>();
+
+			for (ClubAbstractRecord record : records)
+			{
+				archived.add(record);
+			}
+
+			ClubbersArchive.write(path, archived);
+
+			return archived.size();
+		}
+
+		boolean jsonLines = path.getFileName().toString().endsWith(JSON_LINES_SUFFIX);
+		Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+		int count;
+
+		try (Writer writer = Files.newBufferedWriter(tempPath, StandardCharsets.UTF_8))
+		{
+			count = jsonLines ? writeJsonLines(records, writer) : writeCsv(records, writer);
+		}
+
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+
+		return count;
+	}
+
+	/**
+	 * This method writes the header line and a line for every record.
+	 * @param records holds the records to write.
+	 * @param writer holds the writer, it should be buffered.
+	 * @return the number of records written.
+	 * @throws IOException if the writer fails.
+	 */
+	public static int writeCsv(Iterable<? extends ClubAbstractRecord> records, Writer writer)
+		throws IOException
+	{
+		int count = 0;
+
+		writer.write(ClubbersCsv.HEADER);
+		writer.write('\n');
+
+		for (ClubAbstractRecord record : records)
+		{
+			ClubbersCsv.write(writer, record);
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * This method writes a JSON object on its own line for every record, as
+	 * written by {@link ClubbersJson}.
+	 * @param records holds the records to write.
+	 * @param writer holds the writer, it should be buffered.
+	 * @return the number of records written.
+	 * @throws IOException if the writer fails.
+	 */
+	public static int writeJsonLines(Iterable<? extends ClubAbstractRecord> records,
+		Writer writer) throws IOException
+	{
+		int count = 0;
+
+		for (ClubAbstractRecord record : records)
+		{
+			ClubbersJson.write(writer, record);
+			writer.write('\n');
+			count++;
+		}
+
+		return count;
+	}
+
+	/**
+	 * static main method.
+	 * Opens the clubbers with a {@link ClubbersDatabase} and exports them into
+	 * the file given in the first argument. Nothing is exported if the
+	 * clubbers file can't be read.
+	 * @param args command line arguments
+	 */
+	public static void main(String[] args)
+	{
+		Path path = Paths.get(args.length > 0 ? args[0] : "BKCustomers.csv");
+		ClubbersDatabase database = new ClubbersDatabase();
+		long start = System.nanoTime();
+
+		database.open(false, null);
+
+		try
+		{
+			if (database.getReadError() != null)
+			{
+				throw new IOException("Can't read " + ClubbersDatabase.CLUBBERS_FILE_NAME,
+					database.getReadError());
+			}
+
+			int count = export(database.getClubbers(), path);
+
+			System.out.printf("Exported %d clubbers to %s in %d ms%n", count, path,
+				(System.nanoTime() - start) / 1000000);
+		}
+		catch (IOException e)
+		{
+			database.close();
+			System.err.println("Export failed: " + e);
+			System.exit(1);
+		}
+
+		database.close();
+	}
+}
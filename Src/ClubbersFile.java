@@ -0,0 +1,1088 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.regex.*;
+
+/**
+ * This class reads and writes the clubbers file format.
+ * <br> The file starts with a header: the magic number "BKDB", the format
+ * version, the sequence number of the last {@link ClubbersJournal} entry the
+ * file includes (since version 2) and the number of records.
+ * <br> Since version 3 the records are split by the hash of their ID into
+ * shard files which are written and read in parallel on the
+ * {@link java.util.concurrent.ForkJoinPool}, so loading and saving scale with
+ * the number of processors. The file itself then only adds the number of
+ * shards and their generation to the header, shard i of generation g is kept
+ * next to it with a ".g.i" suffix. A shard file starts with the magic number
+ * "BKSH", the format version, its shard number, the number of shards and the
+ * number of its records, every record is preceded by its position among all
+ * the records so they are read in the order they were written.
+ * <br> Up to version 2 the header is followed by the records themselves.
+ * Records are length-prefixed and typed, each record is the length of its
+ * body, a type byte ({@link #PERSON}, {@link #SOLDIER} or {@link #STUDENT})
+ * and the records info fields, every field is written as its byte count
+ * followed by its UTF-8 bytes.
+ * <br> Lengths are written as variable length integers, 7 bits in every byte
+ * with the high bit set on all bytes but the last, so the short info fields
+ * of a clubber only need a single length byte.
+ * <br> Files are read and written through a {@link java.nio.channels.FileChannel}
+ * with a {@link java.nio.ByteBuffer}. A save writes the shards of a new
+ * generation and then moves a new file over the old one, which keeps naming
+ * the old generation until then, so a failed save never leaves half a file.
+ * The shards of older generations are deleted after the move.
+ * <br> Every read and write is recorded in the {@link ClubbersMetrics} as a
+ * load or a save, with the bytes of the file.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersFile
+{
+	// "BKDB" in ASCII.
+	public static final int MAGIC = 0x424B4442;
+	public static final short VERSION = 3;
+
+	// "BKSH" in ASCII.
+	public static final int SHARD_MAGIC = 0x424B5348;
+
+	// Number of shards a file is saved into, there are a few even with a
+	// single processor so a file saved on a small machine loads in parallel
+	// on a bigger one.
+	public static final int DEFAULT_SHARD_COUNT =
+		Math.max(4, Runtime.getRuntime().availableProcessors());
+
+	// Record types.
+	public static final byte PERSON = 1;
+	public static final byte SOLDIER = 2;
+	public static final byte STUDENT = 3;
+
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final int MAX_VARINT_SIZE = 5;
+	// Suffix of a shard file, its generation and shard number.
+	private static final Pattern SHARD_SUFFIX = Pattern.compile("\\.(\\d+)\\.\\d+");
+	// Number of records read between two calls of the ReadListener.
+	private static final int PROGRESS_INTERVAL = 4096;
+
+	private static final ClubbersMetrics.Operation LOAD_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.LOAD);
+	private static final ClubbersMetrics.Operation SAVE_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.SAVE);
+
+	/**
+	 * ClubbersFile Constructor - private since the class only has static methods.
+	 */
+	private ClubbersFile()
+	{
+	}
+
+	/**
+	 * This method checks whether a file starts with the clubbers file magic
+	 * number, files that don't were saved by older versions.
+	 * @param path holds the file to check.
+	 * @return true or false whether the file is a clubbers file.
+	 * @throws IOException if the file can't be read.
+	 */
+	public static boolean isClubbersFile(Path path) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			ByteBuffer magic = ByteBuffer.allocate(4);
+
+			while (magic.hasRemaining() && channel.read(magic) != -1)
+			{
+			}
+
+			return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+		}
+	}
+
+	/**
+	 * This method writes the records into a file which doesn't include any
+	 * {@link ClubbersJournal} entry, replacing it if it exists.
+	 * @param path holds the file to write.
+	 * @param records holds the records to write.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(Path path, Collection<? extends ClubAbstractRecord> records)
+		throws IOException
+	{
+		write(path, records, 0);
+	}
+
+	/**
+	 * This method writes the records into {@link #DEFAULT_SHARD_COUNT}
+	 * shards, replacing the file if it exists.
+	 * @param path holds the file to write.
+	 * @param records holds the records to write.
+	 * @param sequence holds the sequence number of the last journal entry
+	 * the records include.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(Path path, Collection<? extends ClubAbstractRecord> records,
+		long sequence) throws IOException
+	{
+		write(path, records, sequence, DEFAULT_SHARD_COUNT);
+	}
+
+	/**
+	 * This method writes the records into shards, replacing the file if it
+	 * exists.
+	 * @param path holds the file to write.
+	 * @param records holds the records to write.
+	 * @param sequence holds the sequence number of the last journal entry
+	 * the records include.
+	 * @param shardCount holds the number of shards.
+	 * @throws IOException if the file can't be written.
+	 */
+	public static void write(Path path, Collection<? extends ClubAbstractRecord> records,
+		long sequence, int shardCount) throws IOException
+	{
+		if (shardCount < 1)
+		{
+			throw new IllegalArgumentException("A file needs at least one shard");
+		}
+
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			ClubbersMetrics.getInstance().addBytesWritten(
+				writeFile(path, records, sequence, shardCount));
+			failed = false;
+		}
+		finally
+		{
+			SAVE_OPERATION.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method writes the records into the shards of a new generation,
+	 * moves the file which names it over the old one and deletes the shards
+	 * of the older generations.
+	 * @param path holds the file to write.
+	 * @param records holds the records to write.
+	 * @param sequence holds the sequence number of the last journal entry
+	 * the records include.
+	 * @param shardCount holds the number of shards.
+	 * @return the size of the file and its shards.
+	 * @throws IOException if the file can't be written.
+	 */
+	private static long writeFile(Path path, Collection<? extends ClubAbstractRecord> records,
+		long sequence, int shardCount) throws IOException
+	{
+		ClubAbstractRecord[] all = records.toArray(new ClubAbstractRecord[0]);
+		int[][] positions = partition(all, shardCount);
+		long generation = readGeneration(path) + 1;
+		ArrayList<Callable<Long>> shards = new ArrayList<>(shardCount);
+
+		for (int shard = 0; shard < shardCount; shard++)
+		{
+			Path shardPath = shardPath(path, generation, shard);
+			int[] shardPositions = positions[shard];
+			int shardNumber = shard;
+
+			shards.add(() -> writeShard(shardPath, all, shardPositions, shardNumber, shardCount));
+		}
+
+		long size = 0;
+
+		for (long shardSize : invokeAll(shards, "write the shards"))
+		{
+			size += shardSize;
+		}
+
+		Path tempPath = path.resolveSibling(path.getFileName() + ".tmp");
+
+		try (FileChannel channel = FileChannel.open(tempPath, StandardOpenOption.WRITE,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+			buffer.putInt(MAGIC);
+			buffer.putShort(VERSION);
+			buffer.putLong(sequence);
+			buffer.putInt(all.length);
+			buffer.putInt(shardCount);
+			buffer.putLong(generation);
+
+			flush(channel, buffer);
+			channel.force(true);
+			size += channel.size();
+		}
+
+		Files.move(tempPath, path, StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+		deleteShards(path, generation);
+
+		return size;
+	}
+
+	/**
+	 * This method deletes a file and its shards.
+	 * @param path holds the file to delete.
+	 * @throws IOException if the file can't be deleted.
+	 */
+	public static void delete(Path path) throws IOException
+	{
+		Files.deleteIfExists(path);
+
+		// Generations start at 1, so the shards of every generation are deleted.
+		deleteShards(path, 0);
+	}
+
+	/**
+	 * This method splits the records into shards by the hash of their ID.
+	 * @param records holds the records.
+	 * @param shardCount holds the number of shards.
+	 * @return the positions of the records of every shard, in the order of
+	 * the records.
+	 */
+	private static int[][] partition(ClubAbstractRecord[] records, int shardCount)
+	{
+		int[] shards = new int[records.length];
+		int[] counts = new int[shardCount];
+
+		for (int i = 0; i < records.length; i++)
+		{
+			shards[i] = shard(records[i].getID(), shardCount);
+			counts[shards[i]]++;
+		}
+
+		int[][] positions = new int[shardCount][];
+
+		for (int shard = 0; shard < shardCount; shard++)
+		{
+			positions[shard] = new int[counts[shard]];
+			counts[shard] = 0;
+		}
+
+		for (int i = 0; i < records.length; i++)
+		{
+			positions[shards[i]][counts[shards[i]]++] = i;
+		}
+
+		return positions;
+	}
+
+	/**
+	 * This method returns the shard of a record.
+	 * @param id holds the ID of the record.
+	 * @param shardCount holds the number of shards.
+	 * @return the shard number.
+	 */
+	private static int shard(String id, int shardCount)
+	{
+		int hash = id.hashCode();
+
+		return Math.floorMod(hash ^ (hash >>> 16), shardCount);
+	}
+
+	/**
+	 * This method writes the records of a shard into its file.
+	 * @param shardPath holds the file of the shard, a new generation is
+	 * never read before the file which names it is moved so it is written
+	 * in place.
+	 * @param records holds all the records.
+	 * @param positions holds the positions of the records of the shard.
+	 * @param shard holds the shard number.
+	 * @param shardCount holds the number of shards.
+	 * @return the size of the shard file.
+	 * @throws IOException if the file can't be written.
+	 */
+	private static long writeShard(Path shardPath, ClubAbstractRecord[] records,
+		int[] positions, int shard, int shardCount) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(shardPath, StandardOpenOption.WRITE,
+			StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING))
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+			buffer.putInt(SHARD_MAGIC);
+			buffer.putShort(VERSION);
+			buffer.putInt(shard);
+			buffer.putInt(shardCount);
+			buffer.putInt(positions.length);
+
+			for (int position : positions)
+			{
+				byte[] body = encode(records[position]);
+				int length = varintSize(position) + MAX_VARINT_SIZE + body.length;
+
+				if (buffer.remaining() < length)
+				{
+					flush(channel, buffer);
+				}
+
+				if (buffer.remaining() < length)
+				{
+					// A record which is bigger than the buffer is written on its own.
+					ByteBuffer bigRecord = ByteBuffer.allocate(length);
+					putVarint(bigRecord, position);
+					putVarint(bigRecord, body.length);
+					bigRecord.put(body);
+					flush(channel, bigRecord);
+				}
+				else
+				{
+					putVarint(buffer, position);
+					putVarint(buffer, body.length);
+					buffer.put(body);
+				}
+			}
+
+			flush(channel, buffer);
+			channel.force(true);
+
+			return channel.size();
+		}
+	}
+
+	/**
+	 * This method reads the generation of the shards a file names.
+	 * @param path holds the file.
+	 * @return the generation, 0 if the file doesn't exist, can't be read or
+	 * was saved without shards.
+	 */
+	private static long readGeneration(Path path)
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			Input input = new Input(channel);
+
+			if (input.getInt() != MAGIC || input.getShort() < 3)
+			{
+				return 0;
+			}
+
+			// Skip the sequence, the number of records and of shards.
+			input.getLong();
+			input.getInt();
+			input.getInt();
+
+			return input.getLong();
+		}
+		catch (IOException e)
+		{
+			return 0;
+		}
+	}
+
+	/**
+	 * This method deletes the shards which don't belong to a generation.
+	 * <br> A shard which can't be deleted is left, it is deleted by the next
+	 * save.
+	 * @param path holds the file the shards belong to.
+	 * @param generation holds the generation to keep.
+	 * @throws IOException if the directory can't be listed.
+	 */
+	private static void deleteShards(Path path, long generation) throws IOException
+	{
+		String name = path.getFileName().toString();
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(
+			path.toAbsolutePath().getParent(), name + ".*"))
+		{
+			for (Path file : files)
+			{
+				Matcher suffix = SHARD_SUFFIX.matcher(
+					file.getFileName().toString().substring(name.length()));
+
+				if (suffix.matches() && Long.parseLong(suffix.group(1)) != generation)
+				{
+					try
+					{
+						Files.deleteIfExists(file);
+					}
+					catch (IOException e)
+					{
+						// Deleted by the next save.
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method returns the file of a shard.
+	 * @param path holds the file the shard belongs to.
+	 * @param generation holds the generation of the shard.
+	 * @param shard holds the shard number.
+	 * @return the path of the shard file.
+	 */
+	static Path shardPath(Path path, long generation, int shard)
+	{
+		return path.resolveSibling(path.getFileName() + "." + generation + "." + shard);
+	}
+
+	/**
+	 * This method reads the records from a file.
+	 * <br> Records with an unknown type are skipped so files written by newer
+	 * versions with new clubber types can still be read.
+	 * @param path holds the file to read.
+	 * @return a {@link Snapshot} with the records in the order they were written.
+	 * @throws IOException if the file can't be read or isn't a clubbers file.
+	 */
+	public static Snapshot read(Path path) throws IOException
+	{
+		return read(path, null);
+	}
+
+	/**
+	 * This method reads the records from a file and tells the listener how
+	 * many were read every few thousand records.
+	 * @param path holds the file to read.
+	 * @param listener holds the listener, may be null.
+	 * @return a {@link Snapshot} with the records in the order they were written.
+	 * @throws IOException if the file can't be read or isn't a clubbers file.
+	 */
+	public static Snapshot read(Path path, ReadListener listener) throws IOException
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			Snapshot snapshot = readFile(path, listener);
+			failed = false;
+			return snapshot;
+		}
+		finally
+		{
+			LOAD_OPERATION.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method reads the records from a file and tells the listener how
+	 * many were read every few thousand records.
+	 * @param path holds the file to read.
+	 * @param listener holds the listener, may be null.
+	 * @return a {@link Snapshot} with the records in the order they were written.
+	 * @throws IOException if the file can't be read or isn't a clubbers file.
+	 */
+	private static Snapshot readFile(Path path, ReadListener listener) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ))
+		{
+			Input input = new Input(channel);
+
+			if (input.getInt() != MAGIC)
+			{
+				throw new IOException(path + " is not a clubbers file");
+			}
+
+			short version = input.getShort();
+
+			if (version > VERSION)
+			{
+				throw new IOException(String.format(
+					"%s was written by a newer version (%d)", path, version));
+			}
+
+			long sequence = version >= 2 ? input.getLong() : 0;
+			int count = input.getInt();
+			ArrayList<ClubAbstractRecord> records;
+
+			ClubbersMetrics.getInstance().addBytesRead(channel.size());
+
+			if (version >= 3)
+			{
+				int shardCount = input.getInt();
+				long generation = input.getLong();
+
+				records = readShards(path, generation, shardCount, count, listener);
+			}
+			else
+			{
+				records = new ArrayList<>(count);
+
+				for (int i = 0; i < count; i++)
+				{
+					ClubAbstractRecord record = input.getRecord();
+
+					if (record != null)
+					{
+						records.add(record);
+					}
+
+					if (listener != null && (i + 1) % PROGRESS_INTERVAL == 0)
+					{
+						listener.recordsRead(i + 1, count);
+					}
+				}
+			}
+
+			if (listener != null)
+			{
+				listener.recordsRead(count, count);
+			}
+
+			return new Snapshot(records, sequence);
+		}
+	}
+
+	/**
+	 * This method reads the shards of a file in parallel and puts their
+	 * records back in the order they were written.
+	 * @param path holds the file the shards belong to.
+	 * @param generation holds the generation of the shards.
+	 * @param shardCount holds the number of shards.
+	 * @param count holds the number of records in all the shards.
+	 * @param listener holds the listener, may be null.
+	 * @return the records in the order they were written.
+	 * @throws IOException if a shard can't be read, is missing or doesn't
+	 * belong to the file.
+	 */
+	private static ArrayList<ClubAbstractRecord> readShards(Path path, long generation,
+		int shardCount, int count, ReadListener listener) throws IOException
+	{
+		ClubAbstractRecord[] records = new ClubAbstractRecord[count];
+		AtomicInteger read = new AtomicInteger();
+		ArrayList<Callable<Long>> shards = new ArrayList<>(shardCount);
+
+		for (int shard = 0; shard < shardCount; shard++)
+		{
+			Path shardPath = shardPath(path, generation, shard);
+			int shardNumber = shard;
+
+			shards.add(() -> readShard(shardPath, shardNumber, shardCount, records,
+				read, listener));
+		}
+
+		long size = 0;
+
+		for (long shardSize : invokeAll(shards, "read the shards"))
+		{
+			size += shardSize;
+		}
+
+		ClubbersMetrics.getInstance().addBytesRead(size);
+
+		ArrayList<ClubAbstractRecord> recordList = new ArrayList<>(count);
+
+		for (ClubAbstractRecord record : records)
+		{
+			if (record != null)
+			{
+				recordList.add(record);
+			}
+		}
+
+		return recordList;
+	}
+
+	/**
+	 * This method reads the records of a shard into their positions.
+	 * @param shardPath holds the file of the shard.
+	 * @param shard holds the shard number.
+	 * @param shardCount holds the number of shards.
+	 * @param records holds the records of all the shards, each shard fills
+	 * its own positions.
+	 * @param read holds the number of records read by all the shards.
+	 * @param listener holds the listener, may be null.
+	 * @return the size of the shard file.
+	 * @throws IOException if the shard can't be read, is missing or doesn't
+	 * belong to the file.
+	 */
+	private static long readShard(Path shardPath, int shard, int shardCount,
+		ClubAbstractRecord[] records, AtomicInteger read, ReadListener listener)
+		throws IOException
+	{
+		FileChannel channel;
+
+		try
+		{
+			channel = FileChannel.open(shardPath, StandardOpenOption.READ);
+		}
+		catch (NoSuchFileException e)
+		{
+			// A missing shard is a damaged file, not a new one.
+			throw new IOException(shardPath + " is missing", e);
+		}
+
+		try (channel)
+		{
+			Input input = new Input(channel);
+
+			if (input.getInt() != SHARD_MAGIC || input.getShort() > VERSION ||
+				input.getInt() != shard || input.getInt() != shardCount)
+			{
+				throw new IOException(shardPath + " is not shard " + shard + " of "
+					+ shardCount);
+			}
+
+			int count = input.getInt();
+
+			for (int i = 0; i < count; i++)
+			{
+				int position = input.getVarint();
+
+				if (position >= records.length)
+				{
+					throw new IOException(shardPath + " has a record after the last one");
+				}
+
+				records[position] = input.getRecord();
+
+				if (listener != null && (i + 1) % PROGRESS_INTERVAL == 0)
+				{
+					listener.recordsRead(read.addAndGet(PROGRESS_INTERVAL), records.length);
+				}
+			}
+
+			return channel.size();
+		}
+	}
+
+	/**
+	 * This method runs tasks which read or write parts of a file, such as its
+	 * shards, in parallel on the
+	 * {@link java.util.concurrent.ForkJoinPool#commonPool}.
+	 * @param tasks holds a task for every part.
+	 * @param action holds what the tasks do, for the error message.
+	 * @return the results of the tasks in their order.
+	 * @throws IOException if a task failed or the thread was interrupted.
+	 */
+	static <T> List<T> invokeAll(List<Callable<T>> tasks, String action)
+		throws IOException
+	{
+		ArrayList<T> results = new ArrayList<>(tasks.size());
+
+		try
+		{
+			for (Future<T> task : ForkJoinPool.commonPool().invokeAll(tasks))
+			{
+				results.add(task.get());
+			}
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+
+			// The pool wraps the IOException of a task in RuntimeExceptions.
+			while (cause instanceof RuntimeException && cause.getCause() != null)
+			{
+				cause = cause.getCause();
+			}
+
+			if (cause instanceof IOException)
+			{
+				throw (IOException)cause;
+			}
+
+			throw new IOException("Can't " + action, cause);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Can't " + action + ", interrupted");
+		}
+
+		return results;
+	}
+
+	/**
+	 * This method encodes a record into its body bytes, the type byte followed
+	 * by the info fields.
+	 * @param record holds the record to encode.
+	 * @return the body of the record.
+	 */
+	public static byte[] encode(ClubAbstractRecord record)
+	{
+		PersonRecord person = (PersonRecord)record;
+		String extraField = null;
+		byte type = PERSON;
+
+		if (record instanceof SoldierRecord)
+		{
+			type = SOLDIER;
+			extraField = ((SoldierRecord)record).getPersonalNumber();
+		}
+		else if (record instanceof StudentRecord)
+		{
+			type = STUDENT;
+			extraField = ((StudentRecord)record).getStudentID();
+		}
+
+		byte[][] fields =
+		{
+			utf8(person.getID()), utf8(person.getName()), utf8(person.getSurname()),
+			utf8(person.getTel()), utf8(extraField)
+		};
+
+		int length = 1;
+
+		for (byte[] field : fields)
+		{
+			if (field != null)
+			{
+				length += varintSize(field.length) + field.length;
+			}
+		}
+
+		ByteBuffer body = ByteBuffer.allocate(length);
+		body.put(type);
+
+		for (byte[] field : fields)
+		{
+			if (field != null)
+			{
+				putVarint(body, field.length);
+				body.put(field);
+			}
+		}
+
+		return body.array();
+	}
+
+	/**
+	 * This method decodes a record body from the position of the buffer.
+	 * @param buffer holds the record body.
+	 * @return the record or null if its type is unknown, in which case the
+	 * buffer position is undefined.
+	 */
+	public static ClubAbstractRecord decode(ByteBuffer buffer)
+	{
+		byte type = buffer.get();
+
+		if (type != PERSON && type != SOLDIER && type != STUDENT)
+		{
+			return null;
+		}
+
+		PersonRecord person = new PersonRecord(getString(buffer), getString(buffer),
+			getString(buffer), getString(buffer));
+
+		if (type == SOLDIER)
+		{
+			return new SoldierRecord(person, getString(buffer));
+		}
+
+		if (type == STUDENT)
+		{
+			return new StudentRecord(person, getString(buffer));
+		}
+
+		return person;
+	}
+
+	/**
+	 * This method encodes a {@link java.lang.String} to UTF-8.
+	 * @param field holds the info field, may be null.
+	 * @return the UTF-8 bytes or null if the field is null.
+	 */
+	static byte[] utf8(String field)
+	{
+		return field == null ? null : field.getBytes(StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * This method reads a {@link java.lang.String} written by {@link #encode}.
+	 * @param buffer holds the field.
+	 * @return the info field.
+	 */
+	static String getString(ByteBuffer buffer)
+	{
+		int length = getVarint(buffer);
+		String field;
+
+		if (buffer.hasArray())
+		{
+			field = new String(buffer.array(), buffer.arrayOffset() + buffer.position(),
+				length, StandardCharsets.UTF_8);
+			buffer.position(buffer.position() + length);
+		}
+		else
+		{
+			byte[] bytes = new byte[length];
+			buffer.get(bytes);
+			field = new String(bytes, StandardCharsets.UTF_8);
+		}
+
+		return field;
+	}
+
+	/**
+	 * This method writes a variable length integer.
+	 * @param buffer holds the buffer to write to.
+	 * @param value holds a non negative value.
+	 */
+	static void putVarint(ByteBuffer buffer, int value)
+	{
+		while ((value & ~0x7F) != 0)
+		{
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+
+		buffer.put((byte)value);
+	}
+
+	/**
+	 * This method reads a variable length integer written by {@link #putVarint}.
+	 * @param buffer holds the buffer to read from.
+	 * @return the value.
+	 */
+	static int getVarint(ByteBuffer buffer)
+	{
+		int value = 0;
+
+		for (int shift = 0; ; shift += 7)
+		{
+			byte valueByte = buffer.get();
+			value |= (valueByte & 0x7F) << shift;
+
+			if (valueByte >= 0)
+			{
+				return value;
+			}
+		}
+	}
+
+	/**
+	 * This method returns the number of bytes {@link #putVarint} writes.
+	 * @param value holds a non negative value.
+	 * @return the size of the variable length integer.
+	 */
+	static int varintSize(int value)
+	{
+		int size = 1;
+
+		while ((value & ~0x7F) != 0)
+		{
+			value >>>= 7;
+			size++;
+		}
+
+		return size;
+	}
+
+	/**
+	 * This method writes the buffer content to the channel and clears it.
+	 * @param channel holds the channel to write to.
+	 * @param buffer holds the bytes to write.
+	 * @throws IOException if the channel can't be written.
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException
+	{
+		buffer.flip();
+
+		while (buffer.hasRemaining())
+		{
+			channel.write(buffer);
+		}
+
+		buffer.clear();
+	}
+
+	/**
+	 * This method makes sure at least the needed number of bytes can be read
+	 * from the buffer, reading more from the channel and growing the buffer
+	 * if needed.
+	 * @param channel holds the channel to read from.
+	 * @param buffer holds the buffer in read mode.
+	 * @param needed holds the number of bytes needed.
+	 * @return the buffer in read mode, which may be a new bigger buffer.
+	 * @throws IOException if the channel ends before the bytes are read.
+	 */
+	private static ByteBuffer fill(FileChannel channel, ByteBuffer buffer, int needed)
+		throws IOException
+	{
+		if (buffer.remaining() >= needed)
+		{
+			return buffer;
+		}
+
+		if (needed > buffer.capacity())
+		{
+			ByteBuffer bigger = ByteBuffer.allocate(needed);
+			bigger.put(buffer);
+			buffer = bigger;
+		}
+		else
+		{
+			buffer.compact();
+		}
+
+		while (buffer.position() < needed)
+		{
+			if (channel.read(buffer) == -1)
+			{
+				throw new EOFException("Clubbers file ends in the middle of a record");
+			}
+		}
+
+		buffer.flip();
+
+		return buffer;
+	}
+
+	/**
+	 * This class reads the header fields and records of a file through a
+	 * buffer, which is filled from the file and grown as needed.
+	 */
+	private static class Input
+	{
+		private final FileChannel channel;
+		private ByteBuffer buffer;
+
+		/**
+		 * Input Constructor - starts with nothing read yet.
+		 * @param channel holds the open file.
+		 */
+		public Input(FileChannel channel)
+		{
+			this.channel = channel;
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+
+			// Start in read mode with nothing read yet.
+			buffer.limit(0);
+		}
+
+		/**
+		 * This method makes sure at least the needed number of bytes can be read.
+		 * @param needed holds the number of bytes needed.
+		 * @return the buffer in read mode.
+		 * @throws IOException if the file ends before the bytes are read.
+		 */
+		public ByteBuffer need(int needed) throws IOException
+		{
+			buffer = fill(channel, buffer, needed);
+
+			return buffer;
+		}
+
+		/**
+		 * This method reads a short.
+		 * @return the value.
+		 * @throws IOException if the file ends before it.
+		 */
+		public short getShort() throws IOException
+		{
+			return need(2).getShort();
+		}
+
+		/**
+		 * This method reads an int.
+		 * @return the value.
+		 * @throws IOException if the file ends before it.
+		 */
+		public int getInt() throws IOException
+		{
+			return need(4).getInt();
+		}
+
+		/**
+		 * This method reads a long.
+		 * @return the value.
+		 * @throws IOException if the file ends before it.
+		 */
+		public long getLong() throws IOException
+		{
+			return need(8).getLong();
+		}
+
+		/**
+		 * This method reads a variable length integer written by
+		 * {@link ClubbersFile#putVarint}.
+		 * <br> It is read a byte at a time since the last record may be
+		 * shorter than the longest length.
+		 * @return the value.
+		 * @throws IOException if the file ends before it.
+		 */
+		public int getVarint() throws IOException
+		{
+			int value = 0;
+
+			for (int shift = 0; ; shift += 7)
+			{
+				byte valueByte = need(1).get();
+				value |= (valueByte & 0x7F) << shift;
+
+				if (valueByte >= 0)
+				{
+					return value;
+				}
+			}
+		}
+
+		/**
+		 * This method reads a length-prefixed record.
+		 * @return the record or null if its type is unknown.
+		 * @throws IOException if the file ends in the middle of the record.
+		 */
+		public ClubAbstractRecord getRecord() throws IOException
+		{
+			int length = getVarint();
+
+			need(length);
+
+			int end = buffer.position() + length;
+			ClubAbstractRecord record = decode(buffer);
+			buffer.position(end);
+
+			return record;
+		}
+	}
+
+	/**
+	 * This interface is implemented by classes which show the progress of
+	 * {@link ClubbersFile#read}.
+	 */
+	public interface ReadListener
+	{
+		/**
+		 * Invoked every few thousand records and once all the records were
+		 * read, the shards of a file are read by several threads which may
+		 * invoke it at once.
+		 * @param read holds the number of records read so far.
+		 * @param count holds the number of records in the file.
+		 */
+		void recordsRead(int read, int count);
+	}
+
+	/**
+	 * This class holds the content of a clubbers file.
+	 */
+	public static class Snapshot
+	{
+		private final ArrayList<ClubAbstractRecord> records;
+		private final long sequence;
+
+		/**
+		 * Snapshot Constructor - initializes the records and sequence number.
+		 * @param records holds the records of the file.
+		 * @param sequence holds the sequence number of the last journal entry
+		 * the records include.
+		 */
+		public Snapshot(ArrayList<ClubAbstractRecord> records, long sequence)
+		{
+			this.records = records;
+			this.sequence = sequence;
+		}
+
+		/**
+		 * This method returns the records of the file.
+		 * @return the records in the order they were written.
+		 */
+		public ArrayList<ClubAbstractRecord> getRecords()
+		{
+			return records;
+		}
+
+		/**
+		 * This method returns the sequence number of the last journal entry
+		 * the records include.
+		 * @return the sequence number, 0 if no entry is included.
+		 */
+		public long getSequence()
+		{
+			return sequence;
+		}
+	}
+}
@@ -0,0 +1,85 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * This class converts a clubbers file saved by older versions with
+ * {@link java.io.ObjectOutputStream} into the {@link ClubbersFile} format.
+ * <br> The old file is read with {@link LegacyClubbersReader} and kept next to
+ * the new one with a ".bak" suffix when it is converted in place.
+ * <br> It can be run from the command line:
+ * <br> java ClubbersFileConverter [old file] [new file]
+ * <br> Both files default to BKCustomers.dat.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersFileConverter
+{
+	private static final String DEFAULT_FILE_NAME = "BKCustomers.dat";
+
+	/**
+	 * ClubbersFileConverter Constructor - private since the class only has
+	 * static methods.
+	 */
+	private ClubbersFileConverter()
+	{
+	}
+
+	/**
+	 * This method converts an old clubbers file into the new format.
+	 * @param legacyPath holds the file saved by an older version.
+	 * @param newPath holds the file to write, may be the same as legacyPath.
+	 * @return the converted records.
+	 * @throws IOException if a file can't be read or written.
+	 * @throws ClassNotFoundException if the old file holds an unknown class.
+	 */
+	public static ArrayList<ClubAbstractRecord> convert(Path legacyPath, Path newPath)
+		throws IOException, ClassNotFoundException
+	{
+		ArrayList<ClubAbstractRecord> records;
+
+		try (InputStream in = new BufferedInputStream(Files.newInputStream(legacyPath)))
+		{
+			records = LegacyClubbersReader.read(in);
+		}
+
+		if (legacyPath.toAbsolutePath().normalize().equals(
+			newPath.toAbsolutePath().normalize()))
+		{
+			Files.copy(legacyPath, legacyPath.resolveSibling(legacyPath.getFileName() + ".bak"),
+				StandardCopyOption.REPLACE_EXISTING);
+		}
+
+		ClubbersFile.write(newPath, records);
+
+		return records;
+	}
+
+	/**
+	 * static main method.
+	 * Converts the old file given in the first argument into the file given
+	 * in the second argument.
+	 * @param args command line arguments
+	 */
+	public static void main(String[] args)
+	{
+		Path legacyPath = Paths.get(args.length > 0 ? args[0] : DEFAULT_FILE_NAME);
+		Path newPath = args.length > 1 ? Paths.get(args[1]) : legacyPath;
+
+		try
+		{
+			if (ClubbersFile.isClubbersFile(legacyPath))
+			{
+				System.out.println(legacyPath + " is already in the new format");
+				return;
+			}
+
+			System.out.printf("Converted %d clubbers from %s to %s%n",
+				convert(legacyPath, newPath).size(), legacyPath, newPath);
+		}
+		catch (IOException | ClassNotFoundException e)
+		{
+			System.err.println("Conversion failed: " + e);
+			System.exit(1);
+		}
+	}
+}
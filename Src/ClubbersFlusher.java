@@ -0,0 +1,142 @@
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+
+/**
+ * This class writes the changes of the clubbers to the disk on a background
+ * thread.
+ * <br> Every change only marks the clubbers as dirty with {@link #markDirty},
+ * the first change after a flush schedules the next one after a short delay
+ * and the changes made meanwhile are written together by it, so a burst of
+ * changes costs a single write and the thread that made them, such as the
+ * event dispatch thread, never waits for the disk.
+ * <br> A flush which fails is logged and tried again after the delay, the
+ * changes are kept until they are written. {@link #close} writes what is
+ * left on the thread which closes.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersFlusher implements Closeable
+{
+	// Default of how long changes are gathered before they are written.
+	public static final long DEFAULT_DELAY = 50;
+
+	private static final Logger LOGGER = Logger.getLogger(ClubbersFlusher.class.getName());
+
+	private final String name;
+	private final long delay;
+	private final Flush flush;
+	private final ScheduledThreadPoolExecutor executor;
+
+	// Set from the first change after a flush until the next flush starts.
+	private final AtomicBoolean scheduled;
+
+	/**
+	 * ClubbersFlusher Constructor - starts the background thread.
+	 * @param name holds the name of what is flushed, for the thread and the log.
+	 * @param delay holds the milliseconds changes are gathered before they
+	 * are written.
+	 * @param flush holds the action which writes the changes, it may be run
+	 * by the background thread and by {@link #flush} at once.
+	 */
+	public ClubbersFlusher(String name, long delay, Flush flush)
+	{
+		this.name = name;
+		this.delay = delay;
+		this.flush = flush;
+		scheduled = new AtomicBoolean();
+
+		executor = new ScheduledThreadPoolExecutor(1, runnable ->
+		{
+			Thread thread = new Thread(runnable, "Clubbers Flusher " + name);
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		// Closing writes what is left itself instead of waiting for the delay.
+		executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+	}
+
+	/**
+	 * This method tells that a change was made, it is written by the next
+	 * flush which is scheduled if it isn't yet.
+	 * <br> It never waits and may be invoked from any thread.
+	 */
+	public void markDirty()
+	{
+		if (scheduled.compareAndSet(false, true))
+		{
+			try
+			{
+				executor.schedule(this::flushInBackground, delay, TimeUnit.MILLISECONDS);
+			}
+			catch (RejectedExecutionException e)
+			{
+				// Closed, the change is written by close.
+				scheduled.set(false);
+			}
+		}
+	}
+
+	/**
+	 * This method writes the changes now on the current thread.
+	 * @throws IOException if the changes can't be written.
+	 */
+	public void flush() throws IOException
+	{
+		flush.flush();
+	}
+
+	/**
+	 * This method stops the background thread, waits for a running flush and
+	 * writes what is left.
+	 * @throws IOException if the changes can't be written.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		executor.shutdown();
+
+		try
+		{
+			executor.awaitTermination(1, TimeUnit.MINUTES);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+
+		flush.flush();
+	}
+
+	/**
+	 * This method runs a scheduled flush, changes made from its start are
+	 * written by the next one.
+	 */
+	private void flushInBackground()
+	{
+		scheduled.set(false);
+
+		try
+		{
+			flush.flush();
+		}
+		catch (IOException | UncheckedIOException e)
+		{
+			LOGGER.log(Level.WARNING, "Can't flush " + name + ", trying again", e);
+			markDirty();
+		}
+	}
+
+	/**
+	 * This interface is the action which writes the changes to the disk.
+	 */
+	public interface Flush
+	{
+		/**
+		 * Invoked to write all the changes made so far.
+		 * @throws IOException if the changes can't be written.
+		 */
+		void flush() throws IOException;
+	}
+}
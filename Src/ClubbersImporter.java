@@ -0,0 +1,451 @@
+import java.io.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * This class imports clubbers from a file of comma separated values, as read
+ * by {@link ClubbersCsv}, into a {@link ClubbersStore}.
+ * <br> The file is read in chunks of lines which are split, built into
+ * records and validated with {@link ClubberValidator} in parallel, the same
+ * rules as the validateData methods of the clubber windows. The chunks are
+ * then handled in the order of the file: rows whose ID already exists in the
+ * store or earlier in the file are rejected and the accepted rows are added
+ * to the store in batches with {@link ClubbersStore#addAll}. If the store
+ * refuses a record of a batch, like a clubber too big for a slot of a
+ * {@link MappedClubbersStore}, the batch is added one by one and only that
+ * row is rejected.
+ * <br> Every rejected row is written into a report with its line number and
+ * the reason it was rejected.
+ * <br> The store isn't saved, the caller saves it once after the import.
+ * <br> It can be run from the command line while the program isn't running:
+ * <br> java ClubbersImporter [csv file] [report file]
+ * <br> The clubbers are opened and saved with a {@link ClubbersDatabase}, as
+ * the program does.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersImporter
+{
+	private static final int CHUNK_SIZE = 4096;
+	private static final int BATCH_SIZE = 16 * 1024;
+
+	private final ClubbersStore store;
+	private final int threads;
+
+	/**
+	 * ClubbersImporter Constructor - validates with a thread for every processor.
+	 * @param store holds the store to import into.
+	 */
+	public ClubbersImporter(ClubbersStore store)
+	{
+		this(store, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * ClubbersImporter Full Constructor.
+	 * @param store holds the store to import into.
+	 * @param threads holds the number of threads which validate the rows.
+	 */
+	public ClubbersImporter(ClubbersStore store, int threads)
+	{
+		this.store = store;
+		this.threads = threads;
+	}
+
+	/**
+	 * This method imports the rows of a file into the store, a first line
+	 * which starts with "Type" is taken as the header and skipped.
+	 * <br> It must be invoked on the thread that changes the store.
+	 * @param csvPath holds the file to import.
+	 * @param reportPath holds the report of the rejected rows, it is written
+	 * even if no row was rejected.
+	 * @return a {@link Result} with the number of accepted and rejected rows.
+	 * @throws IOException if a file can't be read or written.
+	 */
+	public Result importFile(Path csvPath, Path reportPath) throws IOException
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable ->
+		{
+			Thread thread = new Thread(runnable, "Clubbers Importer");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try (BufferedReader reader = Files.newBufferedReader(csvPath, StandardCharsets.UTF_8);
+			BufferedWriter report = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8))
+		{
+			report.write("Line,Reason,Row");
+			report.newLine();
+
+			Batch batch = new Batch(report);
+			ArrayDeque<Future<Chunk>> chunks = new ArrayDeque<>();
+			int lineNumber = 0;
+
+			while (true)
+			{
+				ArrayList<String> lines = new ArrayList<>(CHUNK_SIZE);
+				String line;
+
+				while (lines.size() < CHUNK_SIZE && (line = reader.readLine()) != null)
+				{
+					lines.add(line);
+				}
+
+				if (lines.isEmpty())
+				{
+					break;
+				}
+
+				Chunk chunk = new Chunk(lineNumber + 1, lines);
+				lineNumber += lines.size();
+				chunks.add(executor.submit(chunk));
+
+				// Keep only a few chunks ahead of the one being added.
+				if (chunks.size() > threads * 2)
+				{
+					batch.add(next(chunks));
+				}
+			}
+
+			while (!chunks.isEmpty())
+			{
+				batch.add(next(chunks));
+			}
+
+			batch.flush();
+
+			return new Result(batch.accepted, batch.rejected);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+
+	/**
+	 * This method waits for the first chunk to be validated.
+	 * @param chunks holds the chunks in the order of the file.
+	 * @return the validated chunk.
+	 * @throws IOException if the chunk failed or the thread was interrupted.
+	 */
+	private static Chunk next(ArrayDeque<Future<Chunk>> chunks) throws IOException
+	{
+		try
+		{
+			return chunks.poll().get();
+		}
+		catch (ExecutionException e)
+		{
+			throw new IOException("Can't validate the rows", e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Import was interrupted");
+		}
+	}
+
+	/**
+	 * This class implements {@link java.util.concurrent.Callable}.
+	 * <br> A chunk builds and validates the records of its lines, a line which
+	 * can't be imported gets the reason instead of its record.
+	 */
+	private static class Chunk implements Callable<Chunk>
+	{
+		private final int firstLine;
+		private final ArrayList<String> lines;
+		private final ClubAbstractRecord[] records;
+		private final String[] reasons;
+
+		/**
+		 * Chunk Constructor.
+		 * @param firstLine holds the number of the first line in the file.
+		 * @param lines holds the lines.
+		 */
+		public Chunk(int firstLine, ArrayList<String> lines)
+		{
+			this.firstLine = firstLine;
+			this.lines = lines;
+			records = new ClubAbstractRecord[lines.size()];
+			reasons = new String[lines.size()];
+		}
+
+		/**
+		 * Overriden method which splits, builds and validates the records of
+		 * the lines.
+		 * @return this chunk with a record or a reason for every line.
+		 */
+		@Override
+		public Chunk call()
+		{
+			for (int i = 0; i < lines.size(); i++)
+			{
+				String line = lines.get(i);
+
+				if (line.isEmpty() || (firstLine + i == 1 && line.startsWith("Type")))
+				{
+					continue;
+				}
+
+				String[] fields = ClubbersCsv.split(line);
+
+				if (fields == null)
+				{
+					reasons[i] = "Quote isn't closed";
+					continue;
+				}
+
+				try
+				{
+					records[i] = ClubbersCsv.toRecord(fields);
+				}
+				catch (IllegalArgumentException e)
+				{
+					reasons[i] = e.getMessage();
+					continue;
+				}
+
+				String invalidField = ClubberValidator.invalidField(records[i]);
+
+				if (invalidField != null)
+				{
+					records[i] = null;
+					reasons[i] = "Invalid " + invalidField;
+				}
+			}
+
+			return this;
+		}
+	}
+
+	/**
+	 * This class collects the accepted records until there are enough to add
+	 * them to the store together and writes the rejected rows to the report.
+	 */
+	private class Batch
+	{
+		private final BufferedWriter report;
+		private final ArrayList<ClubAbstractRecord> records;
+		// The line number and the row of every record.
+		private final ArrayList<Integer> lineNumbers;
+		private final ArrayList<String> rows;
+		// IDs of the records which aren't in the store yet.
+		private final HashSet<String> ids;
+
+		private int accepted;
+		private int rejected;
+
+		/**
+		 * Batch Constructor.
+		 * @param report holds the report of the rejected rows.
+		 */
+		public Batch(BufferedWriter report)
+		{
+			this.report = report;
+			records = new ArrayList<>(BATCH_SIZE);
+			lineNumbers = new ArrayList<>(BATCH_SIZE);
+			rows = new ArrayList<>(BATCH_SIZE);
+			ids = new HashSet<>(BATCH_SIZE * 2);
+		}
+
+		/**
+		 * This method adds the records of a validated chunk, rows whose ID
+		 * already exists are rejected.
+		 * @param chunk holds the validated chunk.
+		 * @throws IOException if the report can't be written.
+		 */
+		public void add(Chunk chunk) throws IOException
+		{
+			for (int i = 0; i < chunk.records.length; i++)
+			{
+				ClubAbstractRecord record = chunk.records[i];
+				String reason = chunk.reasons[i];
+
+				if (record != null && (store.containsID(record.getID()) ||
+					!ids.add(record.getID())))
+				{
+					record = null;
+					reason = "ID already exists";
+				}
+
+				if (record != null)
+				{
+					records.add(record);
+					lineNumbers.add(chunk.firstLine + i);
+					rows.add(chunk.lines.get(i));
+
+					if (records.size() == BATCH_SIZE)
+					{
+						flush();
+					}
+				}
+				else if (reason != null)
+				{
+					reject(chunk.firstLine + i, reason, chunk.lines.get(i));
+				}
+			}
+		}
+
+		/**
+		 * This method adds the collected records to the store.
+		 * <br> If the store refuses one of them the records it added before
+		 * are kept and the rest are added one by one, the refused ones are
+		 * rejected with the reason of the store.
+		 * @throws IOException if the report can't be written.
+		 */
+		public void flush() throws IOException
+		{
+			try
+			{
+				accepted += store.addAll(records);
+			}
+			catch (IllegalArgumentException e)
+			{
+				for (int i = 0; i < records.size(); i++)
+				{
+					ClubAbstractRecord record = records.get(i);
+
+					// The IDs weren't in the store, so the ones in it now were
+					// added before the record that was refused.
+					if (store.containsID(record.getID()))
+					{
+						accepted++;
+						continue;
+					}
+
+					try
+					{
+						if (store.add(record))
+						{
+							accepted++;
+						}
+					}
+					catch (IllegalArgumentException refused)
+					{
+						reject(lineNumbers.get(i), refused.getMessage(), rows.get(i));
+					}
+				}
+			}
+
+			records.clear();
+			lineNumbers.clear();
+			rows.clear();
+			ids.clear();
+		}
+
+		/**
+		 * This method writes a rejected row to the report.
+		 * @param lineNumber holds the number of the line in the file.
+		 * @param reason holds the reason the row was rejected.
+		 * @param row holds the row.
+		 * @throws IOException if the report can't be written.
+		 */
+		private void reject(int lineNumber, String reason, String row) throws IOException
+		{
+			rejected++;
+			report.write(String.valueOf(lineNumber));
+			report.write(',');
+			report.write(ClubbersCsv.quote(reason));
+			report.write(',');
+			report.write(ClubbersCsv.quote(row));
+			report.newLine();
+		}
+	}
+
+	/**
+	 * This class holds the number of accepted and rejected rows of an import.
+	 */
+	public static class Result
+	{
+		private final int accepted;
+		private final int rejected;
+
+		/**
+		 * Result Constructor.
+		 * @param accepted holds the number of rows added to the store.
+		 * @param rejected holds the number of rows written to the report.
+		 */
+		public Result(int accepted, int rejected)
+		{
+			this.accepted = accepted;
+			this.rejected = rejected;
+		}
+
+		/**
+		 * This method returns the number of rows added to the store.
+		 * @return the number of accepted rows.
+		 */
+		public int getAccepted()
+		{
+			return accepted;
+		}
+
+		/**
+		 * This method returns the number of rows written to the report.
+		 * @return the number of rejected rows.
+		 */
+		public int getRejected()
+		{
+			return rejected;
+		}
+	}
+
+	/**
+	 * static main method.
+	 * Opens the clubbers with a {@link ClubbersDatabase}, imports the file
+	 * given in the first argument as a bulk change and closes the clubbers.
+	 * Nothing is imported if the clubbers file can't be read.
+	 * @param args command line arguments
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: java ClubbersImporter <csv file> [report file]");
+			System.exit(2);
+		}
+
+		Path csvPath = Paths.get(args[0]);
+		Path reportPath = Paths.get(args.length > 1 ? args[1] : args[0] + ".rejects.csv");
+		ClubbersDatabase database = new ClubbersDatabase();
+		long start = System.nanoTime();
+
+		database.open(false, null);
+
+		try
+		{
+			if (database.getReadError() != null)
+			{
+				throw new IOException("Can't read " + ClubbersDatabase.CLUBBERS_FILE_NAME,
+					database.getReadError());
+			}
+
+			Result result;
+
+			database.beginBulkChange();
+
+			try
+			{
+				result = new ClubbersImporter(database.getClubbers())
+					.importFile(csvPath, reportPath);
+			}
+			finally
+			{
+				database.endBulkChange();
+			}
+
+			System.out.printf("Imported %d clubbers, rejected %d (see %s) in %d ms%n",
+				result.getAccepted(), result.getRejected(), reportPath,
+				(System.nanoTime() - start) / 1000000);
+		}
+		catch (IOException e)
+		{
+			database.close();
+			System.err.println("Import failed: " + e);
+			System.exit(1);
+		}
+
+		database.close();
+	}
+}
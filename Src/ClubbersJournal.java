@@ -0,0 +1,799 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.zip.*;
+
+/**
+ * This class implements {@link ClubbersRepository.Listener}.
+ * <br> This class is a write-ahead log of the changes made to the
+ * {@link ClubbersRepository}, every add, commit of an edit and delete is
+ * appended to the end of the file, so a change costs one small write instead
+ * of saving all the clubbers. A bulk change of the repository is a single
+ * entry with all its records.
+ * <br> An entry is only kept in memory by the thread that made the change, a
+ * {@link ClubbersFlusher} appends the entries gathered meanwhile with a
+ * single write and forces them to the disk shortly after, so the window that
+ * made a change never waits for the disk. The changes of the last
+ * {@link ClubbersFlusher#DEFAULT_DELAY} milliseconds may be lost if the
+ * program is killed, {@link #close} writes them when it stops.
+ * <br> On startup the entries are replayed on top of the last saved
+ * {@link ClubbersFile}, entries the file already includes are skipped by their
+ * sequence number.
+ * <br> The file starts with the magic number "BKJL" and the format version,
+ * every entry is the length of its body, a CRC-32 checksum of the body and the
+ * body itself: the sequence number, the type of change and its data.
+ * <br> An entry which was only partly written when the program stopped fails
+ * its checksum, it is dropped together with everything after it.
+ * <br> To compact the journal without stopping the changes, {@link #seal}
+ * renames the file to a segment named after the sequence number of its last
+ * entry and starts a new file. Segments are replayed before the file and
+ * deleted with {@link #deleteSegments} once a saved {@link ClubbersFile}
+ * includes them, see {@link ClubbersCompactor}.
+ * <br> Every entry written and every replay is recorded in the
+ * {@link ClubbersMetrics} with its bytes.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersJournal implements ClubbersRepository.Listener
+{
+	// "BKJL" in ASCII.
+	public static final int MAGIC = 0x424B4A4C;
+	public static final short VERSION = 2;
+
+	// Types of change.
+	public static final byte ADD = 1;
+	public static final byte REPLACE = 2;
+	public static final byte REMOVE = 3;
+	public static final byte REMOVE_ALL = 4;
+	public static final byte REPLACE_ALL = 5;
+
+	// Magic and version.
+	private static final int HEADER_SIZE = 4 + 2;
+	// Length and checksum of an entry.
+	private static final int ENTRY_HEADER_SIZE = 4 + 4;
+	// Sequence number and type of change.
+	private static final int ENTRY_BODY_HEADER_SIZE = 8 + 1;
+
+	private static final ClubbersMetrics.Operation JOURNAL_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.JOURNAL);
+	private static final ClubbersMetrics.Operation REPLAY_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.REPLAY);
+
+	private final Path path;
+
+	// The file and the fields of what was written to it are guarded by the
+	// journal, the entries which weren't written yet by the pending list, the
+	// journal is always locked first.
+	private FileChannel channel;
+	private long writtenSequence;
+	private volatile long fileSize;
+
+	private final ArrayList<ByteBuffer> pending;
+	private long pendingSize;
+	private long sequence;
+	private int entryCount;
+
+	private final ClubbersFlusher flusher;
+
+	/**
+	 * ClubbersJournal Constructor - opens the journal file and writes its header
+	 * if the file is new.
+	 * @param path holds the journal file.
+	 * @throws IOException if the file can't be opened or isn't a journal.
+	 */
+	public ClubbersJournal(Path path) throws IOException
+	{
+		this.path = path;
+		pending = new ArrayList<>();
+
+		channel = open(path);
+		fileSize = channel.size();
+		flusher = new ClubbersFlusher(path.getFileName().toString(),
+			ClubbersFlusher.DEFAULT_DELAY, this::flush);
+	}
+
+	/**
+	 * This method applies the entries of the sealed segments and then of the
+	 * journal file to the repository.
+	 * <br> The repository shouldn't have the journal as its listener while
+	 * the entries are replayed.
+	 * @param repository holds the clubbers loaded from the last saved file.
+	 * @param afterSequence holds the sequence number of the last entry the
+	 * saved file includes, entries up to it are skipped.
+	 * @return the number of entries applied.
+	 * @throws IOException if a file can't be read.
+	 */
+	public synchronized int replay(ClubbersRepository repository, long afterSequence)
+		throws IOException
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			int applied = replaySegments(repository, afterSequence);
+			failed = false;
+			return applied;
+		}
+		finally
+		{
+			REPLAY_OPERATION.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method applies the entries of the sealed segments and of the
+	 * journal file after the sequence number to the repository.
+	 * @param repository holds the clubbers loaded from the last saved file.
+	 * @param afterSequence holds the sequence number of the last entry the
+	 * saved file includes.
+	 * @return the number of entries applied.
+	 * @throws IOException if a file can't be read.
+	 */
+	private int replaySegments(ClubbersRepository repository, long afterSequence)
+		throws IOException
+	{
+		sequence = Math.max(sequence, afterSequence);
+		entryCount = 0;
+
+		int applied = 0;
+
+		for (Map.Entry<Long, Path> segment : segments().entrySet())
+		{
+			// Segments the saved file includes are only left if the program
+			// stopped before deleting them.
+			if (segment.getKey() <= afterSequence)
+			{
+				continue;
+			}
+
+			try (FileChannel segmentChannel = FileChannel.open(segment.getValue(),
+				StandardOpenOption.READ))
+			{
+				checkHeader(segmentChannel, segment.getValue());
+				applied += replay(segmentChannel, repository, afterSequence);
+			}
+		}
+
+		applied += replay(channel, repository, afterSequence);
+		writtenSequence = sequence;
+		fileSize = channel.size();
+
+		return applied;
+	}
+
+	/**
+	 * This method applies the entries of a single file to the repository.
+	 * <br> An entry which was only partly written is removed from the
+	 * journal file, a sealed segment is only read.
+	 * @param entriesChannel holds the journal file or a sealed segment.
+	 * @param repository holds the repository.
+	 * @param afterSequence holds the sequence number of the last entry the
+	 * saved file includes.
+	 * @return the number of entries applied.
+	 * @throws IOException if the file can't be read.
+	 */
+	private int replay(FileChannel entriesChannel, ClubbersRepository repository,
+		long afterSequence) throws IOException
+	{
+		long size = entriesChannel.size();
+
+		if (size <= HEADER_SIZE)
+		{
+			return 0;
+		}
+
+		// The file isn't mapped since a mapped file can't be truncated on
+		// every system.
+		ByteBuffer entries = ByteBuffer.allocate((int)size);
+
+		while (entries.hasRemaining() &&
+			entriesChannel.read(entries, entries.position()) != -1)
+		{
+		}
+
+		ClubbersMetrics.getInstance().addBytesRead(entries.position());
+
+		entries.flip();
+		entries.position(HEADER_SIZE);
+
+		CRC32 checksum = new CRC32();
+		int applied = 0;
+
+		while (entries.remaining() >= ENTRY_HEADER_SIZE)
+		{
+			int start = entries.position();
+			int length = entries.getInt();
+			int expectedChecksum = entries.getInt();
+
+			if (length < ENTRY_BODY_HEADER_SIZE || length > entries.remaining())
+			{
+				entries.position(start);
+				break;
+			}
+
+			ByteBuffer body = entries.slice();
+			body.limit(length);
+
+			checksum.reset();
+			checksum.update(body.duplicate());
+
+			if ((int)checksum.getValue() != expectedChecksum)
+			{
+				entries.position(start);
+				break;
+			}
+
+			entries.position(start + ENTRY_HEADER_SIZE + length);
+
+			if (entriesChannel == channel)
+			{
+				entryCount++;
+			}
+
+			long entrySequence = body.getLong();
+
+			if (entrySequence <= afterSequence)
+			{
+				continue;
+			}
+
+			apply(repository, body.get(), body);
+			sequence = Math.max(sequence, entrySequence);
+			applied++;
+		}
+
+		// Drop an entry which was only partly written.
+		if (entriesChannel == channel && entries.position() < size)
+		{
+			channel.truncate(entries.position());
+			channel.force(true);
+		}
+
+		return applied;
+	}
+
+	/**
+	 * This method returns the sequence number of the last entry.
+	 * @return the sequence number, entries appended from now on get a bigger one.
+	 */
+	public long getSequence()
+	{
+		synchronized (pending)
+		{
+			return sequence;
+		}
+	}
+
+	/**
+	 * This method returns the number of entries in the file, with the ones
+	 * which will be written to it.
+	 * @return the number of entries.
+	 */
+	public int getEntryCount()
+	{
+		synchronized (pending)
+		{
+			return entryCount;
+		}
+	}
+
+	/**
+	 * This method returns the size of the file with the entries which will
+	 * be written to it, without waiting for a write.
+	 * @return the size in bytes.
+	 */
+	public long size()
+	{
+		synchronized (pending)
+		{
+			return fileSize + pendingSize;
+		}
+	}
+
+	/**
+	 * This method appends the entries which weren't written yet to the file
+	 * with a single write and forces them to the disk.
+	 * <br> It is invoked in the background shortly after the entries were
+	 * appended, see {@link ClubbersFlusher}.
+	 * @throws IOException if the entries can't be written, they are kept and
+	 * written by the next flush.
+	 */
+	public synchronized void flush() throws IOException
+	{
+		ArrayList<ByteBuffer> entries;
+		long size;
+		long lastSequence;
+
+		synchronized (pending)
+		{
+			if (pending.isEmpty())
+			{
+				return;
+			}
+
+			entries = new ArrayList<>(pending);
+			size = pendingSize;
+			lastSequence = sequence;
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate((int)size);
+
+		for (ByteBuffer entry : entries)
+		{
+			buffer.put(entry.duplicate());
+		}
+
+		buffer.flip();
+
+		long start = System.nanoTime();
+		long end = fileSize;
+
+		try
+		{
+			write(channel, buffer, end);
+			channel.force(false);
+		}
+		catch (IOException e)
+		{
+			JOURNAL_OPERATION.record(start, true);
+
+			// Remove what was written so later entries don't follow a broken one.
+			try
+			{
+				channel.truncate(end);
+			}
+			catch (IOException truncateException)
+			{
+				e.addSuppressed(truncateException);
+			}
+
+			throw e;
+		}
+
+		JOURNAL_OPERATION.record(start, false);
+		ClubbersMetrics.getInstance().addBytesWritten(size);
+
+		synchronized (pending)
+		{
+			// Entries appended meanwhile are after the written ones.
+			pending.subList(0, entries.size()).clear();
+			pendingSize -= size;
+			fileSize = end + size;
+		}
+
+		writtenSequence = lastSequence;
+	}
+
+	/**
+	 * This method removes all the entries, it is invoked after the clubbers
+	 * were saved with {@link ClubbersFile#write} and the sequence number
+	 * returned by {@link #getSequence}.
+	 * <br> The sequence number keeps growing so a saved file never includes
+	 * an entry written after it.
+	 * @throws IOException if the file can't be truncated.
+	 */
+	public synchronized void truncate() throws IOException
+	{
+		channel.truncate(HEADER_SIZE);
+		channel.force(true);
+
+		synchronized (pending)
+		{
+			pending.clear();
+			pendingSize = 0;
+			entryCount = 0;
+			fileSize = HEADER_SIZE;
+		}
+
+		writtenSequence = getSequence();
+	}
+
+	/**
+	 * This method renames the journal file to a segment named after the
+	 * sequence number of its last entry and starts a new empty file, so the
+	 * entries can be deleted after they were saved while new entries keep
+	 * being written.
+	 * <br> Nothing is renamed if the file has no entries. Entries which
+	 * weren't written yet are written to the new file, they are after the
+	 * sealed ones and skipped by a replay after a file saved with the
+	 * returned sequence number.
+	 * @return the sequence number of the last entry, a {@link ClubbersFile}
+	 * saved with it includes every sealed segment.
+	 * @throws IOException if the file can't be renamed or the new file
+	 * can't be created.
+	 */
+	public synchronized long seal() throws IOException
+	{
+		long lastSequence = getSequence();
+
+		if (fileSize <= HEADER_SIZE)
+		{
+			return lastSequence;
+		}
+
+		// The file is closed first since an open file can't be renamed on
+		// every system.
+		channel.close();
+
+		try
+		{
+			Files.move(path, segmentPath(writtenSequence), StandardCopyOption.ATOMIC_MOVE);
+		}
+		finally
+		{
+			channel = open(path);
+
+			synchronized (pending)
+			{
+				fileSize = channel.size();
+				entryCount = pending.size();
+			}
+		}
+
+		return lastSequence;
+	}
+
+	/**
+	 * This method deletes the sealed segments a saved {@link ClubbersFile}
+	 * includes.
+	 * @param upToSequence holds the sequence number the file was saved with.
+	 * @throws IOException if a segment can't be deleted.
+	 */
+	public void deleteSegments(long upToSequence) throws IOException
+	{
+		for (Map.Entry<Long, Path> segment : segments().entrySet())
+		{
+			if (segment.getKey() <= upToSequence)
+			{
+				Files.deleteIfExists(segment.getValue());
+			}
+		}
+	}
+
+	/**
+	 * This method writes the entries which weren't written yet and closes the
+	 * journal file.
+	 * @throws IOException if the entries can't be written or the file can't
+	 * be closed.
+	 */
+	public void close() throws IOException
+	{
+		try
+		{
+			flusher.close();
+		}
+		finally
+		{
+			synchronized (this)
+			{
+				channel.close();
+			}
+		}
+	}
+
+	/**
+	 * This method appends an {@link #ADD} entry.
+	 * @param record holds the added record.
+	 */
+	@Override
+	public void clubberAdded(ClubAbstractRecord record)
+	{
+		byte[] body = ClubbersFile.encode(record);
+
+		append(ADD, ByteBuffer.allocate(body.length).put(body));
+	}
+
+	/**
+	 * This method appends a {@link #REPLACE} entry, the ID of the old record
+	 * followed by the new record.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 */
+	@Override
+	public void clubberReplaced(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		byte[] oldID = ClubbersFile.utf8(oldRecord.getID());
+		byte[] body = ClubbersFile.encode(newRecord);
+
+		ByteBuffer data = ByteBuffer.allocate(ClubbersFile.varintSize(oldID.length) +
+			oldID.length + body.length);
+		ClubbersFile.putVarint(data, oldID.length);
+		data.put(oldID).put(body);
+
+		append(REPLACE, data);
+	}
+
+	/**
+	 * This method appends a {@link #REMOVE} entry with the ID of the record.
+	 * @param record holds the removed record.
+	 */
+	@Override
+	public void clubberRemoved(ClubAbstractRecord record)
+	{
+		byte[] id = ClubbersFile.utf8(record.getID());
+
+		ByteBuffer data = ByteBuffer.allocate(ClubbersFile.varintSize(id.length) +
+			id.length);
+		ClubbersFile.putVarint(data, id.length);
+		data.put(id);
+
+		append(REMOVE, data);
+	}
+
+	/**
+	 * This method appends a {@link #REMOVE_ALL} entry, the number of records
+	 * followed by the ID of every record.
+	 * @param records holds the removed records.
+	 */
+	@Override
+	public void clubbersRemoved(List<ClubAbstractRecord> records)
+	{
+		byte[][] ids = new byte[records.size()][];
+		int size = ClubbersFile.varintSize(ids.length);
+
+		for (int i = 0; i < ids.length; i++)
+		{
+			ids[i] = ClubbersFile.utf8(records.get(i).getID());
+			size += ClubbersFile.varintSize(ids[i].length) + ids[i].length;
+		}
+
+		ByteBuffer data = ByteBuffer.allocate(size);
+		ClubbersFile.putVarint(data, ids.length);
+
+		for (byte[] id : ids)
+		{
+			ClubbersFile.putVarint(data, id.length);
+			data.put(id);
+		}
+
+		append(REMOVE_ALL, data);
+	}
+
+	/**
+	 * This method appends a {@link #REPLACE_ALL} entry, the number of records
+	 * followed by the ID of every old record and its new record, as in a
+	 * {@link #REPLACE} entry.
+	 * @param oldRecords holds the records that were edited.
+	 * @param newRecords holds the edited records in the same order.
+	 */
+	@Override
+	public void clubbersReplaced(List<ClubAbstractRecord> oldRecords,
+		List<ClubAbstractRecord> newRecords)
+	{
+		byte[][] oldIDs = new byte[oldRecords.size()][];
+		byte[][] bodies = new byte[oldIDs.length][];
+		int size = ClubbersFile.varintSize(oldIDs.length);
+
+		for (int i = 0; i < oldIDs.length; i++)
+		{
+			oldIDs[i] = ClubbersFile.utf8(oldRecords.get(i).getID());
+			bodies[i] = ClubbersFile.encode(newRecords.get(i));
+			size += ClubbersFile.varintSize(oldIDs[i].length) + oldIDs[i].length +
+				bodies[i].length;
+		}
+
+		ByteBuffer data = ByteBuffer.allocate(size);
+		ClubbersFile.putVarint(data, oldIDs.length);
+
+		for (int i = 0; i < oldIDs.length; i++)
+		{
+			ClubbersFile.putVarint(data, oldIDs[i].length);
+			data.put(oldIDs[i]).put(bodies[i]);
+		}
+
+		append(REPLACE_ALL, data);
+	}
+
+	/**
+	 * This method returns the path of the segment whose last entry has the
+	 * sequence number.
+	 * @param lastSequence holds the sequence number of the last entry.
+	 * @return the path next to the journal file.
+	 */
+	private Path segmentPath(long lastSequence)
+	{
+		return path.resolveSibling(path.getFileName() + "." + lastSequence);
+	}
+
+	/**
+	 * This method finds the sealed segments of the journal.
+	 * @return the segments sorted by the sequence number of their last entry.
+	 * @throws IOException if the directory can't be read.
+	 */
+	private TreeMap<Long, Path> segments() throws IOException
+	{
+		TreeMap<Long, Path> segments = new TreeMap<>();
+		Path directory = path.toAbsolutePath().getParent();
+		String prefix = path.getFileName() + ".";
+
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+			path.getFileName() + ".*"))
+		{
+			for (Path file : files)
+			{
+				try
+				{
+					segments.put(Long.parseLong(
+						file.getFileName().toString().substring(prefix.length())), file);
+				}
+				catch (NumberFormatException e)
+				{
+					// Not a segment.
+				}
+			}
+		}
+
+		return segments;
+	}
+
+	/**
+	 * This method opens a journal file and writes its header if the file is new.
+	 * @param path holds the journal file.
+	 * @return the open file.
+	 * @throws IOException if the file can't be opened or isn't a journal.
+	 */
+	private static FileChannel open(Path path) throws IOException
+	{
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+		try
+		{
+			if (channel.size() < HEADER_SIZE)
+			{
+				ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+				header.putInt(MAGIC).putShort(VERSION).flip();
+
+				channel.truncate(0);
+				write(channel, header, 0);
+				channel.force(true);
+			}
+			else
+			{
+				checkHeader(channel, path);
+
+				// Entries of this version may be appended to an older file.
+				ByteBuffer version = ByteBuffer.allocate(2).putShort(VERSION).flip();
+				write(channel, version, 4);
+			}
+		}
+		catch (IOException e)
+		{
+			channel.close();
+			throw e;
+		}
+
+		return channel;
+	}
+
+	/**
+	 * This method checks the magic number and version of a journal file.
+	 * @param channel holds the open file.
+	 * @param path holds the file, for the error message.
+	 * @throws IOException if the file isn't a journal or is of a newer version.
+	 */
+	private static void checkHeader(FileChannel channel, Path path) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		channel.read(header, 0);
+
+		if (header.position() < HEADER_SIZE || header.getInt(0) != MAGIC)
+		{
+			throw new IOException(path + " is not a clubbers journal");
+		}
+
+		if (header.getShort(4) > VERSION)
+		{
+			throw new IOException(String.format(
+				"%s was written by a newer version (%d)", path, header.getShort(4)));
+		}
+	}
+
+	/**
+	 * This method applies a single entry to the repository.
+	 * @param repository holds the repository.
+	 * @param type holds the type of change.
+	 * @param data holds the data of the entry.
+	 * @throws IOException if the type of change is unknown.
+	 */
+	private void apply(ClubbersRepository repository, byte type, ByteBuffer data)
+		throws IOException
+	{
+		switch (type)
+		{
+			case ADD:
+				repository.add(ClubbersFile.decode(data));
+				break;
+			case REPLACE:
+				ClubAbstractRecord oldRecord = repository.findByID(ClubbersFile.getString(data));
+
+				if (oldRecord != null)
+				{
+					repository.replace(oldRecord, ClubbersFile.decode(data));
+				}
+				break;
+			case REMOVE:
+				ClubAbstractRecord record = repository.findByID(ClubbersFile.getString(data));
+
+				if (record != null)
+				{
+					repository.remove(record);
+				}
+				break;
+			case REMOVE_ALL:
+				HashSet<String> ids = new HashSet<>();
+
+				for (int count = ClubbersFile.getVarint(data); count > 0; count--)
+				{
+					ids.add(ClubbersFile.getString(data));
+				}
+
+				repository.removeIf(removed -> ids.contains(removed.getID()));
+				break;
+			case REPLACE_ALL:
+				HashMap<String, ClubAbstractRecord> newRecords = new HashMap<>();
+
+				for (int count = ClubbersFile.getVarint(data); count > 0; count--)
+				{
+					newRecords.put(ClubbersFile.getString(data), ClubbersFile.decode(data));
+				}
+
+				repository.replaceAll(edited -> newRecords.get(edited.getID()));
+				break;
+			default:
+				throw new IOException(String.format("Unknown change %d in %s", type, path));
+		}
+	}
+
+	/**
+	 * This method adds an entry to the entries which will be written to the
+	 * end of the file, the {@link ClubbersFlusher} writes it shortly after.
+	 * @param type holds the type of change.
+	 * @param data holds the data of the entry in write mode.
+	 */
+	private void append(byte type, ByteBuffer data)
+	{
+		data.flip();
+
+		int length = ENTRY_BODY_HEADER_SIZE + data.remaining();
+		ByteBuffer entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + length);
+
+		synchronized (pending)
+		{
+			entry.position(ENTRY_HEADER_SIZE);
+			entry.putLong(sequence + 1).put(type).put(data);
+
+			CRC32 checksum = new CRC32();
+			checksum.update(entry.array(), ENTRY_HEADER_SIZE, length);
+
+			entry.putInt(0, length);
+			entry.putInt(4, (int)checksum.getValue());
+			entry.flip();
+
+			pending.add(entry);
+			pendingSize += entry.remaining();
+			sequence++;
+			entryCount++;
+		}
+
+		flusher.markDirty();
+	}
+
+	/**
+	 * This method writes the whole buffer at a position of a file.
+	 * @param channel holds the open file.
+	 * @param buffer holds the bytes to write.
+	 * @param position holds the position in the file.
+	 * @throws IOException if the file can't be written.
+	 */
+	private static void write(FileChannel channel, ByteBuffer buffer, long position)
+		throws IOException
+	{
+		while (buffer.hasRemaining())
+		{
+			position += channel.write(buffer, position);
+		}
+	}
+}
@@ -0,0 +1,342 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class converts clubbers from and to JSON objects.
+ * <br> Every object holds the type of the clubber (Person, Soldier or
+ * Student) and its fields as strings: "type", "id", "name", "surname", "tel"
+ * and "personalNumber" of a soldier or "studentID" of a student.
+ * <br> Only flat objects of string values are read, which is all a clubber
+ * is written as.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersJson
+{
+	public static final String CONTENT_TYPE = "application/json; charset=utf-8";
+
+	/**
+	 * ClubbersJson Constructor - private since the class only has static methods.
+	 */
+	private ClubbersJson()
+	{
+	}
+
+	/**
+	 * This method writes a record as a JSON object, without a line break.
+	 * @param writer holds the writer, it should be buffered.
+	 * @param record holds the record.
+	 * @throws IOException if the object can't be written.
+	 */
+	public static void write(Writer writer, ClubAbstractRecord record) throws IOException
+	{
+		PersonRecord person = (PersonRecord)record;
+
+		if (record instanceof SoldierRecord)
+		{
+			writeField(writer, '{', "type", ClubbersCsv.SOLDIER);
+		}
+		else if (record instanceof StudentRecord)
+		{
+			writeField(writer, '{', "type", ClubbersCsv.STUDENT);
+		}
+		else
+		{
+			writeField(writer, '{', "type", ClubbersCsv.PERSON);
+		}
+
+		writeField(writer, ',', "id", person.getID());
+		writeField(writer, ',', "name", person.getName());
+		writeField(writer, ',', "surname", person.getSurname());
+		writeField(writer, ',', "tel", person.getTel());
+
+		if (record instanceof SoldierRecord)
+		{
+			writeField(writer, ',', "personalNumber",
+				((SoldierRecord)record).getPersonalNumber());
+		}
+		else if (record instanceof StudentRecord)
+		{
+			writeField(writer, ',', "studentID", ((StudentRecord)record).getStudentID());
+		}
+
+		writer.write('}');
+	}
+
+	/**
+	 * This method writes a JSON string, with its quotes, escaped.
+	 * @param writer holds the writer.
+	 * @param value holds the string.
+	 * @throws IOException if the writer fails.
+	 */
+	public static void writeString(Writer writer, String value) throws IOException
+	{
+		writer.write('"');
+
+		for (int i = 0; i < value.length(); i++)
+		{
+			char letter = value.charAt(i);
+
+			if (letter == '"' || letter == '\\')
+			{
+				writer.write('\\');
+				writer.write(letter);
+			}
+			else if (letter < 0x20)
+			{
+				writer.write(String.format("\\u%04x", (int)letter));
+			}
+			else
+			{
+				writer.write(letter);
+			}
+		}
+
+		writer.write('"');
+	}
+
+	/**
+	 * This method builds the record of a JSON object, the fields aren't
+	 * validated.
+	 * @param json holds the object.
+	 * @return a {@link PersonRecord}, {@link SoldierRecord} or {@link StudentRecord}.
+	 * @throws IllegalArgumentException if the object can't be read, the type
+	 * is unknown or a field is missing.
+	 */
+	public static ClubAbstractRecord toRecord(String json)
+	{
+		Map<String, String> fields = parse(json);
+		String type = field(fields, "type");
+		PersonRecord person = new PersonRecord(field(fields, "id"), field(fields, "name"),
+			field(fields, "surname"), field(fields, "tel"));
+
+		if (type.equalsIgnoreCase(ClubbersCsv.SOLDIER))
+		{
+			return new SoldierRecord(person, field(fields, "personalNumber"));
+		}
+
+		if (type.equalsIgnoreCase(ClubbersCsv.STUDENT))
+		{
+			return new StudentRecord(person, field(fields, "studentID"));
+		}
+
+		if (!type.equalsIgnoreCase(ClubbersCsv.PERSON))
+		{
+			throw new IllegalArgumentException("Unknown type " + type);
+		}
+
+		return person;
+	}
+
+	/**
+	 * This method reads a flat JSON object of string values.
+	 * @param json holds the object.
+	 * @return the fields of the object by their names.
+	 * @throws IllegalArgumentException if the object can't be read.
+	 */
+	public static Map<String, String> parse(String json)
+	{
+		HashMap<String, String> fields = new HashMap<>();
+		int[] position = {skipSpaces(json, 0)};
+
+		expect(json, position, '{');
+
+		if (peek(json, position) == '}')
+		{
+			position[0]++;
+		}
+		else
+		{
+			while (true)
+			{
+				String name = readString(json, position);
+
+				expect(json, position, ':');
+				fields.put(name, readString(json, position));
+
+				if (peek(json, position) == ',')
+				{
+					position[0]++;
+					continue;
+				}
+
+				expect(json, position, '}');
+				break;
+			}
+		}
+
+		if (skipSpaces(json, position[0]) != json.length())
+		{
+			throw new IllegalArgumentException("Text after the object");
+		}
+
+		return fields;
+	}
+
+	/**
+	 * This method writes a JSON field with its value escaped.
+	 * @param writer holds the writer.
+	 * @param separator holds the letter written before the field.
+	 * @param name holds the name of the field.
+	 * @param value holds the value of the field.
+	 * @throws IOException if the writer fails.
+	 */
+	private static void writeField(Writer writer, char separator, String name,
+		String value) throws IOException
+	{
+		writer.write(separator);
+		writer.write('"');
+		writer.write(name);
+		writer.write("\":");
+		writeString(writer, value);
+	}
+
+	/**
+	 * This method returns a field which must be in the object.
+	 * @param fields holds the fields of the object.
+	 * @param name holds the name of the field.
+	 * @return the value of the field.
+	 * @throws IllegalArgumentException if the field is missing.
+	 */
+	private static String field(Map<String, String> fields, String name)
+	{
+		String value = fields.get(name);
+
+		if (value == null)
+		{
+			throw new IllegalArgumentException("Missing " + name);
+		}
+
+		return value;
+	}
+
+	/**
+	 * This method reads a JSON string and moves after it.
+	 * @param json holds the text.
+	 * @param position holds the position, it is moved.
+	 * @return the string without its quotes and escapes.
+	 * @throws IllegalArgumentException if there is no whole string.
+	 */
+	private static String readString(String json, int[] position)
+	{
+		expect(json, position, '"');
+
+		StringBuilder value = new StringBuilder();
+		int i = position[0];
+
+		while (true)
+		{
+			if (i >= json.length())
+			{
+				throw new IllegalArgumentException("String isn't closed");
+			}
+
+			char letter = json.charAt(i++);
+
+			if (letter == '"')
+			{
+				break;
+			}
+
+			if (letter != '\\')
+			{
+				value.append(letter);
+				continue;
+			}
+
+			if (i >= json.length())
+			{
+				throw new IllegalArgumentException("String isn't closed");
+			}
+
+			letter = json.charAt(i++);
+
+			switch (letter)
+			{
+				case 'b':
+					value.append('\b');
+					break;
+				case 'f':
+					value.append('\f');
+					break;
+				case 'n':
+					value.append('\n');
+					break;
+				case 'r':
+					value.append('\r');
+					break;
+				case 't':
+					value.append('\t');
+					break;
+				case 'u':
+					if (i + 4 > json.length())
+					{
+						throw new IllegalArgumentException("Bad escape");
+					}
+
+					try
+					{
+						value.append((char)Integer.parseInt(json.substring(i, i + 4), 16));
+					}
+					catch (NumberFormatException e)
+					{
+						throw new IllegalArgumentException("Bad escape");
+					}
+
+					i += 4;
+					break;
+				default:
+					value.append(letter);
+			}
+		}
+
+		position[0] = i;
+
+		return value.toString();
+	}
+
+	/**
+	 * This method skips spaces and checks the next letter.
+	 * @param json holds the text.
+	 * @param position holds the position, it is moved after the letter.
+	 * @param letter holds the expected letter.
+	 * @throws IllegalArgumentException if the next letter is another one.
+	 */
+	private static void expect(String json, int[] position, char letter)
+	{
+		if (peek(json, position) != letter)
+		{
+			throw new IllegalArgumentException("Expected " + letter + " at " + position[0]);
+		}
+
+		position[0]++;
+	}
+
+	/**
+	 * This method skips spaces and returns the next letter.
+	 * @param json holds the text.
+	 * @param position holds the position, it is moved to the letter.
+	 * @return the letter or 0 at the end of the text.
+	 */
+	private static char peek(String json, int[] position)
+	{
+		position[0] = skipSpaces(json, position[0]);
+
+		return position[0] < json.length() ? json.charAt(position[0]) : 0;
+	}
+
+	/**
+	 * This method returns the position of the first letter which isn't a space.
+	 * @param json holds the text.
+	 * @param position holds the position to start from.
+	 * @return the position of the letter or the length of the text.
+	 */
+	private static int skipSpaces(String json, int position)
+	{
+		while (position < json.length() && Character.isWhitespace(json.charAt(position)))
+		{
+			position++;
+		}
+
+		return position;
+	}
+}
@@ -0,0 +1,502 @@
+import java.lang.management.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+import java.util.logging.*;
+import javax.management.*;
+
+/**
+ * This class implements {@link ClubbersMetricsMXBean}.
+ * <br> This class counts every operation on the clubbers and their files,
+ * such as finding, adding, loading and saving, with the time it took and
+ * whether it failed, and the bytes read from and written to the files.
+ * <br> The time of an operation is kept in a histogram of buckets which grow
+ * by a quarter of a power of 2, so the percentiles are within a quarter of
+ * the true time. Recording only adds to counters without a lock, so it may
+ * be done on every operation by any number of threads.
+ * <br> There is a single instance for the whole program, see
+ * {@link #getInstance}. {@link #start} registers it as an MBean named
+ * {@value #OBJECT_NAME} and logs a line of all the operations periodically.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersMetrics implements ClubbersMetricsMXBean
+{
+	public static final String OBJECT_NAME = "nightclub:type=ClubbersMetrics";
+
+	// Default of how often the operations are logged.
+	public static final long DEFAULT_LOG_PERIOD = TimeUnit.MINUTES.toSeconds(1);
+
+	// Names of the operations.
+	public static final String FIND = "find";
+	public static final String ADD = "add";
+	public static final String REPLACE = "replace";
+	public static final String REMOVE = "remove";
+	public static final String LIST = "list";
+	public static final String SEARCH = "search";
+	public static final String LOAD = "load";
+	public static final String SAVE = "save";
+	public static final String JOURNAL = "journal";
+	public static final String REPLAY = "replay";
+	public static final String COMPACT = "compact";
+
+	private static final Logger LOGGER = Logger.getLogger(ClubbersMetrics.class.getName());
+
+	private static final ClubbersMetrics INSTANCE = new ClubbersMetrics();
+
+	// The operations by their names, in the order they were first used.
+	private final ConcurrentHashMap<String, Operation> operations;
+	private final Collection<Operation> operationsInOrder;
+
+	private final LongAdder bytesRead;
+	private final LongAdder bytesWritten;
+
+	// Logs the operations, null until started.
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * ClubbersMetrics Constructor - private since the instance is shared,
+	 * see {@link #getInstance}.
+	 */
+	private ClubbersMetrics()
+	{
+		operations = new ConcurrentHashMap<>();
+		operationsInOrder = new ConcurrentLinkedQueue<>();
+		bytesRead = new LongAdder();
+		bytesWritten = new LongAdder();
+	}
+
+	/**
+	 * This method returns the metrics of the program.
+	 * @return the shared {@link ClubbersMetrics}.
+	 */
+	public static ClubbersMetrics getInstance()
+	{
+		return INSTANCE;
+	}
+
+	/**
+	 * This method returns the counters of an operation, they are created the
+	 * first time.
+	 * <br> The counters should be kept by the caller so the operation isn't
+	 * looked up every time it is recorded.
+	 * @param name holds the name of the operation.
+	 * @return the {@link Operation}.
+	 */
+	public Operation getOperation(String name)
+	{
+		return operations.computeIfAbsent(name, key ->
+		{
+			Operation operation = new Operation(key);
+			operationsInOrder.add(operation);
+			return operation;
+		});
+	}
+
+	/**
+	 * This method counts bytes read from the files of the clubbers.
+	 * @param bytes holds the number of bytes.
+	 */
+	public void addBytesRead(long bytes)
+	{
+		bytesRead.add(bytes);
+	}
+
+	/**
+	 * This method counts bytes written to the files of the clubbers.
+	 * @param bytes holds the number of bytes.
+	 */
+	public void addBytesWritten(long bytes)
+	{
+		bytesWritten.add(bytes);
+	}
+
+	/**
+	 * This method registers the MBean and logs the operations every period,
+	 * it does nothing if already started.
+	 * <br> Failing to register the MBean is logged, the operations are still
+	 * counted and logged.
+	 * @param logPeriod holds the seconds between the log lines, 0 to not log.
+	 */
+	public synchronized void start(long logPeriod)
+	{
+		if (scheduler != null)
+		{
+			return;
+		}
+
+		try
+		{
+			MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+			ObjectName name = new ObjectName(OBJECT_NAME);
+
+			if (!server.isRegistered(name))
+			{
+				server.registerMBean(this, name);
+			}
+		}
+		catch (JMException e)
+		{
+			LOGGER.log(Level.WARNING, "Can't register " + OBJECT_NAME, e);
+		}
+
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable ->
+		{
+			Thread thread = new Thread(runnable, "Clubbers Metrics");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		if (logPeriod > 0)
+		{
+			scheduler.scheduleAtFixedRate(() -> LOGGER.info(toString()), logPeriod, logPeriod,
+				TimeUnit.SECONDS);
+		}
+	}
+
+	/**
+	 * This method returns the statistics of every operation so far, in the
+	 * order they were first measured.
+	 * @return a {@link java.util.List} of {@link OperationStats}.
+	 */
+	@Override
+	public List<OperationStats> getOperations()
+	{
+		ArrayList<OperationStats> stats = new ArrayList<>();
+
+		for (Operation operation : operationsInOrder)
+		{
+			stats.add(operation.getStats());
+		}
+
+		return stats;
+	}
+
+	/**
+	 * This method returns the number of bytes read from the clubbers file and
+	 * its journal.
+	 * @return the number of bytes read since the last reset.
+	 */
+	@Override
+	public long getBytesRead()
+	{
+		return bytesRead.sum();
+	}
+
+	/**
+	 * This method returns the number of bytes written into the clubbers file
+	 * and its journal.
+	 * @return the number of bytes written since the last reset.
+	 */
+	@Override
+	public long getBytesWritten()
+	{
+		return bytesWritten.sum();
+	}
+
+	/**
+	 * This method starts the statistics of every operation and the bytes read
+	 * and written over from zero.
+	 */
+	@Override
+	public void reset()
+	{
+		for (Operation operation : operationsInOrder)
+		{
+			operation.reset();
+		}
+
+		bytesRead.reset();
+		bytesWritten.reset();
+	}
+
+	/**
+	 * Overriden method which returns a line of the operations which were
+	 * made, with their counts and times, and the bytes read and written.
+	 */
+	@Override
+	public String toString()
+	{
+		StringBuilder line = new StringBuilder("Clubbers");
+
+		for (OperationStats stats : getOperations())
+		{
+			if (stats.getCount() > 0)
+			{
+				line.append(String.format(" | %s n=%d err=%d p50=%.1fus p99=%.1fus max=%.1fus",
+					stats.getName(), stats.getCount(), stats.getErrors(), stats.getP50Micros(),
+					stats.getP99Micros(), stats.getMaxMicros()));
+			}
+		}
+
+		line.append(String.format(" | read=%dB written=%dB", getBytesRead(), getBytesWritten()));
+
+		return line.toString();
+	}
+
+	/**
+	 * This class counts an operation and keeps the histogram of its times.
+	 * <br> An operation is timed by taking {@link System#nanoTime} before it
+	 * and passing it to {@link #record} after it, with whether it failed.
+	 */
+	public static class Operation
+	{
+		// Buckets of a power of 2 are split into this many.
+		private static final int SUB_BUCKET_BITS = 2;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+		private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+		private final String name;
+		private final AtomicLongArray buckets;
+		private final LongAdder errors;
+		private final LongAdder totalNanos;
+		private final LongAccumulator maxNanos;
+
+		/**
+		 * Operation Constructor - initializes the name and empty counters.
+		 * @param name holds the name of the operation.
+		 */
+		private Operation(String name)
+		{
+			this.name = name;
+			buckets = new AtomicLongArray(BUCKETS);
+			errors = new LongAdder();
+			totalNanos = new LongAdder();
+			maxNanos = new LongAccumulator(Math::max, 0);
+		}
+
+		/**
+		 * This method records an operation which ended now.
+		 * @param start holds the {@link System#nanoTime} the operation started at.
+		 * @param failed holds whether the operation failed.
+		 */
+		public void record(long start, boolean failed)
+		{
+			long nanos = Math.max(0, System.nanoTime() - start);
+
+			buckets.incrementAndGet(bucket(nanos));
+			totalNanos.add(nanos);
+			maxNanos.accumulate(nanos);
+
+			if (failed)
+			{
+				errors.increment();
+			}
+		}
+
+		/**
+		 * This method returns the counts and times of the operation.
+		 * @return a new {@link OperationStats}.
+		 */
+		public OperationStats getStats()
+		{
+			long[] counts = new long[BUCKETS];
+			long count = 0;
+
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				counts[i] = buckets.get(i);
+				count += counts[i];
+			}
+
+			double maxMicros = maxNanos.get() / 1000.0;
+
+			// The highest time of a bucket may be above the longest time.
+			return new OperationStats(name, count, errors.sum(),
+				count == 0 ? 0 : totalNanos.sum() / 1000.0 / count,
+				Math.min(percentile(counts, count, 0.5), maxMicros),
+				Math.min(percentile(counts, count, 0.99), maxMicros),
+				Math.min(percentile(counts, count, 0.999), maxMicros), maxMicros);
+		}
+
+		/**
+		 * This method sets all the counters to 0.
+		 */
+		private void reset()
+		{
+			for (int i = 0; i < BUCKETS; i++)
+			{
+				buckets.set(i, 0);
+			}
+
+			errors.reset();
+			totalNanos.reset();
+			maxNanos.reset();
+		}
+
+		/**
+		 * This method returns the bucket of a time, the times below
+		 * {@link #SUB_BUCKETS} have a bucket each and every power of 2 above
+		 * is split into {@link #SUB_BUCKETS} buckets.
+		 * @param nanos holds the time in nanoseconds.
+		 * @return the bucket.
+		 */
+		private static int bucket(long nanos)
+		{
+			if (nanos < SUB_BUCKETS)
+			{
+				return (int)nanos;
+			}
+
+			int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+			int subBucket = (int)(nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		/**
+		 * This method returns the highest time of a bucket.
+		 * @param bucket holds the bucket.
+		 * @return the time in nanoseconds.
+		 */
+		private static long highestNanos(int bucket)
+		{
+			if (bucket < SUB_BUCKETS)
+			{
+				return bucket;
+			}
+
+			int shift = bucket / SUB_BUCKETS - 1;
+
+			return ((long)(SUB_BUCKETS + bucket % SUB_BUCKETS + 1) << shift) - 1;
+		}
+
+		/**
+		 * This method returns the time which a fraction of the operations
+		 * took at most.
+		 * @param counts holds the counts of the buckets.
+		 * @param count holds the sum of the counts.
+		 * @param fraction holds the fraction, such as 0.99.
+		 * @return the highest time of the bucket of the fraction in
+		 * microseconds, 0 if there were no operations.
+		 */
+		private static double percentile(long[] counts, long count, double fraction)
+		{
+			long rank = (long)Math.ceil(fraction * count);
+			long seen = 0;
+
+			for (int i = 0; i < counts.length && count > 0; i++)
+			{
+				seen += counts[i];
+
+				if (seen >= rank)
+				{
+					return highestNanos(i) / 1000.0;
+				}
+			}
+
+			return 0;
+		}
+	}
+
+	/**
+	 * This class holds the counts and times of an operation at a point in
+	 * time, it is shown by JMX as a composite of its getters.
+	 */
+	public static class OperationStats
+	{
+		private final String name;
+		private final long count;
+		private final long errors;
+		private final double meanMicros;
+		private final double p50Micros;
+		private final double p99Micros;
+		private final double p999Micros;
+		private final double maxMicros;
+
+		/**
+		 * OperationStats Constructor - initializes all the fields.
+		 * @param name holds the name of the operation.
+		 * @param count holds the number of operations.
+		 * @param errors holds the number of operations which failed.
+		 * @param meanMicros holds the mean time.
+		 * @param p50Micros holds the median time.
+		 * @param p99Micros holds the time 99% of the operations took at most.
+		 * @param p999Micros holds the time 99.9% of the operations took at most.
+		 * @param maxMicros holds the longest time.
+		 */
+		public OperationStats(String name, long count, long errors, double meanMicros,
+			double p50Micros, double p99Micros, double p999Micros, double maxMicros)
+		{
+			this.name = name;
+			this.count = count;
+			this.errors = errors;
+			this.meanMicros = meanMicros;
+			this.p50Micros = p50Micros;
+			this.p99Micros = p99Micros;
+			this.p999Micros = p999Micros;
+			this.maxMicros = maxMicros;
+		}
+
+		/**
+		 * This method returns the name of the operation.
+		 * @return the name.
+		 */
+		public String getName()
+		{
+			return name;
+		}
+
+		/**
+		 * This method returns the number of operations.
+		 * @return the number of operations, including the failed ones.
+		 */
+		public long getCount()
+		{
+			return count;
+		}
+
+		/**
+		 * This method returns the number of operations which failed.
+		 * @return the number of errors.
+		 */
+		public long getErrors()
+		{
+			return errors;
+		}
+
+		/**
+		 * This method returns the mean time of the operations.
+		 * @return the time in microseconds.
+		 */
+		public double getMeanMicros()
+		{
+			return meanMicros;
+		}
+
+		/**
+		 * This method returns the median time of the operations.
+		 * @return the time in microseconds.
+		 */
+		public double getP50Micros()
+		{
+			return p50Micros;
+		}
+
+		/**
+		 * This method returns the time 99% of the operations took at most.
+		 * @return the time in microseconds.
+		 */
+		public double getP99Micros()
+		{
+			return p99Micros;
+		}
+
+		/**
+		 * This method returns the time 99.9% of the operations took at most.
+		 * @return the time in microseconds.
+		 */
+		public double getP999Micros()
+		{
+			return p999Micros;
+		}
+
+		/**
+		 * This method returns the longest time of the operations.
+		 * @return the time in microseconds.
+		 */
+		public double getMaxMicros()
+		{
+			return maxMicros;
+		}
+	}
+}
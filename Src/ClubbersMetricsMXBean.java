@@ -0,0 +1,34 @@
+import java.util.*;
+
+/**
+ * This interface is the management interface of {@link ClubbersMetrics}, it
+ * is shown by JMX tools such as JConsole under
+ * {@value ClubbersMetrics#OBJECT_NAME}.
+ * @author Lior Sabri, Ben Biton
+ */
+public interface ClubbersMetricsMXBean
+{
+	/**
+	 * This method returns the counts and times of every operation.
+	 * @return the {@link ClubbersMetrics.OperationStats} of the operations in
+	 * the order they were first made.
+	 */
+	List<ClubbersMetrics.OperationStats> getOperations();
+
+	/**
+	 * This method returns the bytes read from the files of the clubbers.
+	 * @return the number of bytes.
+	 */
+	long getBytesRead();
+
+	/**
+	 * This method returns the bytes written to the files of the clubbers.
+	 * @return the number of bytes.
+	 */
+	long getBytesWritten();
+
+	/**
+	 * This method sets all the counters to 0.
+	 */
+	void reset();
+}
@@ -0,0 +1,295 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class is a prefix index over the names and surnames of the clubbers,
+ * it finds the clubbers whose name or surname starts with what was typed so
+ * far, ignoring case.
+ * <br> The index is two arrays of the records, one sorted by name and one by
+ * surname (then by ID, so every record has a single place). The clubbers of a
+ * prefix are next to each other in the arrays, so a search is a binary
+ * search for the first one and a walk over the rest, the names aren't copied.
+ * <br> The arrays are never changed once built, a change builds new arrays
+ * and replaces them, so a search on a background thread sees all of the
+ * arrays before or after the change while the changes are made on the event
+ * dispatch thread.
+ * <br> Every search is recorded in the {@link ClubbersMetrics}, with the time
+ * of its consumer.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersNameIndex
+{
+	private static final Comparator<ClubAbstractRecord> BY_NAME =
+		Comparator.comparing(ClubbersNameIndex::nameOf, String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(ClubAbstractRecord::getID);
+	private static final Comparator<ClubAbstractRecord> BY_SURNAME =
+		Comparator.comparing(ClubbersNameIndex::surnameOf, String.CASE_INSENSITIVE_ORDER)
+			.thenComparing(ClubAbstractRecord::getID);
+
+	private static final ClubbersMetrics.Operation SEARCH_OPERATION =
+		ClubbersMetrics.getInstance().getOperation(ClubbersMetrics.SEARCH);
+
+	private volatile ClubAbstractRecord[] byName;
+	private volatile ClubAbstractRecord[] bySurname;
+
+	/**
+	 * ClubbersNameIndex Constructor - indexes the records.
+	 * @param records holds the records to index.
+	 */
+	public ClubbersNameIndex(Iterable<? extends ClubAbstractRecord> records)
+	{
+		rebuild(records);
+	}
+
+	/**
+	 * This method replaces the index with an index of the records, it is used
+	 * after many records were changed together.
+	 * @param records holds the records to index.
+	 */
+	public synchronized void rebuild(Iterable<? extends ClubAbstractRecord> records)
+	{
+		ArrayList<ClubAbstractRecord> list = new ArrayList<>();
+
+		for (ClubAbstractRecord record : records)
+		{
+			list.add(record);
+		}
+
+		ClubAbstractRecord[] names = list.toArray(new ClubAbstractRecord[0]);
+		ClubAbstractRecord[] surnames = names.clone();
+
+		Arrays.parallelSort(names, BY_NAME);
+		Arrays.parallelSort(surnames, BY_SURNAME);
+
+		byName = names;
+		bySurname = surnames;
+	}
+
+	/**
+	 * This method adds a record to the index.
+	 * @param record holds the added record.
+	 */
+	public synchronized void add(ClubAbstractRecord record)
+	{
+		byName = insert(byName, record, BY_NAME);
+		bySurname = insert(bySurname, record, BY_SURNAME);
+	}
+
+	/**
+	 * This method removes a record from the index.
+	 * @param record holds the removed record.
+	 */
+	public synchronized void remove(ClubAbstractRecord record)
+	{
+		byName = delete(byName, record, BY_NAME);
+		bySurname = delete(bySurname, record, BY_SURNAME);
+	}
+
+	/**
+	 * This method replaces a record with its edited version.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 */
+	public synchronized void replace(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		remove(oldRecord);
+		add(newRecord);
+	}
+
+	/**
+	 * This method returns the number of indexed records.
+	 * @return the number of records.
+	 */
+	public int size()
+	{
+		return byName.length;
+	}
+
+	/**
+	 * This method finds the records whose name or surname starts with the
+	 * prefix, ignoring case. The records whose name matches are found first,
+	 * by name, then the records whose surname matches, by surname.
+	 * @param prefix holds the start of a name or surname, it may be empty.
+	 * @param limit holds the most records to return.
+	 * @return a {@link java.util.List} of up to limit records.
+	 */
+	public List<ClubAbstractRecord> search(String prefix, int limit)
+	{
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(Math.min(limit, 256));
+
+		search(prefix, record -> records.add(record) && records.size() < limit);
+
+		return records;
+	}
+
+	/**
+	 * This method hands the records whose name or surname starts with the
+	 * prefix to a consumer one at a time, in the order of
+	 * {@link #search(String, int)}, until the consumer returns false.
+	 * <br> It may be invoked from any thread.
+	 * @param prefix holds the start of a name or surname, it may be empty.
+	 * @param consumer holds the consumer, it returns false to stop the search.
+	 */
+	public void search(String prefix, Predicate<ClubAbstractRecord> consumer)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			searchArrays(prefix, consumer);
+			failed = false;
+		}
+		finally
+		{
+			SEARCH_OPERATION.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method hands the records whose name or surname starts with the
+	 * prefix to a consumer, see {@link #search(String, Predicate)}.
+	 * @param prefix holds the start of a name or surname.
+	 * @param consumer holds the consumer, it returns false to stop the search.
+	 */
+	private void searchArrays(String prefix, Predicate<ClubAbstractRecord> consumer)
+	{
+		ClubAbstractRecord[] names = byName;
+		ClubAbstractRecord[] surnames = bySurname;
+
+		for (int i = firstIndex(names, prefix, ClubbersNameIndex::nameOf);
+			i < names.length && startsWith(nameOf(names[i]), prefix); i++)
+		{
+			if (!consumer.test(names[i]))
+			{
+				return;
+			}
+		}
+
+		for (int i = firstIndex(surnames, prefix, ClubbersNameIndex::surnameOf);
+			i < surnames.length && startsWith(surnameOf(surnames[i]), prefix); i++)
+		{
+			// Records whose name matches too were already found by name.
+			if (!startsWith(nameOf(surnames[i]), prefix) && !consumer.test(surnames[i]))
+			{
+				return;
+			}
+		}
+	}
+
+	/**
+	 * This method finds the first record whose field isn't smaller than the
+	 * prefix, ignoring case.
+	 * @param records holds the records sorted by the field.
+	 * @param prefix holds the prefix.
+	 * @param field holds the field the records are sorted by.
+	 * @return the index of the first record which may start with the prefix.
+	 */
+	private static int firstIndex(ClubAbstractRecord[] records, String prefix,
+		Function<ClubAbstractRecord, String> field)
+	{
+		int low = 0;
+		int high = records.length;
+
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+
+			if (String.CASE_INSENSITIVE_ORDER.compare(field.apply(records[middle]), prefix) < 0)
+			{
+				low = middle + 1;
+			}
+			else
+			{
+				high = middle;
+			}
+		}
+
+		return low;
+	}
+
+	/**
+	 * This method returns a copy of the sorted records with another record in
+	 * its place.
+	 * @param records holds the sorted records.
+	 * @param record holds the record to insert.
+	 * @param comparator holds the order of the records.
+	 * @return the new records.
+	 */
+	private static ClubAbstractRecord[] insert(ClubAbstractRecord[] records,
+		ClubAbstractRecord record, Comparator<ClubAbstractRecord> comparator)
+	{
+		int index = Arrays.binarySearch(records, record, comparator);
+
+		if (index >= 0)
+		{
+			return records;
+		}
+
+		index = -index - 1;
+
+		ClubAbstractRecord[] inserted = new ClubAbstractRecord[records.length + 1];
+
+		System.arraycopy(records, 0, inserted, 0, index);
+		inserted[index] = record;
+		System.arraycopy(records, index, inserted, index + 1, records.length - index);
+
+		return inserted;
+	}
+
+	/**
+	 * This method returns a copy of the sorted records without a record.
+	 * @param records holds the sorted records.
+	 * @param record holds the record to delete.
+	 * @param comparator holds the order of the records.
+	 * @return the new records, the same records if the record isn't in them.
+	 */
+	private static ClubAbstractRecord[] delete(ClubAbstractRecord[] records,
+		ClubAbstractRecord record, Comparator<ClubAbstractRecord> comparator)
+	{
+		int index = Arrays.binarySearch(records, record, comparator);
+
+		if (index < 0)
+		{
+			return records;
+		}
+
+		ClubAbstractRecord[] deleted = new ClubAbstractRecord[records.length - 1];
+
+		System.arraycopy(records, 0, deleted, 0, index);
+		System.arraycopy(records, index + 1, deleted, index, deleted.length - index);
+
+		return deleted;
+	}
+
+	/**
+	 * This method checks whether a field starts with the prefix, ignoring case.
+	 * @param field holds the field.
+	 * @param prefix holds the prefix.
+	 * @return true or false whether the field starts with the prefix.
+	 */
+	private static boolean startsWith(String field, String prefix)
+	{
+		return field.regionMatches(true, 0, prefix, 0, prefix.length());
+	}
+
+	/**
+	 * This method returns the name of a clubber.
+	 * @param record holds the record.
+	 * @return the name.
+	 */
+	private static String nameOf(ClubAbstractRecord record)
+	{
+		return ((PersonRecord)record).getName();
+	}
+
+	/**
+	 * This method returns the surname of a clubber.
+	 * @param record holds the record.
+	 * @return the surname.
+	 */
+	private static String surnameOf(ClubAbstractRecord record)
+	{
+		return ((PersonRecord)record).getSurname();
+	}
+}
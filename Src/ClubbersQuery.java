@@ -0,0 +1,427 @@
+import java.io.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
+
+/**
+ * This class answers questions about the clubbers, such as how many there
+ * are of every type, of every country code of their telephone or of every
+ * initial of their surname, without going over them by eye.
+ * <br> A query is made of the clubbers of a {@link ClubbersStore} and
+ * filters added with {@link #where}, a query never changes so one can be
+ * kept and filtered further. It is answered by one of the operators:
+ * {@link #count}, {@link #countBy} which groups the clubbers by a key,
+ * {@link #select} which projects every clubber into a value and
+ * {@link #sortBy} which returns the first clubbers in an order.
+ * <br> The clubbers are split into ranges of {@link #RANGE_SIZE} which are
+ * filtered and aggregated in parallel on the
+ * {@link java.util.concurrent.ForkJoinPool#commonPool}, the results of two
+ * ranges are merged in the order of the ranges so the answers are the same
+ * as of going over the clubbers one by one. The clubbers are those of the
+ * store when the query was made, later changes aren't seen.
+ * <br> The {@link ClubbersServer} answers its /counts requests with it.
+ * <br> It can be run from the command line:
+ * <br> java ClubbersQuery [clubbers file]
+ * <br> It prints the number of clubbers of every type, country code and
+ * surname initial.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersQuery
+{
+	// Number of clubbers a task goes over without splitting them.
+	public static final int RANGE_SIZE = 16 * 1024;
+
+	// Keys to group the clubbers by.
+	public static final Function<ClubAbstractRecord, String> TYPE = ClubbersQuery::typeOf;
+	public static final Function<ClubAbstractRecord, String> COUNTRY_CODE =
+		ClubbersQuery::countryCodeOf;
+	public static final Function<ClubAbstractRecord, String> SURNAME_INITIAL =
+		ClubbersQuery::surnameInitialOf;
+
+	private final List<ClubAbstractRecord> records;
+	private final Predicate<ClubAbstractRecord> filter;
+
+	/**
+	 * ClubbersQuery Constructor - starts a query of all the clubbers of a store.
+	 * @param store holds the clubbers, they are copied if the store doesn't
+	 * give a list of them.
+	 */
+	public ClubbersQuery(ClubbersStore store)
+	{
+		this(store.getClubbers(), null);
+	}
+
+	/**
+	 * ClubbersQuery Records Constructor - starts a query of records.
+	 * @param records holds the records, they are copied if they aren't a
+	 * list that can be read at any position.
+	 */
+	public ClubbersQuery(Collection<ClubAbstractRecord> records)
+	{
+		this(records, null);
+	}
+
+	/**
+	 * ClubbersQuery Filtered Constructor - makes a query with a filter.
+	 * @param records holds the records.
+	 * @param filter holds the filter, null to keep all the records.
+	 */
+	private ClubbersQuery(Collection<ClubAbstractRecord> records,
+		Predicate<ClubAbstractRecord> filter)
+	{
+		if (records instanceof List && records instanceof RandomAccess)
+		{
+			this.records = (List<ClubAbstractRecord>)records;
+		}
+		else
+		{
+			this.records = new ArrayList<>(records);
+		}
+
+		this.filter = filter;
+	}
+
+	/**
+	 * This method returns a query of the clubbers of this query which also
+	 * pass a filter.
+	 * @param filter holds the filter, it is run in parallel and mustn't
+	 * change anything.
+	 * @return the new query.
+	 */
+	public ClubbersQuery where(Predicate<? super ClubAbstractRecord> filter)
+	{
+		Predicate<ClubAbstractRecord> previous = this.filter;
+
+		return new ClubbersQuery(records, previous == null ? filter::test :
+			record -> previous.test(record) && filter.test(record));
+	}
+
+	/**
+	 * This method counts the clubbers of the query.
+	 * @return the number of clubbers.
+	 */
+	public long count()
+	{
+		return aggregate(() -> new long[1], (count, record) -> count[0]++,
+			(left, right) ->
+			{
+				left[0] += right[0];
+				return left;
+			})[0];
+	}
+
+	/**
+	 * This method groups the clubbers of the query by a key and counts every
+	 * group.
+	 * @param key holds the key of a clubber, such as {@link #TYPE}, it is run
+	 * in parallel and may return null for clubbers of no group.
+	 * @return the number of clubbers of every key, from the biggest group to
+	 * the smallest and by the key for groups of the same size.
+	 */
+	public LinkedHashMap<String, Long> countBy(Function<? super ClubAbstractRecord, String> key)
+	{
+		HashMap<String, long[]> groups = aggregate(HashMap::new, (counts, record) ->
+			{
+				String group = key.apply(record);
+
+				if (group != null)
+				{
+					counts.computeIfAbsent(group, newGroup -> new long[1])[0]++;
+				}
+			},
+			(left, right) ->
+			{
+				for (Map.Entry<String, long[]> group : right.entrySet())
+				{
+					long[] count = left.putIfAbsent(group.getKey(), group.getValue());
+
+					if (count != null)
+					{
+						count[0] += group.getValue()[0];
+					}
+				}
+
+				return left;
+			});
+
+		ArrayList<Map.Entry<String, long[]>> sorted = new ArrayList<>(groups.entrySet());
+		sorted.sort((left, right) -> left.getValue()[0] != right.getValue()[0] ?
+			Long.compare(right.getValue()[0], left.getValue()[0]) :
+			left.getKey().compareTo(right.getKey()));
+
+		LinkedHashMap<String, Long> counts = new LinkedHashMap<>();
+
+		for (Map.Entry<String, long[]> group : sorted)
+		{
+			counts.put(group.getKey(), group.getValue()[0]);
+		}
+
+		return counts;
+	}
+
+	/**
+	 * This method projects every clubber of the query into a value.
+	 * @param projection holds the projection, such as
+	 * {@link PersonRecord#getSurname}, it is run in parallel.
+	 * @return the values in the order of the clubbers.
+	 */
+	public <T> List<T> select(Function<? super ClubAbstractRecord, ? extends T> projection)
+	{
+		return aggregate(ArrayList<T>::new,
+			(values, record) -> values.add(projection.apply(record)),
+			(left, right) ->
+			{
+				left.addAll(right);
+				return left;
+			});
+	}
+
+	/**
+	 * This method returns the first clubbers of the query in an order, every
+	 * range keeps only its first clubbers so the clubbers aren't all sorted.
+	 * @param order holds the order, clubbers which are equal in it stay in
+	 * their order.
+	 * @param limit holds the most clubbers to return.
+	 * @return up to limit clubbers in the order.
+	 */
+	public List<ClubAbstractRecord> sortBy(Comparator<? super ClubAbstractRecord> order, int limit)
+	{
+		ArrayList<ClubAbstractRecord> first = aggregate(ArrayList::new, (kept, record) ->
+			{
+				// Records are added in their order, a sort of the whole range
+				// is spared by dropping the last ones once there are twice the
+				// limit.
+				kept.add(record);
+
+				if (kept.size() >= Math.max(limit, 1) * 2)
+				{
+					kept.sort(order);
+					kept.subList(limit, kept.size()).clear();
+				}
+			},
+			(left, right) ->
+			{
+				left.sort(order);
+				right.sort(order);
+
+				return merge(left, right, order, limit);
+			});
+
+		// A single range was never merged.
+		first.sort(order);
+
+		return first.size() > limit ? new ArrayList<>(first.subList(0, limit)) : first;
+	}
+
+	/**
+	 * This method filters the clubbers and aggregates them in parallel.
+	 * @param supplier makes an empty result of a range.
+	 * @param accumulator adds a clubber to the result of its range.
+	 * @param combiner merges the result of a range into the result of the
+	 * range before it.
+	 * @return the result of all the clubbers.
+	 */
+	private <A> A aggregate(Supplier<A> supplier, BiConsumer<A, ClubAbstractRecord> accumulator,
+		BinaryOperator<A> combiner)
+	{
+		return ForkJoinPool.commonPool().invoke(
+			new Range<>(0, records.size(), supplier, accumulator, combiner));
+	}
+
+	/**
+	 * This method merges two sorted lists of clubbers.
+	 * @param left holds the clubbers which come first when equal.
+	 * @param right holds the other clubbers.
+	 * @param order holds the order of both lists.
+	 * @param limit holds the most clubbers to keep.
+	 * @return the merged list of up to limit clubbers.
+	 */
+	private static ArrayList<ClubAbstractRecord> merge(List<ClubAbstractRecord> left,
+		List<ClubAbstractRecord> right, Comparator<? super ClubAbstractRecord> order, int limit)
+	{
+		ArrayList<ClubAbstractRecord> merged = new ArrayList<>(
+			Math.min(limit, left.size() + right.size()));
+		int i = 0;
+		int j = 0;
+
+		while (merged.size() < limit && (i < left.size() || j < right.size()))
+		{
+			if (j == right.size() || (i < left.size() &&
+				order.compare(left.get(i), right.get(j)) <= 0))
+			{
+				merged.add(left.get(i++));
+			}
+			else
+			{
+				merged.add(right.get(j++));
+			}
+		}
+
+		return merged;
+	}
+
+	/**
+	 * This method returns the type of a clubber.
+	 * @param record holds the record.
+	 * @return "Person", "Soldier" or "Student".
+	 */
+	private static String typeOf(ClubAbstractRecord record)
+	{
+		if (record instanceof SoldierRecord)
+		{
+			return "Soldier";
+		}
+
+		if (record instanceof StudentRecord)
+		{
+			return "Student";
+		}
+
+		return "Person";
+	}
+
+	/**
+	 * This method returns the country code of a clubbers telephone, the
+	 * digits between "+(" and ")".
+	 * @param record holds the record.
+	 * @return the country code or null if the telephone has none.
+	 */
+	private static String countryCodeOf(ClubAbstractRecord record)
+	{
+		if (!(record instanceof PersonRecord))
+		{
+			return null;
+		}
+
+		String tel = ((PersonRecord)record).getTel();
+
+		if (tel == null || !tel.startsWith("+("))
+		{
+			return null;
+		}
+
+		int end = tel.indexOf(')', 2);
+
+		return end < 0 ? null : tel.substring(2, end);
+	}
+
+	/**
+	 * This method returns the first letter of a clubbers surname.
+	 * @param record holds the record.
+	 * @return the letter or null if the surname is empty.
+	 */
+	private static String surnameInitialOf(ClubAbstractRecord record)
+	{
+		if (!(record instanceof PersonRecord))
+		{
+			return null;
+		}
+
+		String surname = ((PersonRecord)record).getSurname();
+
+		return surname == null || surname.isEmpty() ? null : surname.substring(0, 1);
+	}
+
+	/**
+	 * static main method.
+	 * Prints the number of clubbers of every type, country code and surname
+	 * initial of a clubbers file.
+	 * @param args the clubbers file.
+	 */
+	public static void main(String[] args)
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: java ClubbersQuery [clubbers file]");
+			System.exit(1);
+		}
+
+		try
+		{
+			ClubbersQuery query = new ClubbersQuery(
+				ClubbersFile.read(Paths.get(args[0])).getRecords());
+
+			long start = System.nanoTime();
+
+			System.out.printf("%d clubbers%n", query.count());
+			System.out.printf("By type: %s%n", query.countBy(TYPE));
+			System.out.printf("By country code: %s%n", query.countBy(COUNTRY_CODE));
+			System.out.printf("By surname initial: %s%n", query.countBy(SURNAME_INITIAL));
+			System.out.printf("(counted in %d ms on %d cores)%n",
+				(System.nanoTime() - start) / 1000000, ForkJoinPool.getCommonPoolParallelism());
+		}
+		catch (IOException e)
+		{
+			System.err.println("Reading the clubbers failed: " + e);
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * This class implements {@link java.util.concurrent.RecursiveTask}.
+	 * <br> This class filters and aggregates a range of the clubbers, a range
+	 * bigger than {@link #RANGE_SIZE} is split into two halves which are
+	 * aggregated in parallel and merged.
+	 */
+	private class Range<A> extends RecursiveTask<A>
+	{
+		private final int from;
+		private final int to;
+		private final Supplier<A> supplier;
+		private final BiConsumer<A, ClubAbstractRecord> accumulator;
+		private final BinaryOperator<A> combiner;
+
+		/**
+		 * Range Constructor - a task of the clubbers from one position to another.
+		 * @param from holds the position of the first clubber.
+		 * @param to holds the position after the last clubber.
+		 * @param supplier makes an empty result.
+		 * @param accumulator adds a clubber to a result.
+		 * @param combiner merges two results.
+		 */
+		private Range(int from, int to, Supplier<A> supplier,
+			BiConsumer<A, ClubAbstractRecord> accumulator, BinaryOperator<A> combiner)
+		{
+			this.from = from;
+			this.to = to;
+			this.supplier = supplier;
+			this.accumulator = accumulator;
+			this.combiner = combiner;
+		}
+
+		/**
+		 * Overriden method which aggregates the range, or its halves in
+		 * parallel.
+		 * @return the result of the range.
+		 */
+		@Override
+		protected A compute()
+		{
+			if (to - from <= RANGE_SIZE)
+			{
+				A result = supplier.get();
+
+				for (int i = from; i < to; i++)
+				{
+					ClubAbstractRecord record = records.get(i);
+
+					if (filter == null || filter.test(record))
+					{
+						accumulator.accept(result, record);
+					}
+				}
+
+				return result;
+			}
+
+			int middle = (from + to) >>> 1;
+			Range<A> right = new Range<>(middle, to, supplier, accumulator, combiner);
+			right.fork();
+
+			A left = new Range<>(from, middle, supplier, accumulator, combiner).compute();
+
+			return combiner.apply(left, right.join());
+		}
+	}
+}
@@ -0,0 +1,901 @@
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+
+/**
+ * This class holds the clubbers {@link ClubAbstractRecord}s in the order they
+ * were added, together with hash indexes over every key that
+ * {@link ClubAbstractRecord#match} accepts, the keys are packed into longs by
+ * a {@link ClubberKeyMap}.
+ * <br> The ID index also holds the position of every record in the list, so
+ * a record is replaced in its place and removed by moving the last record
+ * into its place, neither runs through the list. A removed clubbers place
+ * is therefore taken by the last clubber.
+ * <br> The indexes are: the ID of every clubber, the personal number of a
+ * {@link SoldierRecord} and the numbers of a {@link StudentRecord}s student ID
+ * (from the 4th letter, as compared by {@link StudentRecord#match}).
+ * <br> The indexes are kept up to date by {@link #add}, {@link #replace},
+ * {@link #remove} and the bulk changes {@link #removeIf} and
+ * {@link #replaceAll}, so finding a clubber or checking whether an ID already
+ * exists doesn't need to run through the whole list.
+ * <br> A {@link ClubbersBloomFilter} of all the keys is checked before every
+ * index, so a key which no clubber has, such as most of the keys scanned at
+ * the doors, is rejected without probing the indexes. It is built again from
+ * the records once it is full.
+ * <br> A {@link Listener} may be set to be told about every change, this is
+ * how changes are written to the {@link ClubbersJournal}.
+ * <br> The repository may be used by several threads. Lookups are optimistic
+ * reads of a {@link java.util.concurrent.locks.StampedLock}, they take no lock
+ * and are only read again under the read lock if a change was made while
+ * they ran. Changes take the write lock one at a time, the listener is told
+ * about a change while it is held so the journal has the changes in the same
+ * order.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersRepository implements ClubbersStore
+{
+	// Length of the numbers part of a student ID and where it starts.
+	static final int STUDENT_NUMBERS_START = 3;
+	static final int STUDENT_NUMBERS_LENGTH = 5;
+
+	// Kinds of keys in the key filter.
+	private static final int ID_KEY = 0;
+	private static final int PERSONAL_NUMBER_KEY = 1;
+	private static final int STUDENT_NUMBERS_KEY = 2;
+
+	private ArrayList<ClubAbstractRecord> clubbers;
+
+	// IDs are unique and mapped to the record and its position, personal
+	// numbers and student numbers may repeat so they are mapped to all the
+	// clubbers that hold them, first added first. The keys are packed into
+	// longs by the ClubberKeyMap.
+	private ClubberKeyMap<Entry> idIndex;
+	private ClubberKeyMap<ArrayList<ClubAbstractRecord>> personalNumberIndex;
+	private ClubberKeyMap<ArrayList<ClubAbstractRecord>> studentNumbersIndex;
+
+	// Every key of the indexes, with keys removed since it was built.
+	private ClubbersBloomFilter keyFilter;
+
+	private volatile Listener listener;
+
+	private final StampedLock lock;
+
+	// The thread which holds the write lock, it may read and change without
+	// the lock while it holds it, such as the compactor copying the records.
+	private volatile Thread writer;
+
+	/**
+	 * ClubbersRepository Empty Constructor - initializes an empty repository.
+	 */
+	public ClubbersRepository()
+	{
+		lock = new StampedLock();
+		clubbers = new ArrayList<>();
+		idIndex = new ClubberKeyMap<>(ClubberKeyMap::packID);
+		personalNumberIndex = new ClubberKeyMap<>(ClubberKeyMap::packPersonalNumber);
+		studentNumbersIndex = new ClubberKeyMap<>(ClubberKeyMap::packStudentNumbers);
+		keyFilter = new ClubbersBloomFilter(0);
+	}
+
+	/**
+	 * ClubbersRepository Records Constructor - initializes the repository and
+	 * adds the records with {@link #add}, records with an ID that was already
+	 * added are skipped.
+	 * @param records holds the records to add.
+	 */
+	public ClubbersRepository(Collection<? extends ClubAbstractRecord> records)
+	{
+		this();
+
+		addAll(records);
+	}
+
+	/**
+	 * This method finds the clubber which matches the key, the ID index is
+	 * checked first, then the personal number and then the student numbers.
+	 * @param key may hold an id, personalNumber or numbers of a studentID.
+	 * @return the matching record or null if no clubber matches the key.
+	 */
+	@Override
+	public ClubAbstractRecord find(String key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+
+		return read(() -> findKey(key));
+	}
+
+	/**
+	 * This method finds the clubber which matches the key in the indexes.
+	 * @param key holds the key, not null.
+	 * @return the matching record or null if no clubber matches the key.
+	 */
+	private ClubAbstractRecord findKey(String key)
+	{
+		ClubbersBloomFilter keyFilter = this.keyFilter;
+
+		if (keyFilter.mightContain(ClubbersBloomFilter.hash(ID_KEY, key)))
+		{
+			ClubAbstractRecord record = recordOf(key);
+
+			if (record != null)
+			{
+				return record;
+			}
+		}
+
+		if (keyFilter.mightContain(ClubbersBloomFilter.hash(PERSONAL_NUMBER_KEY, key)))
+		{
+			ArrayList<ClubAbstractRecord> soldiers = personalNumberIndex.get(key);
+
+			if (soldiers != null)
+			{
+				return soldiers.get(0);
+			}
+		}
+
+		// StudentRecord#match compares only the first letters of the key.
+		if (key.length() >= STUDENT_NUMBERS_LENGTH && keyFilter.mightContain(
+			ClubbersBloomFilter.hash(STUDENT_NUMBERS_KEY, key, STUDENT_NUMBERS_LENGTH)))
+		{
+			ArrayList<ClubAbstractRecord> students = studentNumbersIndex.get(
+				key.substring(0, STUDENT_NUMBERS_LENGTH));
+
+			if (students != null)
+			{
+				return students.get(0);
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method finds the clubber with the ID.
+	 * @param id holds the ID to find.
+	 * @return the record or null if no clubber has the ID.
+	 */
+	@Override
+	public ClubAbstractRecord findByID(String id)
+	{
+		return read(() -> mightContainID(id) ? recordOf(id) : null);
+	}
+
+	/**
+	 * This method checks whether a clubber with the ID exists.
+	 * @param id holds the ID to check.
+	 * @return true or false whether the ID exists.
+	 */
+	@Override
+	public boolean containsID(String id)
+	{
+		return read(() -> mightContainID(id) && idIndex.containsKey(id));
+	}
+
+	/**
+	 * This method adds a record to the end of the repository and to the indexes.
+	 * @param record holds the record to add.
+	 * @return true or false whether the record was added, a record will not be
+	 * added if its ID already exists.
+	 */
+	@Override
+	public boolean add(ClubAbstractRecord record)
+	{
+		return write(() ->
+		{
+			if (mightContainID(record.getID()) && idIndex.containsKey(record.getID()))
+			{
+				return false;
+			}
+
+			clubbers.add(record);
+			index(record, clubbers.size() - 1);
+
+			Listener listener = this.listener;
+
+			if (listener != null)
+			{
+				listener.clubberAdded(record);
+			}
+
+			return true;
+		});
+	}
+
+	/**
+	 * This method adds records with {@link #add} while holding the write lock
+	 * once, records with an ID that already exists are skipped.
+	 * @param records holds the records to add.
+	 * @return the number of records added.
+	 */
+	@Override
+	public int addAll(Collection<? extends ClubAbstractRecord> records)
+	{
+		return write(() ->
+		{
+			int added = 0;
+
+			clubbers.ensureCapacity(clubbers.size() + records.size());
+
+			for (ClubAbstractRecord record : records)
+			{
+				if (add(record))
+				{
+					added++;
+				}
+			}
+
+			return added;
+		});
+	}
+
+	/**
+	 * This method replaces a record with its edited version in the same place,
+	 * which is found in the ID index, and updates the indexes.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 * @return true or false whether the record was replaced, a record will not
+	 * be replaced if the old record doesn't exist or the new ID belongs to
+	 * another clubber.
+	 */
+	@Override
+	public boolean replace(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		return write(() ->
+		{
+			Entry entry = idIndex.get(oldRecord.getID());
+
+			if (entry == null || entry.record != oldRecord)
+			{
+				return false;
+			}
+
+			ClubAbstractRecord sameID = recordOf(newRecord.getID());
+
+			if (sameID != null && sameID != oldRecord)
+			{
+				return false;
+			}
+
+			clubbers.set(entry.position, newRecord);
+			unindex(oldRecord);
+			index(newRecord, entry.position);
+
+			Listener listener = this.listener;
+
+			if (listener != null)
+			{
+				listener.clubberReplaced(oldRecord, newRecord);
+			}
+
+			return true;
+		});
+	}
+
+	/**
+	 * This method removes a record from the repository and from the indexes,
+	 * the last record is moved into its place.
+	 * @param record holds the record to remove.
+	 * @return true or false whether the record existed.
+	 */
+	@Override
+	public boolean remove(ClubAbstractRecord record)
+	{
+		return write(() ->
+		{
+			Entry entry = idIndex.get(record.getID());
+
+			if (entry == null || entry.record != record)
+			{
+				return false;
+			}
+
+			ClubAbstractRecord last = clubbers.remove(clubbers.size() - 1);
+
+			if (last != record)
+			{
+				clubbers.set(entry.position, last);
+				idIndex.get(last.getID()).position = entry.position;
+			}
+
+			unindex(record);
+
+			Listener listener = this.listener;
+
+			if (listener != null)
+			{
+				listener.clubberRemoved(record);
+			}
+
+			return true;
+		});
+	}
+
+	/**
+	 * This method removes every record which passes the filter in a single
+	 * pass, the list is compacted in place by moving every kept record once,
+	 * the removed records are taken out of the indexes and the key filter is
+	 * built again.
+	 * <br> The listener is told about all the removed records at once, so the
+	 * journal writes a single entry for them.
+	 * @param filter holds the filter, it is run on every record before any is
+	 * removed so a filter which throws leaves the repository as it was.
+	 * @return the number of records removed.
+	 */
+	@Override
+	public int removeIf(Predicate<? super ClubAbstractRecord> filter)
+	{
+		return write(() ->
+		{
+			int size = clubbers.size();
+			BitSet matches = new BitSet(size);
+
+			for (int i = 0; i < size; i++)
+			{
+				if (filter.test(clubbers.get(i)))
+				{
+					matches.set(i);
+				}
+			}
+
+			if (matches.isEmpty())
+			{
+				return 0;
+			}
+
+			ArrayList<ClubAbstractRecord> removed = new ArrayList<>(matches.cardinality());
+			int kept = 0;
+
+			for (int i = 0; i < size; i++)
+			{
+				ClubAbstractRecord record = clubbers.get(i);
+
+				if (matches.get(i))
+				{
+					removed.add(record);
+				}
+				else
+				{
+					if (kept != i)
+					{
+						clubbers.set(kept, record);
+						idIndex.get(record.getID()).position = kept;
+					}
+
+					kept++;
+				}
+			}
+
+			clubbers.subList(kept, size).clear();
+			unindexAll(removed);
+			buildKeyFilter();
+
+			Listener listener = this.listener;
+
+			if (listener != null)
+			{
+				listener.clubbersRemoved(removed);
+			}
+
+			return removed.size();
+		});
+	}
+
+	/**
+	 * This method replaces every record with its edited version in the same
+	 * place in a single pass, like {@link #replace} for each of them in the
+	 * order they were added.
+	 * <br> The listener is told about all the replaced records at once, so
+	 * the journal writes a single entry for them.
+	 * @param editor holds the editor, it returns the edited record or the
+	 * same record or null to keep it. It is run on every record before any
+	 * is replaced so an editor which throws leaves the repository as it was.
+	 * @return the number of records replaced, an edited record will not
+	 * replace its record if its ID belongs to another clubber.
+	 */
+	@Override
+	public int replaceAll(UnaryOperator<ClubAbstractRecord> editor)
+	{
+		return write(() ->
+		{
+			int size = clubbers.size();
+			ClubAbstractRecord[] edited = new ClubAbstractRecord[size];
+
+			for (int i = 0; i < size; i++)
+			{
+				edited[i] = editor.apply(clubbers.get(i));
+			}
+
+			ArrayList<ClubAbstractRecord> oldRecords = new ArrayList<>();
+			ArrayList<ClubAbstractRecord> newRecords = new ArrayList<>();
+
+			for (int i = 0; i < size; i++)
+			{
+				ClubAbstractRecord oldRecord = clubbers.get(i);
+				ClubAbstractRecord newRecord = edited[i];
+
+				if (newRecord == null || newRecord == oldRecord)
+				{
+					continue;
+				}
+
+				ClubAbstractRecord sameID = recordOf(newRecord.getID());
+
+				if (sameID != null && sameID != oldRecord)
+				{
+					continue;
+				}
+
+				clubbers.set(i, newRecord);
+				unindex(oldRecord);
+				index(newRecord, i);
+				oldRecords.add(oldRecord);
+				newRecords.add(newRecord);
+			}
+
+			Listener listener = this.listener;
+
+			if (listener != null && !oldRecords.isEmpty())
+			{
+				listener.clubbersReplaced(oldRecords, newRecords);
+			}
+
+			return oldRecords.size();
+		});
+	}
+
+	/**
+	 * This method sets the listener which is told about every change made
+	 * by {@link #add}, {@link #replace}, {@link #remove} and the bulk changes.
+	 * @param listener holds the listener, null to stop telling about changes.
+	 */
+	public void setListener(Listener listener)
+	{
+		this.listener = listener;
+	}
+
+	/**
+	 * This method returns the listener which is told about every change.
+	 * @return the listener or null if none was set.
+	 */
+	public Listener getListener()
+	{
+		return listener;
+	}
+
+	/**
+	 * This method returns the number of clubbers.
+	 * @return the size of the repository.
+	 */
+	@Override
+	public int size()
+	{
+		return read(clubbers::size);
+	}
+
+	/**
+	 * This method returns a read only copy of the records in the order of the
+	 * repository, it isn't changed by later changes of the repository.
+	 * @return a {@link java.util.List} of the records.
+	 */
+	@Override
+	public List<ClubAbstractRecord> getClubbers()
+	{
+		return Collections.unmodifiableList(read(() -> new ArrayList<>(clubbers)));
+	}
+
+	/**
+	 * This method returns a copy of a page of the records in the order of the
+	 * repository.
+	 * @param from holds the position of the first record.
+	 * @param count holds the most records to return.
+	 * @return a {@link java.util.List} of up to count records.
+	 */
+	@Override
+	public List<ClubAbstractRecord> getClubbers(int from, int count)
+	{
+		return read(() ->
+		{
+			int size = clubbers.size();
+
+			return new ArrayList<>(clubbers.subList(Math.min(from, size),
+				(int)Math.min((long)from + count, size)));
+		});
+	}
+
+	/**
+	 * This method returns an iterator over a copy of the records in the order
+	 * of the repository.
+	 * @return a read only {@link java.util.Iterator}.
+	 */
+	@Override
+	public Iterator<ClubAbstractRecord> iterator()
+	{
+		return getClubbers().iterator();
+	}
+
+	/**
+	 * This method runs an action while no other thread can change the
+	 * repository, the action may change it and read it.
+	 * @param action holds the action.
+	 * @return the result of the action.
+	 */
+	public <T> T runExclusively(Supplier<T> action)
+	{
+		return write(action);
+	}
+
+	/**
+	 * This method reads the repository, the reader is first run without a
+	 * lock and is run again under the read lock if a change was made
+	 * meanwhile, a reader that saw a half made change may fail, its failure
+	 * is dropped the same way.
+	 * @param reader holds the reader, it mustn't change anything.
+	 * @return the result of the reader.
+	 */
+	private <T> T read(Supplier<T> reader)
+	{
+		if (writer == Thread.currentThread())
+		{
+			return reader.get();
+		}
+
+		long stamp = lock.tryOptimisticRead();
+
+		if (stamp != 0)
+		{
+			try
+			{
+				T result = reader.get();
+
+				if (lock.validate(stamp))
+				{
+					return result;
+				}
+			}
+			catch (RuntimeException e)
+			{
+				// Read a change while it was made, read again under the lock.
+			}
+		}
+
+		stamp = lock.readLock();
+
+		try
+		{
+			return reader.get();
+		}
+		finally
+		{
+			lock.unlockRead(stamp);
+		}
+	}
+
+	/**
+	 * This method changes the repository while holding the write lock, a
+	 * thread which already holds it runs the change at once.
+	 * @param change holds the change.
+	 * @return the result of the change.
+	 */
+	private <T> T write(Supplier<T> change)
+	{
+		if (writer == Thread.currentThread())
+		{
+			return change.get();
+		}
+
+		long stamp = lock.writeLock();
+		writer = Thread.currentThread();
+
+		try
+		{
+			return change.get();
+		}
+		finally
+		{
+			writer = null;
+			lock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * This method finds the record with the ID in the ID index.
+	 * @param id holds the ID to find.
+	 * @return the record or null if no clubber has the ID.
+	 */
+	private ClubAbstractRecord recordOf(String id)
+	{
+		Entry entry = idIndex.get(id);
+
+		return entry != null ? entry.record : null;
+	}
+
+	/**
+	 * This method adds the keys of the record to the indexes.
+	 * @param record holds the record to index.
+	 * @param position holds the position of the record in the list.
+	 */
+	private void index(ClubAbstractRecord record, int position)
+	{
+		idIndex.put(record.getID(), new Entry(record, position));
+
+		String secondaryKey = personalNumberOf(record);
+
+		if (secondaryKey != null)
+		{
+			personalNumberIndex.computeIfAbsent(secondaryKey,
+				key -> new ArrayList<>(1)).add(record);
+		}
+
+		secondaryKey = studentNumbersOf(record);
+
+		if (secondaryKey != null)
+		{
+			studentNumbersIndex.computeIfAbsent(secondaryKey,
+				key -> new ArrayList<>(1)).add(record);
+		}
+
+		addKeys(keyFilter, record);
+
+		if (keyFilter.isFull())
+		{
+			buildKeyFilter();
+		}
+	}
+
+	/**
+	 * This method checks the key filter for an ID.
+	 * @param id holds the ID, may be null.
+	 * @return false if no clubber surely has the ID, true if one might.
+	 */
+	private boolean mightContainID(String id)
+	{
+		return id != null && keyFilter.mightContain(ClubbersBloomFilter.hash(ID_KEY, id));
+	}
+
+	/**
+	 * This method builds the key filter again from the records, with room
+	 * for as many keys again, the write lock must be held.
+	 */
+	private void buildKeyFilter()
+	{
+		int keyCount = clubbers.size();
+
+		for (ClubAbstractRecord record : clubbers)
+		{
+			if (record instanceof SoldierRecord || record instanceof StudentRecord)
+			{
+				keyCount++;
+			}
+		}
+
+		keyFilter = new ClubbersBloomFilter(keyCount * 2);
+
+		for (ClubAbstractRecord record : clubbers)
+		{
+			addKeys(keyFilter, record);
+		}
+	}
+
+	/**
+	 * This method adds the keys of a record to a key filter.
+	 * @param filter holds the key filter.
+	 * @param record holds the record.
+	 */
+	private static void addKeys(ClubbersBloomFilter filter, ClubAbstractRecord record)
+	{
+		filter.add(ClubbersBloomFilter.hash(ID_KEY, record.getID()));
+
+		String secondaryKey = personalNumberOf(record);
+
+		if (secondaryKey != null)
+		{
+			filter.add(ClubbersBloomFilter.hash(PERSONAL_NUMBER_KEY, secondaryKey));
+		}
+
+		secondaryKey = studentNumbersOf(record);
+
+		if (secondaryKey != null)
+		{
+			filter.add(ClubbersBloomFilter.hash(STUDENT_NUMBERS_KEY, secondaryKey));
+		}
+	}
+
+	/**
+	 * This method removes the keys of the record from the indexes.
+	 * @param record holds the record to remove from the indexes.
+	 */
+	private void unindex(ClubAbstractRecord record)
+	{
+		idIndex.remove(record.getID());
+		unindex(personalNumberIndex, personalNumberOf(record), record);
+		unindex(studentNumbersIndex, studentNumbersOf(record), record);
+	}
+
+	/**
+	 * This method removes the keys of records from the indexes, every list
+	 * of a secondary index is gone over once however many of its records
+	 * are removed.
+	 * @param records holds the records to remove from the indexes.
+	 */
+	private void unindexAll(List<ClubAbstractRecord> records)
+	{
+		Set<ClubAbstractRecord> removed = Collections.newSetFromMap(new IdentityHashMap<>());
+		Set<ArrayList<ClubAbstractRecord>> lists =
+			Collections.newSetFromMap(new IdentityHashMap<>());
+
+		removed.addAll(records);
+
+		for (ClubAbstractRecord record : records)
+		{
+			idIndex.remove(record.getID());
+			unindexAll(personalNumberIndex, personalNumberOf(record), removed, lists);
+			unindexAll(studentNumbersIndex, studentNumbersOf(record), removed, lists);
+		}
+	}
+
+	/**
+	 * This method removes records from the list of a key in a secondary index.
+	 * @param index holds the index.
+	 * @param key holds the key of a removed record, may be null.
+	 * @param removed holds the removed records.
+	 * @param lists holds the lists already gone over, the list of the key is
+	 * added to it.
+	 */
+	private static void unindexAll(ClubberKeyMap<ArrayList<ClubAbstractRecord>> index,
+		String key, Set<ClubAbstractRecord> removed, Set<ArrayList<ClubAbstractRecord>> lists)
+	{
+		if (key == null)
+		{
+			return;
+		}
+
+		ArrayList<ClubAbstractRecord> records = index.get(key);
+
+		if (records == null || !lists.add(records))
+		{
+			return;
+		}
+
+		records.removeIf(removed::contains);
+
+		if (records.isEmpty())
+		{
+			index.remove(key);
+		}
+	}
+
+	/**
+	 * This method removes a record from a secondary index.
+	 * @param index holds the index.
+	 * @param key holds the records key in the index, may be null.
+	 * @param record holds the record to remove.
+	 */
+	private static void unindex(ClubberKeyMap<ArrayList<ClubAbstractRecord>> index,
+		String key, ClubAbstractRecord record)
+	{
+		if (key == null)
+		{
+			return;
+		}
+
+		ArrayList<ClubAbstractRecord> records = index.get(key);
+
+		if (records == null)
+		{
+			return;
+		}
+
+		records.remove(record);
+
+		if (records.isEmpty())
+		{
+			index.remove(key);
+		}
+	}
+
+	/**
+	 * This method returns the personal number of a soldier.
+	 * @param record holds the record.
+	 * @return the personal number or null if the record isn't a soldier.
+	 */
+	static String personalNumberOf(ClubAbstractRecord record)
+	{
+		if (record instanceof SoldierRecord)
+		{
+			return ((SoldierRecord)record).getPersonalNumber();
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method returns the numbers part of a students student ID.
+	 * @param record holds the record.
+	 * @return the numbers of the student ID or null if the record isn't a
+	 * student or the student ID is too short to be matched.
+	 */
+	static String studentNumbersOf(ClubAbstractRecord record)
+	{
+		if (!(record instanceof StudentRecord))
+		{
+			return null;
+		}
+
+		String studentID = ((StudentRecord)record).getStudentID();
+
+		if (studentID.length() < STUDENT_NUMBERS_START + STUDENT_NUMBERS_LENGTH)
+		{
+			return null;
+		}
+
+		return studentID.substring(STUDENT_NUMBERS_START,
+			STUDENT_NUMBERS_START + STUDENT_NUMBERS_LENGTH);
+	}
+
+	/**
+	 * This class is an entry of the ID index, it holds a record and its
+	 * position in the list of the clubbers.
+	 */
+	private static class Entry
+	{
+		private final ClubAbstractRecord record;
+		private int position;
+
+		/**
+		 * Entry Constructor.
+		 * @param record holds the record.
+		 * @param position holds the position of the record in the list.
+		 */
+		public Entry(ClubAbstractRecord record, int position)
+		{
+			this.record = record;
+			this.position = position;
+		}
+	}
+
+	/**
+	 * This interface is implemented by classes which need to know about every
+	 * change of the repository, it is invoked after the change was made.
+	 */
+	public interface Listener
+	{
+		/**
+		 * Invoked after a record was added.
+		 * @param record holds the added record.
+		 */
+		void clubberAdded(ClubAbstractRecord record);
+
+		/**
+		 * Invoked after a record was replaced by its edited version.
+		 * @param oldRecord holds the record that was edited.
+		 * @param newRecord holds the edited record.
+		 */
+		void clubberReplaced(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord);
+
+		/**
+		 * Invoked after a record was removed.
+		 * @param record holds the removed record.
+		 */
+		void clubberRemoved(ClubAbstractRecord record);
+
+		/**
+		 * Invoked after the records which passed the filter of
+		 * {@link ClubbersRepository#removeIf} were removed.
+		 * @param records holds the removed records in the order they were added.
+		 */
+		void clubbersRemoved(List<ClubAbstractRecord> records);
+
+		/**
+		 * Invoked after records were replaced by their edited versions by
+		 * {@link ClubbersRepository#replaceAll}.
+		 * @param oldRecords holds the records that were edited in the order
+		 * they were replaced.
+		 * @param newRecords holds the edited records in the same order.
+		 */
+		void clubbersReplaced(List<ClubAbstractRecord> oldRecords,
+			List<ClubAbstractRecord> newRecords);
+	}
+}
@@ -0,0 +1,366 @@
+import javax.swing.*;
+import javax.swing.event.*;
+import java.awt.*;
+import java.awt.event.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+/**
+ * This class extends from {@link javax.swing.JPanel}.
+ * <br> This class lets the user find a clubber by typing the start of a name
+ * or surname, the matching clubbers are searched in a {@link ClubbersNameIndex}
+ * after every keystroke and shown in a {@link javax.swing.JList} as they are
+ * found.
+ * <br> Every search runs on a {@link javax.swing.SwingWorker}, a search that
+ * is still running when the user types again is cancelled and its results
+ * are dropped.
+ * <br> The panel is shown in a {@link javax.swing.JOptionPane}, double
+ * clicking a clubber or pressing Enter on it closes the pane with its OK
+ * option.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersSearchPanel extends JPanel
+{
+	private static final long serialVersionUID = 1L;
+
+	// Most clubbers shown for a prefix.
+	public static final int MAX_RESULTS = 200;
+
+	private static final Logger LOGGER = Logger.getLogger(ClubbersSearchPanel.class.getName());
+
+	private final transient ClubbersNameIndex index;
+	private final JTextField keyField;
+	private final DefaultListModel<ClubAbstractRecord> resultsModel;
+	private final JList<ClubAbstractRecord> resultsList;
+	private final JLabel statusLabel;
+
+	// The search of the current text, null if the text is empty.
+	private transient SwingWorker<Integer, ClubAbstractRecord> searchTask;
+
+	/**
+	 * ClubbersSearchPanel Constructor.
+	 * @param index holds the index of the clubbers names and surnames.
+	 */
+	public ClubbersSearchPanel(ClubbersNameIndex index)
+	{
+		super(new BorderLayout(5, 5));
+
+		this.index = index;
+		keyField = new JTextField(25);
+		resultsModel = new DefaultListModel<>();
+		resultsList = new JList<>(resultsModel);
+		statusLabel = new JLabel(" ");
+
+		JPanel keyPanel = new JPanel(new BorderLayout(5, 0));
+		JScrollPane scrollPane = new JScrollPane(resultsList);
+
+		keyPanel.add(new JLabel("Key, Name or Surname:"), BorderLayout.WEST);
+		keyPanel.add(keyField, BorderLayout.CENTER);
+
+		resultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		resultsList.setCellRenderer(new DefaultListCellRenderer()
+		{
+			private static final long serialVersionUID = 1L;
+
+			/**
+			 * Overriden method which shows the name, surname and ID of the
+			 * clubber in a single line.
+			 */
+			@Override
+			public Component getListCellRendererComponent(JList<?> list, Object value,
+				int index, boolean isSelected, boolean cellHasFocus)
+			{
+				PersonRecord person = (PersonRecord)value;
+
+				return super.getListCellRendererComponent(list, String.format("%s %s  (%s)",
+					person.getName(), person.getSurname(), person.getID()), index,
+					isSelected, cellHasFocus);
+			}
+		});
+		scrollPane.setPreferredSize(new Dimension(400, 250));
+
+		keyField.getDocument().addDocumentListener(new DocumentListener()
+		{
+			/**
+			 * Overriden method which searches again once text is typed.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void insertUpdate(DocumentEvent e)
+			{
+				search();
+			}
+
+			/**
+			 * Overriden method which searches again once text is deleted.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void removeUpdate(DocumentEvent e)
+			{
+				search();
+			}
+
+			/**
+			 * Overriden method which searches again once the text changes.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void changedUpdate(DocumentEvent e)
+			{
+				search();
+			}
+		});
+
+		// The down arrow moves from the key to the found clubbers.
+		keyField.addKeyListener(new KeyAdapter()
+		{
+			/**
+			 * Overriden method which moves the focus to the first found clubber
+			 * when the down arrow is pressed.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void keyPressed(KeyEvent e)
+			{
+				if (e.getKeyCode() == KeyEvent.VK_DOWN && !resultsModel.isEmpty())
+				{
+					resultsList.setSelectedIndex(0);
+					resultsList.requestFocusInWindow();
+				}
+			}
+		});
+
+		resultsList.addMouseListener(new MouseAdapter()
+		{
+			/**
+			 * Overriden method which chooses the clubber that was double clicked.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				if (e.getClickCount() == 2 && resultsList.getSelectedValue() != null)
+				{
+					closeWithOK();
+				}
+			}
+		});
+
+		resultsList.addKeyListener(new KeyAdapter()
+		{
+			/**
+			 * Overriden method which chooses the selected clubber when enter is
+			 * pressed.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void keyPressed(KeyEvent e)
+			{
+				if (e.getKeyCode() == KeyEvent.VK_ENTER && resultsList.getSelectedValue() != null)
+				{
+					e.consume();
+					closeWithOK();
+				}
+			}
+		});
+
+		// Give the key field the focus once the pane is shown.
+		keyField.addAncestorListener(new AncestorListener()
+		{
+			/**
+			 * Overriden method which gives the key field the focus once the pane
+			 * is shown.
+			 * @param event Holds the current event.
+			 */
+			@Override
+			public void ancestorAdded(AncestorEvent event)
+			{
+				keyField.requestFocusInWindow();
+			}
+
+			/**
+			 * Overriden method which cancels the search once the pane is closed.
+			 * @param event Holds the current event.
+			 */
+			@Override
+			public void ancestorRemoved(AncestorEvent event)
+			{
+				cancelSearch();
+			}
+
+			/**
+			 * Overriden method which does nothing when the pane moves.
+			 * @param event Holds the current event.
+			 */
+			@Override
+			public void ancestorMoved(AncestorEvent event)
+			{
+			}
+		});
+
+		add(keyPanel, BorderLayout.NORTH);
+		add(scrollPane, BorderLayout.CENTER);
+		add(statusLabel, BorderLayout.SOUTH);
+	}
+
+	/**
+	 * This method returns the text the user typed.
+	 * @return the key.
+	 */
+	public String getKey()
+	{
+		return keyField.getText();
+	}
+
+	/**
+	 * This method returns the clubber chosen in the list.
+	 * @return the record or null if none was chosen.
+	 */
+	public ClubAbstractRecord getSelectedRecord()
+	{
+		return resultsList.getSelectedValue();
+	}
+
+	/**
+	 * This method cancels the running search and starts a search of the
+	 * current text.
+	 */
+	private void search()
+	{
+		cancelSearch();
+		resultsModel.clear();
+
+		String prefix = keyField.getText().trim();
+
+		if (prefix.isEmpty())
+		{
+			statusLabel.setText(" ");
+			return;
+		}
+
+		statusLabel.setText("Searching...");
+
+		searchTask = new SwingWorker<Integer, ClubAbstractRecord>()
+		{
+			/**
+			 * Overriden method which publishes every clubber found until
+			 * enough were found or the search is cancelled.
+			 * @return the number of clubbers found.
+			 */
+			@Override
+			protected Integer doInBackground()
+			{
+				int[] found = new int[1];
+
+				index.search(prefix, record ->
+				{
+					if (isCancelled())
+					{
+						return false;
+					}
+
+					publish(record);
+
+					return ++found[0] < MAX_RESULTS;
+				});
+
+				return found[0];
+			}
+
+			/**
+			 * Overriden method which adds the published clubbers to the list,
+			 * unless a newer search started.
+			 * @param records holds the clubbers published since the last call.
+			 */
+			@Override
+			protected void process(java.util.List<ClubAbstractRecord> records)
+			{
+				if (searchTask != this)
+				{
+					return;
+				}
+
+				for (ClubAbstractRecord record : records)
+				{
+					resultsModel.addElement(record);
+				}
+			}
+
+			/**
+			 * Overriden method which shows the number of clubbers found, or
+			 * why the search failed.
+			 */
+			@Override
+			protected void done()
+			{
+				int found;
+
+				try
+				{
+					found = get();
+				}
+				catch (CancellationException e)
+				{
+					// A newer search or closing the pane cancelled it.
+					return;
+				}
+				catch (ExecutionException e)
+				{
+					LOGGER.log(Level.WARNING, "Searching for " + prefix + " failed", e.getCause());
+
+					if (searchTask == this)
+					{
+						statusLabel.setText("Search failed: " + e.getCause().getMessage());
+					}
+
+					return;
+				}
+				catch (InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+
+				if (searchTask != this)
+				{
+					return;
+				}
+
+				statusLabel.setText(found == 0 ? "No clubber's name or surname starts with "
+					+ prefix + ", OK searches it as a key" : found >= MAX_RESULTS ?
+					String.format("First %d clubbers, keep typing to narrow", found) :
+					String.format("%d clubbers", found));
+			}
+		};
+
+		searchTask.execute();
+	}
+
+	/**
+	 * This method cancels the running search.
+	 */
+	private void cancelSearch()
+	{
+		if (searchTask != null)
+		{
+			searchTask.cancel(false);
+			searchTask = null;
+		}
+	}
+
+	/**
+	 * This method closes the {@link javax.swing.JOptionPane} which shows the
+	 * panel as if OK was pressed.
+	 */
+	private void closeWithOK()
+	{
+		JOptionPane optionPane = (JOptionPane)SwingUtilities.getAncestorOfClass(
+			JOptionPane.class, this);
+
+		if (optionPane != null)
+		{
+			optionPane.setValue(JOptionPane.OK_OPTION);
+		}
+	}
+}
@@ -0,0 +1,699 @@
+import java.io.*;
+import java.net.*;
+import java.nio.charset.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import com.sun.net.httpserver.*;
+
+/**
+ * This class serves the clubbers over HTTP as JSON, so door terminals and
+ * the bar can look clubbers up without the window of the
+ * {@link NightClubMgmtApp}.
+ * <br> It uses the {@link com.sun.net.httpserver.HttpServer} of the JDK and
+ * handles every request on its own virtual thread, so a slow client only
+ * holds a virtual thread. Lookups go straight to the clubbers, which may be
+ * used by several threads, and the name searches use the
+ * {@link ClubbersNameIndex} which needs no lock. Changes are made one at a
+ * time so the clubbers and the name index are changed in the same order.
+ * <br> The requests are:
+ * <br> GET /clubbers/{key} - the clubber which matches the key, as
+ * {@link ClubbersStore#find}.
+ * <br> GET /clubbers?prefix={prefix}&amp;limit={limit} - the clubbers whose
+ * name or surname starts with the prefix.
+ * <br> GET /clubbers?from={from}&amp;count={count} - a page of all the clubbers.
+ * <br> POST /clubbers - adds the clubber in the body, it must pass the same
+ * checks as the validateData methods of the clubber windows.
+ * <br> DELETE /clubbers/{key} - removes the clubber which matches the key.
+ * <br> POST /checkins/{key} - checks in the clubber of a key scanned at a
+ * door with {@link ClubbersCheckIn}, the response holds the result and the
+ * clubber, its status is 200 if the clubber is admitted, 403 if the clubber
+ * is already inside and 404 if the key is unknown.
+ * <br> GET /counts?by={key} - the number of clubbers of every type,
+ * country-code or surname-initial, counted by a {@link ClubbersQuery}, or
+ * in the {@link ClubbersColumns} if the server was given them.
+ * <br> A clubber is written by {@link ClubbersJson}, an error as
+ * {"error":"..."} with its status.
+ * <br> It can be run from the command line while the window isn't running:
+ * <br> java NightClubMgmtApp -server [-mapped] [-columns] [port] [host]
+ * <br> It listens on port 8080 of the loopback address unless told another.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersServer
+{
+	public static final int DEFAULT_PORT = 8080;
+	public static final String CONTEXT_PATH = "/clubbers";
+	public static final String CHECK_IN_PATH = "/checkins";
+	public static final String COUNTS_PATH = "/counts";
+
+	private static final int DEFAULT_PAGE_SIZE = 100;
+	private static final int MAX_PAGE_SIZE = 1000;
+	private static final int MAX_BODY_SIZE = 16 * 1024;
+	private static final int BACKLOG = 1024;
+
+	private final ClubbersStore clubbers;
+	private final ClubbersNameIndex nameIndex;
+	private final ClubbersColumns columns;
+	private final ClubbersCheckIn checkIn;
+	private final Lock lock;
+	private final HttpServer server;
+	private final ExecutorService executor;
+
+	/**
+	 * ClubbersServer Constructor - binds the address, the requests are served
+	 * once {@link #start} is invoked.
+	 * @param clubbers holds the clubbers, only changed by the server while it
+	 * runs.
+	 * @param nameIndex holds the index of the clubbers names.
+	 * @param address holds the address to listen on.
+	 * @throws IOException if the address can't be bound.
+	 */
+	public ClubbersServer(ClubbersStore clubbers, ClubbersNameIndex nameIndex,
+		InetSocketAddress address) throws IOException
+	{
+		this(clubbers, nameIndex, null, address);
+	}
+
+	/**
+	 * ClubbersServer Constructor - binds the address, the requests are served
+	 * once {@link #start} is invoked.
+	 * @param clubbers holds the clubbers, only changed by the server while it
+	 * runs.
+	 * @param nameIndex holds the index of the clubbers names.
+	 * @param columns holds the clubbers in columns to count them by type and
+	 * country code, may be null to count them over their records.
+	 * @param address holds the address to listen on.
+	 * @throws IOException if the address can't be bound.
+	 */
+	public ClubbersServer(ClubbersStore clubbers, ClubbersNameIndex nameIndex,
+		ClubbersColumns columns, InetSocketAddress address) throws IOException
+	{
+		this.clubbers = clubbers;
+		this.nameIndex = nameIndex;
+		this.columns = columns;
+		checkIn = new ClubbersCheckIn(clubbers);
+		lock = new ReentrantLock();
+		server = HttpServer.create(address, BACKLOG);
+		executor = Executors.newVirtualThreadPerTaskExecutor();
+
+		server.createContext(CONTEXT_PATH, this::handle);
+		server.createContext(CHECK_IN_PATH, this::handleCheckIn);
+		server.createContext(COUNTS_PATH, this::handleCounts);
+		server.setExecutor(executor);
+	}
+
+	/**
+	 * This method starts serving the requests.
+	 */
+	public void start()
+	{
+		server.start();
+	}
+
+	/**
+	 * This method stops serving, the requests being handled are given up to
+	 * the delay to finish.
+	 * @param delay holds the most seconds to wait for the requests.
+	 */
+	public void stop(int delay)
+	{
+		server.stop(delay);
+		executor.shutdown();
+
+		try
+		{
+			executor.awaitTermination(delay, TimeUnit.SECONDS);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * This method returns the address the server listens on.
+	 * @return the address.
+	 */
+	public InetSocketAddress getAddress()
+	{
+		return server.getAddress();
+	}
+
+	/**
+	 * This method handles a request by its method and path.
+	 * @param exchange holds the request and its response.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void handle(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			String path = exchange.getRequestURI().getPath();
+			String method = exchange.getRequestMethod();
+			String key = null;
+
+			if (path.startsWith(CONTEXT_PATH + "/") && path.length() > CONTEXT_PATH.length() + 1)
+			{
+				key = path.substring(CONTEXT_PATH.length() + 1);
+			}
+			else if (!path.equals(CONTEXT_PATH) && !path.equals(CONTEXT_PATH + "/"))
+			{
+				sendError(exchange, 404, "No such path " + path);
+				return;
+			}
+
+			if (method.equals("GET") && key != null)
+			{
+				getClubber(exchange, key);
+			}
+			else if (method.equals("GET"))
+			{
+				listClubbers(exchange, parseQuery(exchange.getRequestURI().getRawQuery()));
+			}
+			else if (method.equals("POST") && key == null)
+			{
+				addClubber(exchange);
+			}
+			else if (method.equals("DELETE") && key != null)
+			{
+				deleteClubber(exchange, key);
+			}
+			else
+			{
+				exchange.getResponseHeaders().set("Allow",
+					key != null ? "GET, DELETE" : "GET, POST");
+				sendError(exchange, 405, method + " isn't allowed on " + path);
+			}
+		}
+		catch (IllegalArgumentException e)
+		{
+			sendError(exchange, 400, e.getMessage());
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	/**
+	 * This method handles a check-in, the key is the rest of the path.
+	 * @param exchange holds the request and its response.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void handleCheckIn(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			String path = exchange.getRequestURI().getPath();
+
+			if (!path.startsWith(CHECK_IN_PATH + "/") || path.length() == CHECK_IN_PATH.length() + 1)
+			{
+				sendError(exchange, 404, "No such path " + path);
+				return;
+			}
+
+			if (!exchange.getRequestMethod().equals("POST"))
+			{
+				exchange.getResponseHeaders().set("Allow", "POST");
+				sendError(exchange, 405, exchange.getRequestMethod() + " isn't allowed on " + path);
+				return;
+			}
+
+			String key = path.substring(CHECK_IN_PATH.length() + 1);
+			ClubbersCheckIn.Entry entry = checkIn.checkIn(key);
+			StringWriter json = new StringWriter(192);
+
+			json.write(String.format("{\"result\":\"%s\",\"time\":%d",
+				entry.getResult(), entry.getTime()));
+
+			if (entry.getRecord() != null)
+			{
+				json.write(",\"clubber\":");
+				ClubbersJson.write(json, entry.getRecord());
+			}
+
+			json.write('}');
+
+			switch (entry.getResult())
+			{
+				case ADMITTED:
+					send(exchange, 200, json.toString());
+					break;
+				case ALREADY_INSIDE:
+					send(exchange, 403, json.toString());
+					break;
+				default:
+					send(exchange, 404, json.toString());
+			}
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	/**
+	 * This method handles a count of the clubbers grouped by the key given
+	 * in the query, the columns are used for the keys they hold if the
+	 * server has them.
+	 * @param exchange holds the request and its response.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void handleCounts(HttpExchange exchange) throws IOException
+	{
+		try
+		{
+			String path = exchange.getRequestURI().getPath();
+
+			if (!path.equals(COUNTS_PATH) && !path.equals(COUNTS_PATH + "/"))
+			{
+				sendError(exchange, 404, "No such path " + path);
+				return;
+			}
+
+			if (!exchange.getRequestMethod().equals("GET"))
+			{
+				exchange.getResponseHeaders().set("Allow", "GET");
+				sendError(exchange, 405, exchange.getRequestMethod() + " isn't allowed on " + path);
+				return;
+			}
+
+			String by = parseQuery(exchange.getRequestURI().getRawQuery()).get("by");
+			Function<ClubAbstractRecord, String> key;
+			int column;
+
+			if ("type".equals(by))
+			{
+				key = ClubbersQuery.TYPE;
+				column = ClubbersColumns.TYPE;
+			}
+			else if ("country-code".equals(by))
+			{
+				key = ClubbersQuery.COUNTRY_CODE;
+				column = ClubbersColumns.COUNTRY_CODE;
+			}
+			else if ("surname-initial".equals(by))
+			{
+				key = ClubbersQuery.SURNAME_INITIAL;
+				column = -1;
+			}
+			else
+			{
+				sendError(exchange, 400, "by must be type, country-code or surname-initial");
+				return;
+			}
+
+			if (columns != null && column >= 0)
+			{
+				sendCounts(exchange, by, columns.size(),
+					columns.countBy(column, ClubbersColumns.Filter.ALL));
+				return;
+			}
+
+			ClubbersQuery query = new ClubbersQuery(clubbers);
+
+			sendCounts(exchange, by, query.count(), query.countBy(key));
+		}
+		finally
+		{
+			exchange.close();
+		}
+	}
+
+	/**
+	 * This method sends the number of clubbers of every group.
+	 * @param exchange holds the request and its response.
+	 * @param by holds the name of the key the clubbers were grouped by.
+	 * @param size holds the number of clubbers counted.
+	 * @param counts holds the number of clubbers of every group.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private static void sendCounts(HttpExchange exchange, String by, long size,
+		Map<String, Long> counts) throws IOException
+	{
+		StringWriter json = new StringWriter(32 * counts.size() + 64);
+
+		json.write(String.format("{\"size\":%d,\"by\":", size));
+		ClubbersJson.writeString(json, by);
+		json.write(",\"counts\":{");
+
+		boolean first = true;
+
+		for (Map.Entry<String, Long> count : counts.entrySet())
+		{
+			if (!first)
+			{
+				json.write(',');
+			}
+
+			ClubbersJson.writeString(json, count.getKey());
+			json.write(':');
+			json.write(String.valueOf(count.getValue()));
+			first = false;
+		}
+
+		json.write("}}");
+		send(exchange, 200, json.toString());
+	}
+
+	/**
+	 * This method sends the clubber which matches the key.
+	 * @param exchange holds the request and its response.
+	 * @param key holds the key, as {@link ClubbersStore#find}.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void getClubber(HttpExchange exchange, String key) throws IOException
+	{
+		ClubAbstractRecord record = clubbers.find(key);
+
+		if (record == null)
+		{
+			sendError(exchange, 404, "Clubber with key " + key + " does not exist");
+			return;
+		}
+
+		StringWriter json = new StringWriter(128);
+
+		ClubbersJson.write(json, record);
+		send(exchange, 200, json.toString());
+	}
+
+	/**
+	 * This method sends the clubbers whose name or surname starts with the
+	 * prefix of the query, or a page of all the clubbers if there is no prefix.
+	 * @param exchange holds the request and its response.
+	 * @param query holds the parameters of the request.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void listClubbers(HttpExchange exchange, Map<String, String> query)
+		throws IOException
+	{
+		String prefix = query.get("prefix");
+		List<ClubAbstractRecord> records;
+		int size;
+		int from = 0;
+
+		if (prefix != null)
+		{
+			records = nameIndex.search(prefix, intParameter(query, "limit", DEFAULT_PAGE_SIZE));
+			size = records.size();
+		}
+		else
+		{
+			from = intParameter(query, "from", 0);
+			int count = intParameter(query, "count", DEFAULT_PAGE_SIZE);
+
+			records = clubbers.getClubbers(from, count);
+			size = clubbers.size();
+		}
+
+		StringWriter json = new StringWriter(128 * records.size() + 64);
+
+		json.write(String.format("{\"size\":%d,\"from\":%d,\"clubbers\":[", size, from));
+
+		for (int i = 0; i < records.size(); i++)
+		{
+			if (i > 0)
+			{
+				json.write(',');
+			}
+
+			ClubbersJson.write(json, records.get(i));
+		}
+
+		json.write("]}");
+		send(exchange, 200, json.toString());
+	}
+
+	/**
+	 * This method adds the clubber in the body of the request.
+	 * @param exchange holds the request and its response.
+	 * @throws IOException if the request can't be read or the response sent.
+	 */
+	private void addClubber(HttpExchange exchange) throws IOException
+	{
+		ClubAbstractRecord record = ClubbersJson.toRecord(readBody(exchange));
+		String invalidField = ClubberValidator.invalidField(record);
+
+		if (invalidField != null)
+		{
+			sendError(exchange, 400, "Invalid " + invalidField);
+			return;
+		}
+
+		boolean added;
+
+		lock.lock();
+
+		try
+		{
+			added = clubbers.add(record);
+
+			if (added)
+			{
+				nameIndex.add(record);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		if (!added)
+		{
+			sendError(exchange, 409, "ID already exists");
+			return;
+		}
+
+		StringWriter json = new StringWriter(128);
+
+		ClubbersJson.write(json, record);
+		exchange.getResponseHeaders().set("Location",
+			CONTEXT_PATH + "/" + URLEncoder.encode(record.getID(), StandardCharsets.UTF_8));
+		send(exchange, 201, json.toString());
+	}
+
+	/**
+	 * This method removes the clubber which matches the key.
+	 * @param exchange holds the request and its response.
+	 * @param key holds the key, as {@link ClubbersStore#find}.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private void deleteClubber(HttpExchange exchange, String key) throws IOException
+	{
+		ClubAbstractRecord record;
+
+		lock.lock();
+
+		try
+		{
+			record = clubbers.find(key);
+
+			if (record != null && clubbers.remove(record))
+			{
+				nameIndex.remove(record);
+			}
+		}
+		finally
+		{
+			lock.unlock();
+		}
+
+		if (record == null)
+		{
+			sendError(exchange, 404, "Clubber with key " + key + " does not exist");
+			return;
+		}
+
+		exchange.sendResponseHeaders(204, -1);
+	}
+
+	/**
+	 * This method reads the body of a request.
+	 * @param exchange holds the request.
+	 * @return the body.
+	 * @throws IOException if the body can't be read.
+	 * @throws IllegalArgumentException if the body is too long.
+	 */
+	private static String readBody(HttpExchange exchange) throws IOException
+	{
+		try (InputStream input = exchange.getRequestBody())
+		{
+			byte[] body = input.readNBytes(MAX_BODY_SIZE + 1);
+
+			if (body.length > MAX_BODY_SIZE)
+			{
+				throw new IllegalArgumentException("Body is longer than " + MAX_BODY_SIZE);
+			}
+
+			return new String(body, StandardCharsets.UTF_8);
+		}
+	}
+
+	/**
+	 * This method sends a JSON response.
+	 * @param exchange holds the request and its response.
+	 * @param status holds the status of the response.
+	 * @param json holds the body of the response.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private static void send(HttpExchange exchange, int status, String json) throws IOException
+	{
+		byte[] body = json.getBytes(StandardCharsets.UTF_8);
+
+		exchange.getResponseHeaders().set("Content-Type", ClubbersJson.CONTENT_TYPE);
+		exchange.sendResponseHeaders(status, body.length);
+
+		try (OutputStream output = exchange.getResponseBody())
+		{
+			output.write(body);
+		}
+	}
+
+	/**
+	 * This method sends an error as a JSON response.
+	 * @param exchange holds the request and its response.
+	 * @param status holds the status of the response.
+	 * @param message holds the error.
+	 * @throws IOException if the response can't be sent.
+	 */
+	private static void sendError(HttpExchange exchange, int status, String message)
+		throws IOException
+	{
+		StringWriter json = new StringWriter();
+
+		json.write("{\"error\":");
+		ClubbersJson.writeString(json, String.valueOf(message));
+		json.write('}');
+
+		send(exchange, status, json.toString());
+	}
+
+	/**
+	 * This method reads the parameters of a query.
+	 * @param rawQuery holds the query as sent, may be null.
+	 * @return the parameters by their names.
+	 */
+	private static Map<String, String> parseQuery(String rawQuery)
+	{
+		HashMap<String, String> parameters = new HashMap<>();
+
+		if (rawQuery == null)
+		{
+			return parameters;
+		}
+
+		for (String parameter : rawQuery.split("&"))
+		{
+			int equals = parameter.indexOf('=');
+
+			if (equals > 0)
+			{
+				parameters.put(
+					URLDecoder.decode(parameter.substring(0, equals), StandardCharsets.UTF_8),
+					URLDecoder.decode(parameter.substring(equals + 1), StandardCharsets.UTF_8));
+			}
+		}
+
+		return parameters;
+	}
+
+	/**
+	 * This method reads a number parameter.
+	 * @param query holds the parameters.
+	 * @param name holds the name of the parameter.
+	 * @param defaultValue holds the value of a missing parameter.
+	 * @return the value, between 0 and the most clubbers in a page for a
+	 * limit or count.
+	 * @throws IllegalArgumentException if the parameter isn't a number.
+	 */
+	private static int intParameter(Map<String, String> query, String name, int defaultValue)
+	{
+		String value = query.get(name);
+
+		if (value == null)
+		{
+			return defaultValue;
+		}
+
+		try
+		{
+			int number = Math.max(0, Integer.parseInt(value));
+
+			return name.equals("from") ? number : Math.min(number, MAX_PAGE_SIZE);
+		}
+		catch (NumberFormatException e)
+		{
+			throw new IllegalArgumentException(name + " isn't a number");
+		}
+	}
+
+	/**
+	 * static main method.
+	 * Opens the clubbers with a {@link ClubbersDatabase} and serves them until
+	 * the program is stopped, the clubbers are then closed. The server doesn't
+	 * start if the clubbers file can't be read.
+	 * @param args "-mapped" to keep the clubbers in a memory-mapped file,
+	 * "-columns" to count them in {@link ClubbersColumns}, the port and the
+	 * host to listen on.
+	 */
+	public static void main(String[] args)
+	{
+		ArrayList<String> options = new ArrayList<>(Arrays.asList(args));
+		boolean mapped = options.remove("-mapped");
+		boolean inColumns = options.remove("-columns");
+		int port = options.size() > 0 ? Integer.parseInt(options.get(0)) : DEFAULT_PORT;
+		InetAddress host = InetAddress.getLoopbackAddress();
+
+		try
+		{
+			if (options.size() > 1)
+			{
+				host = InetAddress.getByName(options.get(1));
+			}
+
+			ClubbersDatabase database = new ClubbersDatabase();
+			long start = System.nanoTime();
+
+			database.open(mapped, null);
+
+			if (database.getReadError() != null)
+			{
+				database.close();
+				System.err.println("Server failed: can't read "
+					+ ClubbersDatabase.CLUBBERS_FILE_NAME + ": " + database.getReadError());
+				System.exit(1);
+			}
+
+			ClubbersStore clubbers = database.getClubbers();
+			ClubbersColumns columns = inColumns ? database.getColumns() : null;
+
+			if (inColumns && columns == null)
+			{
+				System.err.println("The clubbers in a memory-mapped file have no columns,"
+					+ " they are counted over their records");
+			}
+
+			ClubbersServer server = new ClubbersServer(clubbers,
+				new ClubbersNameIndex(clubbers), columns, new InetSocketAddress(host, port));
+
+			Runtime.getRuntime().addShutdownHook(new Thread(() ->
+			{
+				server.stop(1);
+				database.close();
+			}, "Clubbers Server Shutdown"));
+
+			server.start();
+
+			System.out.printf("Serving %d clubbers on http://%s:%d%s (loaded in %d ms)%n",
+				clubbers.size(), host.getHostAddress(), server.getAddress().getPort(),
+				CONTEXT_PATH, (System.nanoTime() - start) / 1000000);
+		}
+		catch (IOException e)
+		{
+			System.err.println("Server failed: " + e);
+			System.exit(1);
+		}
+	}
+}
@@ -0,0 +1,111 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This interface is implemented by the classes which hold the clubbers for
+ * the {@link NightClubMgmtApp}, the {@link ClubbersRepository} which keeps
+ * them in memory and the {@link MappedClubbersStore} which keeps them in a
+ * memory-mapped file.
+ * <br> Implementations may be used by several threads at once, every method
+ * sees a change either whole or not at all.
+ * @author Lior Sabri, Ben Biton
+ */
+public interface ClubbersStore extends Iterable<ClubAbstractRecord>
+{
+	/**
+	 * This method finds the clubber which matches the key, the ID is checked
+	 * first, then the personal number and then the student numbers.
+	 * @param key may hold an id, personalNumber or numbers of a studentID.
+	 * @return the matching record or null if no clubber matches the key.
+	 */
+	ClubAbstractRecord find(String key);
+
+	/**
+	 * This method finds the clubber with the ID.
+	 * @param id holds the ID to find.
+	 * @return the record or null if no clubber has the ID.
+	 */
+	ClubAbstractRecord findByID(String id);
+
+	/**
+	 * This method checks whether a clubber with the ID exists.
+	 * @param id holds the ID to check.
+	 * @return true or false whether the ID exists.
+	 */
+	boolean containsID(String id);
+
+	/**
+	 * This method adds a record.
+	 * @param record holds the record to add.
+	 * @return true or false whether the record was added, a record will not be
+	 * added if its ID already exists.
+	 */
+	boolean add(ClubAbstractRecord record);
+
+	/**
+	 * This method adds records, records with an ID that already exists are
+	 * skipped.
+	 * @param records holds the records to add.
+	 * @return the number of records added.
+	 */
+	int addAll(Collection<? extends ClubAbstractRecord> records);
+
+	/**
+	 * This method replaces a record with its edited version.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 * @return true or false whether the record was replaced, a record will not
+	 * be replaced if the old record doesn't exist or the new ID belongs to
+	 * another clubber.
+	 */
+	boolean replace(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord);
+
+	/**
+	 * This method removes a record.
+	 * @param record holds the record to remove.
+	 * @return true or false whether the record existed.
+	 */
+	boolean remove(ClubAbstractRecord record);
+
+	/**
+	 * This method removes every record which passes a filter in a single
+	 * pass.
+	 * @param filter holds the filter, it is run once for every record and
+	 * mustn't change the store.
+	 * @return the number of records removed.
+	 */
+	int removeIf(Predicate<? super ClubAbstractRecord> filter);
+
+	/**
+	 * This method replaces every record with its edited version in a single
+	 * pass, like {@link #replace} for each of them.
+	 * @param editor holds the editor, it is run once for every record and
+	 * returns the edited record or the same record to keep it, it mustn't
+	 * change the store.
+	 * @return the number of records replaced, an edited record will not
+	 * replace its record if its ID belongs to another clubber.
+	 */
+	int replaceAll(UnaryOperator<ClubAbstractRecord> editor);
+
+	/**
+	 * This method returns the number of clubbers.
+	 * @return the number of clubbers.
+	 */
+	int size();
+
+	/**
+	 * This method returns a read only view or copy of the records.
+	 * @return a {@link java.util.Collection} of the records.
+	 */
+	Collection<ClubAbstractRecord> getClubbers();
+
+	/**
+	 * This method returns a page of the records in the order of
+	 * {@link #getClubbers}.
+	 * @param from holds the position of the first record.
+	 * @param count holds the most records to return.
+	 * @return a {@link java.util.List} of up to count records, empty if from
+	 * is past the last record.
+	 */
+	List<ClubAbstractRecord> getClubbers(int from, int count);
+}
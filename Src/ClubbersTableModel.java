@@ -0,0 +1,279 @@
+import java.util.*;
+import javax.swing.table.*;
+
+/**
+ * This class extends from {@link javax.swing.table.AbstractTableModel}.
+ * <br> This class shows a page of the clubbers of a {@link ClubbersStore} in a
+ * {@link javax.swing.JTable}, only the records of the current page are read
+ * and a cell is only formatted when the table paints it, so showing the first
+ * page costs the same for any number of clubbers.
+ * <br> The clubbers are shown in the order of the store until they are sorted
+ * by a column, sorting reads all the records once with {@link #sort} and keeps
+ * them in that order, it can be done in the background and applied with
+ * {@link #setSorted}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersTableModel extends AbstractTableModel
+{
+	private static final long serialVersionUID = 1L;
+
+	public static final int DEFAULT_PAGE_SIZE = 100;
+
+	// Columns of the table.
+	public static final int TYPE_COLUMN = 0;
+	public static final int ID_COLUMN = 1;
+	public static final int NAME_COLUMN = 2;
+	public static final int SURNAME_COLUMN = 3;
+	public static final int TEL_COLUMN = 4;
+	public static final int EXTRA_COLUMN = 5;
+
+	private static final String[] COLUMN_NAMES =
+	{
+		"Type", "ID", "Name", "Surname", "Tel", "Personal No./Student ID"
+	};
+
+	private final transient ClubbersStore store;
+	private final int pageSize;
+
+	private int page;
+	private transient List<ClubAbstractRecord> pageRecords;
+
+	// The clubbers sorted by sortColumn, null while they are in the order of
+	// the store.
+	private transient ClubAbstractRecord[] sorted;
+	private int sortColumn;
+	private boolean ascending;
+
+	/**
+	 * ClubbersTableModel Constructor - shows pages of the default size.
+	 * @param store holds the clubbers.
+	 */
+	public ClubbersTableModel(ClubbersStore store)
+	{
+		this(store, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * ClubbersTableModel Full Constructor - shows the first page in the order
+	 * of the store.
+	 * @param store holds the clubbers.
+	 * @param pageSize holds the number of clubbers in a page.
+	 */
+	public ClubbersTableModel(ClubbersStore store, int pageSize)
+	{
+		this.store = store;
+		this.pageSize = pageSize;
+		sortColumn = -1;
+
+		loadPage();
+	}
+
+	/**
+	 * Overriden method which returns the number of clubbers in the current
+	 * page.
+	 * @return the number of rows.
+	 */
+	@Override
+	public int getRowCount()
+	{
+		return pageRecords.size();
+	}
+
+	/**
+	 * Overriden method which returns the number of columns, the type, the
+	 * fields of a person and the personal number or student ID.
+	 * @return the number of columns.
+	 */
+	@Override
+	public int getColumnCount()
+	{
+		return COLUMN_NAMES.length;
+	}
+
+	/**
+	 * Overriden method which adds an arrow to the name of the sorted column.
+	 * @param column holds the column.
+	 * @return the name of the column.
+	 */
+	@Override
+	public String getColumnName(int column)
+	{
+		if (column != sortColumn)
+		{
+			return COLUMN_NAMES[column];
+		}
+
+		return COLUMN_NAMES[column] + (ascending ? " \u25B2" : " \u25BC");
+	}
+
+	/**
+	 * Overriden method which returns a field of a clubber in the current page.
+	 * @param row holds the row.
+	 * @param column holds the column.
+	 * @return the value of the field.
+	 */
+	@Override
+	public Object getValueAt(int row, int column)
+	{
+		return valueOf(pageRecords.get(row), column);
+	}
+
+	/**
+	 * This method returns the record shown in a row of the current page.
+	 * @param row holds the row.
+	 * @return the record.
+	 */
+	public ClubAbstractRecord getRecord(int row)
+	{
+		return pageRecords.get(row);
+	}
+
+	/**
+	 * This method returns the number of clubbers in all the pages.
+	 * @return the number of clubbers.
+	 */
+	public int getClubberCount()
+	{
+		return sorted != null ? sorted.length : store.size();
+	}
+
+	/**
+	 * This method returns the current page.
+	 * @return the page, starting from 0.
+	 */
+	public int getPage()
+	{
+		return page;
+	}
+
+	/**
+	 * This method returns the number of pages, there is always at least one.
+	 * @return the number of pages.
+	 */
+	public int getPageCount()
+	{
+		return Math.max(1, (getClubberCount() + pageSize - 1) / pageSize);
+	}
+
+	/**
+	 * This method shows a page, pages past the first or last page show the
+	 * first or last page.
+	 * @param page holds the page, starting from 0.
+	 */
+	public void setPage(int page)
+	{
+		this.page = Math.max(0, Math.min(page, getPageCount() - 1));
+
+		loadPage();
+		fireTableDataChanged();
+	}
+
+	/**
+	 * This method returns the column the clubbers are sorted by.
+	 * @return the column or -1 if they are in the order of the store.
+	 */
+	public int getSortColumn()
+	{
+		return sortColumn;
+	}
+
+	/**
+	 * This method returns whether the clubbers are sorted from the smallest
+	 * value up.
+	 * @return true or false whether the order is ascending.
+	 */
+	public boolean isAscending()
+	{
+		return ascending;
+	}
+
+	/**
+	 * This method sorts all the clubbers of the store by a column, it doesn't
+	 * change the model so it can run in the background.
+	 * @param column holds the column to sort by.
+	 * @param ascending holds whether to sort from the smallest value up.
+	 * @return the sorted records.
+	 */
+	public ClubAbstractRecord[] sort(int column, boolean ascending)
+	{
+		ClubAbstractRecord[] records = store.getClubbers().toArray(new ClubAbstractRecord[0]);
+		Comparator<ClubAbstractRecord> comparator =
+			Comparator.comparing(record -> valueOf(record, column));
+
+		Arrays.parallelSort(records, ascending ? comparator : comparator.reversed());
+
+		return records;
+	}
+
+	/**
+	 * This method shows the first page of the sorted clubbers.
+	 * @param column holds the column they were sorted by.
+	 * @param ascending holds whether they were sorted from the smallest value up.
+	 * @param records holds the records returned by {@link #sort}.
+	 */
+	public void setSorted(int column, boolean ascending, ClubAbstractRecord[] records)
+	{
+		sorted = records;
+		sortColumn = column;
+		this.ascending = ascending;
+		page = 0;
+
+		loadPage();
+		fireTableStructureChanged();
+	}
+
+	/**
+	 * This method returns the value of a record in a column.
+	 * @param record holds the record.
+	 * @param column holds the column.
+	 * @return the value, an empty string if the record doesn't have it.
+	 */
+	public static String valueOf(ClubAbstractRecord record, int column)
+	{
+		PersonRecord person = (PersonRecord)record;
+
+		switch (column)
+		{
+			case TYPE_COLUMN:
+				return record instanceof SoldierRecord ? ClubbersCsv.SOLDIER :
+					record instanceof StudentRecord ? ClubbersCsv.STUDENT : ClubbersCsv.PERSON;
+			case ID_COLUMN:
+				return person.getID();
+			case NAME_COLUMN:
+				return person.getName();
+			case SURNAME_COLUMN:
+				return person.getSurname();
+			case TEL_COLUMN:
+				return person.getTel();
+			default:
+				if (record instanceof SoldierRecord)
+				{
+					return ((SoldierRecord)record).getPersonalNumber();
+				}
+
+				if (record instanceof StudentRecord)
+				{
+					return ((StudentRecord)record).getStudentID();
+				}
+
+				return "";
+		}
+	}
+
+	/**
+	 * This method reads the records of the current page.
+	 */
+	private void loadPage()
+	{
+		int from = page * pageSize;
+
+		if (sorted == null)
+		{
+			pageRecords = store.getClubbers(from, pageSize);
+			return;
+		}
+
+		pageRecords = Arrays.asList(sorted).subList(Math.min(from, sorted.length),
+			Math.min(from + pageSize, sorted.length));
+	}
+}
@@ -0,0 +1,160 @@
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.*;
+
+/**
+ * This class extends from {@link javax.swing.JPanel}.
+ * <br> This class shows the clubbers of a {@link ClubbersStore} in a
+ * {@link javax.swing.JTable} with a {@link ClubbersTableModel}, a page at a
+ * time. Clicking a column header sorts the clubbers by the column in the
+ * background, clicking it again reverses the order.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersTablePanel extends JPanel
+{
+	private static final long serialVersionUID = 1L;
+
+	private final ClubbersTableModel model;
+	private final JTable table;
+	private final JLabel pageLabel;
+	private final JButton prevButton, nextButton;
+
+	/**
+	 * ClubbersTablePanel Constructor - shows the first page of the clubbers.
+	 * @param store holds the clubbers.
+	 */
+	public ClubbersTablePanel(ClubbersStore store)
+	{
+		super(new BorderLayout(5, 5));
+
+		model = new ClubbersTableModel(store);
+		table = new JTable(model);
+		pageLabel = new JLabel();
+		prevButton = new JButton("Prev");
+		nextButton = new JButton("Next");
+
+		JScrollPane scrollPane = new JScrollPane(table);
+		JPanel pagePanel = new JPanel(new FlowLayout(FlowLayout.CENTER, 10, 0));
+
+		table.getTableHeader().setReorderingAllowed(false);
+		table.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+		scrollPane.setPreferredSize(new Dimension(700, 350));
+
+		table.getTableHeader().addMouseListener(new MouseAdapter()
+		{
+			/**
+			 * Overriden method which sorts the clubbers by the clicked column.
+			 * @param e Holds the current event.
+			 */
+			@Override
+			public void mouseClicked(MouseEvent e)
+			{
+				int column = table.columnAtPoint(e.getPoint());
+
+				if (column >= 0)
+				{
+					sortBy(table.convertColumnIndexToModel(column));
+				}
+			}
+		});
+
+		prevButton.addActionListener(e -> showPage(model.getPage() - 1));
+		nextButton.addActionListener(e -> showPage(model.getPage() + 1));
+
+		pagePanel.add(prevButton);
+		pagePanel.add(pageLabel);
+		pagePanel.add(nextButton);
+
+		add(new JLabel(String.format("Number of Clubbers: %d", model.getClubberCount())),
+			BorderLayout.NORTH);
+		add(scrollPane, BorderLayout.CENTER);
+		add(pagePanel, BorderLayout.SOUTH);
+
+		updatePageControls();
+	}
+
+	/**
+	 * This method shows a page of the table.
+	 * @param page holds the page, starting from 0.
+	 */
+	private void showPage(int page)
+	{
+		model.setPage(page);
+		table.scrollRectToVisible(new Rectangle(0, 0, 1, 1));
+		updatePageControls();
+	}
+
+	/**
+	 * This method sorts the clubbers by a column with a
+	 * {@link javax.swing.SwingWorker} so the window stays responsive while
+	 * all the clubbers are sorted.
+	 * @param column holds the column of the model to sort by.
+	 */
+	private void sortBy(int column)
+	{
+		boolean ascending = column != model.getSortColumn() || !model.isAscending();
+
+		setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+		table.getTableHeader().setEnabled(false);
+		setPageButtonsEnabled(false);
+
+		new SwingWorker<ClubAbstractRecord[], Void>()
+		{
+			/**
+			 * Overriden method which sorts all the clubbers.
+			 * @return the sorted clubbers.
+			 */
+			@Override
+			protected ClubAbstractRecord[] doInBackground()
+			{
+				return model.sort(column, ascending);
+			}
+
+			/**
+			 * Overriden method which shows the first page of the sorted
+			 * clubbers.
+			 */
+			@Override
+			protected void done()
+			{
+				setCursor(Cursor.getDefaultCursor());
+				table.getTableHeader().setEnabled(true);
+
+				try
+				{
+					model.setSorted(column, ascending, get());
+				}
+				catch (Exception e)
+				{
+					JOptionPane.showMessageDialog(ClubbersTablePanel.this,
+						"Can't sort the clubbers: " + e.getMessage(), "Error",
+						JOptionPane.ERROR_MESSAGE);
+				}
+
+				updatePageControls();
+			}
+		}.execute();
+	}
+
+	/**
+	 * This method updates the page label and enables the buttons of the
+	 * pages which can be shown.
+	 */
+	private void updatePageControls()
+	{
+		pageLabel.setText(String.format("Page %d of %d", model.getPage() + 1,
+			model.getPageCount()));
+		setPageButtonsEnabled(true);
+	}
+
+	/**
+	 * This method enables or disables the page buttons, a button is only
+	 * enabled if there is a page in its direction.
+	 * @param enabled holds whether the buttons may be enabled.
+	 */
+	private void setPageButtonsEnabled(boolean enabled)
+	{
+		prevButton.setEnabled(enabled && model.getPage() > 0);
+		nextButton.setEnabled(enabled && model.getPage() < model.getPageCount() - 1);
+	}
+}
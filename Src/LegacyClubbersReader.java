@@ -0,0 +1,320 @@
+import java.io.*;
+import java.util.*;
+
+/**
+ * This class reads clubbers that were saved with {@link java.io.ObjectOutputStream}
+ * and converts them into {@link ClubAbstractRecord}s.
+ * <br> Older versions of the program saved the {@link Person}, {@link Soldier}
+ * and {@link Student} windows themselves, those classes are now editors and
+ * can't be read back, therefore their class descriptors are replaced with
+ * small stand-in classes which only keep the info fields.
+ * <br> The AWT and Swing state of the windows is skipped without loading its
+ * classes, since their serialVersionUIDs change between Java releases, so
+ * an old file can be read by any release.
+ * <br> Files that already hold records are read as they are.
+ * @author Lior Sabri, Ben Biton
+ */
+public class LegacyClubbersReader
+{
+	/**
+	 * LegacyClubbersReader Constructor - private since the class only has
+	 * static methods.
+	 */
+	private LegacyClubbersReader()
+	{
+	}
+
+	/**
+	 * This method reads an {@link java.util.ArrayList} of clubbers from an input
+	 * stream and converts each old clubber window into its record.
+	 * @param in holds the stream to read from.
+	 * @return the clubbers records.
+	 * @throws IOException if the stream can't be read.
+	 * @throws ClassNotFoundException if the stream holds an unknown class.
+	 */
+	public static ArrayList<ClubAbstractRecord> read(InputStream in)
+		throws IOException, ClassNotFoundException
+	{
+		ObjectInputStream ois = new LegacyObjectInputStream(in);
+		Object clubbersObject = ois.readObject();
+
+		if (!(clubbersObject instanceof List))
+		{
+			throw new InvalidObjectException("File does not hold a list of clubbers");
+		}
+
+		List<?> clubbersList = (List<?>)clubbersObject;
+		ArrayList<ClubAbstractRecord> records = new ArrayList<>(clubbersList.size());
+
+		for (Object clubber : clubbersList)
+		{
+			if (clubber instanceof ClubAbstractRecord)
+			{
+				records.add((ClubAbstractRecord)clubber);
+			}
+			else if (clubber instanceof LegacyPerson)
+			{
+				records.add(((LegacyPerson)clubber).toRecord());
+			}
+			else
+			{
+				throw new InvalidObjectException("Unknown clubber in file: " + clubber);
+			}
+		}
+
+		return records;
+	}
+
+	/**
+	 * This Class extends from {@link java.io.ObjectInputStream}.
+	 * <br> It replaces the class descriptors of the old clubber windows with the
+	 * descriptors of the stand-in classes, and doesn't resolve the AWT and
+	 * Swing classes so their objects are read and dropped.
+	 */
+	private static class LegacyObjectInputStream extends ObjectInputStream
+	{
+		private static final String[] SKIPPED_PACKAGES = {"java.awt.", "javax.swing.",
+			"sun.awt.", "sun.swing."};
+
+		/**
+		 * LegacyObjectInputStream Constructor - reads the stream header.
+		 * @param in holds the stream to read from.
+		 * @throws IOException if the header can't be read.
+		 */
+		public LegacyObjectInputStream(InputStream in) throws IOException
+		{
+			super(in);
+		}
+
+		/**
+		 * Overriden method which swaps the descriptors of the old windows.
+		 * The stand-in classes declare the same fields so the stream is
+		 * parsed the same way.
+		 */
+		@Override
+		protected ObjectStreamClass readClassDescriptor()
+			throws IOException, ClassNotFoundException
+		{
+			ObjectStreamClass descriptor = super.readClassDescriptor();
+
+			switch (descriptor.getName())
+			{
+				case "ClubAbstractEntity":
+					return ObjectStreamClass.lookup(LegacyEntity.class);
+				case "ClubAbstractEntity$ButtonsHandler":
+					return ObjectStreamClass.lookup(LegacyButtonsHandler.class);
+				case "Person":
+					return ObjectStreamClass.lookup(LegacyPerson.class);
+				case "Soldier":
+					return ObjectStreamClass.lookup(LegacySoldier.class);
+				case "Student":
+					return ObjectStreamClass.lookup(LegacyStudent.class);
+				default:
+					return descriptor;
+			}
+		}
+
+		/**
+		 * Overriden method which doesn't resolve the classes of the skipped
+		 * packages.
+		 * <br> The stream then reads their fields and custom data without
+		 * checking their serialVersionUID and drops them, the stand-in
+		 * classes never ask for the fields which refer to them.
+		 */
+		@Override
+		protected Class<?> resolveClass(ObjectStreamClass descriptor)
+			throws IOException, ClassNotFoundException
+		{
+			for (String skippedPackage : SKIPPED_PACKAGES)
+			{
+				if (descriptor.getName().startsWith(skippedPackage))
+				{
+					throw new ClassNotFoundException(descriptor.getName());
+				}
+			}
+
+			return super.resolveClass(descriptor);
+		}
+	}
+
+	/**
+	 * Stand-in of the old ClubAbstractEntity window.
+	 * <br> The data of the window's AWT and Swing superclasses has no class
+	 * here to go to, therefore it is dropped.
+	 */
+	private static class LegacyEntity implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ObjectStreamField[] serialPersistentFields =
+		{
+			new ObjectStreamField("cancelButton", Object.class),
+			new ObjectStreamField("centerPanel", Object.class),
+			new ObjectStreamField("handler", Object.class),
+			new ObjectStreamField("okButton", Object.class)
+		};
+
+		/**
+		 * This method reads the fields of the old object and drops them.
+		 * @param in holds the stream of the old object.
+		 * @throws IOException if the stream can't be read.
+		 * @throws ClassNotFoundException if a class of a field isn't found.
+		 */
+		private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException
+		{
+			in.readFields();
+		}
+	}
+
+	/**
+	 * Stand-in of the old ClubAbstractEntity.ButtonsHandler listener.
+	 */
+	private static class LegacyButtonsHandler implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ObjectStreamField[] serialPersistentFields =
+		{
+			new ObjectStreamField("this$0", Object.class)
+		};
+
+		/**
+		 * This method reads the fields of the old object and drops them.
+		 * @param in holds the stream of the old object.
+		 * @throws IOException if the stream can't be read.
+		 * @throws ClassNotFoundException if a class of a field isn't found.
+		 */
+		private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException
+		{
+			in.readFields();
+		}
+	}
+
+	/**
+	 * Stand-in of the old Person window, keeps only the info fields.
+	 */
+	private static class LegacyPerson extends LegacyEntity
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ObjectStreamField[] serialPersistentFields =
+		{
+			new ObjectStreamField("asteriskLabel", Object.class),
+			new ObjectStreamField("id", String.class),
+			new ObjectStreamField("idTextField", Object.class),
+			new ObjectStreamField("name", String.class),
+			new ObjectStreamField("nameTextField", Object.class),
+			new ObjectStreamField("surname", String.class),
+			new ObjectStreamField("surnameTextField", Object.class),
+			new ObjectStreamField("tel", String.class),
+			new ObjectStreamField("telTextField", Object.class)
+		};
+
+		private transient PersonRecord record;
+
+		/**
+		 * This method reads the info fields of the old window.
+		 * @param in holds the stream of the old window.
+		 * @throws IOException if the stream can't be read.
+		 * @throws ClassNotFoundException if a class of a field isn't found.
+		 */
+		private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException
+		{
+			ObjectInputStream.GetField fields = in.readFields();
+
+			record = new PersonRecord((String)fields.get("id", ""),
+				(String)fields.get("name", ""), (String)fields.get("surname", ""),
+				(String)fields.get("tel", ""));
+		}
+
+		/**
+		 * This method returns the clubber of the old window.
+		 * @return the {@link PersonRecord} of its info fields.
+		 */
+		public PersonRecord toRecord()
+		{
+			return record;
+		}
+	}
+
+	/**
+	 * Stand-in of the old Soldier window, keeps only the info field.
+	 */
+	private static class LegacySoldier extends LegacyPerson
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ObjectStreamField[] serialPersistentFields =
+		{
+			new ObjectStreamField("asteriskLabel", Object.class),
+			new ObjectStreamField("personalNumber", String.class),
+			new ObjectStreamField("personalNumberTextField", Object.class)
+		};
+
+		private transient String personalNumber;
+
+		/**
+		 * This method reads the personal number of the old window.
+		 * @param in holds the stream of the old window.
+		 * @throws IOException if the stream can't be read.
+		 * @throws ClassNotFoundException if a class of a field isn't found.
+		 */
+		private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException
+		{
+			personalNumber = (String)in.readFields().get("personalNumber", "");
+		}
+
+		/**
+		 * Overriden method which returns the soldier of the old window.
+		 * @return the {@link SoldierRecord} of its info fields.
+		 */
+		@Override
+		public PersonRecord toRecord()
+		{
+			return new SoldierRecord(super.toRecord(), personalNumber);
+		}
+	}
+
+	/**
+	 * Stand-in of the old Student window, keeps only the info field.
+	 */
+	private static class LegacyStudent extends LegacyPerson
+	{
+		private static final long serialVersionUID = 1L;
+
+		private static final ObjectStreamField[] serialPersistentFields =
+		{
+			new ObjectStreamField("asteriskLabel", Object.class),
+			new ObjectStreamField("studentID", String.class),
+			new ObjectStreamField("studentIDTextField", Object.class)
+		};
+
+		private transient String studentID;
+
+		/**
+		 * This method reads the student ID of the old window.
+		 * @param in holds the stream of the old window.
+		 * @throws IOException if the stream can't be read.
+		 * @throws ClassNotFoundException if a class of a field isn't found.
+		 */
+		private void readObject(ObjectInputStream in)
+			throws IOException, ClassNotFoundException
+		{
+			studentID = (String)in.readFields().get("studentID", "");
+		}
+
+		/**
+		 * Overriden method which returns the student of the old window.
+		 * @return the {@link StudentRecord} of its info fields.
+		 */
+		@Override
+		public PersonRecord toRecord()
+		{
+			return new StudentRecord(super.toRecord(), studentID);
+		}
+	}
+}
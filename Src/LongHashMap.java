@@ -0,0 +1,239 @@
+import java.util.function.*;
+
+/**
+ * This class is a hash map from primitive long keys to values.
+ * <br> The keys and values are kept in two arrays and a key is found by open
+ * addressing with linear probing, so a lookup doesn't box the key, doesn't
+ * call equals and doesn't follow an entry object. A removed key moves the
+ * keys after it back instead of leaving a mark, so lookups never get slower
+ * as keys are removed.
+ * <br> Null values aren't allowed, an empty place is a null value.
+ * @author Lior Sabri, Ben Biton
+ * @param <V> the type of the values.
+ */
+public class LongHashMap<V>
+{
+	private static final int MIN_CAPACITY = 16;
+
+	// The map grows when it is 3/4 full.
+	private static final int LOAD_NUMERATOR = 3;
+	private static final int LOAD_DENOMINATOR = 4;
+
+	private long[] keys;
+	private Object[] values;
+	private int mask;
+	private int size;
+
+	/**
+	 * LongHashMap Empty Constructor - initializes an empty map.
+	 */
+	public LongHashMap()
+	{
+		this(0);
+	}
+
+	/**
+	 * LongHashMap Constructor - initializes a map which holds the expected
+	 * number of keys without growing.
+	 * @param expectedSize holds the number of keys expected.
+	 */
+	public LongHashMap(int expectedSize)
+	{
+		int capacity = MIN_CAPACITY;
+
+		while ((long)capacity * LOAD_NUMERATOR / LOAD_DENOMINATOR < expectedSize)
+		{
+			capacity <<= 1;
+		}
+
+		allocate(capacity);
+	}
+
+	/**
+	 * This method returns the value of a key.
+	 * @param key holds the key.
+	 * @return the value or null if the key isn't in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		for (int i = indexOf(key); values[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i] == key)
+			{
+				return (V)values[i];
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method checks whether the key is in the map.
+	 * @param key holds the key.
+	 * @return true or false whether the key is in the map.
+	 */
+	public boolean containsKey(long key)
+	{
+		return get(key) != null;
+	}
+
+	/**
+	 * This method maps a key to a value.
+	 * @param key holds the key.
+	 * @param value holds the value, not null.
+	 * @return the old value of the key or null if it wasn't in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null)
+		{
+			throw new NullPointerException("value");
+		}
+
+		int i = indexOf(key);
+
+		for (; values[i] != null; i = (i + 1) & mask)
+		{
+			if (keys[i] == key)
+			{
+				V oldValue = (V)values[i];
+				values[i] = value;
+
+				return oldValue;
+			}
+		}
+
+		keys[i] = key;
+		values[i] = value;
+
+		if (++size > (long)keys.length * LOAD_NUMERATOR / LOAD_DENOMINATOR)
+		{
+			grow();
+		}
+
+		return null;
+	}
+
+	/**
+	 * This method returns the value of a key, a key which isn't in the map is
+	 * first mapped to the value made by the function.
+	 * @param key holds the key.
+	 * @param function makes the value of a key which isn't in the map.
+	 * @return the value of the key.
+	 */
+	public V computeIfAbsent(long key, LongFunction<? extends V> function)
+	{
+		V value = get(key);
+
+		if (value == null)
+		{
+			value = function.apply(key);
+			put(key, value);
+		}
+
+		return value;
+	}
+
+	/**
+	 * This method removes a key from the map.
+	 * @param key holds the key.
+	 * @return the value of the key or null if it wasn't in the map.
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int i = indexOf(key);
+
+		while (values[i] != null && keys[i] != key)
+		{
+			i = (i + 1) & mask;
+		}
+
+		if (values[i] == null)
+		{
+			return null;
+		}
+
+		V oldValue = (V)values[i];
+
+		// Move back the keys after it which would no longer be found.
+		for (int next = (i + 1) & mask; values[next] != null; next = (next + 1) & mask)
+		{
+			int home = indexOf(keys[next]);
+
+			if (((next - home) & mask) >= ((next - i) & mask))
+			{
+				keys[i] = keys[next];
+				values[i] = values[next];
+				i = next;
+			}
+		}
+
+		values[i] = null;
+		size--;
+
+		return oldValue;
+	}
+
+	/**
+	 * This method returns the number of keys in the map.
+	 * @return the size of the map.
+	 */
+	public int size()
+	{
+		return size;
+	}
+
+	/**
+	 * This method returns the first place to look for a key.
+	 * @param key holds the key.
+	 * @return the index in the arrays.
+	 */
+	private int indexOf(long key)
+	{
+		// Spread keys which differ only in their low digits over the table.
+		long hash = key * 0x9E3779B97F4A7C15L;
+
+		return (int)(hash ^ (hash >>> 32)) & mask;
+	}
+
+	/**
+	 * This method doubles the arrays and places the keys in them again.
+	 */
+	private void grow()
+	{
+		long[] oldKeys = keys;
+		Object[] oldValues = values;
+
+		allocate(keys.length * 2);
+
+		for (int i = 0; i < oldKeys.length; i++)
+		{
+			if (oldValues[i] != null)
+			{
+				int j = indexOf(oldKeys[i]);
+
+				while (values[j] != null)
+				{
+					j = (j + 1) & mask;
+				}
+
+				keys[j] = oldKeys[i];
+				values[j] = oldValues[i];
+			}
+		}
+	}
+
+	/**
+	 * This method allocates empty arrays.
+	 * @param capacity holds the length of the arrays, a power of 2.
+	 */
+	private void allocate(int capacity)
+	{
+		keys = new long[capacity];
+		values = new Object[capacity];
+		mask = capacity - 1;
+	}
+}
@@ -0,0 +1,1522 @@
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.locks.*;
+import java.util.function.*;
+import java.util.zip.*;
+
+/**
+ * This class implements {@link ClubbersStore} and {@link java.io.Closeable}.
+ * <br> This class keeps the clubbers in a memory-mapped file of fixed size
+ * slots and an index file which maps every key to the slot of its clubber, so
+ * opening the store doesn't read the clubbers and finding one only touches the
+ * pages of its index entry and its slot, the operating system caches the pages
+ * that are used.
+ * <br> The slots file starts with the magic number "BKSL", the format version,
+ * the size of a slot, the number of slots used so far, the number of clubbers,
+ * the first free slot and the ID of the store. Every slot holds the length of the record body, a
+ * CRC-32 checksum of the body and the body as written by
+ * {@link ClubbersFile#encode}, a free slot has no length and holds the next
+ * free slot instead.
+ * <br> The index file starts with the magic number "BKSI", the format version,
+ * whether it was closed cleanly, the number of entries it has room for, the
+ * number of entries in use and the ID of the store it was built for. It is an open addressing hash table of the ID,
+ * personal number and student numbers of every clubber (the same keys as
+ * {@link ClubbersRepository}), every entry holds the hash of the key and its
+ * slot and is checked against the record in the slot.
+ * <br> A change only marks its segment as dirty, a {@link ClubbersFlusher}
+ * forces the dirty segments to the disk together shortly after, so a burst
+ * of changes costs a single force and the thread that made them never waits
+ * for the disk. The index is only forced when the store is closed. If the
+ * program stops before that the index is built again from the slots the next
+ * time the store is opened.
+ * <br> The store gets a new random ID every time it is opened, written into
+ * both files, so an index is only used with the slots it was closed with. A
+ * slots file which was created or replaced, like one restored from a backup,
+ * has another ID and its index is built again.
+ * <br> The hashes of the index entries are also kept in a
+ * {@link ClubbersBloomFilter} in memory, built from the index when the store
+ * is opened, so a key which no clubber has is rejected without touching the
+ * pages of the index or reading a slot.
+ * <br> The used slots are kept in a bitmap in memory together with the
+ * number of used slots in every block of slots, built the first time a page
+ * is read, so a page at any position is found by skipping whole blocks.
+ * <br> The store may be used by several threads, lookups share a read lock
+ * and changes take the write lock one at a time.
+ * @author Lior Sabri, Ben Biton
+ */
+public class MappedClubbersStore implements ClubbersStore, Closeable
+{
+	// "BKSL" and "BKSI" in ASCII.
+	public static final int MAGIC = 0x424B534C;
+	public static final int INDEX_MAGIC = 0x424B5349;
+	public static final short VERSION = 1;
+
+	// A slot is the record body, its length and its checksum.
+	public static final int SLOT_SIZE = 256;
+	public static final int MAX_RECORD_SIZE = SLOT_SIZE - 2 - 4;
+
+	// The slots file header takes a whole slot so slots don't cross pages.
+	private static final int HEADER_SIZE = SLOT_SIZE;
+	private static final int SLOT_COUNT_POSITION = 12;
+	private static final int CLUBBER_COUNT_POSITION = 16;
+	private static final int FREE_SLOT_POSITION = 20;
+	private static final int STORE_ID_POSITION = 24;
+
+	// Slots are mapped in segments since a single mapping is limited to 2GB.
+	private static final int SLOTS_PER_SEGMENT = 64 * 1024;
+	private static final int SEGMENT_SIZE = SLOTS_PER_SEGMENT * SLOT_SIZE;
+
+	// Slots whose used slots are counted together to find a page.
+	private static final int SLOTS_PER_BLOCK = 1024;
+
+	private static final int INDEX_HEADER_SIZE = 32;
+	private static final int CLEAN_POSITION = 6;
+	private static final int CAPACITY_POSITION = 8;
+	private static final int USED_POSITION = 12;
+	private static final int LIVE_POSITION = 16;
+	private static final int INDEX_STORE_ID_POSITION = 20;
+	private static final int MIN_INDEX_CAPACITY = 1024;
+
+	// Kinds of keys in the index.
+	private static final int ID_KEY = 0;
+	private static final int PERSONAL_NUMBER_KEY = 1;
+	private static final int STUDENT_NUMBERS_KEY = 2;
+
+	// Index entries, the hash of the key in the high half and the slot + 1 in
+	// the low half.
+	private static final long EMPTY = 0;
+	private static final int DELETED = -1;
+
+	private final Path path;
+	private final Path indexPath;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final ArrayList<MappedByteBuffer> segments;
+
+	private FileChannel indexChannel;
+	private MappedByteBuffer index;
+	private int indexCapacity;
+
+	// The hash of every key in the index, with keys removed since it was built.
+	private ClubbersBloomFilter keyFilter;
+
+	private final CRC32 checksum;
+
+	private final ReentrantReadWriteLock lock;
+
+	// The segments changed since the last flush, guarded by the lock.
+	private final BitSet dirtySegments;
+	private final ClubbersFlusher flusher;
+
+	// The used slots and the number of used slots in every block, null until
+	// the first page is read. Guarded by the lock, readers build them while
+	// holding usedSlotsLock.
+	private volatile BitSet usedSlots;
+	private int[] usedSlotCounts;
+	private final Object usedSlotsLock;
+
+	/**
+	 * MappedClubbersStore Constructor - opens the slots file and its index,
+	 * both are created if they don't exist and the index is built again if it
+	 * wasn't closed cleanly or doesn't belong to the slots file.
+	 * @param path holds the slots file, the index is kept next to it with an
+	 * ".idx" suffix.
+	 * @throws IOException if a file can't be opened or isn't a store.
+	 */
+	public MappedClubbersStore(Path path) throws IOException
+	{
+		this.path = path;
+		indexPath = path.resolveSibling(path.getFileName() + ".idx");
+		segments = new ArrayList<>();
+		checksum = new CRC32();
+		lock = new ReentrantReadWriteLock();
+		dirtySegments = new BitSet();
+		keyFilter = new ClubbersBloomFilter(0);
+		usedSlotsLock = new Object();
+
+		channel = FileChannel.open(path, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+
+		try
+		{
+			boolean created = channel.size() < HEADER_SIZE;
+
+			header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+
+			if (created)
+			{
+				header.putInt(0, MAGIC).putShort(4, VERSION).putInt(8, SLOT_SIZE);
+				header.putInt(SLOT_COUNT_POSITION, 0).putInt(CLUBBER_COUNT_POSITION, 0);
+				header.putInt(FREE_SLOT_POSITION, -1);
+				header.force();
+			}
+			else if (header.getInt(0) != MAGIC)
+			{
+				throw new IOException(path + " is not a clubbers store");
+			}
+			else if (header.getShort(4) > VERSION)
+			{
+				throw new IOException(String.format(
+					"%s was written by a newer version (%d)", path, header.getShort(4)));
+			}
+			else if (header.getInt(8) != SLOT_SIZE)
+			{
+				throw new IOException(String.format(
+					"%s has slots of %d bytes", path, header.getInt(8)));
+			}
+
+			long size = channel.size();
+
+			while (HEADER_SIZE + (long)segments.size() * SEGMENT_SIZE < size)
+			{
+				mapSegment();
+			}
+
+			// A new slots file has no index yet, whatever file is next to it.
+			if (created || !openIndex())
+			{
+				rebuildIndex();
+			}
+
+			buildKeyFilter();
+
+			// Until the store is closed the index may not match the slots.
+			index.put(CLEAN_POSITION, (byte)0);
+			index.force();
+
+			// An index left from this opening is never taken for another one.
+			long storeID = new Random().nextLong();
+
+			index.putLong(INDEX_STORE_ID_POSITION, storeID);
+			index.force();
+			header.putLong(STORE_ID_POSITION, storeID);
+			header.force();
+		}
+		catch (IOException | RuntimeException e)
+		{
+			closeFiles();
+			throw e;
+		}
+
+		flusher = new ClubbersFlusher(path.getFileName().toString(),
+			ClubbersFlusher.DEFAULT_DELAY, this::flush);
+	}
+
+	/**
+	 * This method finds the clubber which matches the key in the index, the ID
+	 * is checked first, then the personal number and then the student numbers.
+	 * @param key may hold an id, personalNumber or numbers of a studentID.
+	 * @return the matching record or null if no clubber matches the key.
+	 */
+	@Override
+	public ClubAbstractRecord find(String key)
+	{
+		if (key == null)
+		{
+			return null;
+		}
+
+		lock.readLock().lock();
+
+		try
+		{
+			int slot = findSlot(ID_KEY, key);
+
+			if (slot < 0)
+			{
+				slot = findSlot(PERSONAL_NUMBER_KEY, key);
+			}
+
+			// StudentRecord#match compares only the first letters of the key.
+			if (slot < 0 && key.length() >= ClubbersRepository.STUDENT_NUMBERS_LENGTH)
+			{
+				slot = findSlot(STUDENT_NUMBERS_KEY,
+					key.substring(0, ClubbersRepository.STUDENT_NUMBERS_LENGTH));
+			}
+
+			return slot < 0 ? null : read(slot);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method finds the clubber with the ID in the index.
+	 * @param id holds the ID to find.
+	 * @return the record or null if no clubber has the ID.
+	 */
+	@Override
+	public ClubAbstractRecord findByID(String id)
+	{
+		lock.readLock().lock();
+
+		try
+		{
+			int slot = findSlot(ID_KEY, id);
+
+			return slot < 0 ? null : read(slot);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method checks whether a clubber with the ID exists, the key filter
+	 * rejects most IDs no clubber has without touching the index.
+	 * @param id holds the ID to check.
+	 * @return true or false whether the ID exists.
+	 */
+	@Override
+	public boolean containsID(String id)
+	{
+		lock.readLock().lock();
+
+		try
+		{
+			return findSlot(ID_KEY, id) >= 0;
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method writes a record into a free slot and indexes its keys, the
+	 * slot is forced to the disk shortly after.
+	 * @param record holds the record to add.
+	 * @return true or false whether the record was added, a record will not be
+	 * added if its ID already exists.
+	 * @throws IllegalArgumentException if the record doesn't fit in a slot.
+	 * @throws UncheckedIOException if the store can't grow.
+	 */
+	@Override
+	public boolean add(ClubAbstractRecord record)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			return addRecord(record);
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method adds records with {@link #addRecord} under a single lock, records
+	 * with an ID that was already added are skipped.
+	 * @param records holds the records to add.
+	 * @return the number of records added.
+	 * @throws IllegalArgumentException if a record doesn't fit in a slot.
+	 * @throws UncheckedIOException if the store can't grow.
+	 */
+	@Override
+	public int addAll(Collection<? extends ClubAbstractRecord> records)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			int added = 0;
+
+			for (ClubAbstractRecord record : records)
+			{
+				if (addRecord(record))
+				{
+					added++;
+				}
+			}
+
+			return added;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method writes a record into a free slot and indexes its keys, the
+	 * write lock must be held.
+	 * @param record holds the record to add.
+	 * @return true or false whether the record was added.
+	 */
+	private boolean addRecord(ClubAbstractRecord record)
+	{
+		byte[] body = encode(record);
+
+		if (findSlot(ID_KEY, record.getID()) >= 0)
+		{
+			return false;
+		}
+
+		int slot = header.getInt(FREE_SLOT_POSITION);
+
+		if (slot >= 0)
+		{
+			header.putInt(FREE_SLOT_POSITION, segment(slot).getInt(offset(slot) + 2));
+		}
+		else
+		{
+			slot = header.getInt(SLOT_COUNT_POSITION);
+
+			if (slot == segments.size() * SLOTS_PER_SEGMENT)
+			{
+				try
+				{
+					mapSegment();
+				}
+				catch (IOException e)
+				{
+					throw new UncheckedIOException("Can't grow " + path, e);
+				}
+			}
+
+			header.putInt(SLOT_COUNT_POSITION, slot + 1);
+		}
+
+		write(slot, body);
+		header.putInt(CLUBBER_COUNT_POSITION, header.getInt(CLUBBER_COUNT_POSITION) + 1);
+		index(record, slot);
+		setUsed(slot, true);
+
+		return true;
+	}
+
+	/**
+	 * This method writes the edited record into the slot of the old one and
+	 * updates the index.
+	 * <br> Records are read from their slots every time, so the old record
+	 * is looked up by its ID.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 * @return true or false whether the record was replaced, a record will not
+	 * be replaced if the old record doesn't exist or the new ID belongs to
+	 * another clubber.
+	 * @throws IllegalArgumentException if the record doesn't fit in a slot.
+	 */
+	@Override
+	public boolean replace(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		byte[] body = encode(newRecord);
+
+		lock.writeLock().lock();
+
+		try
+		{
+			int slot = findSlot(ID_KEY, oldRecord.getID());
+
+			if (slot < 0)
+			{
+				return false;
+			}
+
+			int sameID = findSlot(ID_KEY, newRecord.getID());
+
+			if (sameID >= 0 && sameID != slot)
+			{
+				return false;
+			}
+
+			unindex(read(slot), slot);
+			write(slot, body);
+			index(newRecord, slot);
+
+			return true;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method frees the slot of the record and removes it from the index.
+	 * @param record holds the record to remove.
+	 * @return true or false whether the record existed.
+	 */
+	@Override
+	public boolean remove(ClubAbstractRecord record)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			int slot = findSlot(ID_KEY, record.getID());
+
+			if (slot < 0)
+			{
+				return false;
+			}
+
+			unindex(read(slot), slot);
+			free(slot);
+			header.putInt(CLUBBER_COUNT_POSITION, header.getInt(CLUBBER_COUNT_POSITION) - 1);
+
+			return true;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method frees the slots of every record which passes the filter
+	 * under a single lock and removes them from the index, the slots are
+	 * forced to the disk together shortly after.
+	 * @param filter holds the filter, it is run on every record before any is
+	 * removed so a filter which throws leaves the store as it was.
+	 * @return the number of records removed.
+	 */
+	@Override
+	public int removeIf(Predicate<? super ClubAbstractRecord> filter)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			ArrayList<ClubAbstractRecord> removed = new ArrayList<>();
+			BitSet slots = new BitSet();
+
+			for (int slot = nextUsedSlot(0); slot >= 0; slot = nextUsedSlot(slot + 1))
+			{
+				ClubAbstractRecord record = read(slot);
+
+				if (record != null && filter.test(record))
+				{
+					removed.add(record);
+					slots.set(slot);
+				}
+			}
+
+			if (removed.isEmpty())
+			{
+				return 0;
+			}
+
+			// Going backwards leaves the free slots in order.
+			int i = removed.size();
+
+			for (int slot = slots.length() - 1; slot >= 0; slot = slots.previousSetBit(slot - 1))
+			{
+				unindex(removed.get(--i), slot);
+				free(slot);
+			}
+
+			header.putInt(CLUBBER_COUNT_POSITION,
+				header.getInt(CLUBBER_COUNT_POSITION) - removed.size());
+			buildKeyFilter();
+
+			return removed.size();
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method writes the edited version of every record into its slot
+	 * under a single lock and updates the index, like {@link #replace} for
+	 * each of them in the order of their slots.
+	 * @param editor holds the editor, it returns the edited record or the
+	 * same record or null to keep it. It is run on every record before any
+	 * is replaced so an editor which throws leaves the store as it was.
+	 * @return the number of records replaced, an edited record will not
+	 * replace its record if its ID belongs to another clubber.
+	 * @throws IllegalArgumentException if an edited record doesn't fit in a
+	 * slot, no record is replaced.
+	 */
+	@Override
+	public int replaceAll(UnaryOperator<ClubAbstractRecord> editor)
+	{
+		lock.writeLock().lock();
+
+		try
+		{
+			ArrayList<ClubAbstractRecord> oldRecords = new ArrayList<>();
+			ArrayList<ClubAbstractRecord> newRecords = new ArrayList<>();
+			ArrayList<byte[]> bodies = new ArrayList<>();
+			BitSet slots = new BitSet();
+
+			for (int slot = nextUsedSlot(0); slot >= 0; slot = nextUsedSlot(slot + 1))
+			{
+				ClubAbstractRecord oldRecord = read(slot);
+
+				if (oldRecord == null)
+				{
+					continue;
+				}
+
+				ClubAbstractRecord newRecord = editor.apply(oldRecord);
+
+				if (newRecord != null && newRecord != oldRecord)
+				{
+					oldRecords.add(oldRecord);
+					newRecords.add(newRecord);
+					bodies.add(encode(newRecord));
+					slots.set(slot);
+				}
+			}
+
+			int replaced = 0;
+			int slot = -1;
+
+			for (int i = 0; i < newRecords.size(); i++)
+			{
+				slot = slots.nextSetBit(slot + 1);
+
+				int sameID = findSlot(ID_KEY, newRecords.get(i).getID());
+
+				if (sameID >= 0 && sameID != slot)
+				{
+					continue;
+				}
+
+				unindex(oldRecords.get(i), slot);
+				write(slot, bodies.get(i));
+				index(newRecords.get(i), slot);
+				replaced++;
+			}
+
+			return replaced;
+		}
+		finally
+		{
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * This method returns the number of clubbers kept in the slots file header.
+	 * @return the number of clubbers.
+	 */
+	@Override
+	public int size()
+	{
+		lock.readLock().lock();
+
+		try
+		{
+			return header.getInt(CLUBBER_COUNT_POSITION);
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * This method returns a read only view of the records in the order of
+	 * their slots, every record is read from its slot while iterating, see
+	 * {@link #iterator}.
+	 * @return a {@link java.util.Collection} of the records.
+	 */
+	@Override
+	public Collection<ClubAbstractRecord> getClubbers()
+	{
+		return new AbstractCollection<ClubAbstractRecord>()
+		{
+			/**
+			 * Overriden method which iterates over the records of the store.
+			 * @return the iterator of {@link MappedClubbersStore#iterator}.
+			 */
+			@Override
+			public Iterator<ClubAbstractRecord> iterator()
+			{
+				return MappedClubbersStore.this.iterator();
+			}
+
+			/**
+			 * Overriden method which returns the number of clubbers of the store.
+			 * @return the number of clubbers.
+			 */
+			@Override
+			public int size()
+			{
+				return MappedClubbersStore.this.size();
+			}
+		};
+	}
+
+	/**
+	 * This method returns a page of the records in the order of their slots,
+	 * the first slot of the page is found with {@link #usedSlot} without
+	 * reading the slots before it.
+	 * @param from holds the position of the first record.
+	 * @param count holds the most records to return.
+	 * @return a {@link java.util.List} of up to count records.
+	 */
+	@Override
+	public List<ClubAbstractRecord> getClubbers(int from, int count)
+	{
+		ArrayList<ClubAbstractRecord> page = new ArrayList<>(Math.min(count, 1024));
+
+		lock.readLock().lock();
+
+		try
+		{
+			BitSet used = buildUsedSlots();
+			int slot = usedSlot(from);
+
+			while (slot >= 0 && page.size() < count)
+			{
+				page.add(read(slot));
+				slot = used.nextSetBit(slot + 1);
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		return page;
+	}
+
+	/**
+	 * This method returns an iterator over the records in the order of their
+	 * slots.
+	 * <br> Every record is read under the read lock together with finding the
+	 * next one, so changes made while iterating are seen for slots not
+	 * reached yet and never half made.
+	 * @return a read only {@link java.util.Iterator}.
+	 */
+	@Override
+	public Iterator<ClubAbstractRecord> iterator()
+	{
+		return new Iterator<ClubAbstractRecord>()
+		{
+			// The slot after the one of the next record.
+			private int slot;
+
+			private ClubAbstractRecord next = readFrom(0);
+
+			/**
+			 * Overriden method which checks whether a record is left.
+			 * @return true or false whether a record was read ahead.
+			 */
+			@Override
+			public boolean hasNext()
+			{
+				return next != null;
+			}
+
+			/**
+			 * Overriden method which returns the record read ahead and reads the
+			 * one after it.
+			 * @return the next record.
+			 * @throws NoSuchElementException if no record is left.
+			 */
+			@Override
+			public ClubAbstractRecord next()
+			{
+				if (next == null)
+				{
+					throw new NoSuchElementException();
+				}
+
+				ClubAbstractRecord record = next;
+				next = readFrom(slot);
+
+				return record;
+			}
+
+			/**
+			 * This method reads the record in the first used slot from a slot.
+			 * @param from holds the slot to start from.
+			 * @return the record or null if there are no more records.
+			 */
+			private ClubAbstractRecord readFrom(int from)
+			{
+				lock.readLock().lock();
+
+				try
+				{
+					for (int used = nextUsedSlot(from); used >= 0; used = nextUsedSlot(used + 1))
+					{
+						ClubAbstractRecord record = read(used);
+
+						if (record != null)
+						{
+							slot = used + 1;
+							return record;
+						}
+					}
+
+					return null;
+				}
+				finally
+				{
+					lock.readLock().unlock();
+				}
+			}
+		};
+	}
+
+	/**
+	 * This method forces the segments changed since the last flush and the
+	 * header to the disk.
+	 * <br> It is invoked in the background shortly after a change, see
+	 * {@link ClubbersFlusher}, the segments are forced without the lock so
+	 * changes may be made meanwhile.
+	 * @throws UncheckedIOException if a segment can't be forced, the
+	 * segments are forced again by the next flush.
+	 */
+	public synchronized void flush()
+	{
+		BitSet dirty;
+		ArrayList<MappedByteBuffer> forced = new ArrayList<>();
+
+		lock.readLock().lock();
+
+		try
+		{
+			dirty = (BitSet)dirtySegments.clone();
+			dirtySegments.clear();
+
+			for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1))
+			{
+				forced.add(segments.get(i));
+			}
+		}
+		finally
+		{
+			lock.readLock().unlock();
+		}
+
+		if (forced.isEmpty())
+		{
+			return;
+		}
+
+		try
+		{
+			for (MappedByteBuffer segment : forced)
+			{
+				segment.force();
+			}
+
+			header.force();
+		}
+		catch (UncheckedIOException e)
+		{
+			lock.writeLock().lock();
+
+			try
+			{
+				dirtySegments.or(dirty);
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+
+			throw e;
+		}
+	}
+
+	/**
+	 * This method forces the slots and the index to the disk, marks the index
+	 * as closed cleanly and closes both files.
+	 * @throws IOException if a file can't be closed.
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		flusher.close();
+		lock.writeLock().lock();
+
+		try
+		{
+			if (index != null)
+			{
+				for (MappedByteBuffer segment : segments)
+				{
+					segment.force();
+				}
+
+				header.force();
+				index.force();
+				index.put(CLEAN_POSITION, (byte)1);
+				index.force();
+			}
+		}
+		finally
+		{
+			try
+			{
+				closeFiles();
+			}
+			finally
+			{
+				lock.writeLock().unlock();
+			}
+		}
+	}
+
+	/**
+	 * This method closes the files without marking the index as closed cleanly.
+	 * @throws IOException if a file can't be closed.
+	 */
+	private void closeFiles() throws IOException
+	{
+		try
+		{
+			if (indexChannel != null)
+			{
+				indexChannel.close();
+			}
+		}
+		finally
+		{
+			channel.close();
+		}
+	}
+
+	/**
+	 * This method finds the slot of the clubber with the key.
+	 * <br> Student numbers and personal numbers may repeat, the clubber in the
+	 * first slot is found.
+	 * @param kind holds the kind of key.
+	 * @param key holds the key.
+	 * @return the slot or -1 if no clubber has the key.
+	 */
+	private int findSlot(int kind, String key)
+	{
+		if (key == null)
+		{
+			return -1;
+		}
+
+		int hash = hash(kind, key);
+
+		if (!keyFilter.mightContain(hash))
+		{
+			return -1;
+		}
+
+		int mask = indexCapacity - 1;
+		int found = -1;
+
+		for (int i = hash & mask; ; i = (i + 1) & mask)
+		{
+			long entry = index.getLong(INDEX_HEADER_SIZE + i * 8);
+
+			if (entry == EMPTY)
+			{
+				return found;
+			}
+
+			int slot = (int)entry - 1;
+
+			if ((int)(entry >>> 32) != hash || slot < 0 || (found >= 0 && slot > found))
+			{
+				continue;
+			}
+
+			if (key.equals(keyOf(kind, read(slot))))
+			{
+				if (kind == ID_KEY)
+				{
+					return slot;
+				}
+
+				found = slot;
+			}
+		}
+	}
+
+	/**
+	 * This method adds the keys of a record to the index.
+	 * @param record holds the record.
+	 * @param slot holds the slot of the record.
+	 */
+	private void index(ClubAbstractRecord record, int slot)
+	{
+		for (int kind = ID_KEY; kind <= STUDENT_NUMBERS_KEY; kind++)
+		{
+			String key = keyOf(kind, record);
+
+			if (key != null)
+			{
+				int hash = hash(kind, key);
+
+				putEntry(hash, slot);
+				keyFilter.add(hash);
+			}
+		}
+
+		if (keyFilter.isFull())
+		{
+			buildKeyFilter();
+		}
+	}
+
+	/**
+	 * This method builds the key filter again from the entries of the index,
+	 * with room for as many entries again.
+	 */
+	private void buildKeyFilter()
+	{
+		ClubbersBloomFilter filter = new ClubbersBloomFilter(index.getInt(LIVE_POSITION) * 2);
+
+		for (int i = 0; i < indexCapacity; i++)
+		{
+			long entry = index.getLong(INDEX_HEADER_SIZE + i * 8);
+
+			if (entry != EMPTY && (int)entry != DELETED)
+			{
+				filter.add((int)(entry >>> 32));
+			}
+		}
+
+		keyFilter = filter;
+	}
+
+	/**
+	 * This method removes the keys of a record from the index.
+	 * @param record holds the record.
+	 * @param slot holds the slot of the record.
+	 */
+	private void unindex(ClubAbstractRecord record, int slot)
+	{
+		for (int kind = ID_KEY; kind <= STUDENT_NUMBERS_KEY; kind++)
+		{
+			String key = keyOf(kind, record);
+
+			if (key == null)
+			{
+				continue;
+			}
+
+			int hash = hash(kind, key);
+			int mask = indexCapacity - 1;
+			long target = ((long)hash << 32) | (slot + 1L);
+
+			for (int i = hash & mask; ; i = (i + 1) & mask)
+			{
+				int position = INDEX_HEADER_SIZE + i * 8;
+				long entry = index.getLong(position);
+
+				if (entry == EMPTY)
+				{
+					break;
+				}
+
+				if (entry == target)
+				{
+					index.putLong(position, ((long)hash << 32) | (DELETED & 0xFFFFFFFFL));
+					index.putInt(LIVE_POSITION, index.getInt(LIVE_POSITION) - 1);
+					break;
+				}
+			}
+		}
+	}
+
+	/**
+	 * This method puts an entry into the index, the index grows first if it
+	 * would be more than three quarters full.
+	 * @param hash holds the hash of the key.
+	 * @param slot holds the slot of the record.
+	 */
+	private void putEntry(int hash, int slot)
+	{
+		if ((index.getInt(USED_POSITION) + 1) * 4L > indexCapacity * 3L)
+		{
+			try
+			{
+				resizeIndex();
+			}
+			catch (IOException e)
+			{
+				throw new UncheckedIOException("Can't grow " + indexPath, e);
+			}
+		}
+
+		int mask = indexCapacity - 1;
+
+		for (int i = hash & mask; ; i = (i + 1) & mask)
+		{
+			int position = INDEX_HEADER_SIZE + i * 8;
+			long entry = index.getLong(position);
+
+			if (entry == EMPTY || (int)entry == DELETED)
+			{
+				if (entry == EMPTY)
+				{
+					index.putInt(USED_POSITION, index.getInt(USED_POSITION) + 1);
+				}
+
+				index.putLong(position, ((long)hash << 32) | (slot + 1L));
+				index.putInt(LIVE_POSITION, index.getInt(LIVE_POSITION) + 1);
+				return;
+			}
+		}
+	}
+
+	/**
+	 * This method opens the index file.
+	 * @return true or false whether the index was closed cleanly, was built
+	 * for the slots file by its ID and can be used as it is.
+	 * @throws IOException if the file can't be opened.
+	 */
+	private boolean openIndex() throws IOException
+	{
+		if (!Files.exists(indexPath))
+		{
+			return false;
+		}
+
+		indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+
+		if (indexChannel.size() < INDEX_HEADER_SIZE)
+		{
+			return false;
+		}
+
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+		indexCapacity = index.getInt(CAPACITY_POSITION);
+
+		return index.getInt(0) == INDEX_MAGIC && index.getShort(4) == VERSION &&
+			index.get(CLEAN_POSITION) == 1 && Integer.bitCount(indexCapacity) == 1 &&
+			INDEX_HEADER_SIZE + indexCapacity * 8L == indexChannel.size() &&
+			index.getLong(INDEX_STORE_ID_POSITION) == header.getLong(STORE_ID_POSITION) &&
+			header.getLong(STORE_ID_POSITION) != 0;
+	}
+
+	/**
+	 * This method builds the index again from the slots.
+	 * <br> Every mapped slot is checked since only the slots are forced
+	 * after the changes, slots which fail their checksum were only partly
+	 * written and are freed. The number of slots used, the number of clubbers and the
+	 * free slots are counted again.
+	 * @throws IOException if the index can't be written.
+	 */
+	private void rebuildIndex() throws IOException
+	{
+		int slotCount = segments.size() * SLOTS_PER_SEGMENT;
+
+		while (slotCount > 0 && !verify(slotCount - 1))
+		{
+			slotCount--;
+		}
+
+		createIndex(indexPath, capacityFor(slotCount * 3));
+
+		int clubberCount = 0;
+		int freeSlot = -1;
+
+		// Going backwards leaves the free slots in order.
+		for (int slot = slotCount - 1; slot >= 0; slot--)
+		{
+			ClubAbstractRecord record = verify(slot) ? read(slot) : null;
+
+			if (record == null)
+			{
+				ByteBuffer segment = segment(slot);
+				segment.putShort(offset(slot), (short)0);
+				segment.putInt(offset(slot) + 2, freeSlot);
+				freeSlot = slot;
+				continue;
+			}
+
+			index(record, slot);
+			clubberCount++;
+		}
+
+		header.putInt(SLOT_COUNT_POSITION, slotCount);
+		header.putInt(CLUBBER_COUNT_POSITION, clubberCount);
+		header.putInt(FREE_SLOT_POSITION, freeSlot);
+		header.force();
+
+		for (MappedByteBuffer segment : segments)
+		{
+			segment.force();
+		}
+	}
+
+	/**
+	 * This method copies the index into a new file of double the size, or the
+	 * same size if most of the used entries were deleted, and replaces the
+	 * index with it.
+	 * @throws IOException if the new file can't be written.
+	 */
+	private void resizeIndex() throws IOException
+	{
+		MappedByteBuffer oldIndex = index;
+		FileChannel oldChannel = indexChannel;
+		int oldCapacity = indexCapacity;
+
+		Path tempPath = indexPath.resolveSibling(indexPath.getFileName() + ".tmp");
+		createIndex(tempPath, capacityFor(oldIndex.getInt(LIVE_POSITION) + 1));
+		index.putLong(INDEX_STORE_ID_POSITION, oldIndex.getLong(INDEX_STORE_ID_POSITION));
+
+		for (int i = 0; i < oldCapacity; i++)
+		{
+			long entry = oldIndex.getLong(INDEX_HEADER_SIZE + i * 8);
+
+			if (entry != EMPTY && (int)entry != DELETED)
+			{
+				putEntry((int)(entry >>> 32), (int)entry - 1);
+			}
+		}
+
+		index.force();
+		oldChannel.close();
+		indexChannel.close();
+
+		Files.move(tempPath, indexPath, StandardCopyOption.REPLACE_EXISTING,
+			StandardCopyOption.ATOMIC_MOVE);
+
+		indexChannel = FileChannel.open(indexPath, StandardOpenOption.READ,
+			StandardOpenOption.WRITE);
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0, indexChannel.size());
+	}
+
+	/**
+	 * This method creates an empty index file and maps it as the index.
+	 * @param indexFile holds the file to create.
+	 * @param capacity holds the number of entries, a power of two.
+	 * @throws IOException if the file can't be created.
+	 */
+	private void createIndex(Path indexFile, int capacity) throws IOException
+	{
+		if (indexChannel != null && indexFile.equals(indexPath))
+		{
+			indexChannel.close();
+		}
+
+		indexChannel = FileChannel.open(indexFile, StandardOpenOption.READ,
+			StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+			StandardOpenOption.TRUNCATE_EXISTING);
+		index = indexChannel.map(FileChannel.MapMode.READ_WRITE, 0,
+			INDEX_HEADER_SIZE + capacity * 8L);
+		indexCapacity = capacity;
+
+		index.putInt(0, INDEX_MAGIC).putShort(4, VERSION).put(CLEAN_POSITION, (byte)0);
+		index.putInt(CAPACITY_POSITION, capacity).putInt(USED_POSITION, 0);
+		index.putInt(LIVE_POSITION, 0).putLong(INDEX_STORE_ID_POSITION, 0);
+	}
+
+	/**
+	 * This method returns the index capacity which keeps the entries at most
+	 * half of it.
+	 * @param entries holds the number of entries.
+	 * @return a power of two.
+	 */
+	private static int capacityFor(int entries)
+	{
+		int capacity = MIN_INDEX_CAPACITY;
+
+		while (capacity < entries * 2L)
+		{
+			capacity *= 2;
+		}
+
+		return capacity;
+	}
+
+	/**
+	 * This method maps the next segment of slots, the file grows to hold it.
+	 * @throws IOException if the file can't be mapped.
+	 */
+	private void mapSegment() throws IOException
+	{
+		segments.add(channel.map(FileChannel.MapMode.READ_WRITE,
+			HEADER_SIZE + (long)segments.size() * SEGMENT_SIZE, SEGMENT_SIZE));
+	}
+
+	/**
+	 * This method returns the mapped segment which holds the slot.
+	 * @param slot holds the slot.
+	 * @return the segment.
+	 */
+	private MappedByteBuffer segment(int slot)
+	{
+		return segments.get(slot / SLOTS_PER_SEGMENT);
+	}
+
+	/**
+	 * This method returns the position of the slot in its segment.
+	 * @param slot holds the slot.
+	 * @return the position.
+	 */
+	private static int offset(int slot)
+	{
+		return (slot % SLOTS_PER_SEGMENT) * SLOT_SIZE;
+	}
+
+	/**
+	 * This method reads the record in a slot.
+	 * @param slot holds the slot.
+	 * @return the record or null if the slot is free.
+	 */
+	private ClubAbstractRecord read(int slot)
+	{
+		ByteBuffer body = segment(slot).duplicate();
+		int offset = offset(slot);
+		int length = body.getShort(offset);
+
+		if (length <= 0 || length > MAX_RECORD_SIZE)
+		{
+			return null;
+		}
+
+		body.position(offset + 6).limit(offset + 6 + length);
+
+		return ClubbersFile.decode(body);
+	}
+
+	/**
+	 * This method checks the checksum of the record in a slot.
+	 * @param slot holds the slot.
+	 * @return true or false whether the slot holds a whole record.
+	 */
+	private boolean verify(int slot)
+	{
+		ByteBuffer body = segment(slot).duplicate();
+		int offset = offset(slot);
+		int length = body.getShort(offset);
+
+		if (length <= 0 || length > MAX_RECORD_SIZE)
+		{
+			return false;
+		}
+
+		body.position(offset + 6).limit(offset + 6 + length);
+
+		checksum.reset();
+		checksum.update(body);
+
+		return (int)checksum.getValue() == body.getInt(offset + 2);
+	}
+
+	/**
+	 * This method writes a record body into a slot.
+	 * @param slot holds the slot.
+	 * @param body holds the encoded record.
+	 */
+	private void write(int slot, byte[] body)
+	{
+		MappedByteBuffer segment = segment(slot);
+		int offset = offset(slot);
+
+		checksum.reset();
+		checksum.update(body, 0, body.length);
+
+		segment.putShort(offset, (short)body.length);
+		segment.putInt(offset + 2, (int)checksum.getValue());
+		((ByteBuffer)segment.duplicate().position(offset + 6)).put(body);
+		markDirty(slot);
+	}
+
+	/**
+	 * This method marks the segment of a changed slot as dirty, it is forced
+	 * to the disk by the next flush.
+	 * @param slot holds the changed slot.
+	 */
+	private void markDirty(int slot)
+	{
+		dirtySegments.set(slot / SLOTS_PER_SEGMENT);
+		flusher.markDirty();
+	}
+
+	/**
+	 * This method frees a slot and adds it to the free slots.
+	 * @param slot holds the slot.
+	 */
+	private void free(int slot)
+	{
+		MappedByteBuffer segment = segment(slot);
+		int offset = offset(slot);
+
+		segment.putShort(offset, (short)0);
+		segment.putInt(offset + 2, header.getInt(FREE_SLOT_POSITION));
+		header.putInt(FREE_SLOT_POSITION, slot);
+		markDirty(slot);
+		setUsed(slot, false);
+	}
+
+	/**
+	 * This method builds the bitmap of the used slots and their counts if it
+	 * wasn't built yet, the read lock or the write lock must be held.
+	 * @return the bitmap of the used slots.
+	 */
+	private BitSet buildUsedSlots()
+	{
+		BitSet used = usedSlots;
+
+		if (used != null)
+		{
+			return used;
+		}
+
+		synchronized (usedSlotsLock)
+		{
+			if (usedSlots == null)
+			{
+				int slotCount = header.getInt(SLOT_COUNT_POSITION);
+				int[] counts = new int[slotCount / SLOTS_PER_BLOCK + 1];
+
+				used = new BitSet(slotCount);
+
+				for (int slot = nextUsedSlot(0); slot >= 0; slot = nextUsedSlot(slot + 1))
+				{
+					used.set(slot);
+					counts[slot / SLOTS_PER_BLOCK]++;
+				}
+
+				usedSlotCounts = counts;
+				usedSlots = used;
+			}
+
+			return usedSlots;
+		}
+	}
+
+	/**
+	 * This method marks a slot as used or free in the bitmap of the used
+	 * slots if it was built, the write lock must be held.
+	 * @param slot holds the slot.
+	 * @param used holds whether the slot holds a record.
+	 */
+	private void setUsed(int slot, boolean used)
+	{
+		BitSet usedSlots = this.usedSlots;
+
+		if (usedSlots == null || usedSlots.get(slot) == used)
+		{
+			return;
+		}
+
+		int block = slot / SLOTS_PER_BLOCK;
+
+		if (block >= usedSlotCounts.length)
+		{
+			usedSlotCounts = Arrays.copyOf(usedSlotCounts,
+				Math.max(block + 1, usedSlotCounts.length * 2));
+		}
+
+		usedSlots.set(slot, used);
+		usedSlotCounts[block] += used ? 1 : -1;
+	}
+
+	/**
+	 * This method finds the slot of the record at a position in the order of
+	 * the slots, whole blocks before it are skipped by their counts and only
+	 * the bitmap of its block is gone over.
+	 * <br> The bitmap must have been built with {@link #buildUsedSlots}.
+	 * @param position holds the position of the record.
+	 * @return the slot or -1 if there are no more records.
+	 */
+	private int usedSlot(int position)
+	{
+		int[] counts = usedSlotCounts;
+		int block = 0;
+
+		while (block < counts.length && position >= counts[block])
+		{
+			position -= counts[block];
+			block++;
+		}
+
+		if (block == counts.length)
+		{
+			return -1;
+		}
+
+		int slot = usedSlots.nextSetBit(block * SLOTS_PER_BLOCK);
+
+		for (; position > 0; position--)
+		{
+			slot = usedSlots.nextSetBit(slot + 1);
+		}
+
+		return slot;
+	}
+
+	/**
+	 * This method finds the next slot which holds a record.
+	 * @param slot holds the slot to start from.
+	 * @return the slot or -1 if there are no more records.
+	 */
+	private int nextUsedSlot(int slot)
+	{
+		int slotCount = header.getInt(SLOT_COUNT_POSITION);
+
+		for (; slot < slotCount; slot++)
+		{
+			if (segment(slot).getShort(offset(slot)) > 0)
+			{
+				return slot;
+			}
+		}
+
+		return -1;
+	}
+
+	/**
+	 * This method encodes a record and checks that it fits in a slot.
+	 * @param record holds the record.
+	 * @return the body of the record.
+	 * @throws IllegalArgumentException if the record doesn't fit in a slot.
+	 */
+	private static byte[] encode(ClubAbstractRecord record)
+	{
+		byte[] body = ClubbersFile.encode(record);
+
+		if (body.length > MAX_RECORD_SIZE)
+		{
+			throw new IllegalArgumentException(String.format(
+				"Clubber %s takes %d bytes, more than a slot", record.getID(), body.length));
+		}
+
+		return body;
+	}
+
+	/**
+	 * This method returns a key of a record.
+	 * @param kind holds the kind of key.
+	 * @param record holds the record.
+	 * @return the key or null if the record doesn't have that kind of key.
+	 */
+	private static String keyOf(int kind, ClubAbstractRecord record)
+	{
+		switch (kind)
+		{
+			case ID_KEY:
+				return record.getID();
+			case PERSONAL_NUMBER_KEY:
+				return ClubbersRepository.personalNumberOf(record);
+			default:
+				return ClubbersRepository.studentNumbersOf(record);
+		}
+	}
+
+	/**
+	 * This method returns the hash of a key, spread over all the bits so
+	 * keys which only differ in their last letters don't crowd together.
+	 * @param kind holds the kind of key.
+	 * @param key holds the key.
+	 * @return the hash.
+	 */
+	private static int hash(int kind, String key)
+	{
+		int hash = (key.hashCode() * 31 + kind) * 0x9E3779B9;
+
+		return hash ^ (hash >>> 16);
+	}
+}
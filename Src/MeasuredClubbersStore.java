@@ -0,0 +1,327 @@
+import java.util.*;
+import java.util.function.*;
+
+/**
+ * This class implements {@link ClubbersStore}.
+ * <br> This class passes every method to another store and records its time
+ * and whether it threw in the {@link ClubbersMetrics}, so the same operations
+ * are measured for every kind of store.
+ * @author Lior Sabri, Ben Biton
+ */
+public class MeasuredClubbersStore implements ClubbersStore
+{
+	private final ClubbersStore store;
+
+	private final ClubbersMetrics.Operation findOperation;
+	private final ClubbersMetrics.Operation addOperation;
+	private final ClubbersMetrics.Operation replaceOperation;
+	private final ClubbersMetrics.Operation removeOperation;
+	private final ClubbersMetrics.Operation listOperation;
+
+	/**
+	 * MeasuredClubbersStore Constructor - measures a store.
+	 * @param store holds the store which holds the clubbers.
+	 */
+	public MeasuredClubbersStore(ClubbersStore store)
+	{
+		ClubbersMetrics metrics = ClubbersMetrics.getInstance();
+
+		this.store = store;
+		findOperation = metrics.getOperation(ClubbersMetrics.FIND);
+		addOperation = metrics.getOperation(ClubbersMetrics.ADD);
+		replaceOperation = metrics.getOperation(ClubbersMetrics.REPLACE);
+		removeOperation = metrics.getOperation(ClubbersMetrics.REMOVE);
+		listOperation = metrics.getOperation(ClubbersMetrics.LIST);
+	}
+
+	/**
+	 * This method returns the store which holds the clubbers.
+	 * @return the measured {@link ClubbersStore}.
+	 */
+	public ClubbersStore getStore()
+	{
+		return store;
+	}
+
+	/**
+	 * This method finds the clubber which matches the key in the store and
+	 * records it as a find.
+	 * @param key may hold an id, personalNumber or numbers of a studentID.
+	 * @return the matching record or null if no clubber matches the key.
+	 */
+	@Override
+	public ClubAbstractRecord find(String key)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			ClubAbstractRecord record = store.find(key);
+			failed = false;
+			return record;
+		}
+		finally
+		{
+			findOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method finds the clubber with the ID in the store and records it
+	 * as a find.
+	 * @param id holds the ID to find.
+	 * @return the record or null if no clubber has the ID.
+	 */
+	@Override
+	public ClubAbstractRecord findByID(String id)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			ClubAbstractRecord record = store.findByID(id);
+			failed = false;
+			return record;
+		}
+		finally
+		{
+			findOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method checks whether a clubber with the ID exists in the store and
+	 * records it as a find.
+	 * @param id holds the ID to check.
+	 * @return true or false whether the ID exists.
+	 */
+	@Override
+	public boolean containsID(String id)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			boolean contains = store.containsID(id);
+			failed = false;
+			return contains;
+		}
+		finally
+		{
+			findOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method adds a record to the store and records it as an add.
+	 * @param record holds the record to add.
+	 * @return true or false whether the record was added.
+	 */
+	@Override
+	public boolean add(ClubAbstractRecord record)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			boolean added = store.add(record);
+			failed = false;
+			return added;
+		}
+		finally
+		{
+			addOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method adds records to the store and records it as a single add.
+	 * @param records holds the records to add.
+	 * @return the number of records added.
+	 */
+	@Override
+	public int addAll(Collection<? extends ClubAbstractRecord> records)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			int added = store.addAll(records);
+			failed = false;
+			return added;
+		}
+		finally
+		{
+			addOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method replaces a record in the store and records it as a replace.
+	 * @param oldRecord holds the record that was edited.
+	 * @param newRecord holds the edited record.
+	 * @return true or false whether the record was replaced.
+	 */
+	@Override
+	public boolean replace(ClubAbstractRecord oldRecord, ClubAbstractRecord newRecord)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			boolean replaced = store.replace(oldRecord, newRecord);
+			failed = false;
+			return replaced;
+		}
+		finally
+		{
+			replaceOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method removes a record from the store and records it as a remove.
+	 * @param record holds the record to remove.
+	 * @return true or false whether the record existed.
+	 */
+	@Override
+	public boolean remove(ClubAbstractRecord record)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			boolean removed = store.remove(record);
+			failed = false;
+			return removed;
+		}
+		finally
+		{
+			removeOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method removes every record which passes a filter from the store
+	 * and records it as a single remove.
+	 * @param filter holds the filter.
+	 * @return the number of records removed.
+	 */
+	@Override
+	public int removeIf(Predicate<? super ClubAbstractRecord> filter)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			int removed = store.removeIf(filter);
+			failed = false;
+			return removed;
+		}
+		finally
+		{
+			removeOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method edits every record of the store and records it as a single
+	 * replace.
+	 * @param editor holds the editor.
+	 * @return the number of records replaced.
+	 */
+	@Override
+	public int replaceAll(UnaryOperator<ClubAbstractRecord> editor)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			int replaced = store.replaceAll(editor);
+			failed = false;
+			return replaced;
+		}
+		finally
+		{
+			replaceOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method returns the number of clubbers in the store, it isn't
+	 * measured.
+	 * @return the number of clubbers.
+	 */
+	@Override
+	public int size()
+	{
+		return store.size();
+	}
+
+	/**
+	 * This method returns the records of the store and records it as a list.
+	 * @return a {@link java.util.Collection} of the records.
+	 */
+	@Override
+	public Collection<ClubAbstractRecord> getClubbers()
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			Collection<ClubAbstractRecord> records = store.getClubbers();
+			failed = false;
+			return records;
+		}
+		finally
+		{
+			listOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method returns a page of the records of the store and records it as
+	 * a list.
+	 * @param from holds the position of the first record.
+	 * @param count holds the most records to return.
+	 * @return a {@link java.util.List} of up to count records.
+	 */
+	@Override
+	public List<ClubAbstractRecord> getClubbers(int from, int count)
+	{
+		long start = System.nanoTime();
+		boolean failed = true;
+
+		try
+		{
+			List<ClubAbstractRecord> records = store.getClubbers(from, count);
+			failed = false;
+			return records;
+		}
+		finally
+		{
+			listOperation.record(start, failed);
+		}
+	}
+
+	/**
+	 * This method returns an iterator over the records of the store, it isn't
+	 * measured.
+	 * @return the iterator of the store.
+	 */
+	@Override
+	public Iterator<ClubAbstractRecord> iterator()
+	{
+		return store.iterator();
+	}
+}
@@ -1,18 +1,25 @@
 // File: NightClubMgmtApp.java
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
 import javax.swing.*;
 import javax.swing.border.*;
+import javax.swing.filechooser.*;
 import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
+import java.nio.file.*;
 
 /**
  * This abstract class extends from {@link javax.swing.JFrame}.
  * The class provides a user interface which will be able to communicate in a 
  * user friendly manner.
- * <br> This Class holds an {@link java.util.ArrayList}&lt;{@link ClubAbstractEntity}&gt;
- * which provides a window with {@link javax.swing.JTextField} so the user can write
- * the clubbers info.
+ * <br> This Class holds a {@link ClubbersStore} of {@link ClubAbstractRecord}s
+ * with the clubbers info, a {@link ClubbersRepository} in memory or a
+ * {@link MappedClubbersStore} when started with "-mapped" or when its file
+ * exists, a {@link ClubAbstractEntity} window with
+ * {@link javax.swing.JTextField} so the user can write the clubbers info is only
+ * built when a clubber is created or searched.
  * <br> This class holds the inner class {@link ButtonsHandler} which listens
  * to the {@link javax.swing.JButton} searchButton, showListButton, clubberButton
  * and deleteButton.
@@ -27,14 +34,25 @@ import java.io.*;
  */
 public class NightClubMgmtApp extends JFrame
 {
+	private static final Logger LOGGER = Logger.getLogger(NightClubMgmtApp.class.getName());
+	
+	// Opens the clubbers and keeps them saved.
+	private ClubbersDatabase database;
+	
 	// Night-Club Regular Customer Repository.
-	private ArrayList<ClubAbstractEntity> clubbers;
+	private ClubbersStore clubbers;
+	
+	// Prefix index over the names and surnames of the clubbers, built by the
+	// loader and kept up to date with every change.
+	private ClubbersNameIndex nameIndex;
 	
 	// JButtons which provide the same functionality as their name.
 	private JButton searchButton;
 	private JButton showListButton;
 	private JButton clubberButton; 
 	private JButton deleteButton;
+	private JButton importButton;
+	private JButton exportButton;
 	
 	// JRadioButtons which help choose the type of the clubber.
 	private JRadioButton personRadioButton;
@@ -44,6 +62,15 @@ public class NightClubMgmtApp extends JFrame
 	// Main JPanel that holds other GUI elements.
 	private ImagePanel overlayPanel;
 	
+	// Shows the progress of loading the clubbers, removed once they are loaded.
+	private JProgressBar loadProgressBar;
+	
+	// Loads the clubbers in the background.
+	private ClubbersLoader loader;
+	
+	// Imports or exports clubbers in the background, null if none was started.
+	private volatile SwingWorker<?, ?> bulkTask;
+	
 	// Holds the 'this' of the class.
 	private JFrame self;
 	
@@ -60,14 +87,19 @@ public class NightClubMgmtApp extends JFrame
 	 * {@link javax.swing.ButtonGroup} with the method {@link #createButtonPanel}.
 	 * <br> Initializes {@link javax.swing.JButton} and {@link ButtonsHandler}
 	 * with the method {@link #createButtonPanel}.
-	 * <br> Initializes the {@link java.util.ArrayList}&lt;{@link ClubAbstractEntity}&gt;
-	 * and read from file with method {@link #loadClubbersDBFromFile} and when 
+	 * <br> The clubbers are loaded in the background by a {@link ClubbersLoader}
+	 * while a {@link javax.swing.JProgressBar} is shown and the buttons are
+	 * disabled, they are opened by a {@link ClubbersDatabase} which keeps them
+	 * in a {@link MappedClubbersStore} if mapped is true or its file exists,
+	 * otherwise in a {@link ClubbersRepository} read from file, every
+	 * change is then written to the {@link ClubbersJournal} and when 
 	 * closing the program there is a {@link java.awt.event.WindowListener} which
 	 * Overrides the method {@link java.awt.event.WindowAdapter#windowClosing}
-	 * which when invoked it will write the clubbers data to a file with the 
-	 * method {@link #writeClubbersDBtoFile}.
+	 * which when invoked it will exit the program without waiting, a shutdown
+	 * hook then closes the database with {@link ClubbersDatabase#close}.
+	 * @param mapped holds whether to keep the clubbers in a memory-mapped file.
 	 */
-	public NightClubMgmtApp()
+	public NightClubMgmtApp(boolean mapped)
 	{
 		super("Night Club Management App");
 		
@@ -107,6 +139,14 @@ public class NightClubMgmtApp extends JFrame
 		
 		createButtonPanel();
 		
+		// Show the loading progress below the buttons, which can't be used
+		// until the clubbers are loaded.
+		loadProgressBar = new JProgressBar(0, 100);
+		loadProgressBar.setStringPainted(true);
+		loadProgressBar.setString("Loading clubbers...");
+		overlayPanel.add(loadProgressBar);
+		setButtonsEnabled(false);
+		
 		// Get size of screen and set width and hieght to make the program
 		// appear in a fitting size to the screen.
 		Dimension screenSize = Toolkit.getDefaultToolkit().getScreenSize();
@@ -118,27 +158,65 @@ public class NightClubMgmtApp extends JFrame
 		setLocationRelativeTo(null);
 		setVisible(true); 
 		setResizable(false);
-		setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+		setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
+		
+		database = new ClubbersDatabase();
+		clubbers = database.getClubbers();
 		
-		clubbers = new ArrayList<>();
-		loadClubbersDBFromFile();
+		loader = new ClubbersLoader(mapped);
+		loader.execute();
+		
+		// Closes the database when the program exits, also when it is
+		// stopped without closing the window.
+		Runtime.getRuntime().addShutdownHook(new Thread(this::closeDatabase,
+			"Clubbers Shutdown"));
 		
 		addWindowListener(new WindowAdapter()
         {
         	/**
-        	 * Overriden method which invokes the method 
-        	 * {@link #writeClubbersDBtoFile} while closing the window.
+        	 * Overriden method which exits the program while closing the
+        	 * window, the clubbers database is closed by the shutdown hook on
+        	 * another thread so the window never waits for the disk.
         	 * @param event Holds the current event.
         	 */
             @Override
             public void windowClosing(WindowEvent event)
             {
-            	writeClubbersDBtoFile();
-                System.exit(0);
+            	new Thread(() -> System.exit(0), "Clubbers Exit").start();
             }
         });
 	}
 
+	/**
+	 * This method closes the clubbers database with
+	 * {@link ClubbersDatabase#close}, it is invoked by the shutdown hook.
+	 * <br> If the clubbers are still loading, being imported or exported
+	 * it waits for them first.
+	 */
+	private void closeDatabase()
+	{
+		try
+		{
+			loader.get();
+			
+			if (bulkTask != null)
+			{
+				bulkTask.get();
+			}
+		}
+		catch (ExecutionException e)
+		{
+			LOGGER.log(Level.WARNING, "Loading or importing the clubbers failed", e);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			LOGGER.log(Level.WARNING, "Stopped waiting for the clubbers to load or import", e);
+		}
+		
+		database.close();
+	}
+
 	/**
 	 * This method Initializes the {@link javax.swing.JButton}, sets their color,
 	 * sets a hand cursor when hovering the buttons with the method   
@@ -151,7 +229,7 @@ public class NightClubMgmtApp extends JFrame
 	 */
 	private void createButtonPanel()
 	{
-		JPanel buttonPanel = new JPanel(new GridLayout(2, 2, 5, 5));
+		JPanel buttonPanel = new JPanel(new GridLayout(3, 2, 5, 5));
 		buttonPanel.setOpaque(false);
 		
 		btnHandler = new ButtonsHandler();
@@ -160,6 +238,8 @@ public class NightClubMgmtApp extends JFrame
 		showListButton = new JButton("Show List");
 		clubberButton = new JButton("New Clubber");
 		deleteButton = new JButton("Delete Clubber");  
+		importButton = new JButton("Import CSV");
+		exportButton = new JButton("Export");
 		
 		Color darkCyan = new Color(125, 145, 180);
 		
@@ -167,11 +247,15 @@ public class NightClubMgmtApp extends JFrame
 		showListButton.setBackground(darkCyan);
 		clubberButton.setBackground(darkCyan);
 		deleteButton.setBackground(darkCyan);
+		importButton.setBackground(darkCyan);
+		exportButton.setBackground(darkCyan);
 		
 		searchButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 		showListButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 		clubberButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 		deleteButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+		importButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
+		exportButton.setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
 		
 		searchButton.setToolTipText(
 			"Search for a clubber using an ID, personal number or student ID");
@@ -179,20 +263,41 @@ public class NightClubMgmtApp extends JFrame
 		clubberButton.setToolTipText("Choose clubber type with radio buttons");
 		deleteButton.setToolTipText(
 			"Delete a clubber using an ID, personal number or student ID");
+		importButton.setToolTipText("Add the clubbers of a CSV file");
+		exportButton.setToolTipText("Save all clubbers to a CSV or JSON Lines file");
 		
 		searchButton.addActionListener(btnHandler);
 		showListButton.addActionListener(btnHandler);
 		clubberButton.addActionListener(btnHandler);
 		deleteButton.addActionListener(btnHandler);
+		importButton.addActionListener(btnHandler);
+		exportButton.addActionListener(btnHandler);
 		
 		buttonPanel.add(searchButton);
 		buttonPanel.add(showListButton);
 		buttonPanel.add(clubberButton);
 		buttonPanel.add(deleteButton);
+		buttonPanel.add(importButton);
+		buttonPanel.add(exportButton);
 		
 		overlayPanel.add(buttonPanel);
 	}
 	
+	/**
+	 * This method enables or disables the searchButton, showListButton,
+	 * clubberButton, deleteButton, importButton and exportButton.
+	 * @param enabled holds whether the buttons can be used.
+	 */
+	private void setButtonsEnabled(boolean enabled)
+	{
+		searchButton.setEnabled(enabled);
+		showListButton.setEnabled(enabled);
+		clubberButton.setEnabled(enabled);
+		deleteButton.setEnabled(enabled);
+		importButton.setEnabled(enabled);
+		exportButton.setEnabled(enabled);
+	}
+	
 	/**
 	 * This method Initializes the {@link javax.swing.JRadioButton}, sets a 
 	 * hand cursor when hovering the JRadioButtons with the method   
@@ -239,107 +344,96 @@ public class NightClubMgmtApp extends JFrame
 	}
 	
 	/**
-     * The method loads the clubbers data from a file. If no file is found a 
-     * message will appear
-     * <br> See FileOutputStream class: {@link java.io.FileInputStream}.
-     * <br> See ObjectOutputStream class: {@link java.io.ObjectInputStream}.
-     * <br> See writeObject method: {@link java.io.ObjectInputStream#readObject}.
-     */
-	private void loadClubbersDBFromFile()
-	{  
-		FileInputStream fis = null; 
-		ObjectInputStream ois = null;
-   	   
-		try 
-		{
-			// Open file.
-			fis = new FileInputStream("BKCustomers.dat");
-			ois = new ObjectInputStream(fis);
-			// Read object from a file.
-			// SuppressWarnings doesn't work because of a bug, therefore it isn't 
-			// possible to ignore the warning. The warning happens because we read 
-			// an object from a file which obviously can't be known beforehand and 
-			// then try to cast it to an ArrayList<ClubAbstractEntity>, even if we 
-			// check with 'instanceof' the warning will presist, so the only option 
-			// we have is to leave it as is.
-			//@SuppressWarnings("unchecked")
-			clubbers = (ArrayList<ClubAbstractEntity>)ois.readObject();
-		} 
-		catch (FileNotFoundException e) 
-		{
-			JOptionPane.showMessageDialog(this, 
-				"BKCustomers.dat will be created after closing the program.", 
-				"File Not Found", JOptionPane.INFORMATION_MESSAGE);
-		} 
-		catch (IOException e)
-		{
-		} 
-		catch (ClassNotFoundException e)
-	  	{
-	  	}
-	  	finally // Close inputstreams if they exist.
-	  	{
-	  		try
-	  		{
-	  			if (ois != null)
-	  			{
-	  				ois.close();
-	   	   		}
-	   	   
-	   	   		if (fis != null)
-	   	   		{
-	   	   			fis.close();
-	   	   		}
-	   	   	}
-	   	   	catch (IOException e)
-	   	  	{
-		  	}
-		}
-	}
-	
-	/**
-	 * The method saves the current clubbers into file.
-	 * <br> See FileOutputStream class: {@link java.io.FileOutputStream}.
-	 * <br> See ObjectOutputStream class: {@link java.io.ObjectOutputStream}.
-	 * <br> See writeObject method: {@link java.io.ObjectOutputStream#writeObject}.
+	 * This Class extends from {@link javax.swing.SwingWorker} and implements
+	 * {@link ClubbersFile.ReadListener}.
+	 * <br> ClubbersLoader loads the clubbers on a background thread so the
+	 * window can be painted and moved meanwhile, the progress of reading the
+	 * clubbers file is shown in the loadProgressBar.
+	 * <br> The buttons are enabled once the clubbers and their indexes are
+	 * ready and the journal was replayed.
 	 */
-	private void writeClubbersDBtoFile()
+	private class ClubbersLoader extends SwingWorker<Void, Void>
+		implements ClubbersFile.ReadListener
 	{
-		FileOutputStream fos = null;
-		ObjectOutputStream oos = null;
-   	   
-		try
+		private final boolean mapped;
+		
+		/**
+		 * ClubbersLoader Constructor - shows its progress in the loadProgressBar.
+		 * @param mapped holds whether to keep the clubbers in a memory-mapped
+		 * file.
+		 */
+		public ClubbersLoader(boolean mapped)
 		{
-			// Create a new file.
-			fos = new FileOutputStream("BKCustomers.dat"); 
-			oos = new ObjectOutputStream(fos);
-			// Write object to a file
-			oos.writeObject(clubbers);   
-			oos.flush();
+			this.mapped = mapped;
+			
+			addPropertyChangeListener(event ->
+			{
+				if ("progress".equals(event.getPropertyName()))
+				{
+					loadProgressBar.setValue((Integer)event.getNewValue());
+				}
+			});
 		}
-		catch (FileNotFoundException e) 
+		
+		/**
+		 * Overriden method which opens the clubbers with
+		 * {@link ClubbersDatabase#open} and builds the
+		 * {@link ClubbersNameIndex} of their names.
+		 * @return nothing.
+		 */
+		@Override
+		protected Void doInBackground()
 		{
-		} 
-		catch (IOException e)
+			database.open(mapped, this);
+			clubbers = database.getClubbers();
+			nameIndex = new ClubbersNameIndex(clubbers);
+			
+			return null;
+		}
+		
+		/**
+		 * Overriden method which sets the progress to the part of the records
+		 * read so far.
+		 * @param read holds the number of records read so far.
+		 * @param count holds the number of records in the file.
+		 */
+		@Override
+		public void recordsRead(int read, int count)
 		{
-		} 
-		finally // Close outputstreams if they exist
+			setProgress(count == 0 ? 100 : (int)(read * 100L / count));
+		}
+		
+		/**
+		 * Overriden method which removes the loadProgressBar, enables the
+		 * buttons and tells the user if the clubbers file will be created.
+		 * <br> If the clubbers file can't be read the user is told and the
+		 * program exits, so it never runs without the clubbers of the file.
+		 */
+		@Override
+		protected void done()
 		{
-			try
-	   	   	{
-	   	   		if (oos != null)
-	   	   		{
-	   	   			oos.close();
-	   	   		}
-	   	   
-	   	   		if (fos != null)
-	   	   		{
-	   	   			fos.close();
-	   	   		}
-	   	   }
-	   	   catch (IOException e)
-	   	   {
-		   } 
+			overlayPanel.remove(loadProgressBar);
+			overlayPanel.revalidate();
+			overlayPanel.repaint();
+			
+			if (database.getReadError() != null)
+			{
+				JOptionPane.showMessageDialog(self,
+					ClubbersDatabase.CLUBBERS_FILE_NAME + " can't be read, the program will exit "
+					+ "and leave it as it is.\n" + database.getReadError(),
+					"File Error", JOptionPane.ERROR_MESSAGE);
+				new Thread(() -> System.exit(1), "Clubbers Exit").start();
+				return;
+			}
+			
+			setButtonsEnabled(true);
+			
+			if (database.isNewClubbersFile())
+			{
+				JOptionPane.showMessageDialog(self, 
+					ClubbersDatabase.CLUBBERS_FILE_NAME + " will be created for the new clubbers.", 
+					"File Not Found", JOptionPane.INFORMATION_MESSAGE);
+			}
 		}
 	}
 	
@@ -390,18 +484,23 @@ public class NightClubMgmtApp extends JFrame
 	/**
     * This Class implemets {@link java.awt.event.ActionListener}.
     * <br> ButtonsHandler listens to the {@link javax.swing.JButton}: 
-    * searchButton, showListButton, clubberButton and deleteButton.
+    * searchButton, showListButton, clubberButton, deleteButton,
+    * importButton and exportButton.
     */
 	private class ButtonsHandler implements ActionListener
 	{
 		/**
 		 * This method is invoked when searchButton, showListButton,
-		 * clubberButton or deleteButton are pressed.
+		 * clubberButton, deleteButton, importButton or exportButton are pressed.
 		 * <br> The buttons will invoke the following methods:
-		 * <br> searchButton - {@link #searchClubber}.
+		 * <br> searchButton - a {@link ClubbersSearchPanel} which finds clubbers
+		 * by the start of their name or surname, then {@link #editClubber} on
+		 * the chosen clubber or {@link #searchClubber} on the typed key.
 		 * <br> showListButton - {@link #showClubbers}.
 		 * <br> clubberButton - {@link #createClubber}.
 		 * <br> deleteButton - {@link #deleteClubber}.
+		 * <br> importButton - {@link #importClubbers}.
+		 * <br> exportButton - {@link #exportClubbers}.
 		 * @param event Holds the current event.
 		 */
 		public void actionPerformed(ActionEvent event)
@@ -410,11 +509,24 @@ public class NightClubMgmtApp extends JFrame
 			
 			if (source == searchButton)
 			{
-				String userInput = JOptionPane.showInputDialog(self, 
-					"Please Enter The Clubber's Key:", "Seach Key",
-					JOptionPane.QUESTION_MESSAGE);
-		
-				searchClubber(userInput);
+				ClubbersSearchPanel searchPanel = new ClubbersSearchPanel(nameIndex);
+				
+				if (JOptionPane.showConfirmDialog(self, searchPanel, "Seach Key",
+					JOptionPane.OK_CANCEL_OPTION, JOptionPane.QUESTION_MESSAGE) !=
+					JOptionPane.OK_OPTION)
+				{
+					return;
+				}
+				
+				ClubAbstractRecord record = searchPanel.getSelectedRecord();
+				
+				if (record != null)
+				{
+					editClubber(record);
+					return;
+				}
+				
+				searchClubber(searchPanel.getKey());
 				return;
 			}
 			
@@ -440,14 +552,25 @@ public class NightClubMgmtApp extends JFrame
 				deleteClubber(userInput);
 				return;
 			}
+			
+			if (source == importButton)
+			{
+				importClubbers();
+				return;
+			}
+			
+			if (source == exportButton)
+			{
+				exportClubbers();
+				return;
+			}
 		}
 		
 		/**
-		 * This method recieves a key and runs through they arraylist to find 
-		 * a match with the method {@link ClubAbstractEntity#match}, if found
-		 * the entity will set its visibility to true and allow customization
-		 * and prevent use of the main JFrame until the current frame is closed.
-		 * @param key holds data to find in the arraylist.
+		 * This method recieves a key and finds the clubber it matches with
+		 * {@link ClubbersStore#find}, if found the record will be opened
+		 * with {@link #editClubber}.
+		 * @param key holds data to find in the repository.
 		 */
 		private void searchClubber(String key)
 		{
@@ -455,85 +578,134 @@ public class NightClubMgmtApp extends JFrame
 			{
 				return;
 			}
-				
-			for (ClubAbstractEntity clubber : clubbers)
+			
+			ClubAbstractRecord record = clubbers.find(key);
+			
+			if (record != null)
+			{
+				editClubber(record);
+				return;
+			}
+			
+			JOptionPane.showMessageDialog(self,
+				String.format("Clubber with key %s does not exist", key),
+				"Key Not Found", JOptionPane.INFORMATION_MESSAGE);
+		}
+		
+		/**
+		 * This method opens a window for the record which will allow customization
+		 * and prevent use of the main JFrame until the current frame is closed.
+		 * <br> If the record was committed it will be replaced in the repository,
+		 * unless its new ID belongs to another clubber.
+		 * @param record holds the clubber to edit.
+		 */
+		private void editClubber(ClubAbstractRecord record)
+		{
+			// Disable use of main frame.
+			self.setEnabled(false);
+			
+			ClubAbstractEntity clubber = openEditor(record);
+			
+			// Set the clubber window to appear in the middle
+			// of the frame.
+			clubber.setLocationRelativeTo(self);
+			clubber.setAlwaysOnTop(true);
+			clubber.setVisible(true);
+			
+			clubber.addWindowListener(new WindowAdapter()
 			{
-				if (clubber.match(key))
+				/**
+				 * Overriden method which will prevent access to the main
+				 * frame till the current window is closed.
+				 * Upon closing the window the edited record will replace the
+				 * old one and the window will be disposed.
+				 * @param event Holds the current event.
+				 */
+				@Override
+				public void windowDeactivated(WindowEvent event)
 				{
-					// Disable use of main frame.
-					self.setEnabled(false);
+					// As long as the window is visible don't proceed
+					if (clubber.isVisible())
+					{
+						return;
+					}
+					
+					// Enable use of main frame.
+					self.setEnabled(true);
+					
+					// Stop listening to this window after it isn't visible
+					clubber.removeWindowListener(this);
+					clubber.dispose();
 					
-					// Set the clubber window to appear in the middle
-					// of the frame.
-					clubber.setLocationRelativeTo(self);
-					clubber.setAlwaysOnTop(true);
-					clubber.setVisible(true);
+					ClubAbstractRecord editedRecord = clubber.getRecord();
 					
-					clubber.addWindowListener(new WindowAdapter()
+					// Nothing was committed.
+					if (editedRecord == record)
 					{
-						/**
-        	             * Overriden method which will prevent access to the main
-        	             * frame till the current window is closed.
-        	             * @param event Holds the current event.
-        	             */
-						@Override
-						public void windowDeactivated(WindowEvent event)
+						return;
+					}
+					
+					try
+					{
+						// Replacing fails if another clubber has the same ID
+						if (!clubbers.replace(record, editedRecord))
 						{
-							// As long as the window is visible don't proceed
-							if (clubber.isVisible())
-							{
-								return;
-							}
-							
-							// Enable use of main frame.
-							self.setEnabled(true);
+							JOptionPane.showMessageDialog(self,
+								"ID already exists", "Clubber Edit Error",
+								JOptionPane.ERROR_MESSAGE);
 							
-							// Stop listening to this window after it isn't visible
-							clubber.removeWindowListener(this);
+							return;
 						}
-					});
 						
-					return;
+						nameIndex.replace(record, editedRecord);
+					}
+					catch (IllegalArgumentException e)
+					{
+						// The clubber doesn't fit in a slot of the mapped store.
+						JOptionPane.showMessageDialog(self, e.getMessage(),
+							"Clubber Edit Error", JOptionPane.ERROR_MESSAGE);
+					}
 				}
-			}
-			
-			JOptionPane.showMessageDialog(self,
-				String.format("Clubber with key %s does not exist", key),
-				"Key Not Found", JOptionPane.INFORMATION_MESSAGE);
+			});
 		}
 		
 		/**
-		 * This method will show all the clubbers in a {@link javax.swing.JTextArea}
-		 * and add a {@link javax.swing.JScrollPane} to it.
+		 * This method builds the window which matches the type of the record.
+		 * @param record holds the clubber to edit.
+		 * @return a {@link Person}, {@link Soldier} or {@link Student} window.
 		 */
-		private void showClubbers()
+		private ClubAbstractEntity openEditor(ClubAbstractRecord record)
 		{
-			String clubbersDetails = String.format("Number of Clubbers: %d\n\n",
-					clubbers.size()); 
-				
-			// Add all clubbers into one string
-			for (ClubAbstractEntity clubber : clubbers)
+			if (record instanceof SoldierRecord)
 			{
-				clubbersDetails += clubber + "\n";
+				return new Soldier((SoldierRecord)record);
 			}
 			
-			JTextArea textArea = new JTextArea(clubbersDetails);
-			JScrollPane scrollPane = new JScrollPane(textArea); 
-			
-			textArea.setLineWrap(true);  
-			textArea.setWrapStyleWord(true); 
-			scrollPane.setPreferredSize(new Dimension(0, 350));
+			if (record instanceof StudentRecord)
+			{
+				return new Student((StudentRecord)record);
+			}
 			
-			JOptionPane.showMessageDialog(self, scrollPane, "Clubbers Details",
-				JOptionPane.INFORMATION_MESSAGE);
+			return new Person((PersonRecord)record);
+		}
+		
+		/**
+		 * This method will show the clubbers in a {@link ClubbersTablePanel}, a
+		 * page at a time, which can be sorted by clicking a column header.
+		 */
+		private void showClubbers()
+		{
+			JOptionPane.showMessageDialog(self, new ClubbersTablePanel(clubbers),
+				"Clubbers Details", JOptionPane.INFORMATION_MESSAGE);
 		}
 		
 		/**
 		 * This method enables the creation of the objects {@link Person},
 		 * {@link Soldier} and {@link Student} through their empty constructors
-		 * they will be added to the arraylist only after the window visibility
-		 * will be set to false with help of a {@link java.awt.event.WindowListener}
-		 * and the ID doesn't already exist in the arraylist.
+		 * their records will be added to the repository only after the window
+		 * visibility will be set to false with help of a
+		 * {@link java.awt.event.WindowListener} and the ID doesn't already exist
+		 * in the repository.
 		 */
 		private void createClubber()
 		{
@@ -565,8 +737,8 @@ public class NightClubMgmtApp extends JFrame
 				 * Overriden method which will prevent access to the main
 				 * frame till the current window has been closed.
 				 * Upon closing the window the method will then check if the new
-				 * clubber is valid with the methods: {@link ClubAbstractEntity#match}
-				 * and {@link ClubAbstractEntity#getID}
+				 * clubber is valid with the methods: {@link ClubAbstractRecord#isEmpty}
+				 * and {@link ClubbersStore#add}
 				 * @param event Holds the current event.
 				 */
 				@Override
@@ -582,18 +754,21 @@ public class NightClubMgmtApp extends JFrame
 					self.setEnabled(true);
 					// Stop listening to this window after it isn't visible
 					newClubber.removeWindowListener(this);
+					newClubber.dispose();
+					
+					ClubAbstractRecord newRecord = newClubber.getRecord();
 					
 					// Prevent addition of empty clubbers.
 					// This happens when the program is force closed.
-					if (newClubber.isEmpty())
+					if (newRecord.isEmpty())
 					{
 						return;
 					}
 					
-					// Check if there is a clubber with the same ID
-					for (ClubAbstractEntity clubber : clubbers)
+					try
 					{
-						if (clubber.match(newClubber.getID()))
+						// Adding fails if there is a clubber with the same ID
+						if (!clubbers.add(newRecord))
 						{
 							JOptionPane.showMessageDialog(self,
 								"ID already exists", "Clubber Addition Error",
@@ -602,8 +777,16 @@ public class NightClubMgmtApp extends JFrame
 							return; 
 						}
 					}
-	
-					clubbers.add(newClubber);
+					catch (IllegalArgumentException e)
+					{
+						// The clubber doesn't fit in a slot of the mapped store.
+						JOptionPane.showMessageDialog(self, e.getMessage(),
+							"Clubber Addition Error", JOptionPane.ERROR_MESSAGE);
+						
+						return;
+					}
+					
+					nameIndex.add(newRecord);
 					self.toFront();
 				}
 			});
@@ -612,7 +795,7 @@ public class NightClubMgmtApp extends JFrame
 		/**
 		 * This method gives the user an option to delete a clubber with a key
 		 * which holds data.
-		 * @param key holds data to find in the arraylist.
+		 * @param key holds data to find in the repository.
 		 */
 		private void deleteClubber(String key)
 		{
@@ -621,40 +804,218 @@ public class NightClubMgmtApp extends JFrame
 				return;
 			}
 			
-			for (ClubAbstractEntity clubber : clubbers)
+			ClubAbstractRecord clubber = clubbers.find(key);
+			
+			if (clubber != null)
 			{
-				if (clubber.match(key))
+				int inputYesNo = JOptionPane.showConfirmDialog(self,
+					  String.format("Are you sure you want to delete:\n%s",clubber),
+					  "Delete Warning", JOptionPane.YES_NO_OPTION,
+					  JOptionPane.WARNING_MESSAGE);
+				  
+				if (inputYesNo == JOptionPane.YES_OPTION)
 				{
-					int inputYesNo = JOptionPane.showConfirmDialog(self,
-						  String.format("Are you sure you want to delete:\n%s",clubber),
-						  "Delete Warning", JOptionPane.YES_NO_OPTION,
-						  JOptionPane.WARNING_MESSAGE);
-					  
-					if (inputYesNo == JOptionPane.YES_OPTION)
-					{
-						clubbers.remove(clubber);
-						JOptionPane.showMessageDialog(self,
-							"Clubber succesfuly deleted!",
-							"Clubber Deleted", JOptionPane.INFORMATION_MESSAGE);
-					}
-					
-					return;
+					clubbers.remove(clubber);
+					nameIndex.remove(clubber);
+					JOptionPane.showMessageDialog(self,
+						"Clubber succesfuly deleted!",
+						"Clubber Deleted", JOptionPane.INFORMATION_MESSAGE);
 				}
+				
+				return;
 			}
 			
 			JOptionPane.showMessageDialog(self,
 				String.format("Clubber with key %s does not exist", key),
 				"Key Not Found", JOptionPane.INFORMATION_MESSAGE);
 		}
+		
+		/**
+		 * This method lets the user choose a CSV file and imports its clubbers
+		 * in the background with a {@link ClubbersImporter}, the buttons are
+		 * disabled meanwhile.
+		 * <br> The rows which were rejected are written next to the file with
+		 * a ".rejects.csv" suffix and the imported clubbers are saved once
+		 * with {@link ClubbersDatabase#endBulkChange}.
+		 */
+		private void importClubbers()
+		{
+			JFileChooser fileChooser = new JFileChooser(".");
+			fileChooser.setFileFilter(new FileNameExtensionFilter("CSV files", "csv"));
+			
+			if (fileChooser.showOpenDialog(self) != JFileChooser.APPROVE_OPTION)
+			{
+				return;
+			}
+			
+			Path csvPath = fileChooser.getSelectedFile().toPath();
+			Path reportPath = csvPath.resolveSibling(csvPath.getFileName() + ".rejects.csv");
+			
+			setButtonsEnabled(false);
+			self.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+			
+			SwingWorker<ClubbersImporter.Result, Void> importer =
+				new SwingWorker<ClubbersImporter.Result, Void>()
+			{
+				/**
+				 * Overriden method which imports the file and rebuilds the
+				 * index of the clubbers names.
+				 * @return the number of accepted and rejected rows.
+				 * @throws IOException if a file can't be read or written.
+				 */
+				@Override
+				protected ClubbersImporter.Result doInBackground() throws IOException
+				{
+					database.beginBulkChange();
+					
+					try
+					{
+						return new ClubbersImporter(clubbers).importFile(csvPath, reportPath);
+					}
+					finally
+					{
+						database.endBulkChange();
+						nameIndex.rebuild(clubbers);
+					}
+				}
+				
+				/**
+				 * Overriden method which enables the buttons and shows the
+				 * result of the import.
+				 */
+				@Override
+				protected void done()
+				{
+					setButtonsEnabled(true);
+					self.setCursor(Cursor.getDefaultCursor());
+					
+					try
+					{
+						ClubbersImporter.Result result = get();
+						
+						JOptionPane.showMessageDialog(self, String.format(
+							"%d clubbers imported, %d rows rejected.\nRejected rows: %s",
+							result.getAccepted(), result.getRejected(), reportPath),
+							"Import Done", JOptionPane.INFORMATION_MESSAGE);
+					}
+					catch (ExecutionException e)
+					{
+						JOptionPane.showMessageDialog(self,
+							"Import failed: " + e.getCause().getMessage(),
+							"Import Error", JOptionPane.ERROR_MESSAGE);
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			
+			bulkTask = importer;
+			importer.execute();
+		}
+		
+		/**
+		 * This method lets the user choose a file and exports all the
+		 * clubbers into it in the background with {@link ClubbersExporter},
+		 * the buttons are disabled meanwhile.
+		 * <br> Files ending with ".jsonl" are written as JSON Lines, files
+		 * ending with ".bka" as a compressed {@link ClubbersArchive} and any
+		 * other file as comma separated values.
+		 */
+		private void exportClubbers()
+		{
+			JFileChooser fileChooser = new JFileChooser(".");
+			FileNameExtensionFilter csvFilter = new FileNameExtensionFilter("CSV files", "csv");
+			fileChooser.addChoosableFileFilter(csvFilter);
+			fileChooser.addChoosableFileFilter(
+				new FileNameExtensionFilter("JSON Lines files", "jsonl"));
+			FileNameExtensionFilter archiveFilter =
+				new FileNameExtensionFilter("Clubbers archives", "bka");
+			fileChooser.addChoosableFileFilter(archiveFilter);
+			fileChooser.setFileFilter(csvFilter);
+			
+			if (fileChooser.showSaveDialog(self) != JFileChooser.APPROVE_OPTION)
+			{
+				return;
+			}
+			
+			Path chosenPath = fileChooser.getSelectedFile().toPath();
+			String suffix = fileChooser.getFileFilter() == csvFilter ? ".csv" :
+				fileChooser.getFileFilter() == archiveFilter ? ClubbersArchive.SUFFIX :
+				ClubbersExporter.JSON_LINES_SUFFIX;
+			
+			// Add the suffix of the chosen filter if the name has none.
+			Path path = chosenPath.getFileName().toString().contains(".") ? chosenPath :
+				chosenPath.resolveSibling(chosenPath.getFileName() + suffix);
+			
+			setButtonsEnabled(false);
+			self.setCursor(Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR));
+			
+			SwingWorker<Integer, Void> exporter = new SwingWorker<Integer, Void>()
+			{
+				/**
+				 * Overriden method which exports the clubbers.
+				 * @return the number of clubbers exported.
+				 * @throws IOException if the file can't be written.
+				 */
+				@Override
+				protected Integer doInBackground() throws IOException
+				{
+					return ClubbersExporter.export(clubbers, path);
+				}
+				
+				/**
+				 * Overriden method which enables the buttons and shows the
+				 * result of the export.
+				 */
+				@Override
+				protected void done()
+				{
+					setButtonsEnabled(true);
+					self.setCursor(Cursor.getDefaultCursor());
+					
+					try
+					{
+						JOptionPane.showMessageDialog(self,
+							String.format("%d clubbers exported to %s", get(), path),
+							"Export Done", JOptionPane.INFORMATION_MESSAGE);
+					}
+					catch (ExecutionException e)
+					{
+						JOptionPane.showMessageDialog(self,
+							"Export failed: " + e.getCause().getMessage(),
+							"Export Error", JOptionPane.ERROR_MESSAGE);
+					}
+					catch (InterruptedException e)
+					{
+						Thread.currentThread().interrupt();
+					}
+				}
+			};
+			
+			bulkTask = exporter;
+			exporter.execute();
+		}
 	}
 	
 	/**
 	 * static main method.
-	 * Simply invokes {@link #NightClubMgmtApp} constructor.
+	 * Invokes {@link #NightClubMgmtApp} constructor on the event dispatch
+	 * thread, the clubbers are kept in a memory-mapped file when the first
+	 * argument is "-mapped".
 	 * @param args command line arguments
 	 */
 	public static void main(String[] args)
 	{
-		NightClubMgmtApp application = new NightClubMgmtApp();
+		if (args.length > 0 && args[0].equals("-server"))
+		{
+			ClubbersServer.main(Arrays.copyOfRange(args, 1, args.length));
+			return;
+		}
+		
+		boolean mapped = args.length > 0 && args[0].equals("-mapped");
+		
+		SwingUtilities.invokeLater(() -> new NightClubMgmtApp(mapped));
 	}
 } // End of class NightClubMgmtApp
\ No newline at end of file
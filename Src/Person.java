@@ -6,18 +6,15 @@ import java.awt.*;
  * <br> This Class sets info fields for a person with GUI elements which then 
  * sends them to {@link ClubAbstractEntity} through 
  * {@link ClubAbstractEntity#addToCenter}.
- * This class implements the abrstract methods: {@link ClubAbstractEntity#match},
- * {@link ClubAbstractEntity#validateData}, {@link ClubAbstractEntity#commit},
- * {@link ClubAbstractEntity#rollBack}, {@link ClubAbstractEntity#isEmpty} and
- * {@link ClubAbstractEntity#getID}.
+ * <br> The info itself is held by a {@link PersonRecord} which the window edits.
+ * This class implements the abrstract methods: {@link ClubAbstractEntity#validateData},
+ * {@link ClubAbstractEntity#commit}, {@link ClubAbstractEntity#rollBack} and
+ * {@link ClubAbstractEntity#getRecord}.
  * @author Lior Sabri, Ben Biton
  */
 public class Person extends ClubAbstractEntity
 {
-	private String id;
-	private String name;
-	private String surname;
-	private String tel;      
+	private PersonRecord record;
 	
 	private JTextField idTextField;
 	private JTextField nameTextField;
@@ -27,27 +24,27 @@ public class Person extends ClubAbstractEntity
 	private JLabel[] asteriskLabel; 
 	
 	/**
-	 * Person Empty Constructor - invokes arguments constructor with empty strings. 
+	 * Person Empty Constructor - invokes record constructor with an empty record. 
 	 */
 	public Person()
 	{
-		this("", "", "", "");
+		this(new PersonRecord());
 	}
 	
 	/**
-	 * Person Arguments Constructor - creates an info {@link javax.swing.JPanel}
+	 * Person Record Constructor - creates an info {@link javax.swing.JPanel}
 	 * with {@link java.awt.FlowLayout} for each info field and sends them to 
 	 * {@link ClubAbstractEntity#addToCenter}.
-	 * <br> Initializes all {@link java.lang.String}s, {@link javax.swing.JTextField}s
+	 * <br> Initializes all {@link javax.swing.JTextField}s from the record
 	 * and {@link javax.swing.JLabel}s and add to them a tooltip with the method
 	 * {@link javax.swing.JComponent#setToolTipText}.
-	 * @param id persons ID.
-	 * @param name persons name.
-	 * @param surname persons surname.
-	 * @param tel persons phone number.
+	 * <br> If the record has already been committed the cancelButton is enabled.
+	 * @param record holds the persons info.
 	 */
-	public Person(String id, String name, String surname, String tel)
+	public Person(PersonRecord record)
 	{
+		this.record = record;
+		
 		JPanel idPanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
 		JPanel namePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT)); 
 		JPanel surnamePanel = new JPanel(new FlowLayout(FlowLayout.RIGHT));
@@ -58,15 +55,10 @@ public class Person extends ClubAbstractEntity
 		surnameTextField = new JTextField(30);
 		telTextField = new JTextField(30);
 		
-		idTextField.setText(id);
-		nameTextField.setText(name);
-		surnameTextField.setText(surname);
-		telTextField.setText(tel);
-		
-		this.id = idTextField.getText(); 
-		this.name = idTextField.getText();
-		this.surname = idTextField.getText();
-		this.tel = idTextField.getText();   
+		idTextField.setText(record.getID());
+		nameTextField.setText(record.getName());
+		surnameTextField.setText(record.getSurname());
+		telTextField.setText(record.getTel());
 		
 		JLabel idLabel = new JLabel("ID");
 		JLabel nameLabel = new JLabel("Name");
@@ -118,53 +110,31 @@ public class Person extends ClubAbstractEntity
 		
 		setTitle("Person Clubber's Data");
 		setSize(450, 220);
-	}
-	
-	/**
-	 * This method returns the {@link Person}s ID.
-	 * @return id {@link java.lang.String}
-	 */
-	public String getID()
-	{
-		return id;
-	}
-	                                                                                          
-	/**
-	 * This method checks whether the info fields are empty with
-	 * {@link java.lang.Object#equals}.
-	 * @return true or false whether an info field is empty.
-	 */
-	public boolean isEmpty()
-	{
-		// Comparing an empty String is an efficient way to both check whether 
-		// the String is empty or null, since equals() will check its arguement and
-		// return false incase it is null.
-		String emptyString = "";
 		
-		return emptyString.equals(id) || emptyString.equals(name) ||
-			emptyString.equals(surname) || emptyString.equals(tel); 
+		if (!record.isEmpty())
+		{
+			enableCancelButton();
+		}
 	}
 	
 	/**
-	 * This method checks whether the key sent is equal with 
-	 * {@link java.lang.Object#equals} to id.
-	 * @param key may hold an id String.
-	 * @return true or false whether id is equal to the key.
+	 * This method returns the {@link PersonRecord} edited by the window.
+	 * @return record {@link PersonRecord}
 	 */
-	public boolean match(String key)
+	public PersonRecord getRecord()
 	{
-		return id.equals(key);
+		return record;
 	}
 	
 	/**
-	 * This method validates whether the info fields matches regular expressions 
-	 * with {@link java.lang.String#matches} if so it will set the asteriskLabels  
+	 * This method validates whether the info fields matches their formats 
+	 * with {@link ClubberValidator} if so it will set the asteriskLabels  
 	 * visibility to true, otherwise to false. 
-	 * @return true or false whether all info fields match thier regular expressions.
+	 * @return true or false whether all info fields match thier formats.
 	 */
 	protected boolean validateData()
 	{
-		if (!idTextField.getText().matches("\\d-\\d{7}\\|[1-9]"))
+		if (!ClubberValidator.isValidID(idTextField.getText()))
 		{
 			asteriskLabel[0].setVisible(true);
 			return false;
@@ -174,7 +144,7 @@ public class Person extends ClubAbstractEntity
 			asteriskLabel[0].setVisible(false);
 		}
 		
-		if (!nameTextField.getText().matches("[A-Z][a-z]+"))
+		if (!ClubberValidator.isValidName(nameTextField.getText()))
 		{
 			asteriskLabel[1].setVisible(true);
 			return false;
@@ -184,7 +154,7 @@ public class Person extends ClubAbstractEntity
 			asteriskLabel[1].setVisible(false);
 		}
 		
-		if (!surnameTextField.getText().matches("([A-Z][a-z]*['-]?)+"))
+		if (!ClubberValidator.isValidSurname(surnameTextField.getText()))
 		{
 			asteriskLabel[2].setVisible(true);
 			return false;
@@ -194,7 +164,7 @@ public class Person extends ClubAbstractEntity
 			asteriskLabel[2].setVisible(false);
 		}
 		
-		if (!telTextField.getText().matches("\\+\\([1-9]\\d{0,2}\\)[1-9]\\d{0,2}-[1-9]\\d{6}"))
+		if (!ClubberValidator.isValidTel(telTextField.getText()))
 		{
 			asteriskLabel[3].setVisible(true);
 			return false;
@@ -208,42 +178,40 @@ public class Person extends ClubAbstractEntity
 	}
 	
 	/**
-	 * This method uses {@link javax.swing.JTextField#getText} to recieve the text 
-	 * in the {@link javax.swing.JTextField}s and save them in the info Strings.
+	 * This method uses {@link #buildRecord} to create a new record from the
+	 * {@link javax.swing.JTextField}s and replace the edited record with it.
 	 */
 	protected void commit()
 	{
-		id = idTextField.getText();
-		name = nameTextField.getText();
-		surname = surnameTextField.getText();
-		tel = telTextField.getText();    		
+		record = buildRecord();
+	}
+	
+	/**
+	 * This method uses {@link javax.swing.JTextField#getText} to recieve the text 
+	 * in the {@link javax.swing.JTextField}s and build a {@link PersonRecord} from them.
+	 * @return a new {@link PersonRecord}.
+	 */
+	protected PersonRecord buildRecord()
+	{
+		return new PersonRecord(idTextField.getText(), nameTextField.getText(),
+			surnameTextField.getText(), telTextField.getText());
 	}
 	
 	/**
-	 * This method uses {@link javax.swing.JTextField#setText} to insert the info 
-	 * String into the {@link javax.swing.JTextField}s and set the asteriskLabels
+	 * This method uses {@link javax.swing.JTextField#setText} to insert the record 
+	 * info into the {@link javax.swing.JTextField}s and set the asteriskLabels
 	 * visibility to false.
 	 */
 	protected void rollBack()
 	{
-		idTextField.setText(id);
-		nameTextField.setText(name);
-		surnameTextField.setText(surname);
-		telTextField.setText(tel);
+		idTextField.setText(record.getID());
+		nameTextField.setText(record.getName());
+		surnameTextField.setText(record.getSurname());
+		telTextField.setText(record.getTel());
 
 		for (JLabel asterisk : asteriskLabel)
 		{
 			asterisk.setVisible(false);
 		}
 	}
-	
-	/**
-	 * Overriden method to implement {@link Person}'s {@link java.lang.Object#toString}.
-	 */
-	@Override
-	public String toString()
-	{
-		return String.format("ID: %s\nName: %s\nSurname: %s\nTel: %s\n",
-			id, name, surname, tel);
-	}
-}
\ No newline at end of file
+}
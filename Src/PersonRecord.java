@@ -0,0 +1,124 @@
+/**
+ * This class extends from {@link ClubAbstractRecord}.
+ * <br> This Class holds the info fields of a person, it is edited through a
+ * {@link Person} window which is only built when the record is opened.
+ * This class implements the abrstract methods: {@link ClubAbstractRecord#match},
+ * {@link ClubAbstractRecord#isEmpty} and {@link ClubAbstractRecord#getID}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class PersonRecord extends ClubAbstractRecord
+{
+	private static final long serialVersionUID = 1L;
+
+	private final String id;
+	private final String name;
+	private final String surname;
+	private final String tel;
+
+	/**
+	 * PersonRecord Empty Constructor - invokes arguments constructor with empty strings.
+	 */
+	public PersonRecord()
+	{
+		this("", "", "", "");
+	}
+
+	/**
+	 * PersonRecord Arguments Constructor - initializes all info fields.
+	 * @param id persons ID.
+	 * @param name persons name.
+	 * @param surname persons surname.
+	 * @param tel persons phone number.
+	 */
+	public PersonRecord(String id, String name, String surname, String tel)
+	{
+		this.id = id;
+		this.name = name;
+		this.surname = surname;
+		this.tel = tel;
+	}
+
+	/**
+	 * PersonRecord Copy Constructor - copies the info fields of another record,
+	 * used by inherited classes to extend a {@link PersonRecord} with their own
+	 * info fields.
+	 * @param person holds the record to copy.
+	 */
+	protected PersonRecord(PersonRecord person)
+	{
+		this(person.id, person.name, person.surname, person.tel);
+	}
+
+	/**
+	 * This method returns the {@link PersonRecord}s ID.
+	 * @return id {@link java.lang.String}
+	 */
+	public String getID()
+	{
+		return id;
+	}
+
+	/**
+	 * This method returns the {@link PersonRecord}s name.
+	 * @return name {@link java.lang.String}
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * This method returns the {@link PersonRecord}s surname.
+	 * @return surname {@link java.lang.String}
+	 */
+	public String getSurname()
+	{
+		return surname;
+	}
+
+	/**
+	 * This method returns the {@link PersonRecord}s phone number.
+	 * @return tel {@link java.lang.String}
+	 */
+	public String getTel()
+	{
+		return tel;
+	}
+
+	/**
+	 * This method checks whether the info fields are empty with
+	 * {@link java.lang.Object#equals}.
+	 * @return true or false whether an info field is empty.
+	 */
+	public boolean isEmpty()
+	{
+		// Comparing an empty String is an efficient way to both check whether
+		// the String is empty or null, since equals() will check its arguement and
+		// return false incase it is null.
+		String emptyString = "";
+
+		return emptyString.equals(id) || emptyString.equals(name) ||
+			emptyString.equals(surname) || emptyString.equals(tel);
+	}
+
+	/**
+	 * This method checks whether the key sent is equal with
+	 * {@link java.lang.Object#equals} to id.
+	 * @param key may hold an id String.
+	 * @return true or false whether id is equal to the key.
+	 */
+	public boolean match(String key)
+	{
+		return id.equals(key);
+	}
+
+	/**
+	 * Overriden method to implement {@link PersonRecord}'s {@link java.lang.Object#toString}.
+	 */
+	@Override
+	public String toString()
+	{
+		return String.format("ID: %s\nName: %s\nSurname: %s\nTel: %s\n",
+			id, name, surname, tel);
+	}
+}
@@ -6,47 +6,40 @@ import java.awt.*;
  * <br> This Class sets info fields for a person with GUI elements which then 
  * sends them to {@link ClubAbstractEntity} through 
  * {@link ClubAbstractEntity#addToCenter}.
- * This class overrides the methods: {@link Person#match},
- * {@link Person#validateData}, {@link Person#commit},
- * {@link Person#rollBack} and {@link Person#isEmpty}.
+ * <br> The info itself is held by a {@link SoldierRecord} which the window edits.
+ * This class overrides the methods: {@link Person#validateData},
+ * {@link Person#buildRecord}, {@link Person#rollBack} and {@link Person#getRecord}.
  * @author Lior Sabri, Ben Biton
  */
 public class Soldier extends Person
 {
-	private String personalNumber;
 	private JTextField personalNumberTextField;
 	private JLabel asteriskLabel;
 	
 	/**
-	 * Soldier Empty Constructor - invokes arguments constructor with empty strings. 
+	 * Soldier Empty Constructor - invokes record constructor with an empty record. 
 	 */
 	public Soldier()
 	{
-		this("", "", "", "", "");
+		this(new SoldierRecord());
 	}
 	
 	/**
-	 * Soldier Arguments Constructor - creates an info {@link javax.swing.JPanel}
+	 * Soldier Record Constructor - creates an info {@link javax.swing.JPanel}
 	 * with {@link java.awt.FlowLayout} for info field and sends them it 
 	 * {@link ClubAbstractEntity#addToCenter}.
-	 * <br> Initializes {@link java.lang.String}, {@link javax.swing.JTextField}
+	 * <br> Initializes {@link javax.swing.JTextField} from the record
 	 * and {@link javax.swing.JLabel}s and add to them a tooltip with the method
 	 * {@link javax.swing.JComponent#setToolTipText}.
-	 * @param id soldiers ID.
-	 * @param name soldiers name.
-	 * @param surname soldiers surname.
-	 * @param tel soldiers phone number.
-	 * @param personalNumber soldiers personal number.
+	 * @param record holds the soldier info.
 	 */
-	public Soldier(String id, String name, String surname, String tel,
-		String personalNumber)
+	public Soldier(SoldierRecord record)
 	{
-		super(id, name, surname, tel);
+		super(record);
 		
 		personalNumberTextField = new JTextField(30);
 		
-		personalNumberTextField.setText(personalNumber);
-		this.personalNumber = personalNumberTextField.getText();
+		personalNumberTextField.setText(record.getPersonalNumber());
 		
 		JLabel personalNumberLabel = new JLabel("Personal No.");
 		personalNumberLabel.setToolTipText("e.g: R/4684109, O/5044109, C/4684109");
@@ -72,35 +65,21 @@ public class Soldier extends Person
 	}
 	
 	/**
-	 * This method checks whether the personalNumber is empty with
-	 * {@link java.lang.Object#equals} or the Super method {@link Person#isEmpty}.
-	 * @return true or false whether an info field is empty.
+	 * This method returns the {@link SoldierRecord} edited by the window.
+	 * @return record {@link SoldierRecord}
 	 */
 	@Override
-	public boolean isEmpty()
+	public SoldierRecord getRecord()
 	{
-		return super.isEmpty() || "".equals(personalNumber); 
+		return (SoldierRecord)super.getRecord();
 	}
 	
 	/**
-	 * This method checks whether the key sent is equal with 
-	 * {@link java.lang.Object#equals} to personalNumber or to the Super method
-	 * {@link Person#match}.
-	 * @param key may hold an id or personalNumber String.
-	 * @return true or false whether id, personalNumber or both are equal to the key.
-	 */
-	@Override
-	public boolean match(String key)
-	{
-		return super.match(key) || personalNumber.equals(key);
-	}
-	
-	/**
-	 * This method validates whether the info field matches regular expressions 
-	 * with {@link java.lang.String#matches} if so it will set the asteriskLabel 
+	 * This method validates whether the info field matches its format 
+	 * with {@link ClubberValidator} if so it will set the asteriskLabel 
 	 * visibility to true, otherwise to false.
 	 * <br> It also invokes the Super method {@link Person#validateData}.
-	 * @return true or false whether all info fields match thier regular expressions.
+	 * @return true or false whether all info fields match thier formats.
 	 */
 	@Override
 	protected boolean validateData()
@@ -110,7 +89,7 @@ public class Soldier extends Person
 			return false;
 		}
 		
-		if (!personalNumberTextField.getText().matches("[ROC]/[1-9]\\d{6}"))
+		if (!ClubberValidator.isValidPersonalNumber(personalNumberTextField.getText()))
 		{
 			asteriskLabel.setVisible(true);
 			return false;
@@ -125,19 +104,19 @@ public class Soldier extends Person
 	
 	/**
 	 * This method uses {@link javax.swing.JTextField#getText} to recieve the text 
-	 * in the {@link javax.swing.JTextField} and save them in the info String.
-	 * <br> It also invokes the Super method {@link Person#commit}.
+	 * in the {@link javax.swing.JTextField} and build a {@link SoldierRecord} from it.
+	 * <br> It also invokes the Super method {@link Person#buildRecord}.
+	 * @return a new {@link SoldierRecord}.
 	 */
 	@Override
-	protected void commit()
+	protected SoldierRecord buildRecord()
 	{
-		super.commit();
-		personalNumber = personalNumberTextField.getText();
+		return new SoldierRecord(super.buildRecord(), personalNumberTextField.getText());
 	}
 	
 	/**
-	 * This method uses {@link javax.swing.JTextField#setText} to insert the info 
-	 * String into the {@link javax.swing.JTextField} and set the asteriskLabel
+	 * This method uses {@link javax.swing.JTextField#setText} to insert the record 
+	 * info into the {@link javax.swing.JTextField} and set the asteriskLabel
 	 * visibility to false.
 	 * <br> It also invokes the Super method {@link Person#rollBack}.
 	 */
@@ -146,17 +125,7 @@ public class Soldier extends Person
 	{
 		super.rollBack();
 		
-		personalNumberTextField.setText(personalNumber);
+		personalNumberTextField.setText(getRecord().getPersonalNumber());
 		asteriskLabel.setVisible(false);
 	}
-	
-	/**
-	 * Overriden method to implement {@link Soldier} {@link java.lang.Object#toString}.
-	 * <br> It also invokes the Super method {@link Person#toString}. 
-	 */
-	@Override
-	public String toString()
-	{
-		return super.toString() + String.format("Personal Number: %s\n", personalNumber);
-	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,94 @@
+/**
+ * This class extends from {@link PersonRecord}.
+ * <br> This Class holds the info fields of a soldier, it is edited through a
+ * {@link Soldier} window which is only built when the record is opened.
+ * This class overrides the methods: {@link PersonRecord#match} and
+ * {@link PersonRecord#isEmpty}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class SoldierRecord extends PersonRecord
+{
+	private static final long serialVersionUID = 1L;
+
+	private final String personalNumber;
+
+	/**
+	 * SoldierRecord Empty Constructor - invokes arguments constructor with empty strings.
+	 */
+	public SoldierRecord()
+	{
+		this("", "", "", "", "");
+	}
+
+	/**
+	 * SoldierRecord Arguments Constructor - initializes all info fields.
+	 * @param id soldiers ID.
+	 * @param name soldiers name.
+	 * @param surname soldiers surname.
+	 * @param tel soldiers phone number.
+	 * @param personalNumber soldiers personal number.
+	 */
+	public SoldierRecord(String id, String name, String surname, String tel,
+		String personalNumber)
+	{
+		super(id, name, surname, tel);
+
+		this.personalNumber = personalNumber;
+	}
+
+	/**
+	 * SoldierRecord Person Constructor - extends the info fields of a
+	 * {@link PersonRecord} with a personal number.
+	 * @param person holds the soldiers person info fields.
+	 * @param personalNumber soldiers personal number.
+	 */
+	public SoldierRecord(PersonRecord person, String personalNumber)
+	{
+		super(person);
+
+		this.personalNumber = personalNumber;
+	}
+
+	/**
+	 * This method returns the {@link SoldierRecord}s personal number.
+	 * @return personalNumber {@link java.lang.String}
+	 */
+	public String getPersonalNumber()
+	{
+		return personalNumber;
+	}
+
+	/**
+	 * This method checks whether the personalNumber is empty with
+	 * {@link java.lang.Object#equals} or the Super method {@link PersonRecord#isEmpty}.
+	 * @return true or false whether an info field is empty.
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		return super.isEmpty() || "".equals(personalNumber);
+	}
+
+	/**
+	 * This method checks whether the key sent is equal with
+	 * {@link java.lang.Object#equals} to personalNumber or to the Super method
+	 * {@link PersonRecord#match}.
+	 * @param key may hold an id or personalNumber String.
+	 * @return true or false whether id, personalNumber or both are equal to the key.
+	 */
+	@Override
+	public boolean match(String key)
+	{
+		return super.match(key) || personalNumber.equals(key);
+	}
+
+	/**
+	 * Overriden method to implement {@link SoldierRecord} {@link java.lang.Object#toString}.
+	 * <br> It also invokes the Super method {@link PersonRecord#toString}.
+	 */
+	@Override
+	public String toString()
+	{
+		return super.toString() + String.format("Personal Number: %s\n", personalNumber);
+	}
+}
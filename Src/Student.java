@@ -6,47 +6,40 @@ import java.awt.*;
  * <br> This Class sets info fields for a person with GUI elements which then 
  * sends them to {@link ClubAbstractEntity} through 
  * {@link ClubAbstractEntity#addToCenter}.
- * This class overrides the methods: {@link Person#match},
- * {@link Person#validateData}, {@link Person#commit},
- * {@link Person#rollBack} and {@link Person#isEmpty}.
+ * <br> The info itself is held by a {@link StudentRecord} which the window edits.
+ * This class overrides the methods: {@link Person#validateData},
+ * {@link Person#buildRecord}, {@link Person#rollBack} and {@link Person#getRecord}.
  * @author Lior Sabri, Ben Biton
  */
 public class Student extends Person
 {
-	private String studentID;
 	private JTextField studentIDTextField;
 	private JLabel asteriskLabel;
 	
 	/**
-	 * Student Empty Constructor - invokes arguments constructor with empty strings. 
+	 * Student Empty Constructor - invokes record constructor with an empty record. 
 	 */
 	public Student()
 	{
-		this("", "", "", "", "");
+		this(new StudentRecord());
 	}
 	
 	/**
-	 * Student Arguments Constructor - creates an info {@link javax.swing.JPanel}
+	 * Student Record Constructor - creates an info {@link javax.swing.JPanel}
 	 * with {@link java.awt.FlowLayout} for info field and sends them it 
 	 * {@link ClubAbstractEntity#addToCenter}.
-	 * <br> Initializes {@link java.lang.String}, {@link javax.swing.JTextField}
+	 * <br> Initializes {@link javax.swing.JTextField} from the record
 	 * and {@link javax.swing.JLabel}s and add to them a tooltip with the method
 	 * {@link javax.swing.JComponent#setToolTipText}.
-	 * @param id student ID.
-	 * @param name student name.
-	 * @param surname student surname.
-	 * @param tel student phone number.
-	 * @param studentID student ID.
+	 * @param record holds the student info.
 	 */
-	public Student(String id, String name, String surname, String tel,
-		String studentID)
+	public Student(StudentRecord record)
 	{
-		super(id, name, surname, tel);
+		super(record);
 		
 		studentIDTextField = new JTextField(30);
 		
-		studentIDTextField.setText(studentID);
-		this.studentID = studentIDTextField.getText();
+		studentIDTextField.setText(record.getStudentID());
 		
 		JLabel studentIDLabel = new JLabel("Student ID");
 		studentIDLabel.setToolTipText("e.g: SCE12345, RUP56098, HIT14606");
@@ -72,35 +65,21 @@ public class Student extends Person
 	}
 	
 	/**
-	 * This method checks whether the studentID is empty with
-	 * {@link java.lang.Object#equals} or the Super method {@link Person#isEmpty}.
-	 * @return true or false whether an info field is empty.
+	 * This method returns the {@link StudentRecord} edited by the window.
+	 * @return record {@link StudentRecord}
 	 */
 	@Override
-	public boolean isEmpty()
+	public StudentRecord getRecord()
 	{
-		return super.isEmpty() || studentID.equals("");        
+		return (StudentRecord)super.getRecord();
 	}
 	
 	/**
-	 * This method checks whether the key sent is equal with 
-	 * {@link java.lang.Object#equals} to studentID from the 4th letter
-	 * (including) or to the Super method {@link Person#match}.
-	 * @param key may hold an id or numbers of studentID String.
-	 * @return true or false whether id, studentID or both are equal to the key.
-	 */
-	@Override
-	public boolean match(String key)
-	{
-		return super.match(key) || key.regionMatches(0, studentID, 3, 5);
-	}
-	
-	/**
-	 * This method validates whether the info field matches regular expressions 
-	 * with {@link java.lang.String#matches} if so it will set the asteriskLabel 
+	 * This method validates whether the info field matches its format 
+	 * with {@link ClubberValidator} if so it will set the asteriskLabel 
 	 * visibility to true, otherwise to false.
 	 * <br> It also invokes the Super method {@link Person#validateData}.
-	 * @return true or false whether all info fields match thier regular expressions.
+	 * @return true or false whether all info fields match thier formats.
 	 */
 	@Override
 	protected boolean validateData()
@@ -110,7 +89,7 @@ public class Student extends Person
 			return false;
 		}
 		
-		if (!studentIDTextField.getText().matches("[A-Z]{3}[1-9]\\d{4}"))
+		if (!ClubberValidator.isValidStudentID(studentIDTextField.getText()))
 		{
 			asteriskLabel.setVisible(true);
 			return false;
@@ -125,19 +104,19 @@ public class Student extends Person
 	
 	/**
 	 * This method uses {@link javax.swing.JTextField#getText} to recieve the text 
-	 * in the {@link javax.swing.JTextField} and save them in the info String.
-	 * <br> It also invokes the Super method {@link Person#commit}.
+	 * in the {@link javax.swing.JTextField} and build a {@link StudentRecord} from it.
+	 * <br> It also invokes the Super method {@link Person#buildRecord}.
+	 * @return a new {@link StudentRecord}.
 	 */
 	@Override
-	protected void commit()
+	protected StudentRecord buildRecord()
 	{
-		super.commit();
-		studentID = studentIDTextField.getText();
+		return new StudentRecord(super.buildRecord(), studentIDTextField.getText());
 	}
 	
 	/**
-	 * This method uses {@link javax.swing.JTextField#setText} to insert the info 
-	 * String into the {@link javax.swing.JTextField} and set the asteriskLabel
+	 * This method uses {@link javax.swing.JTextField#setText} to insert the record 
+	 * info into the {@link javax.swing.JTextField} and set the asteriskLabel
 	 * visibility to false.
 	 * <br> It also invokes the Super method {@link Person#rollBack}.
 	 */
@@ -146,17 +125,7 @@ public class Student extends Person
 	{
 		super.rollBack();
 		
-		studentIDTextField.setText(studentID);
+		studentIDTextField.setText(getRecord().getStudentID());
 		asteriskLabel.setVisible(false);
 	}
-	
-	/**
-	 * Overriden method to implement {@link Student} {@link java.lang.Object#toString}.
-	 * <br> It also invokes the Super method {@link Person#toString}. 
-	 */
-	@Override
-	public String toString()
-	{
-		return super.toString() + String.format("Student ID: %s\n", studentID);
-	}
-}
\ No newline at end of file
+}
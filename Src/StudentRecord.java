@@ -0,0 +1,94 @@
+/**
+ * This class extends from {@link PersonRecord}.
+ * <br> This Class holds the info fields of a student, it is edited through a
+ * {@link Student} window which is only built when the record is opened.
+ * This class overrides the methods: {@link PersonRecord#match} and
+ * {@link PersonRecord#isEmpty}.
+ * @author Lior Sabri, Ben Biton
+ */
+public class StudentRecord extends PersonRecord
+{
+	private static final long serialVersionUID = 1L;
+
+	private final String studentID;
+
+	/**
+	 * StudentRecord Empty Constructor - invokes arguments constructor with empty strings.
+	 */
+	public StudentRecord()
+	{
+		this("", "", "", "", "");
+	}
+
+	/**
+	 * StudentRecord Arguments Constructor - initializes all info fields.
+	 * @param id student ID.
+	 * @param name student name.
+	 * @param surname student surname.
+	 * @param tel student phone number.
+	 * @param studentID student ID.
+	 */
+	public StudentRecord(String id, String name, String surname, String tel,
+		String studentID)
+	{
+		super(id, name, surname, tel);
+
+		this.studentID = studentID;
+	}
+
+	/**
+	 * StudentRecord Person Constructor - extends the info fields of a
+	 * {@link PersonRecord} with a student ID.
+	 * @param person holds the students person info fields.
+	 * @param studentID student ID.
+	 */
+	public StudentRecord(PersonRecord person, String studentID)
+	{
+		super(person);
+
+		this.studentID = studentID;
+	}
+
+	/**
+	 * This method returns the {@link StudentRecord}s student ID.
+	 * @return studentID {@link java.lang.String}
+	 */
+	public String getStudentID()
+	{
+		return studentID;
+	}
+
+	/**
+	 * This method checks whether the studentID is empty with
+	 * {@link java.lang.Object#equals} or the Super method {@link PersonRecord#isEmpty}.
+	 * @return true or false whether an info field is empty.
+	 */
+	@Override
+	public boolean isEmpty()
+	{
+		return super.isEmpty() || "".equals(studentID);
+	}
+
+	/**
+	 * This method checks whether the key sent is equal with
+	 * {@link java.lang.Object#equals} to studentID from the 4th letter
+	 * (including) or to the Super method {@link PersonRecord#match}.
+	 * @param key may hold an id or numbers of studentID String.
+	 * @return true or false whether id, studentID or both are equal to the key.
+	 */
+	@Override
+	public boolean match(String key)
+	{
+		return super.match(key) || key.regionMatches(0, studentID, 3, 5);
+	}
+
+	/**
+	 * Overriden method to implement {@link StudentRecord} {@link java.lang.Object#toString}.
+	 * <br> It also invokes the Super method {@link PersonRecord#toString}.
+	 */
+	@Override
+	public String toString()
+	{
+		return super.toString() + String.format("Student ID: %s\n", studentID);
+	}
+}
@@ -0,0 +1,259 @@
+import java.nio.file.*;
+import java.util.*;
+import benchmarks.Workload;
+
+/**
+ * This class implements {@link benchmarks.Workload} for the JMH benchmarks.
+ * <br> The members are valid clubbers of a single type, so the match
+ * method, the checks and the text of that type are measured.
+ * @author Lior Sabri, Ben Biton
+ */
+public class ClubbersWorkload implements Workload
+{
+	// Number of random members the operations go over.
+	private static final int KEYS = 1024;
+
+	private ArrayList<ClubAbstractRecord> records;
+	private ClubbersRepository repository;
+	private Path file;
+
+	// Random members, the keys they are found by and IDs no member has.
+	private ClubAbstractRecord[] samples;
+	private String[] keys;
+	private String[] newIDs;
+	private int next;
+
+	/**
+	 * ClubbersWorkload Constructor - holds no members until {@link #setUp}.
+	 */
+	public ClubbersWorkload()
+	{
+	}
+
+	/**
+	 * This method creates the members of the {@link BenchClubbers} and the
+	 * repository which holds them.
+	 * @param members holds the number of members.
+	 * @param type holds the type of the members, Person, Soldier or Student.
+	 * @throws Exception if the file of the round trip can't be created.
+	 */
+	@Override
+	public void setUp(int members, String type) throws Exception
+	{
+		Random random = new Random(members);
+
+		records = new ArrayList<>(members);
+
+		for (int i = 0; i < members; i++)
+		{
+			records.add(record(i, type));
+		}
+
+		repository = new ClubbersRepository(records);
+		samples = new ClubAbstractRecord[KEYS];
+		keys = new String[KEYS];
+		newIDs = new String[KEYS];
+
+		for (int i = 0; i < KEYS; i++)
+		{
+			samples[i] = records.get(random.nextInt(members));
+			keys[i] = key(samples[i]);
+			newIDs[i] = BenchClubbers.id(members + random.nextInt(members));
+		}
+
+		file = Files.createTempFile("BKCustomers", ".dat");
+	}
+
+	/**
+	 * This method removes the file of the round trip.
+	 * @throws Exception if the file can't be removed.
+	 */
+	@Override
+	public void tearDown() throws Exception
+	{
+		ClubbersFile.delete(file);
+	}
+
+	/**
+	 * This method scans all the members with {@link ClubAbstractRecord#match}
+	 * for the key of a random member.
+	 * @return true or false whether a member matched.
+	 */
+	@Override
+	public boolean matchScan()
+	{
+		String key = keys[next()];
+
+		for (ClubAbstractRecord record : records)
+		{
+			if (record.match(key))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * This method finds the key of a random member with
+	 * {@link ClubbersRepository#find}.
+	 * @return true or false whether a member was found.
+	 */
+	@Override
+	public boolean find()
+	{
+		return repository.find(keys[next()]) != null;
+	}
+
+	/**
+	 * This method scans all the members with {@link ClubAbstractRecord#match}
+	 * for an ID no member has.
+	 * @return true or false whether a member matched.
+	 */
+	@Override
+	public boolean duplicateScan()
+	{
+		String id = newIDs[next()];
+
+		for (ClubAbstractRecord record : records)
+		{
+			if (record.match(id))
+			{
+				return true;
+			}
+		}
+
+		return false;
+	}
+
+	/**
+	 * This method checks an ID no member has with
+	 * {@link ClubbersRepository#containsID}.
+	 * @return true or false whether the ID exists.
+	 */
+	@Override
+	public boolean containsID()
+	{
+		return repository.containsID(newIDs[next()]);
+	}
+
+	/**
+	 * This method validates a random member with
+	 * {@link ClubberValidator#invalidField}.
+	 * @return the name of the first invalid field or null.
+	 */
+	@Override
+	public String validate()
+	{
+		return ClubberValidator.invalidField(samples[next()]);
+	}
+
+	/**
+	 * This method validates every field of a random member with the patterns
+	 * of {@link ClubberValidator}.
+	 * @return true or false whether all the fields are valid.
+	 */
+	@Override
+	public boolean validateRegex()
+	{
+		ClubAbstractRecord record = samples[next()];
+		PersonRecord person = (PersonRecord)record;
+		boolean valid = ClubberValidator.ID_PATTERN.matcher(person.getID()).matches() &&
+			ClubberValidator.NAME_PATTERN.matcher(person.getName()).matches() &&
+			ClubberValidator.SURNAME_PATTERN.matcher(person.getSurname()).matches() &&
+			ClubberValidator.TEL_PATTERN.matcher(person.getTel()).matches();
+
+		if (record instanceof SoldierRecord)
+		{
+			return valid && ClubberValidator.PERSONAL_NUMBER_PATTERN.matcher(
+				((SoldierRecord)record).getPersonalNumber()).matches();
+		}
+
+		if (record instanceof StudentRecord)
+		{
+			return valid && ClubberValidator.STUDENT_ID_PATTERN.matcher(
+				((StudentRecord)record).getStudentID()).matches();
+		}
+
+		return valid;
+	}
+
+	/**
+	 * This method formats a random member with its toString method.
+	 * @return the text of the member.
+	 */
+	@Override
+	public String format()
+	{
+		return samples[next()].toString();
+	}
+
+	/**
+	 * This method writes all the members with {@link ClubbersFile#write} and
+	 * reads them back.
+	 * @return the number of members read.
+	 * @throws Exception if the file can't be written or read.
+	 */
+	@Override
+	public int roundTrip() throws Exception
+	{
+		ClubbersFile.write(file, records);
+
+		return ClubbersFile.read(file).getRecords().size();
+	}
+
+	/**
+	 * This method returns the position of the next random member.
+	 * @return the position in the random members.
+	 */
+	private int next()
+	{
+		next = (next + 1) & (KEYS - 1);
+
+		return next;
+	}
+
+	/**
+	 * This method creates a valid member of the {@link BenchClubbers}.
+	 * @param number holds the number of the member, every number has its own
+	 * ID, personal number and student ID.
+	 * @param type holds the type of the member.
+	 * @return the record of the member.
+	 */
+	private static ClubAbstractRecord record(int number, String type)
+	{
+		if (type.equals(SOLDIER))
+		{
+			return BenchClubbers.soldier(number);
+		}
+
+		if (type.equals(STUDENT))
+		{
+			return BenchClubbers.student(number);
+		}
+
+		return BenchClubbers.person(number);
+	}
+
+	/**
+	 * This method returns the key a member is searched by, the personal
+	 * number of a soldier, the student numbers of a student or the ID.
+	 * @param record holds the member.
+	 * @return the key.
+	 */
+	private static String key(ClubAbstractRecord record)
+	{
+		if (record instanceof SoldierRecord)
+		{
+			return ((SoldierRecord)record).getPersonalNumber();
+		}
+
+		if (record instanceof StudentRecord)
+		{
+			return ((StudentRecord)record).getStudentID().substring(3);
+		}
+
+		return record.getID();
+	}
+}
@@ -0,0 +1,51 @@
+package benchmarks;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * This class measures the checks of the validateData methods of the clubber
+ * windows, with {@link ClubberValidator} and with its regular expressions,
+ * and the toString text of a member.
+ * @author Lior Sabri, Ben Biton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FormatBenchmark
+{
+	/**
+	 * This method validates a member with the checks of the windows.
+	 * @param state holds the members.
+	 * @return the first invalid field or null.
+	 */
+	@Benchmark
+	public String validate(Members state)
+	{
+		return state.workload.validate();
+	}
+
+	/**
+	 * This method validates a member with the regular expressions.
+	 * @param state holds the members.
+	 * @return whether the member is valid.
+	 */
+	@Benchmark
+	public boolean validateRegex(Members state)
+	{
+		return state.workload.validateRegex();
+	}
+
+	/**
+	 * This method formats a member.
+	 * @param state holds the members.
+	 * @return the text of the member.
+	 */
+	@Benchmark
+	public String format(Members state)
+	{
+		return state.workload.format();
+	}
+}
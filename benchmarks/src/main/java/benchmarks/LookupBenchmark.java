@@ -0,0 +1,62 @@
+package benchmarks;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * This class measures finding a member by a key and checking whether an ID
+ * exists, by scanning the members with their match method as the window did
+ * and with the indexes of the {@link Workload} repository.
+ * @author Lior Sabri, Ben Biton
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LookupBenchmark
+{
+	/**
+	 * This method scans the members for the key of a member.
+	 * @param state holds the members.
+	 * @return whether a member matched.
+	 */
+	@Benchmark
+	public boolean matchScan(Members state)
+	{
+		return state.workload.matchScan();
+	}
+
+	/**
+	 * This method finds the key of a member in the indexes.
+	 * @param state holds the members.
+	 * @return whether a member was found.
+	 */
+	@Benchmark
+	public boolean find(Members state)
+	{
+		return state.workload.find();
+	}
+
+	/**
+	 * This method scans the members for a new ID, as createClubber did.
+	 * @param state holds the members.
+	 * @return whether a member matched.
+	 */
+	@Benchmark
+	public boolean duplicateScan(Members state)
+	{
+		return state.workload.duplicateScan();
+	}
+
+	/**
+	 * This method checks a new ID in the index, as createClubber does.
+	 * @param state holds the members.
+	 * @return whether the ID exists.
+	 */
+	@Benchmark
+	public boolean containsID(Members state)
+	{
+		return state.workload.containsID();
+	}
+}
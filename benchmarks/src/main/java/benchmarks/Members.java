@@ -0,0 +1,42 @@
+package benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * This class is the JMH state of the benchmarks, a {@link Workload} of a
+ * number of members of one type.
+ * <br> Every benchmark is run with 1K, 100K and 1M members of each type.
+ * @author Lior Sabri, Ben Biton
+ */
+@State(Scope.Benchmark)
+public class Members
+{
+	@Param({"1000", "100000", "1000000"})
+	public int members;
+
+	@Param({Workload.PERSON, Workload.SOLDIER, Workload.STUDENT})
+	public String type;
+
+	public Workload workload;
+
+	/**
+	 * This method creates the members before the iterations of a run.
+	 * @throws Exception if the workload can't be created.
+	 */
+	@Setup(Level.Trial)
+	public void setUp() throws Exception
+	{
+		workload = Workload.create();
+		workload.setUp(members, type);
+	}
+
+	/**
+	 * This method removes the files of the run.
+	 * @throws Exception if a file can't be removed.
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception
+	{
+		workload.tearDown();
+	}
+}
@@ -0,0 +1,31 @@
+package benchmarks;
+
+import java.util.concurrent.*;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * This class measures saving all the members into the clubbers file and
+ * loading them back, as writeClubbersDBtoFile and loadClubbersDBFromFile do.
+ * <br> A round trip of 1M members takes seconds, so it is timed once per
+ * iteration.
+ * @author Lior Sabri, Ben Biton
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class PersistenceBenchmark
+{
+	/**
+	 * This method writes and reads the clubbers file.
+	 * @param state holds the members.
+	 * @return the number of members read.
+	 * @throws Exception if the file can't be written or read.
+	 */
+	@Benchmark
+	public int roundTrip(Members state) throws Exception
+	{
+		return state.workload.roundTrip();
+	}
+}
@@ -0,0 +1,102 @@
+package benchmarks;
+
+/**
+ * This interface is the part of the clubbers a benchmark runs.
+ * <br> JMH only runs benchmarks which are in a package, while the clubbers
+ * are in the default package which a package can't import. The benchmarks
+ * therefore call the clubbers through this interface, which the
+ * ClubbersWorkload class of the default package implements, and every call
+ * has a single target the JIT inlines.
+ * <br> Every operation uses the next of a fixed set of random members, so
+ * the same keys are used by every run.
+ * @author Lior Sabri, Ben Biton
+ */
+public interface Workload
+{
+	// The class of the default package which implements the interface.
+	String IMPLEMENTATION = "ClubbersWorkload";
+
+	// The types of clubbers.
+	String PERSON = "Person";
+	String SOLDIER = "Soldier";
+	String STUDENT = "Student";
+
+	/**
+	 * This method creates the workload of the default package.
+	 * @return a new {@link Workload}.
+	 * @throws ReflectiveOperationException if the class can't be created.
+	 */
+	static Workload create() throws ReflectiveOperationException
+	{
+		return (Workload)Class.forName(IMPLEMENTATION).getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * This method creates the members and the repository which holds them.
+	 * @param members holds the number of members.
+	 * @param type holds the type of the members, Person, Soldier or Student.
+	 * @throws Exception if the file of the round trip can't be created.
+	 */
+	void setUp(int members, String type) throws Exception;
+
+	/**
+	 * This method removes the file of the round trip.
+	 * @throws Exception if the file can't be removed.
+	 */
+	void tearDown() throws Exception;
+
+	/**
+	 * This method scans all the members with the match method of the records
+	 * for the key of a member, as the search of the window did.
+	 * @return true or false whether a member matched.
+	 */
+	boolean matchScan();
+
+	/**
+	 * This method finds the key of a member in the indexes of the repository.
+	 * @return true or false whether a member was found.
+	 */
+	boolean find();
+
+	/**
+	 * This method scans all the members with the match method of the records
+	 * for an ID no member has, as the duplicate check of a new clubber did.
+	 * @return true or false whether a member matched.
+	 */
+	boolean duplicateScan();
+
+	/**
+	 * This method checks an ID no member has in the index of the repository,
+	 * as the duplicate check of a new clubber does.
+	 * @return true or false whether the ID exists.
+	 */
+	boolean containsID();
+
+	/**
+	 * This method validates every field of a member with the checks of the
+	 * clubber windows.
+	 * @return the name of the first invalid field or null.
+	 */
+	String validate();
+
+	/**
+	 * This method validates every field of a member with the regular
+	 * expressions of the clubber windows.
+	 * @return true or false whether all the fields are valid.
+	 */
+	boolean validateRegex();
+
+	/**
+	 * This method formats a member with its toString method.
+	 * @return the text of the member.
+	 */
+	String format();
+
+	/**
+	 * This method writes all the members into the clubbers file and reads
+	 * them back.
+	 * @return the number of members read.
+	 * @throws Exception if the file can't be written or read.
+	 */
+	int roundTrip() throws Exception;
+}